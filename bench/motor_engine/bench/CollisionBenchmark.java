@@ -0,0 +1,44 @@
+package motor_engine.bench;
+import motor_engine.*;
+import motor_engine.util.Collision;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures Collision.check over every pair of a number of boxes, about a tenth of which overlap.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+
+	@Param({"100", "1000"})
+	public int count;
+
+	private Entity[] boxes;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		boxes = Scenes.createBoxes(count, Math.sqrt(count) * 60);
+	}
+
+	@Benchmark
+	public int checkPairs() {
+		int hits = 0;
+		for (int i = 0; i < boxes.length; i++) {
+			for (int j = i + 1; j < boxes.length; j++) {
+				if (Collision.check(boxes[i], boxes[j])) {
+					hits++;
+				}
+			}
+		}
+		return hits;
+	}
+}
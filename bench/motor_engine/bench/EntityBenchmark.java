@@ -0,0 +1,59 @@
+package motor_engine.bench;
+import motor_engine.*;
+import motor_engine.components.*;
+import motor_engine.util.vector.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures changing the values of an Entity's Components through the Entity, for an Entity owned by a State
+ * and one that is not.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+
+	private motor_engine.State state;
+	private Entity owned;
+	private Entity detached;
+	private Vector2d v = new Vector2d(0.5, -0.25);
+	private Vector2d out = new Vector2d();
+
+	@Setup(Level.Trial)
+	public void setup() {
+		state = Scenes.createState(1000);
+		owned = state.getEntities()[500];
+		detached = Scenes.createMover("detached", new Random(42));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		state.end();
+		detached.end();
+	}
+
+	@Benchmark
+	public void addVector2d() {
+		owned.addVector2d(Velocity.class, v);
+	}
+
+	@Benchmark
+	public void addVector2dDetached() {
+		detached.addVector2d(Velocity.class, v);
+	}
+
+	@Benchmark
+	public ReadableVector2d getVector2d() {
+		owned.getVector2d(Velocity.class, out);
+		return out;
+	}
+}
@@ -0,0 +1,60 @@
+package motor_engine.bench;
+import motor_engine.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures finding Entities by type in a Group and by name in a State.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int count;
+
+	private motor_engine.State state;
+	private Group group;
+
+	// the names looked up in turn
+	private String[] names;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		state = Scenes.createState(count);
+		group = Scenes.createGroup(count);
+		Entity[] es = state.getEntities();
+		names = new String[es.length];
+		for (int i = 0; i < es.length; i++) {
+			names[i] = es[(int) ((i * 7919L) % es.length)].getName();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		state.end();
+		group.end();
+	}
+
+	@Benchmark
+	public Entity[] groupGetEntities() {
+		return group.getEntities(Scenes.TYPES[next++ & 3]);
+	}
+
+	@Benchmark
+	public Entity stateGetEntity() {
+		if (next == names.length) {
+			next = 0;
+		}
+		return state.getEntity(names[next++]);
+	}
+}
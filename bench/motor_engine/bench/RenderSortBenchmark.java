@@ -0,0 +1,87 @@
+package motor_engine.bench;
+import motor_engine.*;
+import motor_engine.components.*;
+import motor_engine.render.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the DefaultRenderer collecting a snapshot of sprites and sorting them into draw order.
+ * The game runs headless so there is no OpenGL context and the images are only read for their sizes.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderSortBenchmark {
+
+	// the number of different images and depths
+	private static final int IMAGES = 8;
+	private static final int DEPTHS = 16;
+
+	@Param({"1000", "10000", "100000"})
+	public int count;
+
+	private motor_engine.State state;
+	private RenderSnapshot snapshot;
+	private DefaultRenderer renderer;
+	private File directory;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		Scenes.setup();
+
+		// write the images to read
+		directory = File.createTempFile("motor", "bench");
+		directory.delete();
+		directory.mkdir();
+		String[] paths = new String[IMAGES];
+		for (int i = 0; i < IMAGES; i++) {
+			File f = new File(directory, i + ".png");
+			ImageIO.write(new BufferedImage(8 + i, 8 + i, BufferedImage.TYPE_INT_ARGB), "png", f);
+			paths[i] = f.getPath();
+		}
+
+		Random r = new Random(42);
+		state = new motor_engine.State(1000, 1000);
+		for (int i = 0; i < count; i++) {
+			Entity e = new Entity("sprite");
+			e.add(new Position(r.nextDouble() * 1000 - 500, r.nextDouble() * 1000 - 500));
+			e.add(new Sprite(paths[r.nextInt(IMAGES)]));
+			e.add(new ZOrder(r.nextInt(DEPTHS)));
+			e.setActive(true);
+			state.add(e);
+		}
+		state.begin();
+		// nothing is captured until a renderer asks for a snapshot
+		state.getSnapshots().acquire();
+		state.update(16);
+		snapshot = state.getSnapshots().acquire();
+		renderer = new DefaultRenderer();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		state.end();
+		for (File f : directory.listFiles()) {
+			f.delete();
+		}
+		directory.delete();
+	}
+
+	@Benchmark
+	public int collect() {
+		return renderer.collect(snapshot);
+	}
+}
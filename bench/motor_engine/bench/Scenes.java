@@ -0,0 +1,99 @@
+package motor_engine.bench;
+import motor_engine.*;
+import motor_engine.components.*;
+import java.util.Random;
+
+/**
+ * Builds the scenes measured by the benchmarks. Every scene is filled from the same seed so runs compare.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+class Scenes {
+
+	// the entity types of the scenes
+	static final String[] TYPES = {"ball", "block", "bullet", "enemy"};
+
+	private Scenes() {
+
+	}
+
+	/**
+	 * Run headless.
+	 */
+	static void setup() {
+		MotorEngine.setHeadless(true);
+	}
+
+	/**
+	 * Create a moving Entity with a Position, Velocity, Acceleration and Drag.
+	 *
+	 * @param	type	The type of the Entity.
+	 * @param	r		The random values.
+	 * @return			The active Entity.
+	 */
+	static Entity createMover(String type, Random r) {
+		Entity e = new Entity(type);
+		e.add(new Position(r.nextDouble() * 1000 - 500, r.nextDouble() * 1000 - 500));
+		e.add(new Velocity(r.nextDouble() * 100 - 50, r.nextDouble() * 100 - 50));
+		e.add(new Acceleration(0, -9.8));
+		e.add(new Drag(1, 1));
+		e.setActive(true);
+		return e;
+	}
+
+	/**
+	 * Create a State of moving Entities of every type.
+	 *
+	 * @param	count	The number of Entities.
+	 * @return			The begun State.
+	 */
+	static State createState(int count) {
+		setup();
+		Random r = new Random(42);
+		State s = new State(1000, 1000);
+		for (int i = 0; i < count; i++) {
+			s.add(createMover(TYPES[i % TYPES.length], r));
+		}
+		s.begin();
+		return s;
+	}
+
+	/**
+	 * Create a Group of moving Entities of every type that does not belong to a State.
+	 *
+	 * @param	count	The number of Entities.
+	 * @return			The begun Group.
+	 */
+	static Group createGroup(int count) {
+		setup();
+		Random r = new Random(42);
+		Group g = new Group();
+		for (int i = 0; i < count; i++) {
+			g.add(createMover(TYPES[i % TYPES.length], r));
+		}
+		g.begin();
+		return g;
+	}
+
+	/**
+	 * Create boxes with a Position and Size spread over a square, so some of them overlap.
+	 *
+	 * @param	count	The number of boxes.
+	 * @param	spread	The width of the square.
+	 * @return			The active Entities.
+	 */
+	static Entity[] createBoxes(int count, double spread) {
+		setup();
+		Random r = new Random(42);
+		Entity[] es = new Entity[count];
+		for (int i = 0; i < count; i++) {
+			Entity e = new Entity("box");
+			e.add(new Position(r.nextDouble() * spread, r.nextDouble() * spread));
+			e.add(new Size(10 + r.nextDouble() * 20, 10 + r.nextDouble() * 20));
+			e.setActive(true);
+			es[i] = e;
+		}
+		return es;
+	}
+}
@@ -0,0 +1,49 @@
+package motor_engine.bench;
+import motor_engine.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures one update of moving Entities, by a State in passes over its component classes and by a Group
+ * one Entity at a time.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int count;
+
+	private motor_engine.State state;
+	private Group group;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		state = Scenes.createState(count);
+		group = Scenes.createGroup(count);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		state.end();
+		group.end();
+	}
+
+	@Benchmark
+	public void stateUpdate() {
+		state.update(16);
+	}
+
+	@Benchmark
+	public void groupUpdate() {
+		group.update(16);
+	}
+}
@@ -0,0 +1,96 @@
+package motor_engine.bench;
+import motor_engine.util.vector.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the Vectors operations, returning new vectors and writing into given ones.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorsBenchmark {
+
+	private Vector2d a = new Vector2d(3, -4);
+	private Vector2d b = new Vector2d(-1.5, 2.5);
+	private Vector2d out = new Vector2d();
+	private Vector3d a3 = new Vector3d(3, -4, 12);
+	private Vector3d b3 = new Vector3d(-1.5, 2.5, 0.5);
+	private Vector3d out3 = new Vector3d();
+	private double r = 0.016;
+
+	@Benchmark
+	public ReadableVector2d add() {
+		return Vectors.add(a, b);
+	}
+
+	@Benchmark
+	public ReadableVector2d addInto() {
+		return Vectors.add(a, b, out);
+	}
+
+	@Benchmark
+	public ReadableVector2d multiply() {
+		return Vectors.multiply(a, r);
+	}
+
+	@Benchmark
+	public ReadableVector2d multiplyInto() {
+		return Vectors.multiply(a, r, out);
+	}
+
+	@Benchmark
+	public ReadableVector2d normalize() {
+		return Vectors.normalize(a);
+	}
+
+	@Benchmark
+	public ReadableVector2d normalizeInto() {
+		return Vectors.normalize(a, out);
+	}
+
+	@Benchmark
+	public ReadableVector2d constrain() {
+		return Vectors.constrain(a, -2, 2);
+	}
+
+	@Benchmark
+	public ReadableVector2d constrainInto() {
+		return Vectors.constrain(a, -2, 2, out);
+	}
+
+	@Benchmark
+	public ReadableVector2d scratch() {
+		ScratchVectors scratch = ScratchVectors.get();
+		int mark = scratch.mark();
+		Vectors.multiply(Vectors.add(a, b, scratch.vector2d()), r, out);
+		scratch.release(mark);
+		return out;
+	}
+
+	@Benchmark
+	public ReadableVector3d add3d() {
+		return Vectors.add(a3, b3);
+	}
+
+	@Benchmark
+	public ReadableVector3d add3dInto() {
+		return Vectors.add(a3, b3, out3);
+	}
+
+	@Benchmark
+	public ReadableVector3d normalize3d() {
+		return Vectors.normalize(a3);
+	}
+
+	@Benchmark
+	public ReadableVector3d normalize3dInto() {
+		return Vectors.normalize(a3, out3);
+	}
+}
@@ -0,0 +1,659 @@
+package motor_engine;
+import motor_engine.components.DoubleComponent;
+import motor_engine.components.Vector2dComponent;
+import java.util.*;
+
+/**
+ * An Archetype stores every Entity of a ComponentStorage that has exactly the same set of Component classes.
+ * Each Component class has a slot holding the Component objects row by row, and the values of Vector2dComponents
+ * and DoubleComponents are kept in parallel double columns so they can be iterated without chasing references.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Archetype {
+
+	// the initial number of rows
+	private static final int INITIAL_CAPACITY = 16;
+
+	// whether the components of a slot are updated
+	private static final byte UNKNOWN = 0;
+	private static final byte UPDATED = 1;
+	private static final byte NOT_UPDATED = 2;
+
+	// the storage this archetype belongs to
+	private ComponentStorage storage;
+
+	// the component classes of this archetype in signature order
+	private Class<? extends Component>[] types;
+
+	// the slot index of each component class
+	private HashMap<Class<? extends Component>, Integer> slots;
+
+	// the first double column of each slot, -1 if the slot has no columns
+	private int[] firstColumn;
+
+	// the component objects by slot then row
+	private Component[][] components;
+
+	// whether the components of each slot are updated, their priority and whether they may be updated in parallel,
+	// learnt from the first component stored
+	private byte[] updated;
+	private double[] priorities;
+	private boolean[] parallelSafe;
+
+	// the updated slots in priority order, null until needed
+	private int[] order;
+
+	// the double columns by column then row
+	private double[][] columns;
+
+	// the values of the double columns at the start of the last update, for interpolation
+	private double[][] previous;
+
+	// the entity in each row
+	private Entity[] entities;
+
+	// the active status of the entity in each row
+	private boolean[] active;
+
+	// whether the entity in each row is asleep
+	private boolean[] sleeping;
+
+	// whether a row may have been added, activated or woken since the last settle
+	private boolean restless;
+
+	// the number of rows in use
+	private int size;
+
+	// cached archetypes reached by adding or removing a component class
+	private HashMap<Class<? extends Component>, Archetype> addEdges;
+	private HashMap<Class<? extends Component>, Archetype> removeEdges;
+
+	/**
+	 * Create a new Archetype for the given component classes.
+	 *
+	 * @param	storage	The ComponentStorage owning this Archetype.
+	 * @param	types	The component classes in signature order.
+	 */
+	Archetype(ComponentStorage storage, Class<? extends Component>[] types) {
+		this.storage = storage;
+		this.types = types;
+		slots = new HashMap<Class<? extends Component>, Integer>();
+		addEdges = new HashMap<Class<? extends Component>, Archetype>();
+		removeEdges = new HashMap<Class<? extends Component>, Archetype>();
+
+		// lay out the columns
+		firstColumn = new int[types.length];
+		int columnCount = 0;
+		for (int i = 0; i < types.length; i++) {
+			slots.put(types[i], i);
+			int count = getColumnCount(types[i]);
+			if (count > 0) {
+				firstColumn[i] = columnCount;
+				columnCount += count;
+			}
+			else {
+				firstColumn[i] = -1;
+			}
+		}
+
+		int capacity = (types.length == 0) ? 0 : INITIAL_CAPACITY;
+		entities = new Entity[capacity];
+		active = new boolean[capacity];
+		sleeping = new boolean[capacity];
+		components = new Component[types.length][capacity];
+		updated = new byte[types.length];
+		priorities = new double[types.length];
+		parallelSafe = new boolean[types.length];
+		columns = new double[columnCount][capacity];
+		previous = new double[columnCount][capacity];
+	}
+
+	/**
+	 * Get the number of double columns a component class is stored in.
+	 *
+	 * @param	type	The component class.
+	 * @return			2 for Vector2dComponents, 1 for DoubleComponents and 0 for everything else.
+	 */
+	public static int getColumnCount(Class<? extends Component> type) {
+		if (Vector2dComponent.class.isAssignableFrom(type)) {
+			return 2;
+		}
+		else if (DoubleComponent.class.isAssignableFrom(type)) {
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Get the ComponentStorage this Archetype belongs to.
+	 *
+	 * @return	The owning ComponentStorage.
+	 */
+	public ComponentStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Get the number of Entities stored in this Archetype.
+	 *
+	 * @return	The number of rows in use.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if this Archetype currently stores no Entities.
+	 *
+	 * @return	True if there are no rows in use, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Get the Entity stored in the given row.
+	 *
+	 * @param	row	The row.
+	 * @return		The Entity.
+	 */
+	public Entity getEntity(int row) {
+		return entities[row];
+	}
+
+	/**
+	 * Check if the Entity in the given row is active without going through the Entity.
+	 *
+	 * @param	row	The row.
+	 * @return		True if the Entity is active, false otherwise.
+	 */
+	public boolean isActive(int row) {
+		return active[row];
+	}
+
+	// Called by the Entity when its active status changes
+	void setActive(int row, boolean b) {
+		active[row] = b;
+		restless |= b;
+	}
+
+	/**
+	 * Check if the Entity in the given row is asleep without going through the Entity.
+	 *
+	 * @param	row	The row.
+	 * @return		True if the Entity is asleep, false otherwise.
+	 */
+	public boolean isSleeping(int row) {
+		return sleeping[row];
+	}
+
+	// Called by the Entity when it falls asleep or wakes
+	void setSleeping(int row, boolean b) {
+		sleeping[row] = b;
+		restless |= !b;
+	}
+
+	/**
+	 * Get the number of component classes in this Archetype.
+	 *
+	 * @return	The number of slots.
+	 */
+	public int getTypeCount() {
+		return types.length;
+	}
+
+	/**
+	 * Get the component class in the given slot.
+	 *
+	 * @param	slot	The slot index.
+	 * @return			The component class.
+	 */
+	public Class<? extends Component> getType(int slot) {
+		return types[slot];
+	}
+
+	/**
+	 * Check if Entities of this Archetype have the given component class.
+	 *
+	 * @param	type	The component class.
+	 * @return			True if this Archetype has a slot for the class, false otherwise.
+	 */
+	public boolean has(Class<? extends Component> type) {
+		return slots.containsKey(type);
+	}
+
+	/**
+	 * Get the slot index of a component class.
+	 *
+	 * @param	type	The component class.
+	 * @return			The slot index, or -1 if this Archetype does not have the class.
+	 */
+	public int getSlot(Class<? extends Component> type) {
+		Integer slot = slots.get(type);
+		return (slot == null) ? -1 : slot.intValue();
+	}
+
+	/**
+	 * Get the index of the first double column of a component class.
+	 * Vector2dComponents store x in this column and y in the next one.
+	 *
+	 * @param	type	The component class.
+	 * @return			The column index, or -1 if the class is not stored in columns.
+	 */
+	public int getColumnIndex(Class<? extends Component> type) {
+		int slot = getSlot(type);
+		return (slot < 0) ? -1 : firstColumn[slot];
+	}
+
+	/**
+	 * Get a double column. The array may be longer than the number of rows in use and is replaced when the Archetype grows.
+	 *
+	 * @param	column	The column index.
+	 * @return			The backing array of the column.
+	 */
+	public double[] getColumn(int column) {
+		return columns[column];
+	}
+
+	/**
+	 * Get the values a double column had at the start of the last update.
+	 * The array may be longer than the number of rows in use and is replaced when the Archetype grows.
+	 *
+	 * @param	column	The column index.
+	 * @return			The backing array of the previous values of the column.
+	 */
+	public double[] getPrevious(int column) {
+		return previous[column];
+	}
+
+	/**
+	 * Set a value of a double column along with its previous value, so it is not interpolated from the old value.
+	 *
+	 * @param	column	The column index.
+	 * @param	row		The row.
+	 * @param	value	The value.
+	 */
+	void setValue(int column, int row, double value) {
+		columns[column][row] = value;
+		previous[column][row] = value;
+	}
+
+	/**
+	 * Copy the current values of every double column into the previous values.
+	 */
+	void savePrevious() {
+		for (int i = 0; i < columns.length; i++) {
+			System.arraycopy(columns[i], 0, previous[i], 0, size);
+		}
+	}
+
+	/**
+	 * Get the Component object of a class in a given row.
+	 *
+	 * @param	type	The component class.
+	 * @param	row		The row.
+	 * @return			The Component, or null if this Archetype does not have the class.
+	 */
+	public Component get(Class<? extends Component> type, int row) {
+		int slot = getSlot(type);
+		return (slot < 0) ? null : components[slot][row];
+	}
+
+	/**
+	 * Get the Component object in a given slot and row.
+	 *
+	 * @param	slot	The slot index.
+	 * @param	row		The row.
+	 * @return			The Component.
+	 */
+	public Component getComponent(int slot, int row) {
+		return components[slot][row];
+	}
+
+	// storage edges
+
+	/**
+	 * Get the Archetype of an Entity of this Archetype after adding a component class.
+	 */
+	Archetype with(Class<? extends Component> type) {
+		Archetype a = addEdges.get(type);
+		if (a == null) {
+			a = storage.getArchetype(this, type, true);
+			addEdges.put(type, a);
+		}
+		return a;
+	}
+
+	/**
+	 * Get the Archetype of an Entity of this Archetype after removing a component class.
+	 */
+	Archetype without(Class<? extends Component> type) {
+		Archetype a = removeEdges.get(type);
+		if (a == null) {
+			a = storage.getArchetype(this, type, false);
+			removeEdges.put(type, a);
+		}
+		return a;
+	}
+
+	// row management
+
+	/**
+	 * Reserve a row for the given Entity. The Archetype without any component classes does not store Entities.
+	 *
+	 * @param	e	The Entity to store.
+	 * @return		The reserved row, or -1 if this Archetype has no component classes.
+	 */
+	int allocate(Entity e) {
+		if (types.length == 0) {
+			return -1;
+		}
+		if (size == entities.length) {
+			grow(size * 2);
+		}
+		entities[size] = e;
+		active[size] = e.isActive();
+		sleeping[size] = e.isSleeping();
+		restless = true;
+		return size++;
+	}
+
+	/**
+	 * Make room for a number of rows to be allocated without growing in between.
+	 *
+	 * @param	count	The number of rows about to be allocated.
+	 */
+	void reserve(int count) {
+		if (size + count > entities.length) {
+			grow(Math.max(size + count, entities.length * 2));
+		}
+	}
+
+	// grow all the arrays to the new capacity
+	private void grow(int capacity) {
+		entities = Arrays.copyOf(entities, capacity);
+		active = Arrays.copyOf(active, capacity);
+		sleeping = Arrays.copyOf(sleeping, capacity);
+		for (int i = 0; i < components.length; i++) {
+			components[i] = Arrays.copyOf(components[i], capacity);
+		}
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = Arrays.copyOf(columns[i], capacity);
+			previous[i] = Arrays.copyOf(previous[i], capacity);
+		}
+	}
+
+	/**
+	 * Store a Component in a row and bind its values to the columns.
+	 * A Component already bound to a row of another Entity stays bound there and is only referenced by this row.
+	 * The previous values are carried over from the row the Entity is moving from, or start at the current values.
+	 *
+	 * @param	row		The row of the owning Entity.
+	 * @param	c		The Component to store.
+	 * @param	from	The Archetype the Entity is moving from, or null.
+	 * @param	fromRow	The row the Entity is moving from.
+	 */
+	void set(int row, Component c, Archetype from, int fromRow) {
+		set(getSlot(c.getClass()), row, c, from, fromRow);
+	}
+
+	/**
+	 * Store a Component in a row of a known slot, without looking the slot up.
+	 *
+	 * @param	slot	The slot of the Component's class.
+	 * @param	row		The row of the owning Entity.
+	 * @param	c		The Component to store.
+	 * @param	from	The Archetype the Entity is moving from, or null.
+	 * @param	fromRow	The row the Entity is moving from.
+	 */
+	void set(int slot, int row, Component c, Archetype from, int fromRow) {
+		components[slot][row] = c;
+		if (updated[slot] == UNKNOWN) {
+			updated[slot] = c.isUpdated() ? UPDATED : NOT_UPDATED;
+			parallelSafe[slot] = c.isParallelSafe();
+			priorities[slot] = c.getPriority();
+			order = null;
+			storage.invalidatePasses();
+		}
+		if (firstColumn[slot] >= 0) {
+			Columnar col = (Columnar) c;
+			if (!col.isBound() || col.isBoundTo(from, fromRow)) {
+				col.bind(this, firstColumn[slot], row);
+			}
+			int fromColumn = (from != null) ? from.getColumnIndex(types[slot]) : -1;
+			for (int i = 0; i < getColumnCount(types[slot]); i++) {
+				int column = firstColumn[slot] + i;
+				previous[column][row] = (fromColumn >= 0) ? from.previous[fromColumn + i][fromRow] : columns[column][row];
+			}
+		}
+	}
+
+	/**
+	 * Move an Entity from a row of this Archetype to another Archetype.
+	 * Components missing from the target are unbound so they keep their values.
+	 *
+	 * @param	e		The Entity to move.
+	 * @param	row		The row of the Entity in this Archetype, or -1 if it is not stored here.
+	 * @param	target	The Archetype to move to.
+	 * @return			The row of the Entity in the target.
+	 */
+	int moveTo(Entity e, int row, Archetype target) {
+		int newRow = target.allocate(e);
+		if (row >= 0) {
+			for (int slot = 0; slot < types.length; slot++) {
+				Component c = components[slot][row];
+				if (target.has(types[slot])) {
+					target.set(newRow, c, this, row);
+				}
+				else if (firstColumn[slot] >= 0 && ((Columnar) c).isBoundTo(this, row)) {
+					((Columnar) c).unbind();
+				}
+			}
+			release(row);
+		}
+		return newRow;
+	}
+
+	/**
+	 * Replace the Component of a class in a row.
+	 *
+	 * @param	row	The row.
+	 * @param	c	The new Component.
+	 */
+	void replace(int row, Component c) {
+		int slot = getSlot(c.getClass());
+		Component old = components[slot][row];
+		if (old != c && firstColumn[slot] >= 0 && ((Columnar) old).isBoundTo(this, row)) {
+			((Columnar) old).unbind();
+		}
+		set(row, c, null, -1);
+	}
+
+	/**
+	 * Remove an Entity and all its Components from a row. The last row is moved into the emptied one.
+	 * Components still bound to the row are unbound first.
+	 *
+	 * @param	row	The row to remove.
+	 */
+	void remove(int row) {
+		for (int slot = 0; slot < types.length; slot++) {
+			Component c = components[slot][row];
+			if (firstColumn[slot] >= 0 && ((Columnar) c).isBoundTo(this, row)) {
+				((Columnar) c).unbind();
+			}
+		}
+		release(row);
+	}
+
+	// swap the last row into the given row and clear the last row
+	private void release(int row) {
+		int last = size - 1;
+		if (row != last) {
+			Entity moved = entities[last];
+			entities[row] = moved;
+			active[row] = active[last];
+			sleeping[row] = sleeping[last];
+			moved.setRow(row);
+			for (int i = 0; i < columns.length; i++) {
+				columns[i][row] = columns[i][last];
+				previous[i][row] = previous[i][last];
+			}
+			for (int slot = 0; slot < types.length; slot++) {
+				Component c = components[slot][last];
+				components[slot][row] = c;
+				if (firstColumn[slot] >= 0 && ((Columnar) c).isBoundTo(this, last)) {
+					((Columnar) c).bind(this, firstColumn[slot], row);
+				}
+			}
+		}
+		entities[last] = null;
+		for (int slot = 0; slot < types.length; slot++) {
+			components[slot][last] = null;
+		}
+		size--;
+	}
+
+	// updating
+
+	/**
+	 * Check if the Components of a slot do something when updated.
+	 *
+	 * @param	slot	The slot.
+	 * @return			True if the slot is updated, false if it only holds values or is not known yet.
+	 */
+	boolean isUpdated(int slot) {
+		return updated[slot] == UPDATED;
+	}
+
+	/**
+	 * Check if the Components of a slot may be updated on several threads at once.
+	 *
+	 * @param	slot	The slot.
+	 * @return			True if the first Component stored in the slot is parallel safe.
+	 */
+	boolean isParallelSafe(int slot) {
+		return parallelSafe[slot];
+	}
+
+	/**
+	 * Get the update priority of the Components of a slot, taken from the first Component stored in it.
+	 *
+	 * @param	slot	The slot.
+	 * @return			The priority, lower priorities are updated first.
+	 */
+	double getPriority(int slot) {
+		return priorities[slot];
+	}
+
+	// get the updated slots in priority order
+	private int[] getOrder() {
+		if (order == null) {
+			Integer[] sorted = new Integer[types.length];
+			int count = 0;
+			for (int slot = 0; slot < types.length; slot++) {
+				if (updated[slot] == UPDATED) {
+					sorted[count++] = slot;
+				}
+			}
+			// stable, so equal priorities keep the signature order
+			Arrays.sort(sorted, 0, count, new Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+					return Double.compare(priorities[a], priorities[b]);
+				}
+			});
+			int[] o = new int[count];
+			for (int i = 0; i < count; i++) {
+				o[i] = sorted[i];
+			}
+			order = o;
+		}
+		return order;
+	}
+
+	/**
+	 * Update the Components of one slot in every active, awake row.
+	 *
+	 * @param	slot		The slot to update.
+	 * @param	deltaTime	The time in milliseconds since the last update.
+	 */
+	void updateSlot(int slot, long deltaTime) {
+		updateSlot(slot, 0, size, deltaTime);
+	}
+
+	/**
+	 * Update the Components of one slot in the active, awake rows of a range.
+	 *
+	 * @param	slot		The slot to update.
+	 * @param	start		The first row to update.
+	 * @param	end			The row after the last row to update.
+	 * @param	deltaTime	The time in milliseconds since the last update.
+	 */
+	void updateSlot(int slot, int start, int end, long deltaTime) {
+		Component[] slotComponents = components[slot];
+		for (int row = start; row < end; row++) {
+			if (active[row] && !sleeping[row]) {
+				slotComponents[row].update(deltaTime);
+			}
+		}
+	}
+
+	/**
+	 * Put the Entities whose updated Components are all idle to sleep. Called after the update passes.
+	 * Entities with nothing to update fall asleep as soon as they are stored, woken or activated.
+	 */
+	void settle() {
+		if (!restless) {
+			return;
+		}
+		restless = false;
+		int[] o = getOrder();
+		for (int row = 0; row < size; row++) {
+			if (active[row] && !sleeping[row]) {
+				if (isIdle(row, o)) {
+					entities[row].sleep();
+				}
+				else {
+					restless = true;
+				}
+			}
+		}
+	}
+
+	// check if every updated component of a row is idle
+	private boolean isIdle(int row, int[] o) {
+		for (int i = 0; i < o.length; i++) {
+			if (!components[o[i]][row].isIdle()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Update every Component in a row that does something when updated, in priority order.
+	 *
+	 * @param	row			The row to update.
+	 * @param	deltaTime	The time in milliseconds since the last update.
+	 * @return				True if every updated Component is idle afterwards, so the Entity can sleep.
+	 */
+	boolean update(int row, long deltaTime) {
+		int[] o = getOrder();
+		for (int i = 0; i < o.length; i++) {
+			components[o[i]][row].update(deltaTime);
+		}
+		return isIdle(row, o);
+	}
+
+	public String toString() {
+		String str = "[";
+		for (int i = 0; i < types.length; i++) {
+			if (i > 0) {
+				str += ", ";
+			}
+			str += types[i].getSimpleName();
+		}
+		return str + "] x " + size;
+	}
+}
@@ -0,0 +1,125 @@
+package motor_engine;
+
+/**
+ * A BatchRule is a Rule that is handed the Entities matching a Query one Archetype at a time instead of
+ * looking them up every update. The Query is registered with the storage of the owning State so the
+ * matching Archetypes are kept up to date as Components are added and removed.
+ * <p>A parallel BatchRule splits the matching Archetypes into ranges of rows that are updated on the
+ * Scheduler's pool, so its update must only touch the row it is handed.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public abstract class BatchRule extends Rule {
+
+	// the query describing the entities this rule works on
+	private Query template;
+
+	// the query registered with the owning state's storage
+	private Query query;
+
+	// whether ranges of rows are updated in parallel
+	private boolean parallel;
+
+	// the largest number of rows updated by one parallel task
+	private int batchSize = 1024;
+
+	/**
+	 * Create a new BatchRule working on the Entities matched by the given Query.
+	 *
+	 * @param	q	The Query selecting the Entities.
+	 */
+	public BatchRule(Query q) {
+		template = new Query(q);
+	}
+
+	/**
+	 * Get the Query used by this Rule.
+	 *
+	 * @return	The registered Query, or the unregistered template if the Rule has no owner.
+	 */
+	public Query getQuery() {
+		return (query != null) ? query : template;
+	}
+
+	/**
+	 * Set whether the matching rows are split up and updated in parallel.
+	 *
+	 * @param	parallel	True to update in parallel, false to update on the calling thread.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Check if the matching rows are updated in parallel.
+	 *
+	 * @return	True if the rows are updated in parallel, false otherwise.
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Set the largest number of rows a parallel task updates.
+	 *
+	 * @param	rows	The number of rows.
+	 */
+	public void setBatchSize(int rows) {
+		batchSize = Math.max(1, rows);
+	}
+
+	/**
+	 * Get the largest number of rows a parallel task updates.
+	 *
+	 * @return	The number of rows.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the owning State of this Rule and register the Query with its storage.
+	 *
+	 * @param	s	The owning State.
+	 */
+	public void setOwner(State s) {
+		super.setOwner(s);
+		query = (s != null) ? s.getStorage().register(template) : null;
+	}
+
+	/**
+	 * Updates every Archetype matched by the Query that has Entities.
+	 *
+	 * @param	deltaTime	The time in milliseconds since the last update.
+	 */
+	public void update(final long deltaTime) {
+		if (query != null && parallel) {
+			Scheduler.invoke(new RangeTask(query, batchSize, new RangeTask.Rows() {
+				public void update(int index, Archetype chunk, int start, int end) {
+					BatchRule.this.update(chunk, start, end, deltaTime);
+				}
+			}));
+		}
+		else if (query != null) {
+			for (int i = 0; i < query.getArchetypeCount(); i++) {
+				Archetype chunk = query.getArchetype(i);
+				if (!chunk.isEmpty()) {
+					update(chunk, 0, chunk.size(), deltaTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Update a range of rows of a matching Archetype.
+	 * Rows of inactive Entities are included, use Archetype.isActive(row) to skip them.
+	 * Adding or removing Components moves Entities between Archetypes so it should not be done while iterating.
+	 *
+	 * @param	chunk		The Archetype to update.
+	 * @param	start		The first row to update.
+	 * @param	end			The row after the last row to update.
+	 * @param	deltaTime	The time in milliseconds since the last update.
+	 */
+	public abstract void update(Archetype chunk, int start, int end, long deltaTime);
+}
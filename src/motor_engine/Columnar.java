@@ -0,0 +1,42 @@
+package motor_engine;
+
+/**
+ * A Component implementing this keeps its values in the double columns of an Archetype while it is attached to an Entity.
+ * While detached the Component keeps its values in its own fields.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public interface Columnar {
+
+	/**
+	 * Bind this Component to a row of an Archetype.
+	 * The current values are copied into the columns before the binding changes.
+	 *
+	 * @param	archetype	The Archetype holding the columns.
+	 * @param	column		The index of the first column belonging to this Component.
+	 * @param	row			The row of the owning Entity.
+	 */
+	public void bind(Archetype archetype, int column, int row);
+
+	/**
+	 * Copy the current values back into this Component and detach it from its Archetype.
+	 */
+	public void unbind();
+
+	/**
+	 * Check if this Component is currently stored in an Archetype.
+	 *
+	 * @return	True if the Component is bound, false otherwise.
+	 */
+	public boolean isBound();
+
+	/**
+	 * Check if this Component is bound to the given row.
+	 *
+	 * @param	archetype	The Archetype to check.
+	 * @param	row			The row to check.
+	 * @return				True if the Component's values live in the given row, false otherwise.
+	 */
+	public boolean isBoundTo(Archetype archetype, int row);
+}
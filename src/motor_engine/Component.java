@@ -18,7 +18,8 @@ public abstract class Component implements EntityOwned, LifeCycle {
 	private Entity parent;
 
 	/**
-	 * Set the update priority of this component
+	 * Set the update priority of this component. Components with lower priorities are updated first.
+	 * A State updates one component class at a time, using the priority of the first component of each class it stores.
 	 *
 	 * @param	p	The priority for this component to update at.
 	 */
@@ -56,6 +57,45 @@ public abstract class Component implements EntityOwned, LifeCycle {
 	 */
 	public abstract void update(long deltaTime);
 
+	/**
+	 * Check if this component does anything when it is updated. Components that only hold values return false
+	 * so their Archetype never calls their update.
+	 *
+	 * @return	True if update should be called, the default.
+	 */
+	public boolean isUpdated() {
+		return true;
+	}
+
+	/**
+	 * Check if updating this component would currently do nothing, eg. a Velocity of zero.
+	 * An Entity whose updated components are all idle is put to sleep until one of them is changed.
+	 *
+	 * @return	True if the update would do nothing, false by default.
+	 */
+	public boolean isIdle() {
+		return false;
+	}
+
+	/**
+	 * Check if the updates of this component class may run on several threads at once. A parallel safe component
+	 * only touches its own Entity when updated, so when a State updates in parallel the rows of its update pass are
+	 * split between the threads of the Scheduler's pool. Asked once per Archetype, of the first component stored.
+	 *
+	 * @return	True if updates only touch their own Entity, false to always update on one thread, the default.
+	 */
+	public boolean isParallelSafe() {
+		return false;
+	}
+
+	/**
+	 * Return this component to the values it is created with before it is handed out again by the EntityPool.
+	 * Components whose no argument constructor sets other values override this, the default does nothing.
+	 */
+	public void reset() {
+
+	}
+
 	/** All components have an initialization method that is ran when their Entity is begun.*/
 	public abstract void begin();
 
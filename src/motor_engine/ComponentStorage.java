@@ -0,0 +1,395 @@
+package motor_engine;
+import java.util.*;
+import motor_engine.util.Profiler;
+
+/**
+ * The storage of the Components of a group of Entities. Entities are grouped into Archetypes by the set of
+ * Component classes they have so Entities with the same components share the same columns.
+ * Every State has its own storage, Entities that are not owned by a State live in the detached storage.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class ComponentStorage {
+
+	// the storage of entities without an owning state
+	private static ComponentStorage detached = new ComponentStorage();
+
+	// orders component classes within a signature
+	private static final Comparator<Class<? extends Component>> SIGNATURE_ORDER = new Comparator<Class<? extends Component>>() {
+		public int compare(Class<? extends Component> a, Class<? extends Component> b) {
+			return a.getName().compareTo(b.getName());
+		}
+	};
+
+	// the archetypes by their signature
+	private HashMap<List<Class<? extends Component>>, Archetype> archetypes;
+
+	// the archetypes in the order they were created
+	private ArrayList<Archetype> archetypeList;
+
+	// the archetype without any components
+	private Archetype empty;
+
+	// the registered queries by their key
+	private HashMap<String, Query> queries;
+
+	// the update passes in priority order, rebuilt when an archetype or an updated class is added
+	private ArrayList<Pass> passes;
+	private boolean passesDirty;
+
+	// the component classes updated by a Rule instead of by their own update passes
+	private HashSet<Class<? extends Component>> replaced;
+
+	// whether the rows of each pass are updated in parallel
+	private boolean parallel;
+
+	// the largest number of rows updated by one parallel task
+	private int batchSize = 1024;
+
+	/**
+	 * Create an empty ComponentStorage.
+	 */
+	public ComponentStorage() {
+		archetypes = new HashMap<List<Class<? extends Component>>, Archetype>();
+		archetypeList = new ArrayList<Archetype>();
+		queries = new HashMap<String, Query>();
+		passes = new ArrayList<Pass>();
+		replaced = new HashSet<Class<? extends Component>>();
+		empty = getArchetype(newTypeArray(0));
+	}
+
+	/**
+	 * Get the storage used by Entities that are not owned by a State.
+	 *
+	 * @return	The detached ComponentStorage.
+	 */
+	public static ComponentStorage getDetached() {
+		return detached;
+	}
+
+	/**
+	 * Get the Archetype without any component classes. Entities in it are not stored in any rows.
+	 *
+	 * @return	The empty Archetype.
+	 */
+	public Archetype getEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Get all the Archetypes of this storage in the order they were created.
+	 *
+	 * @return	An unmodifiable list of the Archetypes.
+	 */
+	public List<Archetype> getArchetypes() {
+		return Collections.unmodifiableList(archetypeList);
+	}
+
+	/**
+	 * Remember the current values of every Archetype's double columns so they can be interpolated while rendering.
+	 * This is called at the start of each update.
+	 */
+	public void savePrevious() {
+		for (int i = 0; i < archetypeList.size(); i++) {
+			archetypeList.get(i).savePrevious();
+		}
+	}
+
+	/**
+	 * Update the Components of every active, awake Entity in passes, one component class at a time.
+	 * The classes are updated in order of priority, lowest first, then by name, so eg. every Acceleration is applied
+	 * before any Velocity moves an Entity. Afterwards Entities whose updated Components are all idle fall asleep.
+	 * When parallel, the rows of a large pass are split between the threads of the Scheduler's pool.
+	 *
+	 * @param	deltaTime	The time in milliseconds since the last update.
+	 */
+	public void update(long deltaTime) {
+		if (passesDirty) {
+			buildPasses();
+		}
+		if (Profiler.isEnabled()) {
+			Profiler.count(Profiler.ENTITIES, countAwake());
+		}
+		for (int p = 0; p < passes.size(); p++) {
+			Pass pass = passes.get(p);
+			long start = Profiler.start();
+			if (parallel && pass.parallel && pass.size() > batchSize) {
+				update(pass, deltaTime);
+			}
+			else {
+				for (int i = 0; i < pass.archetypes.length; i++) {
+					pass.archetypes[i].updateSlot(pass.slots[i], deltaTime);
+				}
+			}
+			if (start != 0 && pass.scope < 0) {
+				pass.scope = Profiler.scope("component", pass.type);
+			}
+			Profiler.stop(pass.scope, start);
+		}
+		for (int i = 0; i < archetypeList.size(); i++) {
+			archetypeList.get(i).settle();
+		}
+	}
+
+	// update the rows of a pass in ranges on the scheduler's pool
+	private void update(final Pass pass, final long deltaTime) {
+		Scheduler.invoke(new RangeTask(pass.archetypes, batchSize, new RangeTask.Rows() {
+			public void update(int index, Archetype chunk, int start, int end) {
+				chunk.updateSlot(pass.slots[index], start, end, deltaTime);
+			}
+		}));
+	}
+
+	/**
+	 * Set whether the rows of update passes are split into ranges that are updated on the Scheduler's pool.
+	 * Only the passes of component classes that are parallel safe are split, see Component.isParallelSafe, the
+	 * others are updated on the calling thread. The passes still run one after another.
+	 *
+	 * @param	parallel	True to update in parallel, false to update on the calling thread.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * Check if the rows of each update pass are updated in parallel.
+	 *
+	 * @return	True if the rows are updated in parallel, false otherwise.
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Set the largest number of rows a parallel task updates. Passes with fewer rows are updated on the calling thread.
+	 *
+	 * @param	rows	The number of rows.
+	 */
+	public void setBatchSize(int rows) {
+		batchSize = Math.max(1, rows);
+	}
+
+	/**
+	 * Get the largest number of rows a parallel task updates.
+	 *
+	 * @return	The number of rows.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set whether a component class is updated by a Rule instead of by the update passes of this storage.
+	 * The Components of a replaced class are not updated but are still asked if they are idle.
+	 *
+	 * @param	type		The component class.
+	 * @param	replaced	True if a Rule updates the class, false to update it in its own pass again.
+	 */
+	public void setReplaced(Class<? extends Component> type, boolean replaced) {
+		boolean changed = replaced ? this.replaced.add(type) : this.replaced.remove(type);
+		passesDirty |= changed;
+	}
+
+	/**
+	 * Check if a component class is updated by a Rule instead of by the update passes of this storage.
+	 *
+	 * @param	type	The component class.
+	 * @return			True if the class is replaced, false otherwise.
+	 */
+	public boolean isReplaced(Class<? extends Component> type) {
+		return replaced.contains(type);
+	}
+
+	// Called by archetypes when they are created or learn whether a class is updated
+	void invalidatePasses() {
+		passesDirty = true;
+	}
+
+	// group the updated slots of every archetype by class and order the classes by priority
+	private void buildPasses() {
+		HashMap<Class<? extends Component>, Pass> byType = new HashMap<Class<? extends Component>, Pass>();
+		HashMap<Class<? extends Component>, ArrayList<Archetype>> archetypesByType = new HashMap<Class<? extends Component>, ArrayList<Archetype>>();
+		for (Archetype a : archetypeList) {
+			for (int slot = 0; slot < a.getTypeCount(); slot++) {
+				Class<? extends Component> type = a.getType(slot);
+				if (!a.isUpdated(slot) || replaced.contains(type)) {
+					continue;
+				}
+				if (!byType.containsKey(type)) {
+					Pass pass = new Pass();
+					pass.type = type;
+					pass.priority = a.getPriority(slot);
+					pass.parallel = a.isParallelSafe(slot);
+					byType.put(type, pass);
+					archetypesByType.put(type, new ArrayList<Archetype>());
+				}
+				archetypesByType.get(type).add(a);
+			}
+		}
+
+		passes.clear();
+		for (Pass pass : byType.values()) {
+			ArrayList<Archetype> list = archetypesByType.get(pass.type);
+			pass.archetypes = list.toArray(new Archetype[list.size()]);
+			pass.scope = -1;
+			pass.slots = new int[list.size()];
+			for (int i = 0; i < list.size(); i++) {
+				pass.slots[i] = list.get(i).getSlot(pass.type);
+			}
+			passes.add(pass);
+		}
+		Collections.sort(passes, new Comparator<Pass>() {
+			public int compare(Pass a, Pass b) {
+				int c = Double.compare(a.priority, b.priority);
+				return (c != 0) ? c : SIGNATURE_ORDER.compare(a.type, b.type);
+			}
+		});
+		passesDirty = false;
+	}
+
+	/**
+	 * Count the active Entities of this storage that are updated, ie. not asleep.
+	 *
+	 * @return	The number of awake Entities.
+	 */
+	public int countAwake() {
+		int count = 0;
+		for (Archetype a : archetypeList) {
+			for (int row = 0; row < a.size(); row++) {
+				if (a.isActive(row) && !a.isSleeping(row)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Count the Entities stored in this storage.
+	 *
+	 * @return	The number of rows in use across all Archetypes.
+	 */
+	public int size() {
+		int count = 0;
+		for (Archetype a : archetypeList) {
+			count += a.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Get the Archetype with exactly the given component classes, creating it if needed.
+	 *
+	 * @param	types	The component classes in any order.
+	 * @return			The matching Archetype.
+	 */
+	public Archetype getArchetype(Class<? extends Component>[] types) {
+		Class<? extends Component>[] sorted = types.clone();
+		Arrays.sort(sorted, SIGNATURE_ORDER);
+		List<Class<? extends Component>> key = Arrays.asList(sorted);
+		Archetype a = archetypes.get(key);
+		if (a == null) {
+			a = new Archetype(this, sorted);
+			archetypes.put(key, a);
+			archetypeList.add(a);
+			passesDirty = true;
+			for (Query q : queries.values()) {
+				q.offer(a);
+			}
+		}
+		return a;
+	}
+
+	/**
+	 * Get the Archetype with the same classes as another one in this storage with one class added or removed.
+	 */
+	Archetype getArchetype(Archetype base, Class<? extends Component> type, boolean add) {
+		ArrayList<Class<? extends Component>> types = new ArrayList<Class<? extends Component>>();
+		for (int i = 0; i < base.getTypeCount(); i++) {
+			if (base.getType(i) != type) {
+				types.add(base.getType(i));
+			}
+		}
+		if (add) {
+			types.add(type);
+		}
+		return getArchetype(types.toArray(newTypeArray(types.size())));
+	}
+
+	/**
+	 * Get the Archetype of this storage with the same component classes as an Archetype of any storage.
+	 *
+	 * @param	a	The Archetype to match.
+	 * @return		The Archetype in this storage.
+	 */
+	public Archetype getArchetype(Archetype a) {
+		if (a.getStorage() == this) {
+			return a;
+		}
+		Class<? extends Component>[] types = newTypeArray(a.getTypeCount());
+		for (int i = 0; i < types.length; i++) {
+			types[i] = a.getType(i);
+		}
+		return getArchetype(types);
+	}
+
+	/**
+	 * Register a Query with this storage. Queries selecting the same Entities are shared, so if an equal
+	 * Query is already registered that one is returned instead. A Query can only be registered with one storage.
+	 *
+	 * @param	q	The Query to register.
+	 * @return		The registered Query to iterate.
+	 */
+	public Query register(Query q) {
+		String key = q.getKey();
+		Query registered = queries.get(key);
+		if (registered == null) {
+			registered = q.isRegistered() ? new Query(q) : q;
+			registered.register(this, archetypeList);
+			queries.put(key, registered);
+		}
+		return registered;
+	}
+
+	/**
+	 * Create an array of component classes. Generic arrays can't be created directly, so every array of component
+	 * classes in the engine is made here.
+	 *
+	 * @param	length	The length of the array.
+	 * @return			The empty array.
+	 */
+	@SuppressWarnings("unchecked")
+	static Class<? extends Component>[] newTypeArray(int length) {
+		return (Class<? extends Component>[]) new Class<?>[length];
+	}
+
+	public String toString() {
+		String str = "ComponentStorage";
+		for (Archetype a : archetypeList) {
+			str += "\n" + a.toString();
+		}
+		return str;
+	}
+
+	// the updated slot of one component class in each archetype that has it
+	private static class Pass {
+		Class<? extends Component> type;
+		double priority;
+		// whether the components may be updated on several threads at once
+		boolean parallel;
+		// the Profiler scope, looked up the first time the pass is timed
+		int scope;
+		Archetype[] archetypes;
+		int[] slots;
+
+		// the rows in every archetype of the pass
+		int size() {
+			int rows = 0;
+			for (int i = 0; i < archetypes.length; i++) {
+				rows += archetypes[i].size();
+			}
+			return rows;
+		}
+	}
+}
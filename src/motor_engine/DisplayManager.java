@@ -16,14 +16,38 @@ public class DisplayManager {
 	// The views attached to the window.
 	private static TreeSet<View> views = new TreeSet<View>();
 
+	// The views in z order, replaced when views are added or removed so rendering never sees a change
+	private static volatile View[] ordered = new View[0];
+
+	// The thread the window was created on
+	private static Thread glThread;
+
+	// how far the frame being rendered is between the last two updates
+	private static double alpha = 1;
+
+	// the size asked for, used instead of the display mode when headless
+	private static int width;
+	private static int height;
+
+	// the number of frames rendered
+	private static long frames;
+
 	// Update
 	public static void begin(int width, int height) {
+		DisplayManager.width = width;
+		DisplayManager.height = height;
+		frames = 0;
+		if (MotorEngine.isHeadless()) {
+			return;
+		}
+
 		// intialize gl
 		try {
 			// set size
 			Display.setDisplayMode(new DisplayMode(width, height));
 			//create window
 			Display.create();
+			glThread = Thread.currentThread();
 		}
 		catch (LWJGLException e) {
 			e.printStackTrace();
@@ -38,7 +62,9 @@ public class DisplayManager {
 	 * Destroys the window. This is called automatically by MotorEngine.
 	 */
 	public static void end() {
-		Display.destroy();
+		if (!MotorEngine.isHeadless()) {
+			Display.destroy();
+		}
 	}
 
 	/**
@@ -47,14 +73,24 @@ public class DisplayManager {
 	 * @param	deltaTime	The time in milliseconds since the last update.
 	 */
 	public static void update(long deltaTime) {
+		frames++;
+		if (MotorEngine.isHeadless()) {
+			// nothing to draw, but finish the texture work so images get their sizes
+			TextureManager.update();
+			return;
+		}
+
 		// update window title
 		updateTitle();
 
 		// clear buffers
 		glClear(GL_COLOR_BUFFER_BIT);
 
+		// load textures requested by other threads
+		TextureManager.update();
+
 		// render the views in z order
-		for (View v : views) {
+		for (View v : ordered) {
 			v.update();
 		}
 
@@ -65,6 +101,53 @@ public class DisplayManager {
 		Display.update();
 	}
 
+	/**
+	 * Get the width of the window.
+	 *
+	 * @return	The width in pixels, or the width asked for when headless.
+	 */
+	public static int getWidth() {
+		return MotorEngine.isHeadless() ? width : Display.getDisplayMode().getWidth();
+	}
+
+	/**
+	 * Get the height of the window.
+	 *
+	 * @return	The height in pixels, or the height asked for when headless.
+	 */
+	public static int getHeight() {
+		return MotorEngine.isHeadless() ? height : Display.getDisplayMode().getHeight();
+	}
+
+	/**
+	 * Get the number of frames rendered since the window was created, including the frames skipped when headless.
+	 *
+	 * @return	The number of frames.
+	 */
+	public static long getFrames() {
+		return frames;
+	}
+
+	/**
+	 * Set how far the frame being rendered is between the previous and the latest update.
+	 * This is set automatically by MotorEngine before each render.
+	 *
+	 * @param	a	The interpolation alpha from 0 to 1.
+	 */
+	public static void setAlpha(double a) {
+		alpha = a;
+	}
+
+	/**
+	 * Get how far the frame being rendered is between the previous and the latest update.
+	 * Renderers use this to draw Entities between their previous and current positions.
+	 *
+	 * @return	The interpolation alpha from 0 to 1.
+	 */
+	public static double getAlpha() {
+		return alpha;
+	}
+
 	public static void updateTitle() {
 		// window title
 		if (MotorEngine.GAME_NAME.isEmpty()) {
@@ -82,7 +165,10 @@ public class DisplayManager {
 	 * @param	v	A view to be added to this window.
 	 */
 	public static void add(View v) {
-		views.add(v);
+		synchronized (views) {
+			views.add(v);
+			ordered = views.toArray(new View[views.size()]);
+		}
 	}
 
 	/**
@@ -91,7 +177,19 @@ public class DisplayManager {
 	 * @param	view	The view to be removed from the window.
 	 */
 	public static void removeView(View view) {
-		views.remove(view);
+		synchronized (views) {
+			views.remove(view);
+			ordered = views.toArray(new View[views.size()]);
+		}
+	}
+
+	/**
+	 * Check if the current thread owns the OpenGL context of the window.
+	 *
+	 * @return	True if the current thread created the window or no window was created, false otherwise.
+	 */
+	public static boolean isGLThread() {
+		return glThread == null || glThread == Thread.currentThread();
 	}
 
 }
@@ -1,41 +1,65 @@
 package motor_engine;
 import motor_engine.components.Vector2dComponent;
 import motor_engine.components.DoubleComponent;
+import motor_engine.util.Log;
 import motor_engine.util.vector.ReadableVector2d;
 import motor_engine.util.vector.Vector2d;
+import motor_engine.util.vector.WriteableVector2d;
 import java.util.HashMap;
 
 /**
  * An Entity is a container of components that ineract with one another.
+ * The components are kept in the Archetype of the Entity's component classes, within the storage of the owning State.
  *
  * @author Garrett Smith
  * @version 0.1
  */
 public class Entity extends GameObject implements ReadableEntity, WriteableEntity {
 
+	// the category entities log to
+	private static final Log LOG = Log.get("entity");
+
 	// All entites have a type and unique identifier number
 	private String type;
 	private int identifier;
 
-	// A hasmap keeping track of the current unique identifier counters
-	private static HashMap<String, Integer> identifierCounter = new HashMap<String, Integer>();
+	// The unique name built from the type and identifier
+	private String name;
+
+	// A hasmap keeping track of the current unique identifier counters, the next identifier of each type
+	private static HashMap<String, int[]> identifierCounter = new HashMap<String, int[]>();
+
+	// the slot of this entity in the EntityPool, -1 if it was not created by the pool
+	private int slot = -1;
+
+	// the number of times this entity has been freed to the pool
+	private int generation;
 
-	// A hashMap containing references to all the components this entity has with the keys corresponding to the class
-	private HashMap<Class<? extends Component>, Component> componentMap;
+	// whether this entity is waiting in the pool to be reused
+	private boolean free;
+
+	// The archetype storing this entity's components and the row within it
+	private Archetype archetype;
+	private int row;
 
 	// this entity's parent null if it doesn't have one
 	private Entity parent;
 
+	// whether the entity is skipped by updates until woken
+	private volatile boolean sleeping;
+
 	/**
 	 * Create a new Entity of the specified type.
 	 *
 	 * @param	type	The type of Entity this is.
 	 */
 	public Entity(String type) {
-		componentMap = new HashMap<Class<? extends Component>, Component>();
+		archetype = ComponentStorage.getDetached().getEmpty();
+		row = -1;
 		this.type = type;
 		setupIdentifier();
-		MotorEngine.console.log(getName() + " was created.");
+		name = type + "#" + identifier;
+		LOG.debug("{} was created.", name);
 		setActive(false);
 	}
 
@@ -63,7 +87,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @return	A String containing the type of this Entity with the Entity identifier appenedded to it.
 	 */
 	public String getName() {
-		return type + "#" + identifier;
+		return name;
 	}
 
 	/**
@@ -71,14 +95,56 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 */
 	private void setupIdentifier() {
 		// increment counter or start new counter
-		if (identifierCounter.containsKey(type)) {
-			identifierCounter.put(type, (new Integer(identifierCounter.get(type).intValue() + 1)));
-		}
-		else {
-			identifierCounter.put(type, new Integer(0));
+		int[] counter = identifierCounter.get(type);
+		if (counter == null) {
+			counter = new int[1];
+			identifierCounter.put(type, counter);
 		}
 		//set this Entities unique identifier
-		identifier = identifierCounter.get(type).intValue();
+		identifier = counter[0]++;
+	}
+
+	// Pooling
+
+	/**
+	 * Get the handle of this Entity, made of its slot in the EntityPool and the number of times it has been reused.
+	 * A handle kept after the Entity is freed no longer matches, so EntityPool.get(handle) tells a stale
+	 * reference from a live one.
+	 *
+	 * @return	The handle, or -1 if the Entity was not created by the EntityPool.
+	 */
+	public long getHandle() {
+		return (slot < 0) ? -1 : ((long) generation << 32) | slot;
+	}
+
+	/**
+	 * Check if this Entity has been freed to the EntityPool and is waiting to be reused.
+	 *
+	 * @return	True if the Entity is free.
+	 */
+	public boolean isFree() {
+		return free;
+	}
+
+	// Called by the pool when it creates this entity
+	void setSlot(int slot) {
+		this.slot = slot;
+	}
+
+	// Called by the pool when this entity is freed, after it has ended
+	void recycle() {
+		free = true;
+		generation++;
+		parent = null;
+		sleeping = false;
+		setActive(false);
+	}
+
+	// Called by the pool when this entity is handed out again, it is given a new identifier and name
+	void reuse() {
+		free = false;
+		setupIdentifier();
+		name = type + "#" + identifier;
 	}
 
 	/**
@@ -88,12 +154,112 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 */
 	public String toString() {
 		String str = getName();
-		for (Component c : componentMap.values()) {
-			str += "\n" + c.toString();
+		for (int slot = 0; slot < archetype.getTypeCount(); slot++) {
+			str += "\n" + archetype.getComponent(slot, row).toString();
 		}
 		return str;
 	}
 
+	// Storage
+
+	/**
+	 * Get the Archetype this Entity's Components are stored in.
+	 *
+	 * @return	The current Archetype.
+	 */
+	public Archetype getArchetype() {
+		return archetype;
+	}
+
+	/**
+	 * Get the row of this Entity within its Archetype.
+	 *
+	 * @return	The row, or -1 if the Entity has no Components.
+	 */
+	public int getRow() {
+		return row;
+	}
+
+	/**
+	 * Set the active status of this Entity. Activating an Entity wakes it.
+	 *
+	 * @param	b	The active status.
+	 */
+	public void setActive(boolean b) {
+		super.setActive(b);
+		if (row >= 0) {
+			archetype.setActive(row, b);
+		}
+		if (b) {
+			wake();
+		}
+	}
+
+	// Sleeping
+
+	/**
+	 * Check if this Entity is asleep. A sleeping Entity is skipped by the updates of its State.
+	 *
+	 * @return	True if the Entity is asleep.
+	 */
+	public boolean isSleeping() {
+		return sleeping;
+	}
+
+	/**
+	 * Put this Entity to sleep so its Components are not updated until it is woken.
+	 * Entities also fall asleep by themselves when every updated Component is idle, eg. when they stop moving.
+	 */
+	public void sleep() {
+		sleeping = true;
+		if (row >= 0) {
+			archetype.setSleeping(row, true);
+		}
+	}
+
+	/**
+	 * Wake this Entity so its Components are updated again.
+	 * Changing the value of an updated Component, such as a Velocity, wakes its Entity.
+	 */
+	public void wake() {
+		if (sleeping) {
+			sleeping = false;
+			if (row >= 0) {
+				archetype.setSleeping(row, false);
+			}
+		}
+	}
+
+	// Called by the Archetype when this Entity is moved to another row
+	void setRow(int row) {
+		this.row = row;
+	}
+
+	// Called by a prefab that stored this entity's components in a row itself
+	void place(Archetype archetype, int row) {
+		this.archetype = archetype;
+		this.row = row;
+	}
+
+	/**
+	 * Set the owning State of this Entity. The Components are moved into the storage of the new owner.
+	 *
+	 * @param	s	The owning State, or null to detach the Entity.
+	 */
+	public void setOwner(State s) {
+		super.setOwner(s);
+		ComponentStorage storage = (s != null) ? s.getStorage() : ComponentStorage.getDetached();
+		if (archetype.getStorage() != storage) {
+			moveTo(storage.getArchetype(archetype));
+		}
+	}
+
+	// Move this entity's components to another archetype
+	private void moveTo(Archetype target) {
+		row = archetype.moveTo(this, row, target);
+		archetype = target;
+	}
+
 	// Parenting
 
 	public Entity getParent() {
@@ -118,7 +284,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 *
 	 */
 	public boolean has(Class<? extends Component> componentClass) {
-		return componentMap.containsKey(componentClass);
+		return archetype.has(componentClass);
 	}
 
 	/**
@@ -128,14 +294,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @return	component		The Compeont object.
 	 */
 	public Component get(Class<? extends Component> componentClass) {
-		final Component c = componentMap.get(componentClass);
-
-		if (c != null) {
-			return c;
-		}
-		else {
-			return null;
-		}
+		return archetype.get(componentClass, row);
 	}
 
 	/**
@@ -147,7 +306,17 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 		// set parentship
 		c.setParent(this);
 		// add to the entity
-		componentMap.put(c.getClass(), c);
+		if (archetype.has(c.getClass())) {
+			archetype.replace(row, c);
+		}
+		else {
+			moveTo(archetype.with(c.getClass()));
+			archetype.set(row, c, null, -1);
+		}
+		// an added Component that is updated wakes the Entity to run
+		if (c.isUpdated()) {
+			wake();
+		}
 	}
 
 	/**
@@ -156,8 +325,11 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	componentClass	The class of the Component to remove.
 	 */
 	public void remove(Class<? extends Component> componentClass) {
-		get(componentClass).end();
-		componentMap.remove(componentClass);
+		Component c = get(componentClass);
+		if (c != null) {
+			c.end();
+			moveTo(archetype.without(componentClass));
+		}
 	}
 
 	/**
@@ -166,12 +338,8 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	deltaTime	The elapsed game time, in milliseconds, since the last update.
 	 */
 	public void update(long deltaTime) {
-		if (isActive()) {
-			for (Component c : componentMap.values() ) {
-				if (c != null) {
-					c.update(deltaTime);
-				}
-			}
+		if (isActive() && row >= 0 && archetype.update(row, deltaTime)) {
+			sleep();
 		}
 	}
 
@@ -179,9 +347,8 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * Begin all Components belonging to this Entity.
 	 */
 	public void begin() {
-		for (Component c : componentMap.values() ) {
-			if (c != null)
-				c.begin();
+		for (int slot = 0; slot < archetype.getTypeCount(); slot++) {
+			archetype.getComponent(slot, row).begin();
 		}
 	}
 
@@ -189,11 +356,15 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 *	End all Components belonging to this Entity.
 	 */
 	public void end() {
-		for (Component c : componentMap.values() ) {
-			if (c != null)
-				c.end();
+		for (int slot = 0; slot < archetype.getTypeCount(); slot++) {
+			archetype.getComponent(slot, row).end();
+		}
+		// release the row
+		if (row >= 0) {
+			archetype.remove(row);
 		}
-		componentMap.clear();
+		archetype = archetype.getStorage().getEmpty();
+		row = -1;
 	}
 
 	//double component setting shortcuts
@@ -204,7 +375,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	componentClass	The class of the component to get.
 	 */
 	public double getValue(Class<? extends DoubleComponent> componentClass) {
-		DoubleComponent c = (DoubleComponent) componentMap.get(componentClass);
+		DoubleComponent c = (DoubleComponent) get(componentClass);
 		if (c != null) {
 			return c.get();
 		}
@@ -220,7 +391,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	x				The value to set.
 	 */
 	public void setValue(Class<? extends DoubleComponent> componentClass, double x) {
-		DoubleComponent c = (DoubleComponent) componentMap.get(componentClass);
+		DoubleComponent c = (DoubleComponent) get(componentClass);
 		if (c != null) {
 			c.set(x);
 		}
@@ -233,7 +404,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	x				The value to add.
 	 */
 	public void addValue(Class<? extends DoubleComponent> componentClass, double x) {
-		DoubleComponent c = (DoubleComponent) componentMap.get(componentClass);
+		DoubleComponent c = (DoubleComponent) get(componentClass);
 		if (c != null) {
 			c.add(x);
 		}
@@ -246,7 +417,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	x				The value to subtract.
 	 */
 	public void subtractValue(Class<? extends DoubleComponent> componentClass, double x) {
-		DoubleComponent c = (DoubleComponent) componentMap.get(componentClass);
+		DoubleComponent c = (DoubleComponent) get(componentClass);
 		if (c != null) {
 			c.subtract(x);
 		}
@@ -259,7 +430,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	x				The value to multiply.
 	 */
 	public void multiplyValue(Class<? extends DoubleComponent> componentClass, double x) {
-		DoubleComponent c = (DoubleComponent) componentMap.get(componentClass);
+		DoubleComponent c = (DoubleComponent) get(componentClass);
 		if (c != null) {
 			c.subtract(x);
 		}
@@ -272,7 +443,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	x				The value to divide.
 	 */
 	public void divideValue(Class<? extends DoubleComponent> componentClass, double x) {
-		DoubleComponent c = (DoubleComponent) componentMap.get(componentClass);
+		DoubleComponent c = (DoubleComponent) get(componentClass);
 		if (c != null) {
 			c.divide(x);
 		}
@@ -287,7 +458,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @return					A readable vector with the vlues of the component.
 	 */
 	public ReadableVector2d getVector2d(Class<? extends Vector2dComponent> componentClass) {
-		Vector2dComponent c = (Vector2dComponent) componentMap.get(componentClass);
+		Vector2dComponent c = (Vector2dComponent) get(componentClass);
 		if (c != null) {
 			return new Vector2d(c);
 		}
@@ -296,6 +467,24 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 		}
 	}
 
+	/**
+	 * Copy the values of a Vector2dComponent into a given vector instead of a new one.
+	 *
+	 * @param	componentClass	The class of the component to get.
+	 * @param	out				The vector to copy the values into.
+	 * @return					True if the Entity has the component, false if the vector was left unchanged.
+	 */
+	public boolean getVector2d(Class<? extends Vector2dComponent> componentClass, WriteableVector2d out) {
+		Vector2dComponent c = (Vector2dComponent) get(componentClass);
+		if (c != null) {
+			out.set(c);
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+
 	/**
 	 * Set the value of a Vector2dComponent.
 	 *
@@ -303,7 +492,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	v				The vector containtaing the desired values.
 	 */
 	public void setVector2d(Class<? extends Vector2dComponent> componentClass, ReadableVector2d v) {
-		Vector2dComponent c = (Vector2dComponent) componentMap.get(componentClass);
+		Vector2dComponent c = (Vector2dComponent) get(componentClass);
 		if (c != null) {
 			c.set(v);
 		}
@@ -316,7 +505,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	v				The vector to add to the component.
 	 */
 	public void addVector2d(Class<? extends Vector2dComponent> componentClass, ReadableVector2d v) {
-		Vector2dComponent c = (Vector2dComponent) componentMap.get(componentClass);
+		Vector2dComponent c = (Vector2dComponent) get(componentClass);
 		if (c != null) {
 			c.add(v);
 		}
@@ -329,7 +518,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	v				The vector to subtract from the component.
 	 */
 	public void subtractVector2d(Class<? extends Vector2dComponent> componentClass, ReadableVector2d v) {
-		Vector2dComponent c = (Vector2dComponent) componentMap.get(componentClass);
+		Vector2dComponent c = (Vector2dComponent) get(componentClass);
 		if (c != null) {
 			c.subtract(v);
 		}
@@ -342,7 +531,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	r				The amount to multiply the component by.
 	 */
 	public void multiplyVector2d(Class<? extends Vector2dComponent> componentClass, double r) {
-		Vector2dComponent c = (Vector2dComponent) componentMap.get(componentClass);
+		Vector2dComponent c = (Vector2dComponent) get(componentClass);
 		if (c != null) {
 			c.multiply(r);
 		}
@@ -355,7 +544,7 @@ public class Entity extends GameObject implements ReadableEntity, WriteableEntit
 	 * @param	r				The amount to divide the component by.
 	 */
 	public void divideVector2d(Class<? extends Vector2dComponent> componentClass, double r) {
-		Vector2dComponent c = (Vector2dComponent) componentMap.get(componentClass);
+		Vector2dComponent c = (Vector2dComponent) get(componentClass);
 		if (c != null) {
 			c.divide(r);
 		}
@@ -0,0 +1,122 @@
+package motor_engine;
+import java.util.*;
+
+/**
+ * Hash indexes of a collection of Entities by type and by name, both ignoring case.
+ * The sets returned for a type are live, unmodifiable views that stay valid as Entities come and go.
+ * Every type and name is indexed both as given and in lower case, so lookups never change the index
+ * and can be made from parallel Rules.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+class EntityIndex {
+
+	// the entities of each type
+	private HashMap<String, TypeSet> types;
+
+	// the entity with each name
+	private HashMap<String, Entity> names;
+
+	/**
+	 * Create an empty index.
+	 */
+	EntityIndex() {
+		types = new HashMap<String, TypeSet>();
+		names = new HashMap<String, Entity>();
+	}
+
+	// find the set of a type, or null if no entity of the type was ever added
+	private TypeSet findType(String type) {
+		TypeSet set = types.get(type);
+		if (set == null) {
+			set = types.get(type.toLowerCase());
+		}
+		return set;
+	}
+
+	/**
+	 * Add an Entity to the index.
+	 *
+	 * @param	e	The Entity to add.
+	 */
+	void add(Entity e) {
+		TypeSet set = findType(e.getType());
+		if (set == null) {
+			set = new TypeSet();
+			types.put(e.getType().toLowerCase(), set);
+		}
+		types.put(e.getType(), set);
+		set.entities.add(e);
+		names.put(e.getName(), e);
+		names.put(e.getName().toLowerCase(), e);
+	}
+
+	/**
+	 * Remove an Entity from the index.
+	 *
+	 * @param	e	The Entity to remove.
+	 */
+	void remove(Entity e) {
+		TypeSet set = findType(e.getType());
+		if (set != null) {
+			set.entities.remove(e);
+		}
+		if (names.get(e.getName()) == e) {
+			names.remove(e.getName());
+			names.remove(e.getName().toLowerCase());
+		}
+	}
+
+	/**
+	 * Remove every Entity from the index.
+	 */
+	void clear() {
+		for (TypeSet set : types.values()) {
+			set.entities.clear();
+		}
+		names.clear();
+	}
+
+	/**
+	 * Get the Entities of a type.
+	 *
+	 * @param	type	The type of Entity.
+	 * @return			A live unmodifiable view of the Entities of the type, or an empty set if none were ever added.
+	 */
+	Set<Entity> getType(String type) {
+		TypeSet set = findType(type);
+		return (set == null) ? Collections.<Entity>emptySet() : set.view;
+	}
+
+	/**
+	 * Count the Entities of a type.
+	 *
+	 * @param	type	The type of Entity.
+	 * @return			The number of Entities of the type.
+	 */
+	int count(String type) {
+		TypeSet set = findType(type);
+		return (set == null) ? 0 : set.entities.size();
+	}
+
+	/**
+	 * Get the Entity with the given name.
+	 *
+	 * @param	name	The unique name of the Entity.
+	 * @return			The Entity, or null if there is none.
+	 */
+	Entity getName(String name) {
+		Entity e = names.get(name);
+		if (e == null) {
+			e = names.get(name.toLowerCase());
+		}
+		return e;
+	}
+
+	// the entities of a type and a read only view of them
+	private static class TypeSet {
+		LinkedHashSet<Entity> entities = new LinkedHashSet<Entity>();
+		Set<Entity> view = Collections.unmodifiableSet(entities);
+	}
+}
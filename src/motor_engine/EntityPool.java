@@ -0,0 +1,205 @@
+package motor_engine;
+import java.util.*;
+
+/**
+ * Keeps freed Entities and Components to hand them out again instead of creating new ones, for scenes that spawn
+ * and destroy many short lived Entities such as bullets and particles.
+ * <p>Entities are pooled by type and Components by class. A freed Entity is removed from every Group of its State,
+ * ended and reset, and the Components it owned are freed with it. An Entity handed out again keeps its type and
+ * gets a new identifier and name.
+ * <p>Each pooled Entity has a handle made of its slot and a generation that changes every time it is freed, so
+ * code holding on to an Entity can keep its handle and use get(handle) to find out if it is still the same Entity.
+ * Like the other managers the pool should only be used from the thread updating the States.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class EntityPool {
+
+	// the free entities of each type
+	private static HashMap<String, ArrayDeque<Entity>> entities = new HashMap<String, ArrayDeque<Entity>>();
+
+	// the free components of each class
+	private static HashMap<Class<? extends Component>, ArrayDeque<Component>> components = new HashMap<Class<? extends Component>, ArrayDeque<Component>>();
+
+	// every entity created by the pool by its slot
+	private static Entity[] slots = new Entity[64];
+	private static int slotCount;
+
+	// the components of an entity being freed
+	private static Component[] owned = new Component[16];
+
+	// Entities
+
+	/**
+	 * Get an Entity of the given type, reusing a free one if there is one.
+	 * The Entity is inactive, has no Components and does not belong to a State.
+	 *
+	 * @param	type	The type of the Entity.
+	 * @return			The Entity.
+	 */
+	public static Entity obtain(String type) {
+		ArrayDeque<Entity> free = entities.get(type);
+		Entity e = (free != null) ? free.poll() : null;
+		if (e != null) {
+			e.reuse();
+			return e;
+		}
+		e = new Entity(type);
+		if (slotCount == slots.length) {
+			slots = Arrays.copyOf(slots, slotCount * 2);
+		}
+		e.setSlot(slotCount);
+		slots[slotCount++] = e;
+		return e;
+	}
+
+	/**
+	 * Remove an Entity from its State, end it and keep it to be reused along with the Components it owns.
+	 * Components shared with another Entity are left alone. Entities not created by the pool are ended but not kept.
+	 *
+	 * @param	e	The Entity to free.
+	 */
+	public static void free(Entity e) {
+		if (e.isFree()) {
+			throw new IllegalStateException(e.getName() + " has already been freed.");
+		}
+		if (e.getOwner() != null) {
+			e.getOwner().discard(e);
+		}
+		if (e.getOwner() != null) {
+			e.setOwner(null);
+		}
+
+		// remember the components before the entity lets go of them
+		Archetype a = e.getArchetype();
+		int count = 0;
+		if (e.getRow() >= 0) {
+			if (owned.length < a.getTypeCount()) {
+				owned = new Component[a.getTypeCount()];
+			}
+			for (int slot = 0; slot < a.getTypeCount(); slot++) {
+				Component c = a.getComponent(slot, e.getRow());
+				if (c.getParent() == e) {
+					owned[count++] = c;
+				}
+			}
+		}
+		e.end();
+		for (int i = 0; i < count; i++) {
+			free(owned[i]);
+			owned[i] = null;
+		}
+
+		if (e.getHandle() < 0) {
+			return;
+		}
+		e.recycle();
+		ArrayDeque<Entity> free = entities.get(e.getType());
+		if (free == null) {
+			free = new ArrayDeque<Entity>();
+			entities.put(e.getType(), free);
+		}
+		free.push(e);
+	}
+
+	/**
+	 * Find a live Entity by its handle.
+	 *
+	 * @param	handle	The handle returned by Entity.getHandle().
+	 * @return			The Entity, or null if it has been freed since the handle was taken.
+	 */
+	public static Entity get(long handle) {
+		int slot = (int) handle;
+		if (handle < 0 || slot >= slotCount) {
+			return null;
+		}
+		Entity e = slots[slot];
+		return (e != null && !e.isFree() && e.getHandle() == handle) ? e : null;
+	}
+
+	/**
+	 * Check if a handle still refers to a live Entity.
+	 *
+	 * @param	handle	The handle returned by Entity.getHandle().
+	 * @return			True if the Entity has not been freed since the handle was taken.
+	 */
+	public static boolean isAlive(long handle) {
+		return get(handle) != null;
+	}
+
+	/**
+	 * Count the free Entities of a type.
+	 *
+	 * @param	type	The type of Entity.
+	 * @return			The number of Entities waiting to be reused.
+	 */
+	public static int countFree(String type) {
+		ArrayDeque<Entity> free = entities.get(type);
+		return (free != null) ? free.size() : 0;
+	}
+
+	// Components
+
+	/**
+	 * Get a Component of the given class, reusing a free one if there is one.
+	 * New Components are made with the no argument constructor of the class and reused ones are reset.
+	 *
+	 * @param	type	The class of the Component.
+	 * @return			The Component.
+	 */
+	public static <T extends Component> T obtain(Class<T> type) {
+		ArrayDeque<Component> free = components.get(type);
+		Component c = (free != null) ? free.poll() : null;
+		if (c != null) {
+			return type.cast(c);
+		}
+		try {
+			return type.getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException(type.getName() + " can not be created without arguments.", e);
+		}
+	}
+
+	/**
+	 * Keep a Component to be reused. It must already have been removed from its Entity.
+	 *
+	 * @param	c	The Component to free.
+	 */
+	public static void free(Component c) {
+		c.setParent(null);
+		c.reset();
+		ArrayDeque<Component> free = components.get(c.getClass());
+		if (free == null) {
+			free = new ArrayDeque<Component>();
+			components.put(c.getClass(), free);
+		}
+		free.push(c);
+	}
+
+	/**
+	 * Count the free Components of a class.
+	 *
+	 * @param	type	The class of Component.
+	 * @return			The number of Components waiting to be reused.
+	 */
+	public static int countFree(Class<? extends Component> type) {
+		ArrayDeque<Component> free = components.get(type);
+		return (free != null) ? free.size() : 0;
+	}
+
+	/**
+	 * Forget every free Entity and Component. Handles taken before stay stale.
+	 */
+	public static void clear() {
+		for (int i = 0; i < slotCount; i++) {
+			if (slots[i] != null && slots[i].isFree()) {
+				slots[i].setSlot(-1);
+				slots[i] = null;
+			}
+		}
+		entities.clear();
+		components.clear();
+	}
+}
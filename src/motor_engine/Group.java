@@ -9,16 +9,54 @@ import java.util.*;
  * @author	Garrett Smith
  * @version 0.1
  */
-public class Group implements WriteableEntity {
+public class Group implements WriteableEntity, StateOwned {
 
 	// The list containing all the entities in the Group.
 	private HashSet<Entity> entities;
 
+	// The Entities indexed by type and name
+	private EntityIndex index;
+
+	// The State this Group belongs to
+	private State owner;
+
 	/**
 	 * Default Constructor.
 	 */
 	public Group() {
 		entities = new HashSet<Entity>();
+		index = new EntityIndex();
+	}
+
+	// State owned
+	public State getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Set the owning State of this Group. All the Entities in the Group are moved to the State.
+	 *
+	 * @param	s	The owning State, or null to detach the Group.
+	 */
+	public void setOwner(State s) {
+		owner = s;
+		for (Entity e : entities) {
+			e.setOwner(s);
+		}
+	}
+
+	public boolean isOwned() {
+		return (owner != null);
+	}
+
+	/**
+	 * Check if the given Entity is a member of this Group.
+	 *
+	 * @param	e	The Entity to check for.
+	 * @return		True if the Entity is in this Group, false otherwise.
+	 */
+	public boolean contains(Entity e) {
+		return entities.contains(e);
 	}
 
 	/**
@@ -28,13 +66,7 @@ public class Group implements WriteableEntity {
 	 * @return			The number of the specified type of Entities in this Group.
 	 */
 	public int count(String type) {
-		int count = 0;
-		for (Entity e : entities) {
-			if (e.getType().equalsIgnoreCase(type)) {
-				count++;
-			}
-		}
-		return count;
+		return index.count(type);
 	}
 
 	/**
@@ -53,15 +85,17 @@ public class Group implements WriteableEntity {
 	 * @return			An array of Entities of the given type.
 	 */
 	public Entity[] getEntities(String type) {
-		Entity[] es = new Entity[count(type)];
-		int i = 0;
-		for (Entity e : entities) {
-			if (e.getType().equalsIgnoreCase(type)) {
-				es[i] = e;
-				i++;
-			}
-		}
-		return es;
+		return index.getType(type).toArray(new Entity[] {});
+	}
+
+	/**
+	 * Get all Entities of the given type in this Group without copying them.
+	 *
+	 * @param	type	The type of Entity.
+	 * @return			A live unmodifiable view of the Entities of the given type.
+	 */
+	public Set<Entity> getEntitySet(String type) {
+		return index.getType(type);
 	}
 
 	/**
@@ -71,12 +105,7 @@ public class Group implements WriteableEntity {
 	 * @return			The matched Entity.
 	 */
 	public Entity getEntity(String name) {
-		Entity matchedEntity = null;
-		for (Entity e : entities) {
-			if (e.getName().equals(name))
-				matchedEntity = e;
-		}
-		return matchedEntity;
+		return index.getName(name);
 	}
 
 	/**
@@ -85,7 +114,7 @@ public class Group implements WriteableEntity {
 	 * @param	search	The Entity to check for.
 	 */
 	public boolean containsEntity(Entity search) {
-		return containsEntity(search.getName());
+		return entities.contains(search);
 	}
 
 	/**
@@ -94,13 +123,7 @@ public class Group implements WriteableEntity {
 	 * @param	name	The name of the Entity to check for.
 	 */
 	public boolean containsEntity(String name) {
-		boolean found = false;
-		for (Entity e : entities) {
-			if (e.getName().equalsIgnoreCase(name)) {
-				found = true;
-			}
-		}
-		return found;
+		return index.getName(name) != null;
 	}
 
 	/**
@@ -109,13 +132,7 @@ public class Group implements WriteableEntity {
 	 * @param	type	The type of Entity to check for.
 	 */
 	public boolean containsType(String type) {
-		boolean found = false;
-		for (Entity e : entities) {
-			if (e.getType().equalsIgnoreCase(type)) {
-				found = true;
-			}
-		}
-		return found;
+		return index.count(type) > 0;
 	}
 
 	/**
@@ -124,7 +141,13 @@ public class Group implements WriteableEntity {
 	 * @param	e	The Entity to add to the State.
 	 */
 	public void add(Entity e) {
-		entities.add(e);
+		if (entities.add(e)) {
+			index.add(e);
+			if (owner != null) {
+				e.setOwner(owner);
+				owner.index(e);
+			}
+		}
 	}
 
 	/**
@@ -145,7 +168,16 @@ public class Group implements WriteableEntity {
 	 * @param	e	The entity to be removed.
 	 */
 	public void remove(Entity e) {
-		entities.remove(e);
+		if (entities.remove(e)) {
+			index.remove(e);
+			// detach the entity if it no longer belongs to any group of the state
+			if (owner != null && !owner.contains(e)) {
+				owner.unindex(e);
+				if (e.getOwner() == owner) {
+					e.setOwner(null);
+				}
+			}
+		}
 	}
 
 	/**
@@ -163,7 +195,7 @@ public class Group implements WriteableEntity {
 	 *	Remove all the entities from this Group.
 	 */
 	public void clear() {
-		for (Entity e : entities) {
+		for (Entity e : getEntities()) {
 			remove(e);
 		}
 	}
@@ -197,13 +229,15 @@ public class Group implements WriteableEntity {
 	}
 
 	/**
-	 *	Updates all Entites in the Group.
+	 *	Updates all awake Entites in the Group one at a time.
+	 * A State updates its Entities in passes over each component class instead, so this is only needed for Groups
+	 * that do not belong to a State.
 	 *
 	 * @param	elapsedTime	The time in milliseconds since the last update.
 	 */
 	public void update(long elapsedTime) {
 		for (Entity e: entities) {
-			if (e.isActive())
+			if (e.isActive() && !e.isSleeping())
 				e.update(elapsedTime);
 		}
 	}
@@ -0,0 +1,17 @@
+package motor_engine;
+
+/**
+ * A class implementing this can be rendered by a Piston between its fixed updates.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public interface Interpolated {
+
+	/**
+	 * Render the object.
+	 *
+	 * @param	alpha	How far, from 0 to 1, the current time is between the previous and the latest update.
+	 */
+	public void render(double alpha);
+}
@@ -2,6 +2,9 @@ package motor_engine;
 import motor_engine.input.*;
 import motor_engine.util.Timer;
 import motor_engine.util.Console;
+import motor_engine.util.Log;
+import motor_engine.util.Profiler;
+import motor_engine.util.Telemetry;
 import java.util.*;
 import org.lwjgl.opengl.Display;
 import org.lwjgl.opengl.DisplayMode;
@@ -16,7 +19,7 @@ import static org.lwjgl.opengl.GL11.*;
  * @author Garrett Smith
  * @version 0.1
  */
-public abstract class MotorEngine implements LifeCycle {
+public abstract class MotorEngine implements LifeCycle, Interpolated {
 
 	/** Version constant. */
 	public static final String VERSION = "SUPER DUPER ALPHA!";
@@ -39,6 +42,15 @@ public abstract class MotorEngine implements LifeCycle {
 	// the boolean set to exit the program
 	private static boolean exit;
 
+	// whether the game runs without a window, set with -Dmotor.headless=true or setHeadless
+	private static boolean headless = Boolean.getBoolean("motor.headless");
+
+	// the piston running the game loop
+	private static Piston piston;
+
+	// the piston rendering the game when the simulation runs on its own thread
+	private static Piston renderPiston;
+
 	/**
 	 * Create a new game.
 	 *
@@ -46,6 +58,23 @@ public abstract class MotorEngine implements LifeCycle {
 	 * @param	height	The height of the game window.
 	 */
 	public MotorEngine(int width, int height) {
+		this(width, height, false);
+	}
+
+	/**
+	 * Create a new game, optionally updating it on its own thread.
+	 * <p>When threaded the game loop Piston runs on a simulation thread and the window is rendered on this thread
+	 * from the snapshots the States publish after each update, so a slow frame on one side does not stall the other.
+	 * Rules and Entities must then not make OpenGL calls, textures loaded off this thread are loaded on the next render.
+	 * The input devices are read on this thread and their events applied at the start of the next update.
+	 *
+	 * @param	width		The width of the game window.
+	 * @param	height		The height of the game window.
+	 * @param	threaded	True to update the game on its own thread, false to update and render on this thread.
+	 */
+	public MotorEngine(int width, int height, boolean threaded) {
+		exit = false;
+		renderPiston = null;
 
 		// Window
 		DisplayManager.begin(width, height);
@@ -56,19 +85,146 @@ public abstract class MotorEngine implements LifeCycle {
 		//Console
 		setupConsole();
 
+		// watch the frame times over JMX
+		Telemetry.register();
+
+		// Game loop, updated 60 times a second and rendered up to 60 times a second
+		piston = new Piston(true, true, 60);
+		piston.setRenderRate(60);
+
 		//begin game
 		begin();
 
-		while(true) {
-			Display.sync(60);
-			update(10);
+		if (threaded) {
+			runThreaded();
+		}
+		else {
+			// run the loop on this thread as the display belongs to it
+			piston.setOwner(this);
+			piston.run();
+		}
+
+		// the loop has stopped
+		end();
+		DisplayManager.end();
+		Log.flush();
+		if (!headless) {
+			System.exit(0);
 		}
 	}
 
+	/**
+	 * Set whether games run without a window, eg. on a server, in tests or for simulating many matches.
+	 * This must be set before the game is created.
+	 * <p>Headless games run the same States, Rules and Components but create no window or OpenGL context.
+	 * Views are not drawn, images are only read for their sizes, and there is no keyboard, mouse or controller
+	 * input other than events posted to the KeyboardManager and MouseManager. When the game loop stops the
+	 * constructor returns instead of exiting, so one process can run game after game. To step as fast as possible
+	 * instead of in real time call getPiston().setRealTime(false) in begin.
+	 *
+	 * @param	b	True to run without a window.
+	 */
+	public static void setHeadless(boolean b) {
+		headless = b;
+	}
+
+	/**
+	 * Check if games run without a window.
+	 *
+	 * @return	True if headless.
+	 */
+	public static boolean isHeadless() {
+		return headless;
+	}
+
+	// update on the game loop piston's thread and render on this one until the game exits
+	private void runThreaded() {
+		piston.setOwner(new LifeCycle() {
+			public void begin() {
+			}
+
+			public void end() {
+			}
+
+			public void update(long deltaTime) {
+				MotorEngine.this.update(deltaTime);
+			}
+		});
+		piston.setName("Simulation");
+
+		// created before the simulation starts so its updates know the devices are read here
+		renderPiston = new Piston(false, true, (piston.getRenderRate() > 0) ? piston.getRenderRate() : 60);
+		renderPiston.setOwner(new RenderLoop());
+		renderPiston.setProfiled(false);
+
+		piston.start();
+		renderPiston.run();
+
+		// wait for the last update to finish
+		piston.setActive(false);
+		try {
+			piston.join();
+		}
+		catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// renders the latest snapshots while the simulation runs on its own thread
+	private class RenderLoop implements LifeCycle, Interpolated {
+
+		public void begin() {
+		}
+
+		public void end() {
+		}
+
+		public void update(long deltaTime) {
+			if (!checkExit()) {
+				pollInput();
+			}
+		}
+
+		public void render(double alpha) {
+			// interpolate by the time since the last step as the simulation keeps its own time
+			DisplayManager.setAlpha(piston.getStepAlpha());
+			DisplayManager.update(renderPiston.getStepTime());
+		}
+	}
+
+	// read the input devices, which LWJGL only allows on the thread updating the display
+	private static void pollInput() {
+		MouseManager.poll();
+		KeyboardManager.poll();
+		ControllerManager.poll();
+	}
+
+	// stop the loops if the window was closed or an exit requested, the window is only asked on the OpenGL thread
+	private boolean checkExit() {
+		if (exit || (!headless && DisplayManager.isGLThread() && Display.isCloseRequested())) {
+			piston.setActive(false);
+			if (renderPiston != null) {
+				renderPiston.setActive(false);
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Get the Piston running the game loop. It can be configured in begin before the loop starts.
+	 *
+	 * @return	The game loop Piston.
+	 */
+	public static Piston getPiston() {
+		return piston;
+	}
+
 	//Setup Console
 	private void setupConsole() {
-		//Create Console
+		//Create Console, showing what is logged
 		console = new Console();
+		Log.addOutput(console);
 
 		//Hide Console
 		console.setVisible(false);
@@ -83,14 +239,17 @@ public abstract class MotorEngine implements LifeCycle {
 	//Setup Input
 	private void setupInput() {
 
-		// disable key repeat
-		Keyboard.enableRepeatEvents(false);
+		// without a window there are no devices, only posted events
+		if (!headless) {
+			// disable key repeat
+			Keyboard.enableRepeatEvents(false);
 
-		// grab mouse
-		//Mouse.setGrabbed(true);
+			// grab mouse
+			//Mouse.setGrabbed(true);
 
-		// Begin controller manager
-		ControllerManager.begin();
+			// Begin controller manager
+			ControllerManager.begin();
+		}
 
 		// Create console toggle input
 		InputManager.define("Console", Keyboard.KEY_GRAVE);
@@ -123,26 +282,27 @@ public abstract class MotorEngine implements LifeCycle {
 	}
 
 	/**
-	 * Updates the the world map and the input devices.
+	 * Updates the the world map and the input devices. This is called once per fixed step.
 	 *
-	 * @param	deltaTime	The time in nanoseconds since the last update.
+	 * @param	deltaTime	The time in milliseconds since the last update.
 	 */
 	public void update(long deltaTime) {
 
 		// Check if the window is closed for exit requested
-		if (Display.isCloseRequested() || exit) {
-			end();
-			DisplayManager.end();
-			System.exit(0);
-		}
-		else {
+		if (!checkExit()) {
 			updateGameTime();
+			long start = Profiler.start();
+			// when threaded the render loop reads the devices and the events are applied here
+			if (renderPiston == null) {
+				pollInput();
+			}
 			MouseManager.update();
 			KeyboardManager.update();
 			ControllerManager.update();
+			Profiler.stop(Profiler.INPUT, start);
+			ComponentStorage.getDetached().savePrevious();
 			StateManager.update(deltaTime);
 			console.update(deltaTime);
-			DisplayManager.update(deltaTime);
 
 			//Console input
 			if (InputManager.justPressed("Console")) {
@@ -156,6 +316,16 @@ public abstract class MotorEngine implements LifeCycle {
 		}
 	}
 
+	/**
+	 * Renders the window between fixed steps.
+	 *
+	 * @param	alpha	How far the current time is between the previous and the latest update.
+	 */
+	public void render(double alpha) {
+		DisplayManager.setAlpha(alpha);
+		DisplayManager.update(piston.getStepTime());
+	}
+
 	public static void exit() {
 		exit = true;
 	}
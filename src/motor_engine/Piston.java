@@ -3,23 +3,43 @@ import motor_engine.util.*;
 
 /**
  * A piston is an abstract thread ran by the game engine. It can run at a variable or fixed framerate and can be paused.
+ * <p>With a fixed timestep the elapsed real time is collected in an accumulator and the owner is updated in steps
+ * of a constant length in nanoseconds, catching up with at most a maximum number of steps per frame. The owner is
+ * told whole milliseconds, so at rates that don't divide a second evenly the steps it is told about alternate
+ * between the neighbouring milliseconds, eg. 16 and 17 at 60 steps per second, and add up to the time simulated. If the owner is Interpolated it
+ * is rendered once per frame, at its own rate, with how far the current time is into the next step.
  */
 public class Piston extends Thread{
 
+	/** The number of nanoseconds in a millisecond.*/
+	private static final long NANOS_PER_MILLI = 1000000L;
+	/** The number of nanoseconds in a second.*/
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
 	/** If true, the timestep is fixed. If false, the timestep is dynamic.*/
 	private boolean fixed;
 
-	// Dynamic timestep variables
-	/** The time in nanoseconds at the start of the step.*/
-	private long beforeTime;
-	/** The time in nanoseconds the step takes.*/
-	private long deltaTime;
-	/** The time in macroseconds to sleep.*/
-	private long sleepTime;
+	// Fixed timestep variables
+	/** The time in nanoseconds not yet simulated.*/
+	private long accumulator;
+	/** The largest number of fixed steps taken in one frame.*/
+	private int maxSteps = 5;
+	/** How far the current time is between the last two steps.*/
+	private volatile double alpha;
+	/** The time in nanoseconds the last fixed step finished.*/
+	private volatile long lastStep;
+	/** The time in nanoseconds simulated by fixed steps.*/
+	private long simulated;
+	/** The time in milliseconds the owner has been told about by fixed steps.*/
+	private long reported;
+
+	// Rendering
+	/** The largest number of renders per second, 0 to render as often as possible.*/
+	private int renderRate;
 
 	// Frame Timer
-	/** The timer to keep track of the fps.*/
-	private Timer fpsTimer;
+	/** The time in nanoseconds the fps count was started.*/
+	private long fpsTime;
 	/** The number of steps taken this second.*/
 	private int frames;
 	/** The number of steps taken last second.*/
@@ -27,7 +47,13 @@ public class Piston extends Thread{
 
 	// Running booleans
 	/** If true, the Piston stops running. If false, the Piston runs*/
-	private boolean active;
+	private volatile boolean active;
+
+	// whether fixed steps follow the clock, or are taken one after another as fast as possible
+	private boolean realTime = true;
+
+	// whether the end of each frame ends a frame of the Profiler and Telemetry
+	private boolean profiled = true;
 
 	// Constructors
 
@@ -48,54 +74,138 @@ public class Piston extends Thread{
 	 * The main action of the piston, called by start. If the piston is paused no steps will occur.
 	 */
 	public void run() {
-		// Set intial running boolean
 		// set initial timer values
-		beforeTime = System.currentTimeMillis();
-		deltaTime = 0;
+		long beforeTime = System.nanoTime();
+		long remainder = 0;
+		accumulator = 0;
+		simulated = 0;
+		reported = 0;
 		// fps
-		fpsTimer = new Timer(true, 1);
-		fpsTimer.start();
+		fpsTime = beforeTime;
 		frames = 0;
 		fps = 0;
 
-		int i = 0;
-
-		// game graphics loop
+		// game loop
 		while(active) {
 
-			// execute the thread action
-			owner.update(deltaTime);
-
 			// Get the elapsed time
-			deltaTime = (System.currentTimeMillis() - beforeTime);
+			long frameStart = System.nanoTime();
+			long elapsed = frameStart - beforeTime;
+			beforeTime = frameStart;
 
-			// get new start time
-			beforeTime = System.currentTimeMillis();
+			long stepTime = getStepNanos();
+			long frameEnd;
 
-			// calculate time to sleep
-			sleepTime = (long)(1000 / frameRate);
-
-			// set a minimum sleep value
-			if (sleepTime < 0)
-			sleepTime = 2;
-
-			try {
-				sleep(sleepTime);
+			if (fixed && !realTime) {
+				// take one step per frame without waiting, as if its time had passed
+				step(nextStepTime());
+				lastStep = System.nanoTime();
+				alpha = 0;
+				if (owner instanceof Interpolated) {
+					draw();
+				}
+				frameEnd = frameStart;
+			}
+			else if (fixed) {
+				// take as many fixed steps as the elapsed time allows
+				accumulator += elapsed;
+				int steps = 0;
+				while (accumulator >= stepTime && steps < maxSteps) {
+					step(nextStepTime());
+					accumulator -= stepTime;
+					steps++;
+					lastStep = System.nanoTime();
+				}
+				// drop the time that could not be caught up on
+				if (accumulator >= stepTime) {
+					accumulator %= stepTime;
+				}
+				alpha = (double) accumulator / stepTime;
 
+				if (owner instanceof Interpolated) {
+					draw();
+					frameEnd = (renderRate > 0) ? frameStart + NANOS_PER_SECOND / renderRate : frameStart;
+				}
+				else {
+					// nothing to render so wait for the next step
+					frameEnd = frameStart + stepTime - accumulator;
+				}
 			}
-			catch (InterruptedException e) {
-				exception(e);
+			else {
+				// update with the elapsed milliseconds keeping the leftover nanoseconds for the next frame
+				remainder += elapsed;
+				long deltaTime = remainder / NANOS_PER_MILLI;
+				remainder -= deltaTime * NANOS_PER_MILLI;
+				step(deltaTime);
+				alpha = 1;
+
+				if (owner instanceof Interpolated) {
+					draw();
+				}
+				frameEnd = frameStart + stepTime;
 			}
 
+			// sleep for the rest of the frame
+			sleepUntil(frameEnd);
+
 			// increase fps count
 			frames++;
-			// update fps timer
-			fpsTimer.update();
-			if (fpsTimer.fired()) {
+			long now = System.nanoTime();
+			if (now - fpsTime >= NANOS_PER_SECOND) {
 				fps = frames;
 				frames = 0;
+				fpsTime = now;
 				MotorEngine.console.logFPS(fps);
 			}
+			if (profiled) {
+				Profiler.endFrame();
+				Telemetry.endFrame();
+			}
+		}
+	}
+
+	// the milliseconds to tell the owner a fixed step took, so the steps add up to the nanoseconds simulated
+	private long nextStepTime() {
+		simulated += getStepNanos();
+		long millis = simulated / NANOS_PER_MILLI - reported;
+		reported += millis;
+		return millis;
+	}
+
+	// update the owner, recording the update's time and allocations if this is the profiled Piston
+	private void step(long deltaTime) {
+		if (profiled) {
+			Telemetry.beginUpdate();
+		}
+		owner.update(deltaTime);
+		if (profiled) {
+			Telemetry.endUpdate();
+		}
+	}
+
+	// render the owner, recording the render's time and allocations
+	private void draw() {
+		Telemetry.beginRender();
+		((Interpolated) owner).render(alpha);
+		Telemetry.endRender();
+	}
+
+	// sleep until the given time, yielding for the last millisecond for accuracy
+	private void sleepUntil(long deadline) {
+		long remaining = deadline - System.nanoTime();
+		while (remaining > 0 && active) {
+			if (remaining > 2 * NANOS_PER_MILLI) {
+				try {
+					sleep((remaining - NANOS_PER_MILLI) / NANOS_PER_MILLI);
+				}
+				catch (InterruptedException e) {
+					exception(e);
+				}
+			}
+			else {
+				Thread.yield();
+			}
+			remaining = deadline - System.nanoTime();
 		}
 	}
 
@@ -162,6 +272,7 @@ public class Piston extends Thread{
 	/**
 	 *	Set the frame rate of this piston.
 	 * 	<p>When the framerate is variable this is the goal not definate.
+	 *	When it is fixed this is the number of steps per second.
 	 *
 	 * @param	frameRate	The frames per second to run at.
 	 */
@@ -178,6 +289,117 @@ public class Piston extends Thread{
 		return frameRate;
 	}
 
+	/**
+	 * Get the length of a step rounded to whole milliseconds, eg. 17 at 60 steps per second.
+	 * Fixed steps are timed in nanoseconds, see getStepNanos.
+	 *
+	 * @return	The time in milliseconds of a step.
+	 */
+	public long getStepTime() {
+		return Math.max(1, Math.round(1000.0 / Math.max(1, frameRate)));
+	}
+
+	/**
+	 * Get the exact length of a step.
+	 *
+	 * @return	The time in nanoseconds of a step.
+	 */
+	public long getStepNanos() {
+		return NANOS_PER_SECOND / Math.max(1, frameRate);
+	}
+
+	/**
+	 * Set the largest number of fixed steps taken in one frame. When the updates take longer than the time they
+	 * simulate the remaining time is dropped instead of being caught up on, which keeps the Piston from falling
+	 * further and further behind.
+	 *
+	 * @param	steps	The maximum number of steps per frame.
+	 */
+	public void setMaxSteps(int steps) {
+		maxSteps = Math.max(1, steps);
+	}
+
+	/**
+	 * Get the largest number of fixed steps taken in one frame.
+	 *
+	 * @return	The maximum number of steps per frame.
+	 */
+	public int getMaxSteps() {
+		return maxSteps;
+	}
+
+	/**
+	 * Set whether fixed steps follow the clock. When not, one step is taken each frame without sleeping, so the game
+	 * runs as fast as the machine allows while every step still sees the same fixed time. Used to simulate headless
+	 * games faster than real time.
+	 *
+	 * @param	realTime	True to step in real time, the default.
+	 */
+	public void setRealTime(boolean realTime) {
+		this.realTime = realTime;
+	}
+
+	/**
+	 * Check if fixed steps follow the clock.
+	 *
+	 * @return	True if stepping in real time.
+	 */
+	public boolean isRealTime() {
+		return realTime;
+	}
+
+	/**
+	 * Set whether the frames and updates of this Piston are the ones recorded by the Profiler and Telemetry.
+	 * Only one running Piston should be. Renders are recorded either way.
+	 *
+	 * @param	profiled	True to end a Profiler and Telemetry frame after each frame, the default.
+	 */
+	public void setProfiled(boolean profiled) {
+		this.profiled = profiled;
+	}
+
+	public boolean isProfiled() {
+		return profiled;
+	}
+
+	/**
+	 * Set the largest number of times per second an Interpolated owner is rendered with a fixed timestep.
+	 *
+	 * @param	renderRate	The renders per second, or 0 to render as often as possible.
+	 */
+	public void setRenderRate(int renderRate) {
+		this.renderRate = renderRate;
+	}
+
+	/**
+	 * Get the largest number of times per second an Interpolated owner is rendered with a fixed timestep.
+	 *
+	 * @return	The renders per second, or 0 if rendering as often as possible.
+	 */
+	public int getRenderRate() {
+		return renderRate;
+	}
+
+	/**
+	 * Get how far the current time is between the last two fixed steps.
+	 *
+	 * @return	The interpolation alpha from 0 to 1.
+	 */
+	public double getAlpha() {
+		return alpha;
+	}
+
+	/**
+	 * Get how far the current time is into the next fixed step, measured from when the last step finished.
+	 * This can be read from another thread rendering while the Piston sleeps.
+	 *
+	 * @return	The interpolation alpha from 0 to 1.
+	 */
+	public double getStepAlpha() {
+		double elapsed = System.nanoTime() - lastStep;
+		return Math.min(1.0, elapsed / getStepNanos());
+	}
+
 	/**
 	 * The exception cathcher, this is currently just a placeholder that will print the exception to the terminal.
 	 *
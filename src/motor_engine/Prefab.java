@@ -0,0 +1,241 @@
+package motor_engine;
+import java.util.*;
+
+/**
+ * A Prefab is a bundle of Components defined once and copied into as many Entities as needed.
+ * <p>Instantiating a Prefab looks up the Archetype of its component classes once and stores each copy straight
+ * into a new row of it, instead of moving every Entity through an Archetype per Component as adding them one by
+ * one does. Values that differ between the copies, such as their Positions, are handed in as arrays with Overrides
+ * and written straight into the columns.
+ * <pre>
+ * Prefab bullet = new Prefab("bullet");
+ * bullet.add(new Position());
+ * bullet.add(new Velocity(0, 100));
+ * bullet.instantiate(state, xs.length, new Prefab.Overrides().set(Position.class, xs, ys));
+ * </pre>
+ * The Entities are taken from the EntityPool, so freeing them lets later instances reuse them.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Prefab {
+
+	// the type of the entities
+	private String type;
+
+	// the template components, at most one of each class
+	private ArrayList<Component> components;
+
+	// whether the entities are active once created
+	private boolean active = true;
+
+	// the component classes of the templates, null until needed
+	private Class<? extends Component>[] types;
+
+	/**
+	 * Create an empty Prefab of the given type of Entity.
+	 *
+	 * @param	type	The type of the Entities created.
+	 */
+	public Prefab(String type) {
+		this.type = type;
+		components = new ArrayList<Component>();
+	}
+
+	/**
+	 * Get the type of the Entities created by this Prefab.
+	 *
+	 * @return	The type.
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * Add a template Component, replacing the one of the same class. Each Entity gets its own clone.
+	 *
+	 * @param	c	The template Component.
+	 */
+	public void add(Component c) {
+		remove(c.getClass());
+		components.add(c);
+		types = null;
+	}
+
+	/**
+	 * Remove the template Component of a class.
+	 *
+	 * @param	componentClass	The class of the Component to remove.
+	 */
+	public void remove(Class<? extends Component> componentClass) {
+		for (int i = 0; i < components.size(); i++) {
+			if (components.get(i).getClass() == componentClass) {
+				components.remove(i);
+				types = null;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Get the template Component of a class, to change the values every later instance starts with.
+	 *
+	 * @param	componentClass	The class of the Component.
+	 * @return					The template, or null if the Prefab does not have the class.
+	 */
+	public Component get(Class<? extends Component> componentClass) {
+		for (Component c : components) {
+			if (c.getClass() == componentClass) {
+				return c;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Set whether the Entities are active once they are created. They are by default.
+	 *
+	 * @param	active	True to create active Entities.
+	 */
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Create a single Entity that does not belong to a State.
+	 *
+	 * @return	The Entity.
+	 */
+	public Entity create() {
+		Entity e = EntityPool.obtain(type);
+		for (Component c : components) {
+			e.add(c.clone());
+		}
+		e.setActive(active);
+		return e;
+	}
+
+	/**
+	 * Create a number of Entities in a State.
+	 *
+	 * @param	s		The State to add the Entities to.
+	 * @param	count	The number of Entities.
+	 * @return			The Entities.
+	 */
+	public Entity[] instantiate(State s, int count) {
+		return instantiate(s, count, null);
+	}
+
+	/**
+	 * Create a number of Entities in a State, each with its own values for some of the Components.
+	 *
+	 * @param	s			The State to add the Entities to.
+	 * @param	count		The number of Entities.
+	 * @param	overrides	The values of each Entity, or null to copy the templates as they are.
+	 * @return				The Entities.
+	 */
+	public Entity[] instantiate(State s, int count, Overrides overrides) {
+		if (types == null) {
+			types = ComponentStorage.newTypeArray(components.size());
+			for (int i = 0; i < types.length; i++) {
+				types[i] = components.get(i).getClass();
+			}
+		}
+		Archetype a = s.getStorage().getArchetype(types);
+
+		// find the slots and columns once
+		int[] slots = new int[types.length];
+		for (int i = 0; i < types.length; i++) {
+			slots[i] = a.getSlot(types[i]);
+		}
+		int[] columns = null;
+		if (overrides != null) {
+			columns = new int[overrides.types.size()];
+			for (int i = 0; i < columns.length; i++) {
+				Class<? extends Component> t = overrides.types.get(i);
+				columns[i] = a.getColumnIndex(t);
+				if (columns[i] < 0) {
+					throw new IllegalArgumentException("The " + type + " prefab has no " + t.getSimpleName() + " to override.");
+				}
+				for (double[] values : overrides.values.get(i)) {
+					if (values.length < count) {
+						throw new IllegalArgumentException("Too few " + t.getSimpleName() + " values for " + count + " entities.");
+					}
+				}
+			}
+		}
+
+		Entity[] es = new Entity[count];
+		a.reserve(count);
+		for (int n = 0; n < count; n++) {
+			Entity e = EntityPool.obtain(type);
+			e.setActive(active);
+			int row = a.allocate(e);
+			e.place(a, row);
+			for (int i = 0; i < slots.length; i++) {
+				Component c = components.get(i).clone();
+				c.setParent(e);
+				a.set(slots[i], row, c, null, -1);
+			}
+			if (overrides != null) {
+				for (int i = 0; i < columns.length; i++) {
+					double[][] values = overrides.values.get(i);
+					for (int j = 0; j < values.length; j++) {
+						a.setValue(columns[i] + j, row, values[j][n]);
+					}
+				}
+			}
+			s.add(e);
+			es[n] = e;
+		}
+		return es;
+	}
+
+	public String toString() {
+		String str = type;
+		for (Component c : components) {
+			str += "\n" + c.toString();
+		}
+		return str;
+	}
+
+	/**
+	 * The values of some Components that differ between the Entities created by one call to Prefab.instantiate.
+	 * Each overridden Vector2dComponent or DoubleComponent is given one array per value, indexed by Entity.
+	 *
+	 * @author	Garrett Smith
+	 * @version	0.1
+	 */
+	public static class Overrides {
+
+		// the overridden classes and their arrays of values
+		private ArrayList<Class<? extends Component>> types = new ArrayList<Class<? extends Component>>();
+		private ArrayList<double[][]> values = new ArrayList<double[][]>();
+
+		/**
+		 * Override the values of a component class, eg. set(Position.class, xs, ys) or set(Rotation.class, angles).
+		 *
+		 * @param	type	The component class, a Vector2dComponent or DoubleComponent.
+		 * @param	values	One array for each value of the Component, holding the value of each Entity.
+		 * @return			These Overrides.
+		 */
+		public Overrides set(Class<? extends Component> type, double[]... values) {
+			if (values.length != Archetype.getColumnCount(type)) {
+				throw new IllegalArgumentException(type.getSimpleName() + " takes " + Archetype.getColumnCount(type) + " arrays of values.");
+			}
+			int i = types.indexOf(type);
+			if (i >= 0) {
+				this.values.set(i, values);
+			}
+			else {
+				types.add(type);
+				this.values.add(values);
+			}
+			return this;
+		}
+	}
+}
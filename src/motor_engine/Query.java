@@ -0,0 +1,189 @@
+package motor_engine;
+import java.util.*;
+
+/**
+ * A Query selects the Entities of a ComponentStorage by their component classes, eg. all Entities with a
+ * Position and a Velocity but without a Sprite. Once registered with a storage the Query keeps the list of
+ * matching Archetypes up to date as new Archetypes are created, so iterating it never filters Entities one by one.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Query {
+
+	// the component classes an entity must have
+	private Class<? extends Component>[] required;
+
+	// the component classes an entity must not have
+	private Class<? extends Component>[] excluded;
+
+	// the storage this query is registered with
+	private ComponentStorage storage;
+
+	// the matching archetypes of the storage
+	private ArrayList<Archetype> archetypes;
+
+	/**
+	 * Create a new Query matching Entities that have all the given component classes.
+	 *
+	 * @param	required	The component classes to require.
+	 */
+	@SafeVarargs
+	public Query(Class<? extends Component>... required) {
+		this.required = ComponentStorage.newTypeArray(required.length);
+		for (int i = 0; i < required.length; i++) {
+			this.required[i] = required[i];
+		}
+		this.excluded = ComponentStorage.newTypeArray(0);
+		archetypes = new ArrayList<Archetype>();
+	}
+
+	/**
+	 * Create an unregistered copy of the given Query.
+	 *
+	 * @param	q	The Query to copy.
+	 */
+	public Query(Query q) {
+		this(q.required);
+		excluded = copy(q.excluded);
+	}
+
+	/**
+	 * Exclude Entities that have any of the given component classes.
+	 *
+	 * @param	excluded	The component classes to exclude.
+	 * @return				This Query.
+	 */
+	@SafeVarargs
+	public final Query without(Class<? extends Component>... excluded) {
+		if (isRegistered()) {
+			throw new IllegalStateException("A registered Query can not be changed.");
+		}
+		Class<? extends Component>[] all = ComponentStorage.newTypeArray(this.excluded.length + excluded.length);
+		for (int i = 0; i < this.excluded.length; i++) {
+			all[i] = this.excluded[i];
+		}
+		for (int i = 0; i < excluded.length; i++) {
+			all[this.excluded.length + i] = excluded[i];
+		}
+		this.excluded = all;
+		return this;
+	}
+
+	// copy component classes into an array of their own
+	private static Class<? extends Component>[] copy(Class<? extends Component>[] types) {
+		Class<? extends Component>[] copy = ComponentStorage.newTypeArray(types.length);
+		for (int i = 0; i < types.length; i++) {
+			copy[i] = types[i];
+		}
+		return copy;
+	}
+
+	/**
+	 * Check if the Entities of an Archetype match this Query.
+	 *
+	 * @param	a	The Archetype to check.
+	 * @return		True if the Archetype has every required class and none of the excluded ones.
+	 */
+	public boolean matches(Archetype a) {
+		for (Class<? extends Component> c : required) {
+			if (!a.has(c)) {
+				return false;
+			}
+		}
+		for (Class<? extends Component> c : excluded) {
+			if (a.has(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check if this Query has been registered with a ComponentStorage.
+	 *
+	 * @return	True if the Query is registered, false otherwise.
+	 */
+	public boolean isRegistered() {
+		return storage != null;
+	}
+
+	/**
+	 * Get the storage this Query is registered with.
+	 *
+	 * @return	The ComponentStorage, or null if the Query is not registered.
+	 */
+	public ComponentStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Get the number of matching Archetypes.
+	 *
+	 * @return	The number of Archetypes.
+	 */
+	public int getArchetypeCount() {
+		return archetypes.size();
+	}
+
+	/**
+	 * Get a matching Archetype. Some may currently be empty.
+	 *
+	 * @param	i	The index of the Archetype.
+	 * @return		The Archetype.
+	 */
+	public Archetype getArchetype(int i) {
+		return archetypes.get(i);
+	}
+
+	/**
+	 * Count the Entities matching this Query.
+	 *
+	 * @return	The number of matching Entities.
+	 */
+	public int size() {
+		int count = 0;
+		for (int i = 0; i < archetypes.size(); i++) {
+			count += archetypes.get(i).size();
+		}
+		return count;
+	}
+
+	/**
+	 * Get a key identifying the classes selected by this Query.
+	 *
+	 * @return	A String that is equal for Queries selecting the same Entities.
+	 */
+	public String getKey() {
+		return getKey(required) + "|" + getKey(excluded);
+	}
+
+	// the sorted class names of a signature
+	private static String getKey(Class<? extends Component>[] types) {
+		String[] names = new String[types.length];
+		for (int i = 0; i < types.length; i++) {
+			names[i] = types[i].getName();
+		}
+		Arrays.sort(names);
+		return Arrays.toString(names);
+	}
+
+	// Called by the storage when this query is registered
+	void register(ComponentStorage storage, List<Archetype> existing) {
+		this.storage = storage;
+		for (Archetype a : existing) {
+			offer(a);
+		}
+	}
+
+	// Called by the storage when a new archetype is created
+	void offer(Archetype a) {
+		if (matches(a)) {
+			archetypes.add(a);
+		}
+	}
+
+	public String toString() {
+		return "Query " + getKey() + " " + archetypes;
+	}
+}
@@ -0,0 +1,102 @@
+package motor_engine;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Updates the rows of some Archetypes on the Scheduler's pool. The rows of each Archetype are split in half until a
+ * range holds at most the batch size, then each range is handed to a Rows callback on one of the pool's threads.
+ * Parallel BatchRules and parallel component update passes are both run this way.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+class RangeTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Updates a range of rows of one of the Archetypes.
+	 */
+	interface Rows {
+
+		/**
+		 * Update a range of rows.
+		 *
+		 * @param	index	The index of the Archetype in the ones being updated.
+		 * @param	chunk	The Archetype.
+		 * @param	start	The first row to update.
+		 * @param	end		The row after the last row to update.
+		 */
+		void update(int index, Archetype chunk, int start, int end);
+	}
+
+	// the archetypes, either given or the ones matched by a query
+	private Archetype[] chunks;
+	private Query query;
+
+	private Rows rows;
+	private int batchSize;
+
+	// the archetype and rows of this task, or -1 for the task splitting every archetype
+	private int index = -1;
+	private Archetype chunk;
+	private int start;
+	private int end;
+
+	/**
+	 * Create a task updating every row of the given Archetypes.
+	 *
+	 * @param	chunks		The Archetypes.
+	 * @param	batchSize	The largest number of rows updated by one task.
+	 * @param	rows		The callback updating each range.
+	 */
+	RangeTask(Archetype[] chunks, int batchSize, Rows rows) {
+		this.chunks = chunks;
+		this.batchSize = batchSize;
+		this.rows = rows;
+	}
+
+	/**
+	 * Create a task updating every row of the Archetypes matched by a Query.
+	 *
+	 * @param	query		The registered Query.
+	 * @param	batchSize	The largest number of rows updated by one task.
+	 * @param	rows		The callback updating each range.
+	 */
+	RangeTask(Query query, int batchSize, Rows rows) {
+		this.query = query;
+		this.batchSize = batchSize;
+		this.rows = rows;
+	}
+
+	// a task updating a range of rows of one archetype
+	private RangeTask(RangeTask parent, int index, Archetype chunk, int start, int end) {
+		this.batchSize = parent.batchSize;
+		this.rows = parent.rows;
+		this.index = index;
+		this.chunk = chunk;
+		this.start = start;
+		this.end = end;
+	}
+
+	protected void compute() {
+		if (index < 0) {
+			// one task for every archetype with rows
+			int count = (chunks != null) ? chunks.length : query.getArchetypeCount();
+			RangeTask[] tasks = new RangeTask[count];
+			for (int i = 0; i < count; i++) {
+				Archetype a = (chunks != null) ? chunks[i] : query.getArchetype(i);
+				tasks[i] = new RangeTask(this, i, a, 0, a.size());
+			}
+			invokeAll(tasks);
+		}
+		else if (end - start <= batchSize) {
+			if (end > start) {
+				rows.update(index, chunk, start, end);
+			}
+		}
+		else {
+			int middle = (start + end) >>> 1;
+			invokeAll(new RangeTask(this, index, chunk, start, middle), new RangeTask(this, index, chunk, middle, end));
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package motor_engine;
 import motor_engine.util.vector.ReadableVector2d;
+import motor_engine.util.vector.WriteableVector2d;
 import motor_engine.components.*;
 
 public interface ReadableEntity {
@@ -18,4 +19,5 @@ public interface ReadableEntity {
 
 	// vector components
 	public ReadableVector2d getVector2d(Class<? extends Vector2dComponent> componentClass);
+	public boolean getVector2d(Class<? extends Vector2dComponent> componentClass, WriteableVector2d out);
 }
@@ -1,13 +1,24 @@
 package motor_engine;
+import java.util.*;
+import motor_engine.util.Profiler;
 
 /**
  * A Rule is used to define custom logic for a game.
+ * <p>A Rule can declare which component classes it reads and writes so a State with parallel updates enabled
+ * can run it alongside Rules it does not conflict with. A Rule that declares nothing is run on its own.
  *
  * @author	Garrett Smith
  * @version	0.1
  */
 public abstract class Rule extends GameObject {
 
+	// the component classes this rule reads and writes
+	private HashSet<Class<? extends Component>> reads = new HashSet<Class<? extends Component>>();
+	private HashSet<Class<? extends Component>> writes = new HashSet<Class<? extends Component>>();
+
+	// the profiler scope timing the updates, -1 until the first
+	private int profileScope = -1;
+
 	/**
 	 *
 	 */
@@ -15,6 +26,75 @@ public abstract class Rule extends GameObject {
 		//RuleManager.add(this);
 	}
 
+	// component access
+
+	/**
+	 * Declare component classes this Rule reads during its update.
+	 *
+	 * @param	types	The component classes read.
+	 */
+	@SafeVarargs
+	public final void reads(Class<? extends Component>... types) {
+		for (Class<? extends Component> c : types) {
+			reads.add(c);
+		}
+	}
+
+	/**
+	 * Declare component classes this Rule writes during its update.
+	 *
+	 * @param	types	The component classes written.
+	 */
+	@SafeVarargs
+	public final void writes(Class<? extends Component>... types) {
+		for (Class<? extends Component> c : types) {
+			writes.add(c);
+		}
+	}
+
+	/**
+	 * Check if this Rule has declared the components it accesses.
+	 *
+	 * @return	True if any reads or writes have been declared, false otherwise.
+	 */
+	public boolean isDeclared() {
+		return !reads.isEmpty() || !writes.isEmpty();
+	}
+
+	/**
+	 * Check if this Rule can not run at the same time as another Rule.
+	 * Rules conflict when either writes a class the other accesses, or when either has not declared its access.
+	 *
+	 * @param	r	The other Rule.
+	 * @return		True if the Rules must run one after the other, false otherwise.
+	 */
+	public boolean conflicts(Rule r) {
+		if (!isDeclared() || !r.isDeclared()) {
+			return true;
+		}
+		for (Class<? extends Component> c : writes) {
+			if (r.reads.contains(c) || r.writes.contains(c)) {
+				return true;
+			}
+		}
+		for (Class<? extends Component> c : r.writes) {
+			if (reads.contains(c)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// update timed by the Profiler, called by States and Schedulers
+	final void timedUpdate(long deltaTime) {
+		long start = Profiler.start();
+		update(deltaTime);
+		if (start != 0 && profileScope < 0) {
+			profileScope = Profiler.scope("rule", getClass());
+		}
+		Profiler.stop(profileScope, start);
+	}
+
 	/**
 	 * A Rule can preform actions every update.
 	 *
@@ -0,0 +1,140 @@
+package motor_engine;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the Rules of a State on a ForkJoinPool. Each update the active Rules are ordered into levels where a
+ * Rule is placed after every earlier Rule it conflicts with, then the Rules of each level are run in parallel.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Scheduler {
+
+	// the pool shared by all schedulers
+	private static ForkJoinPool pool;
+
+	// the active rules of the current update in registration order
+	private ArrayList<Rule> active;
+
+	// the level of each active rule
+	private int[] levels;
+
+	// the rules of the level being run
+	private ArrayList<RuleTask> tasks;
+
+	/**
+	 * Create a new Scheduler.
+	 */
+	public Scheduler() {
+		active = new ArrayList<Rule>();
+		levels = new int[0];
+		tasks = new ArrayList<RuleTask>();
+	}
+
+	/**
+	 * Get the pool all parallel work is run on. It is created with one thread per processor when first used.
+	 *
+	 * @return	The shared ForkJoinPool.
+	 */
+	public static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool();
+		}
+		return pool;
+	}
+
+	/**
+	 * Run a task on the shared pool, or directly if the current thread already belongs to it.
+	 *
+	 * @param	task	The task to run.
+	 */
+	public static void invoke(ForkJoinTask<?> task) {
+		if (ForkJoinTask.inForkJoinPool()) {
+			task.invoke();
+		}
+		else {
+			getPool().invoke(task);
+		}
+	}
+
+	/**
+	 * Update the active Rules level by level.
+	 *
+	 * @param	rules		The Rules in registration order.
+	 * @param	deltaTime	The time in milliseconds since the last update.
+	 */
+	public void update(Collection<Rule> rules, long deltaTime) {
+		// collect the active rules
+		active.clear();
+		for (Rule r : rules) {
+			if (r.isActive()) {
+				active.add(r);
+			}
+		}
+		if (levels.length < active.size()) {
+			levels = new int[active.size()];
+		}
+
+		// place each rule one level after the last earlier rule it conflicts with
+		int levelCount = 0;
+		for (int i = 0; i < active.size(); i++) {
+			int level = 0;
+			for (int j = 0; j < i; j++) {
+				if (levels[j] >= level && active.get(i).conflicts(active.get(j))) {
+					level = levels[j] + 1;
+				}
+			}
+			levels[i] = level;
+			levelCount = Math.max(levelCount, level + 1);
+		}
+
+		// run the levels in order
+		for (int level = 0; level < levelCount; level++) {
+			tasks.clear();
+			for (int i = 0; i < active.size(); i++) {
+				if (levels[i] == level) {
+					tasks.add(new RuleTask(active.get(i), deltaTime));
+				}
+			}
+			if (tasks.size() == 1) {
+				tasks.get(0).rule.timedUpdate(deltaTime);
+			}
+			else {
+				invoke(new LevelTask(tasks));
+			}
+		}
+	}
+
+	// updates a single rule
+	private static class RuleTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Rule rule;
+		private long deltaTime;
+
+		RuleTask(Rule rule, long deltaTime) {
+			this.rule = rule;
+			this.deltaTime = deltaTime;
+		}
+
+		protected void compute() {
+			rule.timedUpdate(deltaTime);
+		}
+	}
+
+	// updates all the rules of a level and waits for them to finish
+	private static class LevelTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private ArrayList<RuleTask> tasks;
+
+		LevelTask(ArrayList<RuleTask> tasks) {
+			this.tasks = tasks;
+		}
+
+		protected void compute() {
+			invokeAll(tasks);
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package motor_engine;
 import motor_engine.components.*;
+import motor_engine.render.SnapshotBuffer;
 import java.util.*;
+import motor_engine.util.Contacts;
+import motor_engine.util.Profiler;
 import motor_engine.util.shape.Dimension;
 
 /**
@@ -20,18 +23,41 @@ public class State extends Dimension implements LifeCycle {
 	// The default Group
 	private Group defaultGroup;
 
+	// The Entities of all groups indexed by type and name
+	private EntityIndex index;
+
 	// The set of rules
 	private HashSet<Rule> rules;
 
+	// The storage of the components of every entity in this State
+	private ComponentStorage storage;
+
+	// Runs the rules in parallel when enabled
+	private Scheduler scheduler;
+
+	// The snapshots of the entities handed to the renderer after each update
+	private SnapshotBuffer snapshots;
+
+	// The contacts between entities found after each update
+	private Contacts contacts;
+
+	// the profiler scope timing the updates, -1 until the first
+	private int profileScope = -1;
+
 	/**
 	 * Default Constructor.
 	 */
 	public State() {
 		super();
+		storage = new ComponentStorage();
+		index = new EntityIndex();
 		groups = new HashSet<Group>();
 		defaultGroup = new Group();
+		defaultGroup.setOwner(this);
 		groups.add(defaultGroup);
-		rules = new HashSet<Rule>();
+		rules = new LinkedHashSet<Rule>();
+		snapshots = new SnapshotBuffer(this);
+		contacts = new Contacts(this);
 	}
 
 	/**
@@ -61,6 +87,68 @@ public class State extends Dimension implements LifeCycle {
 		this.active = active;
 	}
 
+	/**
+	 * Set whether the Rules and Components of this State are updated in parallel.
+	 * Rules are run alongside each other only if they have declared the components they read and write.
+	 * Components are updated a class at a time, and the rows of the classes that are parallel safe, such as
+	 * Velocity, Acceleration and Drag, are split between threads. Other classes are updated on one thread.
+	 * Components shared by several Entities are updated from each of them, so do not share parallel safe ones.
+	 *
+	 * @param	parallel	True to update in parallel, false to update one at a time.
+	 */
+	public void setParallel(boolean parallel) {
+		scheduler = parallel ? new Scheduler() : null;
+		storage.setParallel(parallel);
+	}
+
+	/**
+	 * Check whether the Rules of this State are updated in parallel.
+	 *
+	 * @return	True if the Rules are updated in parallel, false otherwise.
+	 */
+	public boolean isParallel() {
+		return scheduler != null;
+	}
+
+	//STORAGE
+	/**
+	 * Get the storage holding the Components of the Entities in this State.
+	 *
+	 * @return	The ComponentStorage of this State.
+	 */
+	public ComponentStorage getStorage() {
+		return storage;
+	}
+
+	/**
+	 * Register a Query with the storage of this State so it selects the Entities of this State.
+	 *
+	 * @param	q	The Query to register.
+	 * @return		The registered Query, which may be a shared equal Query.
+	 */
+	public Query query(Query q) {
+		return storage.register(q);
+	}
+
+	/**
+	 * Get the snapshots of this State published for the renderer after each update.
+	 *
+	 * @return	The SnapshotBuffer of this State.
+	 */
+	public SnapshotBuffer getSnapshots() {
+		return snapshots;
+	}
+
+	/**
+	 * Get the contacts of this State, found after the Entities have moved in each update.
+	 * Rules can subscribe to the contacts between types of Entities instead of checking every pair themselves.
+	 *
+	 * @return	The Contacts of this State.
+	 */
+	public Contacts getContacts() {
+		return contacts;
+	}
+
 	//ENTITIES
 	/**
 	 *	Add an Entity to the default set.
@@ -78,7 +166,10 @@ public class State extends Dimension implements LifeCycle {
 	 * @param	es	The array of Entities to add to the State.
 	 */
 	public void add(Entity[] es) {
-		defaultGroup.add(es);
+		for (Entity e : es) {
+			if (e != null)
+				add(e);
+		}
 	}
 
 	/**
@@ -106,7 +197,12 @@ public class State extends Dimension implements LifeCycle {
 	 * @param	g	The Group to add to the State.
 	 */
 	public void add(Group g) {
-		groups.add(g);
+		if (groups.add(g)) {
+			g.setOwner(this);
+			for (Entity e : g.getEntities()) {
+				index(e);
+			}
+		}
 	}
 
 	/**
@@ -115,7 +211,35 @@ public class State extends Dimension implements LifeCycle {
 	 * @param	g	The Group to be removed.
 	 */
 	public void remove(Group g) {
-		groups.remove(g);
+		if (groups.remove(g)) {
+			g.setOwner(null);
+			for (Entity e : g.getEntities()) {
+				if (contains(e)) {
+					// still in another group
+					e.setOwner(this);
+				}
+				else {
+					unindex(e);
+				}
+			}
+		}
+	}
+
+	// Called by the entity pool to take an entity out of every group of the state
+	void discard(Entity e) {
+		for (Group g : groups.toArray(new Group[groups.size()])) {
+			g.remove(e);
+		}
+	}
+
+	// Called by groups when an entity joins the state
+	void index(Entity e) {
+		index.add(e);
+	}
+
+	// Called by groups when an entity leaves every group of the state
+	void unindex(Entity e) {
+		index.remove(e);
 	}
 
 	//Entity Access
@@ -139,11 +263,7 @@ public class State extends Dimension implements LifeCycle {
 	 * @return			The number of Entity objects in all groups of the given type.
 	 */
 	public int countEntities(String type) {
-		int count = 0;
-		for (Group set : groups) {
-			count += set.count(type);
-		}
-		return count;
+		return index.count(type);
 	}
 
 	/**
@@ -167,11 +287,32 @@ public class State extends Dimension implements LifeCycle {
 	 * @return			An Entity Array containing every Entity of the given type in the groups of this State.
 	 */
 	public Entity[] getEntities(String type) {
-		ArrayList<Entity> entities = new ArrayList<Entity>();
-		for (Group set : groups) {
-			Collections.addAll(entities, set.getEntities(type));
+		return index.getType(type).toArray(new Entity[] {});
+	}
+
+	/**
+	 *	Access all the Entities of a given type contained in this State without copying them.
+	 *
+	 * @param	type	The type of Entity
+	 * @return			A live unmodifiable view of every Entity of the given type in the groups of this State.
+	 */
+	public Set<Entity> getEntitySet(String type) {
+		return index.getType(type);
+	}
+
+	/**
+	 * Check if any Group of this State contains the given Entity.
+	 *
+	 * @param	e	The Entity to check for.
+	 * @return		True if the Entity is in one of the groups, false otherwise.
+	 */
+	public boolean contains(Entity e) {
+		for (Group g : groups) {
+			if (g.contains(e)) {
+				return true;
+			}
 		}
-		return entities.toArray(new Entity[] {});
+		return false;
 	}
 
 	/**
@@ -181,13 +322,7 @@ public class State extends Dimension implements LifeCycle {
 	 * @return			The matched Entity.
 	 */
 	public Entity getEntity(String name) {
-		Entity matchedEntity = null;
-		for (Group set : groups) {
-			if (set.containsEntity(name)) {
-				matchedEntity = set.getEntity(name);
-			}
-		}
-		return matchedEntity;
+		return index.getName(name);
 	}
 
 	// RULES
@@ -212,17 +347,30 @@ public class State extends Dimension implements LifeCycle {
 
 	/**
 	 *	Updates all Rules and Entites in the State. This will do nothing if the State is disabled.
+	 * The Components of the Entities are updated in passes, one component class at a time in priority order.
 	 *
 	 * @param	elapsedTime	The time in milliseconds since the last update.
 	 */
 	public void update(long elapsedTime) {
-		for (Rule r : rules) {
-			if (r.isActive())
-				r.update(elapsedTime);
+		long start = Profiler.start();
+		storage.savePrevious();
+		if (scheduler != null) {
+			scheduler.update(rules, elapsedTime);
+		}
+		else {
+			for (Rule r : rules) {
+				if (r.isActive())
+					r.timedUpdate(elapsedTime);
+			}
 		}
-		for (Group g: groups) {
-			g.update(elapsedTime);
+		storage.update(elapsedTime);
+		contacts.update();
+		// captured only once a renderer reads the snapshots
+		snapshots.publish();
+		if (start != 0 && profileScope < 0) {
+			profileScope = Profiler.scope("state", getClass());
 		}
+		Profiler.stop(profileScope, start);
 	}
 
 	/**
@@ -249,5 +397,6 @@ public class State extends Dimension implements LifeCycle {
 		}
 		rules.clear();
 		groups.clear();
+		contacts.clear();
 	}
 }
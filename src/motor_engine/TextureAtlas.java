@@ -0,0 +1,285 @@
+package motor_engine;
+import motor_engine.util.Profiler;
+import org.newdawn.slick.opengl.Texture;
+import org.newdawn.slick.util.BufferedImageUtil;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.*;
+import javax.imageio.ImageIO;
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Packs many images into a few large power of two pages.
+ * The images are placed on shelves, tallest first, with a gap between them so neighbours do not bleed into each other.
+ * An image too large for a page is given a page of its own.
+ * <p>Packing only uses the CPU and can be done on any thread, uploading the pages needs the OpenGL thread.
+ * When headless nothing is uploaded and the regions only have their sizes.
+ * The pages can also be written out with an index so the packing can be done as a build step, see load.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class TextureAtlas {
+
+	/** The name of the index file written with the pages.*/
+	public static final String INDEX = "atlas.txt";
+
+	// the width and height of a page
+	private int pageSize;
+
+	// the gap in pixels around each image
+	private int padding;
+
+	// the images to pack
+	private ArrayList<Entry> entries;
+
+	// the packed pages
+	private ArrayList<BufferedImage> pages;
+
+	/**
+	 * Create an empty atlas.
+	 *
+	 * @param	pageSize	The width and height of a page in pixels, rounded up to a power of two.
+	 * @param	padding		The gap in pixels to leave around each image.
+	 */
+	public TextureAtlas(int pageSize, int padding) {
+		this.pageSize = powerOfTwo(pageSize);
+		this.padding = padding;
+		entries = new ArrayList<Entry>();
+		pages = new ArrayList<BufferedImage>();
+	}
+
+	// round up to a power of two
+	private static int powerOfTwo(int n) {
+		int p = 1;
+		while (p < n) {
+			p *= 2;
+		}
+		return p;
+	}
+
+	/**
+	 * Add an image file to the atlas. The image is known by its path.
+	 *
+	 * @param	path	The path of the image.
+	 * @throws	IOException	If the image can not be read.
+	 */
+	public void add(String path) throws IOException {
+		BufferedImage image = ImageIO.read(new File(path));
+		if (image == null) {
+			throw new IOException("Can not read image " + path);
+		}
+		add(path, image);
+	}
+
+	/**
+	 * Add an image to the atlas.
+	 *
+	 * @param	name	The name the image is known by.
+	 * @param	image	The image.
+	 */
+	public void add(String name, BufferedImage image) {
+		Entry e = new Entry();
+		e.name = name;
+		e.image = image;
+		entries.add(e);
+	}
+
+	/**
+	 * Place every image and draw the pages.
+	 *
+	 * @return	The number of pages.
+	 */
+	public int pack() {
+		// tallest images first so each shelf wastes little height
+		ArrayList<Entry> sorted = new ArrayList<Entry>(entries);
+		Collections.sort(sorted, new Comparator<Entry>() {
+			public int compare(Entry a, Entry b) {
+				return b.image.getHeight() - a.image.getHeight();
+			}
+		});
+
+		pages.clear();
+		ArrayList<Integer> sizes = new ArrayList<Integer>();
+		int page = -1;
+		int shelfX = 0;
+		int shelfY = 0;
+		int shelfHeight = 0;
+		for (Entry e : sorted) {
+			int w = e.image.getWidth() + padding;
+			int h = e.image.getHeight() + padding;
+
+			// give images too large for a page their own
+			if (w > pageSize || h > pageSize) {
+				sizes.add(Math.max(powerOfTwo(e.image.getWidth()), powerOfTwo(e.image.getHeight())));
+				e.page = sizes.size() - 1;
+				e.x = 0;
+				e.y = 0;
+				continue;
+			}
+
+			// start a new shelf, then a new page, when the image does not fit
+			if (page >= 0 && shelfX + w > pageSize) {
+				shelfX = 0;
+				shelfY += shelfHeight;
+				shelfHeight = 0;
+			}
+			if (page < 0 || shelfY + h > pageSize) {
+				sizes.add(pageSize);
+				page = sizes.size() - 1;
+				shelfX = 0;
+				shelfY = 0;
+				shelfHeight = 0;
+			}
+			e.page = page;
+			e.x = shelfX;
+			e.y = shelfY;
+			shelfX += w;
+			shelfHeight = Math.max(shelfHeight, h);
+		}
+
+		// draw the pages
+		for (int i = 0; i < sizes.size(); i++) {
+			pages.add(new BufferedImage(sizes.get(i), sizes.get(i), BufferedImage.TYPE_INT_ARGB));
+		}
+		for (Entry e : entries) {
+			Graphics2D g = pages.get(e.page).createGraphics();
+			g.drawImage(e.image, e.x, e.y, null);
+			g.dispose();
+		}
+		return pages.size();
+	}
+
+	/**
+	 * Get the number of packed pages.
+	 *
+	 * @return	The number of pages.
+	 */
+	public int getPageCount() {
+		return pages.size();
+	}
+
+	/**
+	 * Get a packed page.
+	 *
+	 * @param	i	The page index.
+	 * @return		The page image.
+	 */
+	public BufferedImage getPage(int i) {
+		return pages.get(i);
+	}
+
+	/**
+	 * Upload the pages as textures. This must be called on the OpenGL thread after pack.
+	 *
+	 * @return	The region of each image by name.
+	 * @throws	IOException	If a page can not be turned into a texture.
+	 */
+	public HashMap<String, TextureRegion> upload() throws IOException {
+		Texture[] textures = new Texture[pages.size()];
+		for (int i = 0; i < pages.size() && !MotorEngine.isHeadless(); i++) {
+			textures[i] = BufferedImageUtil.getTexture("atlas" + i, pages.get(i));
+			textures[i].bind();
+			Profiler.count(Profiler.TEXTURE_BINDS, 1);
+			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+		}
+		HashMap<String, TextureRegion> regions = new HashMap<String, TextureRegion>();
+		for (Entry e : entries) {
+			regions.put(e.name, new TextureRegion(textures[e.page], e.x, e.y, e.image.getWidth(), e.image.getHeight()));
+		}
+		return regions;
+	}
+
+	/**
+	 * Write the packed pages and an index of the images to a directory.
+	 * Each line of the index holds the name, page, x, y, width and height of an image separated by tabs.
+	 *
+	 * @param	directory	The directory to write to.
+	 * @throws	IOException	If a file can not be written.
+	 */
+	public void write(File directory) throws IOException {
+		directory.mkdirs();
+		for (int i = 0; i < pages.size(); i++) {
+			ImageIO.write(pages.get(i), "png", new File(directory, "page" + i + ".png"));
+		}
+		PrintWriter out = new PrintWriter(new FileWriter(new File(directory, INDEX)));
+		try {
+			for (Entry e : entries) {
+				out.println(e.name + "\t" + e.page + "\t" + e.x + "\t" + e.y + "\t" + e.image.getWidth() + "\t" + e.image.getHeight());
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Load pages written by write and upload them as textures. This must be called on the OpenGL thread.
+	 *
+	 * @param	directory	The directory the atlas was written to.
+	 * @return				The region of each image by name.
+	 * @throws	IOException	If a file can not be read.
+	 */
+	public static HashMap<String, TextureRegion> load(File directory) throws IOException {
+		HashMap<String, TextureRegion> regions = new HashMap<String, TextureRegion>();
+		HashMap<Integer, Texture> textures = new HashMap<Integer, Texture>();
+		BufferedReader in = new BufferedReader(new FileReader(new File(directory, INDEX)));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.split("\t");
+				if (fields.length != 6) {
+					continue;
+				}
+				int page = Integer.parseInt(fields[1]);
+				Texture t = textures.get(page);
+				if (t == null && !MotorEngine.isHeadless()) {
+					t = BufferedImageUtil.getTexture("atlas" + page, ImageIO.read(new File(directory, "page" + page + ".png")));
+					t.bind();
+					Profiler.count(Profiler.TEXTURE_BINDS, 1);
+					glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+					glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+					textures.put(page, t);
+				}
+				regions.put(fields[0], new TextureRegion(t, Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+						Integer.parseInt(fields[4]), Integer.parseInt(fields[5])));
+			}
+		}
+		finally {
+			in.close();
+		}
+		return regions;
+	}
+
+	/**
+	 * Pack images into an atlas directory as a build step.
+	 * Usage: TextureAtlas output-directory page-size image...
+	 *
+	 * @param	args	The output directory, the page size and the image paths.
+	 * @throws	IOException	If an image can not be read or the atlas written.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.out.println("Usage: TextureAtlas output-directory page-size image...");
+			return;
+		}
+		TextureAtlas atlas = new TextureAtlas(Integer.parseInt(args[1]), 1);
+		for (int i = 2; i < args.length; i++) {
+			atlas.add(args[i]);
+		}
+		int pages = atlas.pack();
+		atlas.write(new File(args[0]));
+		System.out.println(pages + " pages written to " + args[0]);
+	}
+
+	// an image and where it was placed
+	private static class Entry {
+		String name;
+		BufferedImage image;
+		int page;
+		int x;
+		int y;
+	}
+}
@@ -1,65 +1,471 @@
 package motor_engine;
 import motor_engine.components.Sprite;
+import motor_engine.util.Profiler;
+import org.newdawn.slick.opengl.ImageDataFactory;
+import org.newdawn.slick.opengl.InternalTextureLoader;
+import org.newdawn.slick.opengl.LoadableImageData;
 import org.newdawn.slick.opengl.Texture;
-import org.newdawn.slick.opengl.TextureLoader;
-import java.util.HashMap;
+import org.newdawn.slick.util.BufferedImageUtil;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.io.*;
+import static org.lwjgl.opengl.GL11.*;
 
 /**
  * Texture managing system.
+ * Every loaded image is known by its path and resolves to a TextureRegion, either a whole texture of its own or a
+ * rectangle of a shared atlas page.
+ * <p>Sprites acquire the images they use and release them when they end, an image is unloaded once nothing uses it.
+ * Acquired images are decoded on background threads and uploaded on the OpenGL thread within a time budget each
+ * frame, a placeholder is drawn in their place until then. Images loaded, packed or added from an atlas directly
+ * stay loaded until they are removed.
  *
  * @author	Garrett Smith
  * @version	0.1
  */
 public class TextureManager {
-	// texture hash map
-	private static HashMap<String, Texture> textureMap = new HashMap<String, Texture>();
+
+	// the images known by path
+	private static ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	// work waiting to be done on the OpenGL thread
+	private static ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<Runnable>();
+
+	// the threads decoding images
+	private static ExecutorService decoder;
+
+	// the time in nanoseconds spent on pending work each frame
+	private static long uploadBudget = 4000000;
+
+	// the region drawn in place of images still loading
+	private static volatile TextureRegion placeholder;
 
 	/**
+	 * Get the texture holding an image.
 	 *
+	 * @param	path	The path of the image.
+	 * @return			The texture, or null if the image is not loaded.
 	 */
 	public static Texture get(String path) {
-		return textureMap.get(path);
+		TextureRegion region = getLoadedRegion(path);
+		return (region != null) ? region.getTexture() : null;
 	}
 
 	/**
+	 * Get the region of an image, or the placeholder while it is loading.
 	 *
+	 * @param	path	The path of the image.
+	 * @return			The region, the placeholder if the image is loading, or null if it is neither.
+	 */
+	public static TextureRegion getRegion(String path) {
+		Entry e = entries.get(path);
+		if (e == null) {
+			return null;
+		}
+		TextureRegion region = e.region;
+		return (region == null && e.loading) ? placeholder : region;
+	}
+
+	// the region of an image if it is loaded
+	private static TextureRegion getLoadedRegion(String path) {
+		Entry e = entries.get(path);
+		return (e != null) ? e.region : null;
+	}
+
+	/**
+	 * Check if an image is known to the manager.
+	 *
+	 * @param	path	The path of the image.
+	 * @return			True if the image is loaded, loading or was added.
 	 */
 	public static boolean has(String path) {
-		return textureMap.containsKey(path);
+		return entries.containsKey(path);
 	}
 
 	/**
+	 * Make an image known to the manager without loading it. It stays known until it is removed.
 	 *
+	 * @param	path	The path of the image.
 	 */
-	public static void add(String path) {
-		textureMap.put(path, null);
+	public static synchronized void add(String path) {
+		entry(path).pinned = true;
 	}
 
 	/**
+	 * Remove an image however many Sprites use it. Its texture is released unless it is an atlas page still holding
+	 * other images.
 	 *
+	 * @param	path	The path of the image.
 	 */
-	public static void remove(String path) {
-		textureMap.get(path).release();
-		textureMap.remove(path);
+	public static synchronized void remove(String path) {
+		Entry e = entries.remove(path);
+		if (e != null) {
+			unload(e.region);
+		}
 	}
 
 	/**
+	 * Check if an image is loaded.
 	 *
+	 * @param	path	The path of the image.
+	 * @return			True if the image is loaded, false if it is unknown or still loading.
 	 */
 	public static boolean isLoaded(String path) {
-		return (textureMap.get(path) != null);
+		return getLoadedRegion(path) != null;
+	}
+
+	/**
+	 * Check if an image is being loaded.
+	 *
+	 * @param	path	The path of the image.
+	 * @return			True if the image is being decoded or waiting to be uploaded.
+	 */
+	public static boolean isLoading(String path) {
+		Entry e = entries.get(path);
+		return e != null && e.loading;
+	}
+
+	/**
+	 * Start using an image, loading it in the background if it is not loaded.
+	 *
+	 * @param	path	The path of the image.
+	 */
+	public static synchronized void acquire(String path) {
+		Entry e = entry(path);
+		e.references++;
+		if (e.region == null && !e.loading) {
+			if (MotorEngine.isHeadless()) {
+				// nothing is uploaded so read the size straight away, the same on every run
+				try {
+					setRegion(path, e, createRegion(read(path)));
+				}
+				catch (IOException ex) {
+					ex.printStackTrace();
+				}
+			}
+			else {
+				decode(path, e);
+			}
+		}
+	}
+
+	/**
+	 * Stop using an image. It is unloaded when nothing uses it anymore, unless it was loaded directly.
+	 *
+	 * @param	path	The path of the image.
+	 */
+	public static synchronized void release(String path) {
+		Entry e = entries.get(path);
+		if (e == null || e.references == 0) {
+			return;
+		}
+		e.references--;
+		if (e.references == 0 && !e.pinned) {
+			entries.remove(path);
+			unload(e.region);
+		}
+	}
+
+	/**
+	 * Get the number of Sprites using an image.
+	 *
+	 * @param	path	The path of the image.
+	 * @return			The number of references.
+	 */
+	public static int getReferences(String path) {
+		Entry e = entries.get(path);
+		return (e != null) ? e.references : 0;
+	}
+
+	/**
+	 * Set the time spent uploading textures and doing other pending work each frame. At least one piece of work is
+	 * done every frame.
+	 *
+	 * @param	nanos	The budget in nanoseconds.
+	 */
+	public static void setUploadBudget(long nanos) {
+		uploadBudget = nanos;
+	}
+
+	/**
+	 * Get the time spent uploading textures and doing other pending work each frame.
+	 *
+	 * @return	The budget in nanoseconds.
+	 */
+	public static long getUploadBudget() {
+		return uploadBudget;
+	}
+
+	/**
+	 * Do the work waiting for the OpenGL thread until the budget is spent. This is called by the DisplayManager before rendering.
+	 */
+	public static void update() {
+		if (placeholder == null && !MotorEngine.isHeadless()) {
+			placeholder = createPlaceholder();
+		}
+		long start = System.nanoTime();
+		Runnable r;
+		while ((r = pending.poll()) != null) {
+			r.run();
+			if (System.nanoTime() - start > uploadBudget) {
+				break;
+			}
+		}
 	}
 
 	/**
+	 * Load an image and keep it until it is removed. On the OpenGL thread the image is loaded immediately,
+	 * otherwise it is loaded in the background.
 	 *
+	 * @param	path	The path of the image.
 	 */
 	public static void load(String path) {
+		Entry e;
+		synchronized (TextureManager.class) {
+			e = entry(path);
+			e.pinned = true;
+		}
+		if (!DisplayManager.isGLThread()) {
+			reload(path);
+			return;
+		}
 		try {
-			textureMap.put(path, TextureLoader.getTexture("PNG", new FileInputStream(path)));
+			LoadableImageData data = read(path);
+			synchronized (TextureManager.class) {
+				setRegion(path, e, createRegion(data));
+			}
 		}
-		catch (Exception e) {
+		catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Load an image again in the background, the old texture is drawn until the new one is uploaded.
+	 *
+	 * @param	path	The path of the image.
+	 */
+	public static synchronized void reload(String path) {
+		Entry e = entries.get(path);
+		if (e != null && !e.loading) {
+			decode(path, e);
+		}
+	}
+
+	/**
+	 * Pack images into atlas pages and load them, so Sprites of these images share a few textures.
+	 * When called off the OpenGL thread the images are packed and loaded before the next render.
+	 *
+	 * @param	pageSize	The width and height of a page in pixels.
+	 * @param	paths		The paths of the images.
+	 */
+	public static void pack(final int pageSize, final String... paths) {
+		if (!DisplayManager.isGLThread()) {
+			pending.add(new Runnable() {
+				public void run() {
+					pack(pageSize, paths);
+				}
+			});
+			return;
+		}
+		try {
+			TextureAtlas atlas = new TextureAtlas(pageSize, 1);
+			for (String path : paths) {
+				atlas.add(path);
+			}
+			atlas.pack();
+			addRegions(atlas.upload());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Load an atlas written ahead of time by TextureAtlas.write.
+	 * When called off the OpenGL thread the atlas is loaded before the next render.
+	 *
+	 * @param	directory	The directory the atlas was written to.
+	 */
+	public static void loadAtlas(final String directory) {
+		if (!DisplayManager.isGLThread()) {
+			pending.add(new Runnable() {
+				public void run() {
+					loadAtlas(directory);
+				}
+			});
+			return;
+		}
+		try {
+			addRegions(TextureAtlas.load(new File(directory)));
+		}
+		catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
+
+	// replace the images with their atlas regions, keeping them until removed
+	private static synchronized void addRegions(Map<String, TextureRegion> regions) {
+		for (Map.Entry<String, TextureRegion> r : regions.entrySet()) {
+			Entry e = entry(r.getKey());
+			e.pinned = true;
+			setRegion(r.getKey(), e, r.getValue());
+		}
+	}
+
+	// get the entry of a path, creating it if needed
+	private static Entry entry(String path) {
+		Entry e = entries.get(path);
+		if (e == null) {
+			e = new Entry();
+			entries.put(path, e);
+		}
+		return e;
+	}
+
+	// decode an image in the background then queue its upload
+	private static void decode(final String path, final Entry e) {
+		e.loading = true;
+		getDecoder().execute(new Runnable() {
+			public void run() {
+				try {
+					final LoadableImageData data = read(path);
+					pending.add(new Runnable() {
+						public void run() {
+							synchronized (TextureManager.class) {
+								// skip images removed or released while decoding
+								if (entries.get(path) == e) {
+									try {
+										setRegion(path, e, createRegion(data));
+									}
+									catch (IOException ex) {
+										ex.printStackTrace();
+									}
+								}
+								e.loading = false;
+							}
+						}
+					});
+				}
+				catch (IOException ex) {
+					ex.printStackTrace();
+					e.loading = false;
+				}
+			}
+		});
+	}
+
+	// set the region of an entry and unload the one it replaces
+	private static void setRegion(String path, Entry e, TextureRegion region) {
+		TextureRegion old = e.region;
+		e.region = region;
+		e.loading = false;
+		if (old != null && old.getTexture() != region.getTexture()) {
+			unload(old);
+		}
+	}
+
+	// release the texture of a region unless another image still uses it
+	private static void unload(TextureRegion region) {
+		if (region == null) {
+			return;
+		}
+		final Texture t = region.getTexture();
+		if (t == null) {
+			return;
+		}
+		for (Entry e : entries.values()) {
+			if (e.region != null && e.region.getTexture() == t) {
+				return;
+			}
+		}
+		if (DisplayManager.isGLThread()) {
+			t.release();
+		}
+		else {
+			pending.add(new Runnable() {
+				public void run() {
+					t.release();
+				}
+			});
+		}
+	}
+
+	// decode an image file
+	private static LoadableImageData read(String path) throws IOException {
+		LoadableImageData data = ImageDataFactory.getImageDataFor(path);
+		InputStream in = new BufferedInputStream(new FileInputStream(path));
+		try {
+			data.loadImage(in, false, null);
+		}
+		finally {
+			in.close();
+		}
+		return data;
+	}
+
+	// upload a decoded image with nearest filtering, set once here instead of every time the texture is drawn
+	private static Texture upload(LoadableImageData data) throws IOException {
+		return InternalTextureLoader.get().getTexture(data, GL_NEAREST);
+	}
+
+	// upload a decoded image as a region, or only keep its size when headless
+	private static TextureRegion createRegion(LoadableImageData data) throws IOException {
+		Texture t = MotorEngine.isHeadless() ? null : upload(data);
+		return new TextureRegion(t, 0, 0, data.getWidth(), data.getHeight());
+	}
+
+	// create a checkered texture to draw in place of images still loading
+	private static TextureRegion createPlaceholder() {
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+		for (int x = 0; x < 16; x++) {
+			for (int y = 0; y < 16; y++) {
+				image.setRGB(x, y, (((x / 8) + (y / 8)) % 2 == 0) ? 0xFFFF00FF : 0xFF000000);
+			}
+		}
+		try {
+			Texture t = BufferedImageUtil.getTexture("placeholder", image);
+			t.bind();
+			Profiler.count(Profiler.TEXTURE_BINDS, 1);
+			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+			glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+			return new TextureRegion(t);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	// get the decoder threads, created when first needed
+	private static synchronized ExecutorService getDecoder() {
+		if (decoder == null) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+			decoder = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Texture Decoder");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return decoder;
+	}
+
+	// an image known to the manager
+	private static class Entry {
+		// the loaded region, null while loading
+		volatile TextureRegion region;
+		// whether the image is being decoded or uploaded
+		volatile boolean loading;
+		// the number of sprites using the image
+		int references;
+		// whether the image stays loaded without references
+		boolean pinned;
+	}
 }
@@ -0,0 +1,127 @@
+package motor_engine;
+import org.newdawn.slick.opengl.Texture;
+
+/**
+ * A rectangle of a Texture holding one image, either a whole loaded texture or part of an atlas page.
+ * The texture coordinates are worked out once so they can be handed straight to the renderer.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class TextureRegion {
+
+	// the texture holding the image
+	private Texture texture;
+
+	// the texture coordinates of the image
+	private float u0;
+	private float v0;
+	private float u1;
+	private float v1;
+
+	// the size of the image in pixels
+	private int width;
+	private int height;
+
+	/**
+	 * Create a region of a texture.
+	 *
+	 * @param	texture	The texture holding the image, or null for a region that only has a size.
+	 * @param	x		The x position of the image in pixels.
+	 * @param	y		The y position of the image in pixels from the top.
+	 * @param	width	The width of the image in pixels.
+	 * @param	height	The height of the image in pixels.
+	 */
+	public TextureRegion(Texture texture, int x, int y, int width, int height) {
+		this.texture = texture;
+		this.width = width;
+		this.height = height;
+		if (texture == null) {
+			// a region without a texture, when headless, only has a size
+			u1 = 1;
+			v1 = 1;
+			return;
+		}
+		u0 = (float) x / texture.getTextureWidth();
+		v0 = (float) y / texture.getTextureHeight();
+		u1 = (float) (x + width) / texture.getTextureWidth();
+		v1 = (float) (y + height) / texture.getTextureHeight();
+	}
+
+	/**
+	 * Create a region covering the whole image of a texture.
+	 *
+	 * @param	texture	The texture.
+	 */
+	public TextureRegion(Texture texture) {
+		this(texture, 0, 0, texture.getImageWidth(), texture.getImageHeight());
+	}
+
+	/**
+	 * Get the texture holding the image.
+	 *
+	 * @return	The texture, or null when running headless.
+	 */
+	public Texture getTexture() {
+		return texture;
+	}
+
+	/**
+	 * Get the texture x coordinate of the left edge.
+	 *
+	 * @return	The left texture coordinate.
+	 */
+	public float getU0() {
+		return u0;
+	}
+
+	/**
+	 * Get the texture y coordinate of the top edge.
+	 *
+	 * @return	The top texture coordinate.
+	 */
+	public float getV0() {
+		return v0;
+	}
+
+	/**
+	 * Get the texture x coordinate of the right edge.
+	 *
+	 * @return	The right texture coordinate.
+	 */
+	public float getU1() {
+		return u1;
+	}
+
+	/**
+	 * Get the texture y coordinate of the bottom edge.
+	 *
+	 * @return	The bottom texture coordinate.
+	 */
+	public float getV1() {
+		return v1;
+	}
+
+	/**
+	 * Get the width of the image.
+	 *
+	 * @return	The width in pixels.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the image.
+	 *
+	 * @return	The height in pixels.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	public String toString() {
+		String size = width + "x" + height;
+		return (texture != null) ? texture.getTextureRef() + " (" + size + ")" : size;
+	}
+}
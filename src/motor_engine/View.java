@@ -1,8 +1,6 @@
 package motor_engine;
 import motor_engine.components.Size;
 import motor_engine.render.*;
-import org.lwjgl.opengl.Display;
-import org.lwjgl.opengl.DisplayMode;
 import static org.lwjgl.opengl.GL11.*;
 
 /**
@@ -38,7 +36,7 @@ public class View implements Comparable {
 	 */
 	public View() {
 		setVisible(true);
-		setSize(Display.getDisplayMode().getWidth(), Display.getDisplayMode().getHeight());
+		setSize(DisplayManager.getWidth(), DisplayManager.getHeight());
 		setRenderer(new DefaultRenderer());
 
 	}
@@ -146,7 +144,7 @@ public class View implements Comparable {
 	 * Center the View in the window.
 	 */
 	public void centerLocation() {
-		setLocation(Display.getDisplayMode().getWidth()/2 - width/2, Display.getDisplayMode().getHeight()/2 - height/2);
+		setLocation(DisplayManager.getWidth()/2 - width/2, DisplayManager.getHeight()/2 - height/2);
 	}
 
 	/**
@@ -256,6 +254,10 @@ public class View implements Comparable {
 	 * @param	e	The camera Entity to link to this View.
 	 */
 	public void setCamera (Entity e) {
+		// stop recording the old camera's index in its State's snapshots
+		if (camera != null && camera != e && camera.getOwner() != null) {
+			camera.getOwner().getSnapshots().untrack(camera);
+		}
 		camera = e;
 	}
 
@@ -288,12 +290,18 @@ public class View implements Comparable {
 
 	// update the gl coordinates
 	private void updateGLSize() {
-		if (camera.has(Size.class)) {
+		// read the camera size from the latest snapshot as the simulation may be changing it
+		State owner = camera.getOwner();
+		if (owner != null) {
+			owner.getSnapshots().track(camera);
+		}
+		RenderSnapshot snapshot = (owner != null) ? owner.getSnapshots().acquire() : null;
+		int c = (snapshot != null) ? snapshot.indexOf(camera) : -1;
+		if (c >= 0 && snapshot.hasSize(c)) {
 			//modify to check for change
-			Size cs = (Size) camera.get(Size.class);
 			glMatrixMode(GL_PROJECTION);
 			glLoadIdentity();
-			glOrtho(0, cs.getX(), 0, cs.getY(), -1, 1);
+			glOrtho(0, snapshot.getWidth(c), 0, snapshot.getHeight(c), -1, 1);
 			glMatrixMode(GL_MODELVIEW);
 			glLoadIdentity();
 		}
@@ -11,11 +11,15 @@ import motor_engine.util.vector.*;
 
 public class Acceleration extends Vector2dComponent {
 
+	/** Accelerations are updated first, so they change a Velocity before it moves its Entity.*/
+	public static final double PRIORITY = 10;
+
 	/**
 	 * Sets the acceleration to (0 ,0).
 	 */
 	public Acceleration () {
 		super();
+		setPriority(PRIORITY);
 	}
 
 	/**
@@ -26,6 +30,7 @@ public class Acceleration extends Vector2dComponent {
 	 */
 	public Acceleration (double x, double y) {
 		super(x,y);
+		setPriority(PRIORITY);
 	}
 
 	/**
@@ -35,6 +40,7 @@ public class Acceleration extends Vector2dComponent {
 	 */
 	public Acceleration (ReadableVector2d v) {
 		super(v);
+		setPriority(PRIORITY);
 	}
 
 	public Component clone() {
@@ -50,10 +56,21 @@ public class Acceleration extends Vector2dComponent {
 	public void update(long deltaTime) {
 		if (getParent().has(Velocity.class)) {
 			Velocity v = (Velocity)getParent().get(Velocity.class);
-			v.add(Vectors.multiply(this, (deltaTime / 1000.0) ));
+			double dt = deltaTime / 1000.0;
+			v.add(getX() * dt, getY() * dt);
 		}
 	}
 
+	/** Only changes the Velocity of its own Entity. */
+	public boolean isParallelSafe() {
+		return true;
+	}
+
+	/** Idle when not accelerating. */
+	public boolean isIdle() {
+		return getX() == 0 && getY() == 0;
+	}
+
 	/** Movement does not have a end method. */
 	public void end() {
 
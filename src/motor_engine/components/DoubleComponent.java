@@ -1,14 +1,18 @@
 package motor_engine.components;
+import motor_engine.Archetype;
+import motor_engine.Columnar;
 import motor_engine.Component;
+import motor_engine.Entity;
 import motor_engine.util.MotorMath;
 
 /**
  * A component with a single double as its field.
+ * While the component belongs to an Entity the value is stored in a column of the Entity's Archetype.
  *
  * @author	Garrett Smith
  * @version	0.1
  */
-public abstract class DoubleComponent extends Component {
+public abstract class DoubleComponent extends Component implements Columnar {
 
 	// Component methods
 	public abstract void begin();
@@ -16,11 +20,17 @@ public abstract class DoubleComponent extends Component {
 	public abstract void update(long deltaTime);
 
 	public String toString() {
-		return "(" + x + ")";
+		return "(" + get() + ")";
 	}
 
+	// the value used while the component is not bound to an archetype
 	private double x;
 
+	// the archetype column storing the value while bound
+	private Archetype archetype;
+	private int column;
+	private int row;
+
 	public DoubleComponent() {
 		set(0);
 	}
@@ -35,68 +45,110 @@ public abstract class DoubleComponent extends Component {
 
 	public abstract Component clone();
 
+	/** Set the value back to 0. */
+	public void reset() {
+		set(0);
+	}
+
 	public double get() {
+		if (archetype != null) {
+			return archetype.getColumn(column)[row];
+		}
+		return x;
+	}
+
+	/**
+	 * Get the value between its value at the start of the last update and its current value.
+	 *
+	 * @param	alpha	How far between the previous and the current value, from 0 to 1.
+	 * @return			The interpolated value, or the current value if the component is not bound.
+	 */
+	public double getInterpolated(double alpha) {
+		if (archetype != null) {
+			double previous = archetype.getPrevious(column)[row];
+			return previous + (archetype.getColumn(column)[row] - previous) * alpha;
+		}
 		return x;
 	}
 
 	public void set(double x) {
-		this.x = x;
+		if (archetype != null) {
+			double[] values = archetype.getColumn(column);
+			if (values[row] != x) {
+				values[row] = x;
+				changed();
+			}
+		}
+		else if (this.x != x) {
+			this.x = x;
+			changed();
+		}
+	}
+
+	// wake the sleeping Entity of an updated component when its value changes
+	private void changed() {
+		if (isUpdated()) {
+			Entity e = getParent();
+			if (e != null && e.isSleeping()) {
+				e.wake();
+			}
+		}
 	}
 
 	public void set(DoubleComponent c) {
-		this.x = c.get();
+		set(c.get());
 	}
 
 	public void add(double x) {
-		this.x += x;
+		set(get() + x);
 	}
 
 	public void add(DoubleComponent c) {
-		this.x += c.get();
+		add(c.get());
 	}
 
 	public void subtract(double x) {
-		this.x -= x;
+		set(get() - x);
 	}
 
 	public void subtract(DoubleComponent c) {
-		this.x -= c.get();
+		subtract(c.get());
 	}
 
 	public void multiply(double x) {
-		this.x *= x;
+		set(get() * x);
 	}
 
 	public void multiply(DoubleComponent c) {
-		this.x *= c.get();
+		multiply(c.get());
 	}
 
 	public void divide(double x) {
-		this.x /= x;
+		set(get() / x);
 	}
 
 	public void divide(DoubleComponent c) {
-		this.x /= c.get();
+		divide(c.get());
 	}
 
 	public boolean equals(double x) {
-		return this.x == x;
+		return get() == x;
 	}
 
 	public boolean equals(DoubleComponent c) {
-		return this.x == c.get();
+		return get() == c.get();
 	}
 
 	public void copySign(double sign) {
-		x = Math.copySign(x, sign);
+		set(Math.copySign(get(), sign));
 	}
 
 	public void copySign(DoubleComponent c) {
-		x = Math.copySign(x, c.get());
+		copySign(c.get());
 	}
 
 	public void constrain(double min, double max) {
-		x = MotorMath.constrain(x,min,max);
+		set(MotorMath.constrain(get(), min, max));
 	}
 
 	public void negate() {
@@ -104,6 +156,31 @@ public abstract class DoubleComponent extends Component {
 	}
 
 	public void abs() {
-		x = Math.abs(x);
+		set(Math.abs(get()));
+	}
+
+	// storage binding
+
+	// moving the value between storages is not a change, so the entity is not woken
+	public void bind(Archetype archetype, int column, int row) {
+		double x = get();
+		this.archetype = archetype;
+		this.column = column;
+		this.row = row;
+		archetype.getColumn(column)[row] = x;
+	}
+
+	public void unbind() {
+		double x = get();
+		archetype = null;
+		this.x = x;
+	}
+
+	public boolean isBound() {
+		return archetype != null;
+	}
+
+	public boolean isBoundTo(Archetype archetype, int row) {
+		return this.archetype != null && this.archetype == archetype && this.row == row;
 	}
 }
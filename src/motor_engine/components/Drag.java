@@ -11,13 +11,15 @@ import motor_engine.util.vector.*;
 
 public class Drag extends Vector2dComponent {
 
-	private Vector2d delta;
+	/** Drags are updated last, slowing a Velocity after it has moved its Entity.*/
+	public static final double PRIORITY = 30;
 
 	/**
 	 * Sets the Drag to (0 ,0).
 	 */
 	public Drag () {
 		super();
+		setPriority(PRIORITY);
 	}
 
 	/**
@@ -28,6 +30,7 @@ public class Drag extends Vector2dComponent {
 	 */
 	public Drag (double x, double y) {
 		super(x,y);
+		setPriority(PRIORITY);
 	}
 
 	/**
@@ -37,6 +40,7 @@ public class Drag extends Vector2dComponent {
 	 */
 	public Drag (ReadableVector2d v) {
 		super(v);
+		setPriority(PRIORITY);
 	}
 
 	public Component clone() {
@@ -55,13 +59,28 @@ public class Drag extends Vector2dComponent {
 	public void update(long deltaTime) {
 		if (getParent().has(Velocity.class)) {
 			Velocity v = (Velocity)getParent().get(Velocity.class);
-			Vector2d tmp = new Vector2d(v);
-			tmp.abs();
-			tmp.subtract(Vectors.abs(Vectors.multiply(this,(deltaTime / 1000.0))));
+			ScratchVectors scratch = ScratchVectors.get();
+			int mark = scratch.mark();
+			Vector2d drag = Vectors.multiply(this, (deltaTime / 1000.0), scratch.vector2d());
+			drag.abs();
+			Vector2d tmp = Vectors.abs(v, scratch.vector2d());
+			tmp.subtract(drag);
 			tmp.constrain(0, Double.MAX_VALUE);
 			tmp.copySign(v);
 			v.set(tmp);
+			scratch.release(mark);
 		}
 	}
 
+	/** Only slows the Velocity of its own Entity. */
+	public boolean isParallelSafe() {
+		return true;
+	}
+
+	/** Idle when there is no movement to slow. */
+	public boolean isIdle() {
+		Velocity v = (Velocity) getParent().get(Velocity.class);
+		return v == null || (v.getX() == 0 && v.getY() == 0);
+	}
+
 }
@@ -47,6 +47,11 @@ public class Position extends Vector2dComponent {
 
 	}
 
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	/** Position does not update it is just a container of values. */
 	public void update(long deltaTime) {
 
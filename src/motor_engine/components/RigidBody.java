@@ -0,0 +1,335 @@
+package motor_engine.components;
+import motor_engine.*;
+import org.jbox2d.dynamics.Body;
+
+/**
+ * A component that gives an Entity a body in the physics world of the Physics rule.
+ * The body is a box the size of the Entity's Size or Sprite and is created once the Entity has a Position and a size.
+ * <p>A static body follows the Entity and is moved when its Position changes.
+ * A kinematic body is driven by the Entity's Velocity and pushes dynamic bodies out of its way.
+ * A dynamic body is simulated and its Position, Rotation and Velocity are copied from the body after each step;
+ * changes made to them by other Rules are pushed back into the body before the next step.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class RigidBody extends Component {
+
+	/** A body that does not move in the simulation.*/
+	public static final int STATIC = 0;
+	/** A body moved by its Velocity that is not affected by forces or collisions.*/
+	public static final int KINEMATIC = 1;
+	/** A body moved by forces and collisions.*/
+	public static final int DYNAMIC = 2;
+
+	// the kind of body
+	private int type;
+
+	// the material of the body's shape
+	private double density = 1;
+	private double friction = 0.2;
+	private double restitution = 0;
+
+	// whether the body can sleep when it comes to rest
+	private boolean sleeping = true;
+
+	// whether the body uses continuous collision against other moving bodies
+	private boolean bullet = false;
+
+	// the body in the physics world, set by the Physics rule
+	private Body body;
+
+	// the update in which the Physics rule last saw this component
+	private int stamp;
+
+	// the values last copied between the body and the Entity, to notice changes made by other Rules
+	private double syncX;
+	private double syncY;
+	private double syncAngle;
+	private double syncVelocityX;
+	private double syncVelocityY;
+
+	// the transform of the body before the last step, for interpolating between steps
+	private double previousX;
+	private double previousY;
+	private double previousAngle;
+
+	/**
+	 * Create a dynamic body.
+	 */
+	public RigidBody() {
+		this(DYNAMIC);
+	}
+
+	/**
+	 * Create a body of the given type.
+	 *
+	 * @param	type	STATIC, KINEMATIC or DYNAMIC.
+	 */
+	public RigidBody(int type) {
+		setPriority(0);
+		this.type = type;
+	}
+
+	/**
+	 * Create a body with the same settings as another.
+	 *
+	 * @param	r	The body to copy.
+	 */
+	public RigidBody(RigidBody r) {
+		this(r.type);
+		density = r.density;
+		friction = r.friction;
+		restitution = r.restitution;
+		sleeping = r.sleeping;
+		bullet = r.bullet;
+	}
+
+	public Component clone() {
+		return new RigidBody(this);
+	}
+
+	/** Make this a dynamic body with the default material that has not been added to a physics world. */
+	public void reset() {
+		type = DYNAMIC;
+		density = 1;
+		friction = 0.2;
+		restitution = 0;
+		sleeping = true;
+		bullet = false;
+		body = null;
+		stamp = 0;
+		syncX = 0;
+		syncY = 0;
+		syncAngle = 0;
+		syncVelocityX = 0;
+		syncVelocityY = 0;
+		previousX = 0;
+		previousY = 0;
+		previousAngle = 0;
+	}
+
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
+	public void update(long deltaTime) {
+
+	}
+
+	public void begin() {
+
+	}
+
+	public void end() {
+
+	}
+
+	public String toString() {
+		return "(" + getType() + " " + ((body != null) ? "simulated" : "waiting") + ")";
+	}
+
+	// settings
+
+	/**
+	 * Get the kind of body.
+	 *
+	 * @return	STATIC, KINEMATIC or DYNAMIC.
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * Check if the body is moved by the physics world, in which case the Velocity component does not move the Entity.
+	 *
+	 * @return	True if the body is kinematic or dynamic.
+	 */
+	public boolean isSimulated() {
+		return type != STATIC;
+	}
+
+	public double getDensity() {
+		return density;
+	}
+
+	/**
+	 * Set the density of the body, which gives its mass from its size. Takes effect when the body is created.
+	 *
+	 * @param	density	The density.
+	 */
+	public void setDensity(double density) {
+		this.density = density;
+	}
+
+	public double getFriction() {
+		return friction;
+	}
+
+	/**
+	 * Set the friction of the body. Takes effect when the body is created.
+	 *
+	 * @param	friction	The friction, usually between 0 and 1.
+	 */
+	public void setFriction(double friction) {
+		this.friction = friction;
+	}
+
+	public double getRestitution() {
+		return restitution;
+	}
+
+	/**
+	 * Set how bouncy the body is. Takes effect when the body is created.
+	 *
+	 * @param	restitution	The restitution, 0 to stop dead and 1 to bounce back fully.
+	 */
+	public void setRestitution(double restitution) {
+		this.restitution = restitution;
+	}
+
+	public boolean canSleep() {
+		return sleeping;
+	}
+
+	/**
+	 * Set whether the body can sleep when it comes to rest. Takes effect when the body is created.
+	 *
+	 * @param	sleeping	True to allow sleeping.
+	 */
+	public void setSleeping(boolean sleeping) {
+		this.sleeping = sleeping;
+	}
+
+	public boolean isBullet() {
+		return bullet;
+	}
+
+	/**
+	 * Set whether the body is checked continuously so it does not pass through thin bodies when moving fast.
+	 *
+	 * @param	bullet	True for continuous collision.
+	 */
+	public void setBullet(boolean bullet) {
+		this.bullet = bullet;
+		if (body != null) {
+			body.setBullet(bullet);
+		}
+	}
+
+	// physics world
+
+	/**
+	 * Get the body in the physics world.
+	 *
+	 * @return	The body, or null if it has not been created yet.
+	 */
+	public Body getBody() {
+		return body;
+	}
+
+	/**
+	 * Set the body in the physics world. Called by the Physics rule.
+	 *
+	 * @param	body	The body, or null once it has been destroyed.
+	 */
+	public void setBody(Body body) {
+		this.body = body;
+	}
+
+	/**
+	 * Get the update in which the Physics rule last saw this body. Used to find bodies whose Entities have gone.
+	 *
+	 * @return	The stamp.
+	 */
+	public int getStamp() {
+		return stamp;
+	}
+
+	/**
+	 * Set the update in which the Physics rule last saw this body.
+	 *
+	 * @param	stamp	The stamp.
+	 */
+	public void setStamp(int stamp) {
+		this.stamp = stamp;
+	}
+
+	/**
+	 * Remember the transform last copied between the body and the Entity.
+	 *
+	 * @param	x		The x position.
+	 * @param	y		The y position.
+	 * @param	angle	The rotation in degrees.
+	 */
+	public void setSyncTransform(double x, double y, double angle) {
+		syncX = x;
+		syncY = y;
+		syncAngle = angle;
+	}
+
+	/**
+	 * Remember the velocity last copied between the body and the Entity.
+	 *
+	 * @param	x	The horizontal velocity.
+	 * @param	y	The vertical velocity.
+	 */
+	public void setSyncVelocity(double x, double y) {
+		syncVelocityX = x;
+		syncVelocityY = y;
+	}
+
+	/**
+	 * Remember the transform of the body before a step. Called by the Physics rule.
+	 *
+	 * @param	x		The x position.
+	 * @param	y		The y position.
+	 * @param	angle	The rotation in radians.
+	 */
+	public void setPreviousTransform(double x, double y, double angle) {
+		previousX = x;
+		previousY = y;
+		previousAngle = angle;
+	}
+
+	public double getPreviousX() {
+		return previousX;
+	}
+
+	public double getPreviousY() {
+		return previousY;
+	}
+
+	/**
+	 * Get the rotation of the body before the last step.
+	 *
+	 * @return	The rotation in radians.
+	 */
+	public double getPreviousAngle() {
+		return previousAngle;
+	}
+
+	/**
+	 * Check if a transform differs from the one last copied.
+	 *
+	 * @param	x		The x position.
+	 * @param	y		The y position.
+	 * @param	angle	The rotation in degrees.
+	 * @return			True if any value changed.
+	 */
+	public boolean transformChanged(double x, double y, double angle) {
+		return x != syncX || y != syncY || angle != syncAngle;
+	}
+
+	/**
+	 * Check if a velocity differs from the one last copied.
+	 *
+	 * @param	x	The horizontal velocity.
+	 * @param	y	The vertical velocity.
+	 * @return		True if either value changed.
+	 */
+	public boolean velocityChanged(double x, double y) {
+		return x != syncVelocityX || y != syncVelocityY;
+	}
+}
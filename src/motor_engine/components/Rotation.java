@@ -42,6 +42,11 @@ public class Rotation extends DoubleComponent {
 		set(get() % 360);
 	}
 
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	public void update (long deltaTime) {
 
 	}
@@ -62,6 +62,11 @@ public class Size extends Vector2dComponent {
 
 	}
 
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	public void update(long deltaTime) {
 		;
 	}
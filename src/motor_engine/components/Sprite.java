@@ -15,6 +15,9 @@ public class Sprite extends Component {
 	// the path to the sprite
 	private String path;
 
+	// the path acquired from the TextureManager while the sprite is in use
+	private String acquired;
+
 	/**
 	 * Create an empty sprite.
 	 */
@@ -45,22 +48,37 @@ public class Sprite extends Component {
 		return	new Sprite(this);
 	}
 
+	/** Release the image and clear the path. */
+	public void reset() {
+		end();
+		path = null;
+	}
+
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	public void update(long deltaTime) {
 
 	}
 
 	public void begin() {
-		if (!TextureManager.isLoaded(path)) {
-			TextureManager.load(path);
+		if (acquired == null && path != null) {
+			acquired = path;
+			TextureManager.acquire(acquired);
 		}
 	}
 
 	public void end() {
-
+		if (acquired != null) {
+			TextureManager.release(acquired);
+			acquired = null;
+		}
 	}
 
 	public String toString() {
-		return (TextureManager.get(path).toString());
+		return (isLoaded() ? getRegion().toString() : path);
 	}
 
 	/**
@@ -79,22 +97,38 @@ public class Sprite extends Component {
 	 */
 	public void setPath(String fileName) {
 		path = fileName;
+		// swap the image in use
+		if (acquired != null && !acquired.equals(path)) {
+			end();
+			begin();
+		}
 	}
 
 	/**
 	 * Reload the sprite image.
 	 */
 	public void reload() {
-		TextureManager.load(path);
+		TextureManager.reload(path);
 	}
 
 	/**
+	 * Get the texture holding this sprite's image, which may be an atlas page shared with other sprites.
 	 *
+	 * @return	The texture, or null if it is not loaded.
 	 */
 	public Texture getSprite() {
 		return TextureManager.get(path);
 	}
 
+	/**
+	 * Get the region of the texture holding this sprite's image.
+	 *
+	 * @return	The region, the placeholder while the image is loading, or null if it is not loaded.
+	 */
+	public TextureRegion getRegion() {
+		return TextureManager.getRegion(path);
+	}
+
 	/**
 	 *
 	 */
@@ -110,7 +144,7 @@ public class Sprite extends Component {
 	public double getWidth() {
 		double width = 0;
 		if (isLoaded()) {
-			width = TextureManager.get(path).getImageWidth();
+			width = TextureManager.getRegion(path).getWidth();
 		}
 		return width;
 	}
@@ -123,7 +157,7 @@ public class Sprite extends Component {
 	public double getHeight() {
 		double height = 0;
 		if (isLoaded()) {
-			height = TextureManager.get(path).getImageHeight();
+			height = TextureManager.getRegion(path).getHeight();
 		}
 		return height;
 	}
@@ -147,16 +181,20 @@ public class Sprite extends Component {
 	}
 
 	/**
+	 * Get the fraction of the texture's width taken by the image.
 	 *
+	 * @return	The width of the region in texture coordinates.
 	 */
 	public double getScaleX() {
-		return (double) TextureManager.get(path).getImageWidth() / TextureManager.get(path).getTextureWidth();
+		return getRegion().getU1() - getRegion().getU0();
 	}
 
 	/**
+	 * Get the fraction of the texture's height taken by the image.
 	 *
+	 * @return	The height of the region in texture coordinates.
 	 */
 	public double getScaleY() {
-		return (double) TextureManager.get(path).getImageHeight() / TextureManager.get(path).getTextureHeight();
+		return getRegion().getV1() - getRegion().getV0();
 	}
  }
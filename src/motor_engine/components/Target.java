@@ -3,6 +3,11 @@ import motor_engine.*;
 
 class Target extends Component {
 
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	public void update (long deltaTime) {
 
 	}
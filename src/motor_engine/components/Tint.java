@@ -47,6 +47,16 @@ public class Tint extends Component {
 		return	new Tint(this);
 	}
 
+	/** Remove the tint. */
+	public void reset() {
+		set(1,1,1);
+	}
+
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	public void update(long deltaTime) {
 
 	}
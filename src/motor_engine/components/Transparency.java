@@ -42,6 +42,11 @@ public class Transparency extends DoubleComponent {
 		return new Transparency(this);
 	}
 
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	public void update(long deltaTime) {
 
 	}
@@ -1,15 +1,21 @@
 package motor_engine.components;
+import motor_engine.Archetype;
+import motor_engine.Columnar;
 import motor_engine.Component;
+import motor_engine.Entity;
 import motor_engine.util.vector.ReadableVector2d;
 import motor_engine.util.vector.WriteableVector2d;
 import motor_engine.util.vector.Vector2d;
 import motor_engine.util.MotorMath;
 
 /**
+ * A component with a two dimensional vector as its value.
+ * While the component belongs to an Entity the x and y values are stored in the columns of the Entity's Archetype.
+ *
  * @author	Garrett Smith
  * @version	0.1
  */
-public abstract class Vector2dComponent extends Component implements ReadableVector2d, WriteableVector2d {
+public abstract class Vector2dComponent extends Component implements ReadableVector2d, WriteableVector2d, Columnar {
 
 	// component methods
 	public abstract void begin();
@@ -17,13 +23,19 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	public abstract void update(long deltaTime);
 
 	public String toString() {
-		return ("(" + x + ", " + y + ")");
+		return ("(" + getX() + ", " + getY() + ")");
 	}
 
 	// vector methods
+	// the values used while the component is not bound to an archetype
 	private double x;
 	private double y;
 
+	// the archetype columns storing the values while bound
+	private Archetype archetype;
+	private int column;
+	private int row;
+
 	/**
 	 * Create a new vector (0,0)
 	 */
@@ -52,6 +64,11 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 
 	public abstract Component clone();
 
+	/** Set the vector back to (0,0). */
+	public void reset() {
+		set(0,0);
+	}
+
 	// getters
 	/**
 	 * Get the x value of this vector.
@@ -59,6 +76,9 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @return	The x value.
 	 */
 	public double getX() {
+		if (archetype != null) {
+			return archetype.getColumn(column)[row];
+		}
 		return x;
 	}
 
@@ -68,6 +88,37 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @return	The y value.
 	 */
 	public double getY() {
+		if (archetype != null) {
+			return archetype.getColumn(column + 1)[row];
+		}
+		return y;
+	}
+
+	/**
+	 * Get the x value between its value at the start of the last update and its current value.
+	 *
+	 * @param	alpha	How far between the previous and the current value, from 0 to 1.
+	 * @return			The interpolated x value, or the current value if the component is not bound.
+	 */
+	public double getInterpolatedX(double alpha) {
+		if (archetype != null) {
+			double previous = archetype.getPrevious(column)[row];
+			return previous + (archetype.getColumn(column)[row] - previous) * alpha;
+		}
+		return x;
+	}
+
+	/**
+	 * Get the y value between its value at the start of the last update and its current value.
+	 *
+	 * @param	alpha	How far between the previous and the current value, from 0 to 1.
+	 * @return			The interpolated y value, or the current value if the component is not bound.
+	 */
+	public double getInterpolatedY(double alpha) {
+		if (archetype != null) {
+			double previous = archetype.getPrevious(column + 1)[row];
+			return previous + (archetype.getColumn(column + 1)[row] - previous) * alpha;
+		}
 		return y;
 	}
 
@@ -77,7 +128,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @return	The double array.
 	 */
 	public double[] toDoubleArray() {
-		return new double[] {x,y};
+		return new double[] {getX(), getY()};
 	}
 
 	/**
@@ -88,7 +139,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @return		True if they have the same values, false otherwise.
 	 */
 	public boolean equals(ReadableVector2d v) {
-		return x == v.getX() && y == v.getY();
+		return getX() == v.getX() && getY() == v.getY();
 	}
 
 	/**
@@ -99,10 +150,12 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @return		The dot product.
 	 */
 	public double dot(ReadableVector2d v) {
-		return x*v.getX() + y*v.getY();
+		return getX()*v.getX() + getY()*v.getY();
 	}
 
 	public double magnitude() {
+		double x = getX();
+		double y = getY();
 		return x*x + y*y;
 	}
 
@@ -153,8 +206,8 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	y	The y value.
 	 */
 	public void set(double x, double y) {
-		this.x = x;
-		this.y = y;
+		setX(x);
+		setY(y);
 	}
 
 	/**
@@ -163,8 +216,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	v	The vector to copy.
 	 */
 	public void set(ReadableVector2d v) {
-		x = v.getX();
-		y = v.getY();
+		set(v.getX(), v.getY());
 	}
 
 	/**
@@ -173,7 +225,17 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	x	The new x value.
 	 */
 	public void setX(double x) {
-		this.x = x;
+		if (archetype != null) {
+			double[] values = archetype.getColumn(column);
+			if (values[row] != x) {
+				values[row] = x;
+				changed();
+			}
+		}
+		else if (this.x != x) {
+			this.x = x;
+			changed();
+		}
 	}
 
 	/**
@@ -182,7 +244,27 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	y	The new y value.
 	 */
 	public void setY(double y) {
-		this.y = y;
+		if (archetype != null) {
+			double[] values = archetype.getColumn(column + 1);
+			if (values[row] != y) {
+				values[row] = y;
+				changed();
+			}
+		}
+		else if (this.y != y) {
+			this.y = y;
+			changed();
+		}
+	}
+
+	// wake the sleeping Entity of an updated component when its value changes
+	private void changed() {
+		if (isUpdated()) {
+			Entity e = getParent();
+			if (e != null && e.isSleeping()) {
+				e.wake();
+			}
+		}
 	}
 
 	/**
@@ -192,8 +274,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	y	The value to add to the y value.
 	 */
 	public void add(double x, double y) {
-		this.x += x;
-		this.y += y;
+		set(getX() + x, getY() + y);
 	}
 
 	/**
@@ -202,8 +283,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	v	The vector to add.
 	 */
 	public void add(ReadableVector2d v) {
-		x += v.getX();
-		y += v.getY();
+		add(v.getX(), v.getY());
 	}
 
 	/**
@@ -213,8 +293,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	y	The value to subtract from the y value.
 	 */
 	public void subtract(double x, double y) {
-		this.x -= x;
-		this.y -= y;
+		set(getX() - x, getY() - y);
 	}
 
 	/**
@@ -223,8 +302,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	v	The vector to subtract.
 	 */
 	public void subtract(ReadableVector2d v) {
-		x -= v.getX();
-		y -= v.getY();
+		subtract(v.getX(), v.getY());
 	}
 
 	/**
@@ -242,8 +320,7 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	y	The sign for the y value.
 	 */
 	public void copySign(double x, double y) {
-		this.x = Math.copySign(this.x, x);
-		this.y = Math.copySign(this.y, y);
+		set(Math.copySign(getX(), x), Math.copySign(getY(), y));
 	}
 
 	/**
@@ -252,18 +329,15 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	 * @param	v	The vector to get the signs from.
 	 */
 	public void copySign(ReadableVector2d v) {
-		this.x = Math.copySign(this.x, v.getX());
-		this.y = Math.copySign(this.y, v.getY());
+		copySign(v.getX(), v.getY());
 	}
 
 	public void multiply(double r) {
-		x *= r;
-		y *= r;
+		set(getX() * r, getY() * r);
 	}
 
 	public void divide(double r) {
-		x /= r;
-		y /= r;
+		set(getX() / r, getY() / r);
 	}
 
 	public void normalize() {
@@ -271,12 +345,39 @@ public abstract class Vector2dComponent extends Component implements ReadableVec
 	}
 
 	public void constrain(double min, double max) {
-		x = MotorMath.constrain(x, min, max);
-		y = MotorMath.constrain(y, min, max);
+		set(MotorMath.constrain(getX(), min, max), MotorMath.constrain(getY(), min, max));
 	}
 
 	public void abs() {
-		x = Math.abs(x);
-		y = Math.abs(y);
+		set(Math.abs(getX()), Math.abs(getY()));
+	}
+
+	// storage binding
+
+	// moving the values between storages is not a change, so the entity is not woken
+	public void bind(Archetype archetype, int column, int row) {
+		double x = getX();
+		double y = getY();
+		this.archetype = archetype;
+		this.column = column;
+		this.row = row;
+		archetype.getColumn(column)[row] = x;
+		archetype.getColumn(column + 1)[row] = y;
+	}
+
+	public void unbind() {
+		double x = getX();
+		double y = getY();
+		archetype = null;
+		this.x = x;
+		this.y = y;
+	}
+
+	public boolean isBound() {
+		return archetype != null;
+	}
+
+	public boolean isBoundTo(Archetype archetype, int row) {
+		return this.archetype != null && this.archetype == archetype && this.row == row;
 	}
 }
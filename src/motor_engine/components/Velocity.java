@@ -11,12 +11,15 @@ import motor_engine.util.vector.*;
 
 public class Velocity extends Vector2dComponent {
 
+	/** Velocities are updated after Accelerations and before Drags.*/
+	public static final double PRIORITY = 20;
+
 	/**
 	 * Sets the velocity to (0 ,0).
 	 */
 	public Velocity () {
 		super();
-		setPriority(0);
+		setPriority(PRIORITY);
 	}
 
 	/**
@@ -27,6 +30,7 @@ public class Velocity extends Vector2dComponent {
 	 */
 	public Velocity (double x, double y) {
 		super(x,y);
+		setPriority(PRIORITY);
 	}
 
 	/**
@@ -36,6 +40,7 @@ public class Velocity extends Vector2dComponent {
 	 */
 	public Velocity (ReadableVector2d v) {
 		super(v);
+		setPriority(PRIORITY);
 	}
 
 	public Component clone() {
@@ -47,9 +52,34 @@ public class Velocity extends Vector2dComponent {
 
 	}
 
-	/** If the entity has a position component change the position by the current velocity. */
+	/**
+	 * If the entity has a position component change the position by the current velocity.
+	 * Entities whose RigidBody is being simulated are moved by the Physics rule instead.
+	 */
 	public void update(long deltaTime) {
-		getParent().addVector2d(Position.class, Vectors.multiply(this, (deltaTime / 1000.0) ));
+		RigidBody r = (RigidBody) getParent().get(RigidBody.class);
+		if (r != null && r.isSimulated() && r.getBody() != null) {
+			return;
+		}
+		Position p = (Position) getParent().get(Position.class);
+		if (p != null) {
+			double dt = deltaTime / 1000.0;
+			p.add(getX() * dt, getY() * dt);
+		}
+	}
+
+	/** Only moves its own Entity. */
+	public boolean isParallelSafe() {
+		return true;
+	}
+
+	/** Idle when not moving, or when the Physics rule moves the Entity instead. */
+	public boolean isIdle() {
+		if (getX() == 0 && getY() == 0) {
+			return true;
+		}
+		RigidBody r = (RigidBody) getParent().get(RigidBody.class);
+		return r != null && r.isSimulated() && r.getBody() != null;
 	}
 
 	/** Movement does not have a end method. */
@@ -26,6 +26,11 @@ public class ZOrder extends DoubleComponent {
 
 	}
 
+	/** This component only holds values. */
+	public boolean isUpdated() {
+		return false;
+	}
+
 	public void update(long deltaTime) {
 
 	}
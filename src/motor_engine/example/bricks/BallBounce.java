@@ -3,74 +3,111 @@ import motor_engine.Rule;
 import motor_engine.Entity;
 import motor_engine.components.Velocity;
 import motor_engine.util.Collision;
+import motor_engine.util.ContactList;
+import motor_engine.util.ContactListener;
+import motor_engine.util.Contacts;
 import motor_engine.util.vector.*;
 
-public class BallBounce extends Rule {
+public class BallBounce extends Rule implements ContactListener {
 
 	public void begin() {
 		setActive(true);
+		Contacts contacts = getOwner().getContacts();
+		contacts.subscribe(this, "paddle", "ball");
+		contacts.subscribe(this, "block", "ball");
+		contacts.subscribe(this, "Container", "ball");
 	}
 
 	public void end() {
-
+		getOwner().getContacts().unsubscribe(this);
 	}
 
 	public void update(long deltaTime) {
 
-		for (Entity ball : getOwner().getEntities("ball")) {
-			if (ball.has(Velocity.class)) {
-				Velocity v = (Velocity) ball.get(Velocity.class);
+	}
 
-				for (Entity paddle : getOwner().getEntities("paddle")) {
-					if (Collision.checkTop(paddle, ball)) {
-						v.setY(-v.getY());
-						ball.multiplyVector2d(Velocity.class, 1.01);
-						// add half of the paddle velocity
-						if (paddle.has(Velocity.class)) {
-							ball.addVector2d(Velocity.class, (Vectors.divide(paddle.getVector2d(Velocity.class), 4)));
-						}
-					}
-					if (Collision.checkLeft(paddle, ball)) {
-						v.setX(-Math.abs(v.getX()));
-					}
-					else if (Collision.checkRight(paddle, ball)) {
-						v.setX(Math.abs(v.getX()));
+	public void contactsBegan(ContactList contacts) {
+		for (int i = 0; i < contacts.size(); i++) {
+			Entity other = contacts.getA(i);
+			Entity ball = contacts.getB(i);
+			if (!ball.has(Velocity.class)) {
+				continue;
+			}
+			Velocity v = (Velocity) ball.get(Velocity.class);
+
+			if (other.getType().equalsIgnoreCase("paddle")) {
+				if (contacts.crosses(i, Collision.TOP)) {
+					v.setY(-v.getY());
+					ball.multiplyVector2d(Velocity.class, 1.01);
+					// add half of the paddle velocity
+					if (other.has(Velocity.class)) {
+						ball.addVector2d(Velocity.class, (Vectors.divide(other.getVector2d(Velocity.class), 4)));
 					}
 				}
+				bounceSides(contacts, i, v);
+			}
+			else if (other.getType().equalsIgnoreCase("block")) {
+				if (contacts.crosses(i, Collision.TOP)) {
+					v.setY(Math.abs(v.getY()));
+				}
+				else if (contacts.crosses(i, Collision.BOTTOM)) {
+					v.setY(-Math.abs(v.getY()));
+				}
+				bounceSides(contacts, i, v);
 
-				for (Entity block : getOwner().getEntities("block")) {
-					if (Collision.check(ball, block) && block.isActive()) {
+				ball.multiplyVector2d(Velocity.class, 1.01);
+				other.setActive(false);
+			}
+			else {
+				bounceWalls(contacts, i, v);
+			}
+		}
+	}
 
-						if (Collision.checkTop(block, ball)) {
-							v.setY(Math.abs(v.getY()));
-						}
-						else if (Collision.checkBottom(block, ball)) {
-							v.setY(-Math.abs(v.getY()));
-						}
-						if (Collision.checkLeft(block, ball)) {
-							v.setX(-Math.abs(v.getX()));
-						}
-						else if (Collision.checkRight(block, ball)) {
-							v.setX(Math.abs(v.getX()));
-						}
+	public void contactsStayed(ContactList contacts) {
+		for (int i = 0; i < contacts.size(); i++) {
+			Entity other = contacts.getA(i);
+			Entity ball = contacts.getB(i);
+			if (!ball.has(Velocity.class)) {
+				continue;
+			}
+			Velocity v = (Velocity) ball.get(Velocity.class);
 
-						ball.multiplyVector2d(Velocity.class, 1.01);
-						block.setActive(false);
-					}
-				}
+			// the ball stays inside the container so its walls are crossed while they are touching
+			if (other.getType().equalsIgnoreCase("Container")) {
+				bounceWalls(contacts, i, v);
+			}
+			else if (other.getType().equalsIgnoreCase("paddle")) {
+				bounceSides(contacts, i, v);
+			}
+		}
+	}
 
-				for (Entity container : getOwner().getEntities("Container")) {
-					if (Collision.checkTop(container, ball)) {
-						v.setY(-v.getY());
-					}
+	public void contactsEnded(ContactList contacts) {
 
-					if (Collision.checkLeft(container, ball) || Collision.checkRight(container, ball)) {
-						v.setX(-v.getX());
-					}
-				}
-			}
+	}
+
+	// push the ball away from the left or right edge it crossed
+	private void bounceSides(ContactList contacts, int i, Velocity v) {
+		if (contacts.crosses(i, Collision.LEFT)) {
+			v.setX(-Math.abs(v.getX()));
 		}
+		else if (contacts.crosses(i, Collision.RIGHT)) {
+			v.setX(Math.abs(v.getX()));
+		}
+	}
 
+	// keep the ball inside the walls of the container
+	private void bounceWalls(ContactList contacts, int i, Velocity v) {
+		if (contacts.crosses(i, Collision.TOP)) {
+			v.setY(-Math.abs(v.getY()));
+		}
+		if (contacts.crosses(i, Collision.LEFT)) {
+			v.setX(Math.abs(v.getX()));
+		}
+		else if (contacts.crosses(i, Collision.RIGHT)) {
+			v.setX(-Math.abs(v.getX()));
+		}
 	}
 
 }
@@ -23,7 +23,7 @@ public class Constrain extends Rule {
 
 	public void update(long deltaTime) {
 
-		for (Entity paddle : getOwner().getEntities("Paddle")) {
+		for (Entity paddle : getOwner().getEntitySet("Paddle")) {
 			if (paddle.has(Position.class) && paddle.has(Sprite.class)) {
 				Position p = (Position) paddle.get(Position.class);
 				Sprite s = (Sprite) paddle.get(Sprite.class);
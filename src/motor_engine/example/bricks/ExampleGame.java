@@ -24,6 +24,7 @@ public class ExampleGame extends MotorEngine {
 		paddle.add(new Velocity());
 		paddle.add(new Acceleration());
 		paddle.add(new Sprite("motor_engine/example/bricks/assets/paddle.png"));
+		paddle.add(new RigidBody(RigidBody.STATIC));
 		paddle.setActive(true);
 
 		Entity ball = new Entity("Ball");
@@ -44,6 +45,7 @@ public class ExampleGame extends MotorEngine {
 
 		blocks.add(new Sprite("motor_engine/example/bricks/assets/block.png"));
 		blocks.add(new Velocity(0,-0.25));
+		blocks.add(new RigidBody(RigidBody.STATIC));
 
 		Entity bg = new Entity("background");
 		bg.add(new Position(0,0));
@@ -112,6 +114,7 @@ public class ExampleGame extends MotorEngine {
 		testState.add(new Constrain(cont));
 		testState.add(new BallBounce());
 		testState.add(new Lives());
+		testState.add(new Kinematics());
 		testState.add(p);
 
 		StateManager.add("Test World", testState);
@@ -18,8 +18,8 @@ public class Lives extends Rule {
 	}
 
 	public void update(long deltaTime) {
-		for (Entity ball : getOwner().getEntities("Ball")) {
-			for (Entity cont : getOwner().getEntities("Container")) {
+		for (Entity ball : getOwner().getEntitySet("Ball")) {
+			for (Entity cont : getOwner().getEntitySet("Container")) {
 				if (Collision.checkBottom(cont, ball)) {
 					ball.setVector2d(Position.class, new Vector2d(0,0));
 					ball.setVector2d(Velocity.class, new Vector2d(Math.random()*50-25, -50));
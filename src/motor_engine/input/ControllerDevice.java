@@ -1,4 +1,5 @@
 package motor_engine.input;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.lwjgl.input.Controller;
 import org.lwjgl.input.Controllers;
 
@@ -11,32 +12,66 @@ public class ControllerDevice {
 	// The state from the last update
 	private ControllerState previousState;
 
+	// the changes read by poll waiting for the next update, each the kind of change, the button or axis and its value
+	private ConcurrentLinkedQueue<float[]> polled = new ConcurrentLinkedQueue<float[]>();
+	private static final float BUTTON = 0;
+	private static final float AXIS = 1;
+
+	// the controller as last read by poll
+	private boolean[] polledButtons;
+	private float[] polledAxes;
+
 	public ControllerDevice(int i) {
 		controller = Controllers.getController(i);
 		currentState = new ControllerState(controller.getAxisCount(), controller.getButtonCount());
 		previousState = new ControllerState(controller.getAxisCount(), controller.getButtonCount());
+		polledButtons = new boolean[controller.getButtonCount()];
+		polledAxes = new float[controller.getAxisCount()];
+		pollInput();
 		update();
 	}
 
+	/**
+	 * Apply the changes read since the last update.
+	 */
 	public void update() {
 		previousState.copy(currentState);
 		currentState.update();
-		pollInput();
+		float[] change;
+		while ((change = polled.poll()) != null) {
+			int index = (int) change[1];
+			if (change[0] == AXIS) {
+				currentState.move(index, change[2]);
+			}
+			else if (change[2] != 0) {
+				currentState.press(index);
+			}
+			else {
+				currentState.release(index);
+			}
+		}
 	}
 
+	/**
+	 * Read the buttons and axes that changed since the last poll, to be applied on the next update.
+	 * LWJGL input is not thread safe, so this is called on the OpenGL thread that updates the display.
+	 */
 	public void pollInput() {
 		//poll buttons
-		for (int i = 0; i < controller.getButtonCount(); i++) {
-			if (controller.isButtonPressed(i) && released(i)) {
-				currentState.press(i);
-			}
-			else if (!controller.isButtonPressed(i) && pressed(i)) {
-				currentState.release(i);
+		for (int i = 0; i < polledButtons.length; i++) {
+			boolean pressed = controller.isButtonPressed(i);
+			if (pressed != polledButtons[i]) {
+				polledButtons[i] = pressed;
+				polled.add(new float[] {BUTTON, i, pressed ? 1 : 0});
 			}
 		}
 		//poll axes
-		for (int i = 0; i < controller.getAxisCount(); i++) {
-			currentState.move(i, controller.getAxisValue(i));
+		for (int i = 0; i < polledAxes.length; i++) {
+			float value = controller.getAxisValue(i);
+			if (value != polledAxes[i]) {
+				polledAxes[i] = value;
+				polled.add(new float[] {AXIS, i, value});
+			}
 		}
 	}
 
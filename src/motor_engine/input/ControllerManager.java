@@ -33,6 +33,20 @@ public class ControllerManager {
 		}
 	}
 
+	/**
+	 * Read the controllers, to be applied on the next update. This is called on the OpenGL thread.
+	 */
+	public static void poll() {
+		if (controllerList != null) {
+			for (ControllerDevice c : controllerList) {
+				c.pollInput();
+			}
+		}
+	}
+
+	/**
+	 * Apply the changes read from the controllers since the last update.
+	 */
 	public static void update() {
 		//update all the controllers
 		// add a check so only controllers that created events are updated.
@@ -1,6 +1,7 @@
 package motor_engine.input;
 import java.awt.event.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.lwjgl.input.Keyboard;
 
 /**
@@ -14,28 +15,61 @@ public class KeyboardManager {
 	private static KeyboardState currentState = new KeyboardState();
 	private static KeyboardState previousState = new KeyboardState();
 
+	// key events posted by other code, the key with PRESSED set if it was pressed
+	private static ConcurrentLinkedQueue<Integer> posted = new ConcurrentLinkedQueue<Integer>();
+	private static final int PRESSED = 1 << 16;
+
+	/**
+	 * Apply the key events posted since the last update, both from the keyboard and from other code.
+	 */
 	public static void update() {
 		previousState.copy(currentState);
 		currentState.update();
-		pollInput();
+		applyPosted();
 	}
 
 	/**
-	 * Read input from the input buffer
+	 * Apply the posted key events.
 	 */
-	private static void pollInput() {
-		// while there are keys left in the buffer
-		while(Keyboard.next()) {
-			// if the key was pressed
-			if (Keyboard.getEventKeyState()) {
-				currentState.press(Keyboard.getEventKey());
+	private static void applyPosted() {
+		Integer event;
+		while((event = posted.poll()) != null) {
+			if ((event & PRESSED) != 0) {
+				currentState.press(event & ~PRESSED);
 			}
 			else {
-				currentState.release(Keyboard.getEventKey());
+				currentState.release(event);
 			}
 		}
 	}
 
+	/**
+	 * Read the keys in the keyboard's buffer and post them to be applied on the next update.
+	 * LWJGL input is not thread safe, so this is called on the OpenGL thread that updates the display.
+	 */
+	public static void poll() {
+		// there is no keyboard to read when running headless
+		if (!Keyboard.isCreated()) {
+			return;
+		}
+		// while there are keys left in the buffer
+		while(Keyboard.next()) {
+			post(Keyboard.getEventKey(), Keyboard.getEventKeyState());
+		}
+	}
+
+	/**
+	 * Post a key event to be read on the next update as if it came from the keyboard.
+	 * This is how scripted or recorded input is fed to the game, eg. when running headless.
+	 * It may be called from any thread.
+	 *
+	 * @param	key		The key, one of the Keyboard.KEY_ constants.
+	 * @param	pressed	True if the key was pressed, false if it was released.
+	 */
+	public static void post(int key, boolean pressed) {
+		posted.add(pressed ? key | PRESSED : key);
+	}
+
 	//Getters
 
 	/**
@@ -1,6 +1,7 @@
 package motor_engine.input;
 import java.awt.event.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.lwjgl.input.Mouse;
 
 /**
@@ -16,49 +17,137 @@ public class MouseManager  {
 	// The state from the last update
 	private static MouseState previousState = new MouseState();
 
+	// mouse events posted by other code, each the kind of event and its values
+	private static ConcurrentLinkedQueue<int[]> posted = new ConcurrentLinkedQueue<int[]>();
+	private static final int BUTTON = 0;
+	private static final int MOVE = 1;
+	private static final int SCROLL = 2;
+	private static final int CURSOR = 3;
+	private static final int ENTER = 4;
+	private static final int EXIT = 5;
+
+	// the mouse as last read by poll
+	private static int polledX;
+	private static int polledY;
+	private static boolean polledInWindow;
+
+	/**
+	 * Apply the mouse events posted since the last update, both from the mouse and from other code.
+	 */
 	public static void update() {
 		previousState.copy(currentState);
 		currentState.update();
-		pollInput();
+		applyPosted();
 	}
 
 	/**
-	 * Read input from the input buffer
+	 * Apply the posted mouse events. Moves and scrolls add up until the next update.
 	 */
-	private static void pollInput() {
+	private static void applyPosted() {
+		int[] event;
+		while((event = posted.poll()) != null) {
+			switch (event[0]) {
+			case BUTTON:
+				if (event[2] != 0) {
+					currentState.press(event[1]);
+				}
+				else {
+					currentState.release(event[1]);
+				}
+				break;
+			case MOVE:
+			case CURSOR:
+				currentState.move(event[1], event[2], currentState.getDeltaX() + event[1] - currentState.getX(),
+					currentState.getDeltaY() + event[2] - currentState.getY());
+				if (event[0] == MOVE && !currentState.inWindow()) {
+					currentState.enter();
+				}
+				break;
+			case SCROLL:
+				currentState.scroll(currentState.getDeltaWheel() + event[1]);
+				break;
+			case ENTER:
+				currentState.enter();
+				break;
+			case EXIT:
+				currentState.exit();
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Read the mouse's buffered buttons, wheel, position and whether it is in the window, and post them to be
+	 * applied on the next update. LWJGL input is not thread safe, so this is called on the OpenGL thread that
+	 * updates the display.
+	 */
+	public static void poll() {
+		// there is no mouse to read when running headless
+		if (!Mouse.isCreated()) {
+			return;
+		}
 		// while there are Buttons left in the buffer
 		while(Mouse.next()) {
 			// check to make sure it's not the no button event
 			if (Mouse.getEventButton() >= 0) {
-				// if the Button was pressed
-				if (Mouse.getEventButtonState()) {
-					currentState.press(Mouse.getEventButton());
-				}
-				else {
-					currentState.release(Mouse.getEventButton());
-				}
+				post(Mouse.getEventButton(), Mouse.getEventButtonState());
 			}
 		}
 		// get scroll
 		if (Mouse.hasWheel()) {
-			currentState.scroll(Mouse.getDWheel());
+			int scroll = Mouse.getDWheel();
+			if (scroll != 0) {
+				postScroll(scroll);
+			}
 		}
 
 		//get position
-		currentState.move(Mouse.getX(), Mouse.getY(), Mouse.getDX(), Mouse.getDY());
+		int x = Mouse.getX();
+		int y = Mouse.getY();
+		if (x != polledX || y != polledY) {
+			polledX = x;
+			polledY = y;
+			posted.add(new int[] {CURSOR, x, y});
+		}
 
 		// enter / exit window
-		if (Mouse.isInsideWindow()) {
-			if (!previousState.inWindow()) {
-				currentState.enter();
-			}
-		}
-		else {
-			if (previousState.inWindow()) {
-				currentState.exit();
-			}
+		if (Mouse.isInsideWindow() != polledInWindow) {
+			polledInWindow = !polledInWindow;
+			posted.add(new int[] {polledInWindow ? ENTER : EXIT});
 		}
+	}
+
+	/**
+	 * Post a button event to be read on the next update as if it came from the mouse.
+	 * This is how scripted or recorded input is fed to the game, eg. when running headless.
+	 * It may be called from any thread.
+	 *
+	 * @param	button	The button.
+	 * @param	pressed	True if the button was pressed, false if it was released.
+	 */
+	public static void post(int button, boolean pressed) {
+		posted.add(new int[] {BUTTON, button, pressed ? 1 : 0});
+	}
+
+	/**
+	 * Post a move of the mouse to be read on the next update, which also brings the mouse into the window.
+	 * It may be called from any thread.
+	 *
+	 * @param	x	The new x position of the mouse.
+	 * @param	y	The new y position of the mouse.
+	 */
+	public static void postMove(int x, int y) {
+		posted.add(new int[] {MOVE, x, y});
+	}
 
+	/**
+	 * Post a scroll of the mouse wheel to be read on the next update.
+	 * It may be called from any thread.
+	 *
+	 * @param	scroll	The value the wheel is scrolled, positive for down and negative for up.
+	 */
+	public static void postScroll(int scroll) {
+		posted.add(new int[] {SCROLL, scroll});
 	}
 
 	// Getters
@@ -30,7 +30,8 @@ public class MouseState extends InputState {
 	 * Creates a new empty state.
 	 */
 	public MouseState() {
-		int buttons = Mouse.getButtonCount();
+		// assume three buttons when there is no mouse, eg. when running headless
+		int buttons = Mouse.isCreated() ? Mouse.getButtonCount() : 3;
 		x = 0;
 		y = 0;
 		deltaX = 0;
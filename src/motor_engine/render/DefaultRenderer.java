@@ -1,24 +1,37 @@
 package motor_engine.render;
 import motor_engine.*;
-import motor_engine.components.*;
+import motor_engine.util.Profiler;
 import static org.lwjgl.opengl.GL11.*;
-import org.newdawn.slick.Color;
-import org.newdawn.slick.opengl.Texture;
-import org.newdawn.slick.opengl.TextureLoader;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.TreeMap;
 import java.util.Arrays;
 
 /**
  * Default RenderingRule.
  * Pretty standard no pre or post processing just Renders Entities that are within the camera.
+ * <p>The Entities are sorted by z-order, far to near, then by texture and drawn through a SpriteBatch so every
+ * run of Entities sharing a texture, such as sprites packed into the same atlas page, takes a single draw call.
  *
  * @author	Garrett Smith
  * @version	0.1
  */
 public class DefaultRenderer implements Renderer {
 
+	// the number of sprites drawn per draw call at most
+	private static final int BATCH_SIZE = 4096;
+
+	// the batch drawing the sprites, created on the first render as it needs the OpenGL context
+	private SpriteBatch batch;
+
+	// the snapshot indices of the entities to draw in draw order and a buffer for sorting them
+	private int[] order = new int[256];
+	private int[] sortBuffer = new int[256];
+
+	// the sort keys of each snapshot index
+	private double[] depth = new double[256];
+	private int[] textures = new int[256];
+
+	// the region of each snapshot index read once per frame, as images may be released meanwhile
+	private TextureRegion[] regions = new TextureRegion[256];
+
 	public void render (Entity camera) {
 
 		// set openGL settings
@@ -26,58 +39,33 @@ public class DefaultRenderer implements Renderer {
 		glEnable(GL_BLEND);
 		glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
 
+		// read the latest snapshot of the camera's state
+		RenderSnapshot snapshot = getSnapshot(camera);
+		int c = (snapshot != null) ? snapshot.indexOf(camera) : -1;
+
 		// check if the camera is valid
-		if (cameraIsValid(camera)) {
-
-			// order Entities by z position
-			TreeMap<Double, ArrayList<Entity>> valid = new TreeMap<Double, ArrayList<Entity>>();
-			// Check against each entity in the state
-			for (Entity e : camera.getOwner().getEntities()) {
-				// check if the entity  is a valid candidate to render
-				if (entityIsValid(e)) {
-					ZOrder z = (ZOrder) e.get(ZOrder.class);
-					if (z != null) {
-						// create a new list if this is the first Entity with this z-order
-						if (!valid.containsKey(z.get())) {
-							valid.put(z.get(), new ArrayList<Entity>());
-						}
-						//add entity to list
-						valid.get(z.get()).add(e);
-					}
-					else {
-						// create a new list if this is the first Entity with this z-order
-						if (!valid.containsKey(0.0)) {
-							valid.put(0.0, new ArrayList<Entity>());
-						}
-						//add entity to list
-						valid.get(0.0).add(e);
-					}
-				}
-			}
+		if (cameraIsValid(snapshot, c)) {
+			double alpha = DisplayManager.getAlpha();
 
-			//calculate camera transform
-			transformCamera(camera);
-
-			// create a display list of the current scene
-			int renderList = glGenLists(valid.size());
-			glNewList(renderList, GL_COMPILE);
-				for (Double key : valid.descendingKeySet()) {
-					for (Entity e : valid.get(key)) {
-						// save the camera matrix
-						glPushMatrix();
-						// calculate the entity
-						renderEntity(camera, e);
-						//restore the camera matrix
-						glPopMatrix();
-					}
-				}
-			glEndList();
+			// collect the entities to draw in draw order
+			long start = Profiler.start();
+			int count = collect(snapshot);
+			Profiler.stop(Profiler.RENDER_SORT, start);
 
-			// call the list
-			glCallList(renderList);
+			//calculate camera transform
+			transformCamera(snapshot, c, alpha);
 
-			//delete the list
-			glDeleteLists(renderList, 1);
+			if (batch == null) {
+				batch = new SpriteBatch(BATCH_SIZE);
+			}
+			start = Profiler.start();
+			batch.begin();
+			for (int i = 0; i < count; i++) {
+				renderEntity(snapshot, c, order[i], alpha);
+			}
+			batch.end();
+			Profiler.stop(Profiler.RENDER_DRAW, start);
+			Arrays.fill(regions, 0, snapshot.size(), null);
 		}
 
 		//unset gl
@@ -86,121 +74,153 @@ public class DefaultRenderer implements Renderer {
 	}
 
 	/**
-	 * Check if the given Entity is a valid camera.
-	 * A valid camera has a Position, Size, and is active.
+	 * Collect the captured Entities to draw and sort them far to near then by texture, without drawing anything.
+	 * The indices of the Entities are kept in draw order for the next draw.
 	 *
-	 * @param	e	The Entity to check.
-	 * @return		True if the Entity is valid, false if it is not.
+	 * @param	snapshot	The snapshot to draw.
+	 * @return				The number of Entities to draw.
 	 */
-	protected static boolean cameraIsValid(Entity e) {
-		return ( e.isActive() && e.has(Position.class) && e.has(Size.class) && e.isOwned() );
+	public int collect(RenderSnapshot snapshot) {
+		// collect the entities to draw with their sort keys
+		if (depth.length < snapshot.size()) {
+			depth = new double[snapshot.size() * 2];
+			textures = new int[snapshot.size() * 2];
+			regions = new TextureRegion[snapshot.size() * 2];
+		}
+		int count = 0;
+		for (int i = 0; i < snapshot.size(); i++) {
+			// check if the entity  is a valid candidate to render
+			if ((regions[i] = getRenderedRegion(snapshot, i)) != null) {
+				if (count == order.length) {
+					order = Arrays.copyOf(order, count * 2);
+					sortBuffer = new int[count * 2];
+				}
+				depth[i] = snapshot.getZ(i);
+				// regions read headless have no texture
+				textures[i] = (regions[i].getTexture() != null) ? regions[i].getTexture().getTextureID() : 0;
+				order[count++] = i;
+			}
+		}
+
+		// order the entities far to near then by texture
+		sort(count);
+		return count;
+	}
+
+	// stable merge sort of the first count indices by descending depth then texture
+	private void sort(int count) {
+		int[] from = order;
+		int[] to = sortBuffer;
+		for (int width = 1; width < count; width *= 2) {
+			for (int left = 0; left < count; left += 2 * width) {
+				int middle = Math.min(left + width, count);
+				int right = Math.min(left + 2 * width, count);
+				int i = left;
+				int j = middle;
+				for (int k = left; k < right; k++) {
+					if (i < middle && (j >= right || compare(from[i], from[j]) <= 0)) {
+						to[k] = from[i++];
+					}
+					else {
+						to[k] = from[j++];
+					}
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		// keep the sorted indices in order
+		if (from != order) {
+			sortBuffer = order;
+			order = from;
+		}
+	}
+
+	// compare two snapshot indices by descending depth then texture
+	private int compare(int a, int b) {
+		if (depth[a] != depth[b]) {
+			return (depth[a] > depth[b]) ? -1 : 1;
+		}
+		return (textures[a] < textures[b]) ? -1 : ((textures[a] == textures[b]) ? 0 : 1);
 	}
 
 	/**
-	 * Check if the given entity can be rendered.
-	 * An Entity can be rendered if it has a Position, a loaded Sprite, and is active.
+	 * Get the latest snapshot of the State owning the camera, tracking the camera so its index is recorded.
 	 *
-	 * @param	e	The Entity to check.
-	 * @return		True if the Entity is valid, false if it is not.
+	 * @param	camera	The camera Entity.
+	 * @return			The latest snapshot, or null if the camera has no owner.
 	 */
-	protected static boolean entityIsValid(Entity e) {
-		boolean valid = false;
-		if (e.has(Sprite.class)) {
-			Sprite s = (Sprite) e.get(Sprite.class);
-			valid = ( e.isActive() && e.has(Position.class) && s.isLoaded());
+	protected static RenderSnapshot getSnapshot(Entity camera) {
+		State owner = (camera != null) ? camera.getOwner() : null;
+		if (owner == null) {
+			return null;
 		}
-		return valid;
+		owner.getSnapshots().track(camera);
+		return owner.getSnapshots().acquire();
 	}
 
 	/**
+	 * Check if the given captured Entity is a valid camera.
+	 * A valid camera has a Position, Size, and is active.
 	 *
+	 * @param	s	The snapshot.
+	 * @param	i	The index of the Entity, or -1 if it was not captured.
+	 * @return		True if the Entity is valid, false if it is not.
 	 */
-	public void renderEntity(Entity camera, Entity e) {
-		Position cp = (Position) camera.get(Position.class);
-		Size cs = (Size) camera.get(Size.class);
-		Position ep = (Position) e.get(Position.class);
-		Sprite es = (Sprite) e.get(Sprite.class);
-
-		// translate
-		double x = ep.getX() - (cp.getX() - cs.getHalfWidth());
-		double y = ep.getY() - (cp.getY() - cs.getHalfHeight());
-
-		glTranslated(x,y,0);
-
-		// get sprite sizes
-		double halfWidth = es.getHalfWidth();
-		double halfHeight = es.getHalfHeight();
-		double scaleX = es.getScaleX();
-		double scaleY = es.getScaleY();
-
-		// Rotate
-		if (e.has(Rotation.class)) {
-			Rotation r = (Rotation)e.get(Rotation.class);
-			glRotatef((float)r.get(), 0.0f, 0.0f, 1.0f);
-		}
-
-		// get scale from size
-		if (e.has(Size.class)) {
-			Size s = (Size) e.get(Size.class);
-			glScaled(s.getHalfWidth()/halfWidth, s.getHalfHeight()/halfHeight, 0);
-		}
+	protected static boolean cameraIsValid(RenderSnapshot s, int i) {
+		return ( i >= 0 && s.hasSize(i) );
+	}
 
-		double[] tint = {1, 1, 1, 1};
+	/**
+	 * Get the image a captured entity is rendered with, looking it up once.
+	 * An Entity can be rendered if it has a Position, a Sprite that is loaded or loading, and is active.
+	 *
+	 * @param	s	The snapshot.
+	 * @param	i	The index of the Entity.
+	 * @return		The region of the Entity's Sprite, or null if the Entity can not be rendered.
+	 */
+	protected static TextureRegion getRenderedRegion(RenderSnapshot s, int i) {
+		String path = s.getPath(i);
+		return (path != null) ? TextureManager.getRegion(path) : null;
+	}
 
-		//tint
-		if (e.has(Tint.class)) {
-			Tint t = (Tint) e.get(Tint.class);
-			tint[0] = t.getR();
-			tint[1] = t.getG();
-			tint[2] = t.getB();
-		}
+	/**
+	 * Add a captured Entity to the batch at its position interpolated between the start and end of the update.
+	 *
+	 * @param	s		The snapshot.
+	 * @param	camera	The index of the camera Entity.
+	 * @param	i		The index of the Entity to render.
+	 * @param	alpha	How far between the start and end of the update to render.
+	 */
+	public void renderEntity(RenderSnapshot s, int camera, int i, double alpha) {
+		TextureRegion region = regions[i];
 
-		//opacity
-		if (e.has(Transparency.class)) {
-			Transparency t = (Transparency) e.get(Transparency.class);
-			tint[3] = t.get();
-		}
+		// position relative to the camera
+		double x = s.getX(i, alpha) - (s.getX(camera, alpha) - s.getWidth(camera) / 2.0);
+		double y = s.getY(i, alpha) - (s.getY(camera, alpha) - s.getHeight(camera) / 2.0);
 
-		// sent tint and alpha
-		glColor4d(tint[0], tint[1], tint[2], tint[3]);
-
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-
-		// bind sprite texture
-		es.getSprite().bind();
-
-		//draw quad
-		glBegin(GL_QUADS);
-			// bottom left
-			glTexCoord2d(scaleX, 0);
-			glVertex2d(halfWidth, halfHeight);
-			// bottom right
-			glTexCoord2d(0, 0);
-			glVertex2d(-halfWidth, halfHeight);
-			// top right
-			glTexCoord2d(0, scaleY);
-			glVertex2d(-halfWidth, -halfHeight);
-			// top left
-			glTexCoord2d(scaleX, scaleY);
-			glVertex2d(halfWidth, -halfHeight);
-		glEnd();
+		// get the size from the size component or the image, which may be the placeholder
+		double halfWidth = s.hasSize(i) ? s.getWidth(i) / 2.0 : region.getWidth() / 2.0;
+		double halfHeight = s.hasSize(i) ? s.getHeight(i) / 2.0 : region.getHeight() / 2.0;
 
+		batch.draw(region.getTexture().getTextureID(), x, y, halfWidth, halfHeight, s.getRotation(i, alpha),
+				region.getU0(), region.getV0(), region.getU1(), region.getV1(),
+				(float) s.getR(i), (float) s.getG(i), (float) s.getB(i), (float) s.getA(i));
 	}
 
-	protected void transformCamera(Entity camera) {
-		Position cp = (Position) camera.get(Position.class);
-		Size cs = (Size) camera.get(Size.class);
+	protected void transformCamera(RenderSnapshot s, int camera, double alpha) {
+		double halfWidth = s.getWidth(camera) / 2.0;
+		double halfHeight = s.getHeight(camera) / 2.0;
 
 		// Reset view
 		glLoadIdentity();
 
 		// rotate camera
-		if (camera.has(Rotation.class)) {
-			Rotation r = (Rotation) camera.get(Rotation.class);
-			glTranslated(cs.getHalfWidth(), cs.getHalfHeight(), 0.0);
-			glRotatef((float) r.get(), 0, 0, 1);
-			glTranslated(-cs.getHalfWidth(), -cs.getHalfHeight(), 0.0);
+		if (s.hasRotation(camera)) {
+			glTranslated(halfWidth, halfHeight, 0.0);
+			glRotatef((float) s.getRotation(camera, alpha), 0, 0, 1);
+			glTranslated(-halfWidth, -halfHeight, 0.0);
 		}
 	}
 
@@ -0,0 +1,352 @@
+package motor_engine.render;
+import motor_engine.*;
+import motor_engine.components.*;
+import java.util.Arrays;
+
+/**
+ * A copy of the render relevant Components of every active Entity with a Position in a State, taken at the end of
+ * an update. The values are kept in parallel arrays indexed by the order the Entities were captured in.
+ * Sprites are copied as the paths of their images, so nothing the simulation changes afterwards is seen.
+ * The indices of a few tracked Entities, such as cameras, are recorded to be found with indexOf.
+ * <p>A snapshot is written by the simulation and then only read by the renderer until it is handed back, see SnapshotBuffer.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class RenderSnapshot {
+
+	// the number of entities captured
+	private int size;
+
+	// the order this snapshot was published in
+	long sequence;
+
+	// the time in nanoseconds the snapshot was captured at
+	private long time;
+
+	// the tracked entities and their indices, -1 if they were not captured
+	private Entity[] tracked = new Entity[0];
+	private int[] trackedIndices = new int[0];
+
+	// the image path of each sprite
+	private String[] paths;
+
+	// position at the start and end of the update
+	private double[] prevX;
+	private double[] prevY;
+	private double[] x;
+	private double[] y;
+
+	// rotation at the start and end of the update
+	private boolean[] rotated;
+	private double[] prevRotation;
+	private double[] rotation;
+
+	// size
+	private boolean[] sized;
+	private double[] width;
+	private double[] height;
+
+	// tint, transparency and z-order
+	private double[] r;
+	private double[] g;
+	private double[] b;
+	private double[] a;
+	private double[] z;
+
+	/**
+	 * Create an empty snapshot.
+	 */
+	public RenderSnapshot() {
+		resize(64);
+	}
+
+	// grow all the arrays to the given capacity
+	private void resize(int capacity) {
+		paths = (paths == null) ? new String[capacity] : Arrays.copyOf(paths, capacity);
+		prevX = grow(prevX, capacity);
+		prevY = grow(prevY, capacity);
+		x = grow(x, capacity);
+		y = grow(y, capacity);
+		rotated = (rotated == null) ? new boolean[capacity] : Arrays.copyOf(rotated, capacity);
+		prevRotation = grow(prevRotation, capacity);
+		rotation = grow(rotation, capacity);
+		sized = (sized == null) ? new boolean[capacity] : Arrays.copyOf(sized, capacity);
+		width = grow(width, capacity);
+		height = grow(height, capacity);
+		r = grow(r, capacity);
+		g = grow(g, capacity);
+		b = grow(b, capacity);
+		a = grow(a, capacity);
+		z = grow(z, capacity);
+	}
+
+	private static double[] grow(double[] array, int capacity) {
+		return (array == null) ? new double[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+	/**
+	 * Capture the Entities of every Archetype matched by the given Query. The Query must require Position.
+	 *
+	 * @param	q		The registered Query.
+	 * @param	time	The time in nanoseconds of the capture.
+	 */
+	public void capture(Query q, long time) {
+		capture(q, new Entity[0], time);
+	}
+
+	/**
+	 * Capture the Entities of every Archetype matched by the given Query, recording the indices of some of them.
+	 * The Query must require Position.
+	 *
+	 * @param	q		The registered Query.
+	 * @param	tracked	The Entities whose indices are recorded. The array is kept and must not be changed.
+	 * @param	time	The time in nanoseconds of the capture.
+	 */
+	public void capture(Query q, Entity[] tracked, long time) {
+		this.time = time;
+		this.tracked = tracked;
+		if (trackedIndices.length < tracked.length) {
+			trackedIndices = new int[tracked.length];
+		}
+		Arrays.fill(trackedIndices, -1);
+		int count = 0;
+		for (int i = 0; i < q.getArchetypeCount(); i++) {
+			Archetype chunk = q.getArchetype(i);
+			if (chunk.isEmpty()) {
+				continue;
+			}
+
+			// look up the slots once per archetype
+			int position = chunk.getSlot(Position.class);
+			int sprite = chunk.getSlot(Sprite.class);
+			int rot = chunk.getSlot(Rotation.class);
+			int size = chunk.getSlot(Size.class);
+			int tint = chunk.getSlot(Tint.class);
+			int transparency = chunk.getSlot(Transparency.class);
+			int zOrder = chunk.getSlot(ZOrder.class);
+
+			for (int row = 0; row < chunk.size(); row++) {
+				if (!chunk.isActive(row)) {
+					continue;
+				}
+				if (count == paths.length) {
+					resize(count * 2);
+				}
+
+				for (int t = 0; t < tracked.length; t++) {
+					if (tracked[t] == chunk.getEntity(row)) {
+						trackedIndices[t] = count;
+					}
+				}
+				paths[count] = (sprite < 0) ? null : ((Sprite) chunk.getComponent(sprite, row)).getPath();
+
+				Position p = (Position) chunk.getComponent(position, row);
+				prevX[count] = p.getInterpolatedX(0);
+				prevY[count] = p.getInterpolatedY(0);
+				x[count] = p.getX();
+				y[count] = p.getY();
+
+				rotated[count] = rot >= 0;
+				if (rot >= 0) {
+					Rotation rc = (Rotation) chunk.getComponent(rot, row);
+					prevRotation[count] = rc.getInterpolated(0);
+					rotation[count] = rc.get();
+				}
+
+				sized[count] = size >= 0;
+				if (size >= 0) {
+					Size s = (Size) chunk.getComponent(size, row);
+					width[count] = s.getX();
+					height[count] = s.getY();
+				}
+
+				if (tint >= 0) {
+					Tint t = (Tint) chunk.getComponent(tint, row);
+					r[count] = t.getR();
+					g[count] = t.getG();
+					b[count] = t.getB();
+				}
+				else {
+					r[count] = 1;
+					g[count] = 1;
+					b[count] = 1;
+				}
+				a[count] = (transparency < 0) ? 1 : ((Transparency) chunk.getComponent(transparency, row)).get();
+				z[count] = (zOrder < 0) ? 0 : ((ZOrder) chunk.getComponent(zOrder, row)).get();
+
+				count++;
+			}
+		}
+
+		// let go of the paths no longer captured
+		Arrays.fill(paths, count, this.size > count ? this.size : count, null);
+		this.size = count;
+	}
+
+	/**
+	 * Get the number of Entities captured.
+	 *
+	 * @return	The number of Entities.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the time the snapshot was captured at.
+	 *
+	 * @return	The time in nanoseconds, from System.nanoTime.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Find the index of a tracked Entity.
+	 *
+	 * @param	e	The Entity.
+	 * @return		The index of the Entity, or -1 if it was not tracked or not captured.
+	 */
+	public int indexOf(Entity e) {
+		for (int t = 0; t < tracked.length; t++) {
+			if (tracked[t] == e) {
+				return trackedIndices[t];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the image path of the Sprite of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The path, or null if the Entity has no Sprite or the Sprite has no image.
+	 */
+	public String getPath(int i) {
+		return paths[i];
+	}
+
+	/**
+	 * Get the x position of a captured Entity between the start and end of the update.
+	 *
+	 * @param	i		The index.
+	 * @param	alpha	How far between the start and the end of the update, from 0 to 1.
+	 * @return			The interpolated x position.
+	 */
+	public double getX(int i, double alpha) {
+		return prevX[i] + (x[i] - prevX[i]) * alpha;
+	}
+
+	/**
+	 * Get the y position of a captured Entity between the start and end of the update.
+	 *
+	 * @param	i		The index.
+	 * @param	alpha	How far between the start and the end of the update, from 0 to 1.
+	 * @return			The interpolated y position.
+	 */
+	public double getY(int i, double alpha) {
+		return prevY[i] + (y[i] - prevY[i]) * alpha;
+	}
+
+	/**
+	 * Check if a captured Entity has a Rotation.
+	 *
+	 * @param	i	The index.
+	 * @return		True if the Entity has a Rotation, false otherwise.
+	 */
+	public boolean hasRotation(int i) {
+		return rotated[i];
+	}
+
+	/**
+	 * Get the rotation of a captured Entity between the start and end of the update.
+	 *
+	 * @param	i		The index.
+	 * @param	alpha	How far between the start and the end of the update, from 0 to 1.
+	 * @return			The interpolated rotation in degrees, or 0 if the Entity has no Rotation.
+	 */
+	public double getRotation(int i, double alpha) {
+		return rotated[i] ? prevRotation[i] + (rotation[i] - prevRotation[i]) * alpha : 0;
+	}
+
+	/**
+	 * Check if a captured Entity has a Size.
+	 *
+	 * @param	i	The index.
+	 * @return		True if the Entity has a Size, false otherwise.
+	 */
+	public boolean hasSize(int i) {
+		return sized[i];
+	}
+
+	/**
+	 * Get the width of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The width, or 0 if the Entity has no Size.
+	 */
+	public double getWidth(int i) {
+		return sized[i] ? width[i] : 0;
+	}
+
+	/**
+	 * Get the height of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The height, or 0 if the Entity has no Size.
+	 */
+	public double getHeight(int i) {
+		return sized[i] ? height[i] : 0;
+	}
+
+	/**
+	 * Get the red tint of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The red tint, 1 if the Entity has no Tint.
+	 */
+	public double getR(int i) {
+		return r[i];
+	}
+
+	/**
+	 * Get the green tint of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The green tint, 1 if the Entity has no Tint.
+	 */
+	public double getG(int i) {
+		return g[i];
+	}
+
+	/**
+	 * Get the blue tint of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The blue tint, 1 if the Entity has no Tint.
+	 */
+	public double getB(int i) {
+		return b[i];
+	}
+
+	/**
+	 * Get the opacity of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The opacity, 1 if the Entity has no Transparency.
+	 */
+	public double getA(int i) {
+		return a[i];
+	}
+
+	/**
+	 * Get the z-order of a captured Entity.
+	 *
+	 * @param	i	The index.
+	 * @return		The z-order, 0 if the Entity has no ZOrder.
+	 */
+	public double getZ(int i) {
+		return z[i];
+	}
+}
@@ -0,0 +1,139 @@
+package motor_engine.render;
+import motor_engine.*;
+import motor_engine.components.Position;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands RenderSnapshots of a State from the simulation to the renderer without either waiting on the other.
+ * Three snapshots are kept: one being written, one being read and the latest published one in between.
+ * Publishing swaps the written snapshot with the latest, acquiring swaps the read snapshot with the latest if it is newer.
+ * <p>Nothing is captured until a renderer first acquires a snapshot, so States that no View draws, including every
+ * State of a headless game, do not copy their Entities each update.
+ * <p>Only one thread may publish and only one thread may acquire. Entities may be tracked from any thread.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SnapshotBuffer {
+
+	// the query of the entities to capture
+	private Query query;
+
+	// the snapshot being written by the simulation
+	private RenderSnapshot back;
+
+	// the latest published snapshot
+	private AtomicReference<RenderSnapshot> latest;
+
+	// the snapshot being read by the renderer
+	private RenderSnapshot front;
+
+	// the number of snapshots published
+	private long published;
+
+	// whether a renderer has acquired a snapshot, until then nothing is captured
+	private volatile boolean requested;
+
+	// the entities whose indices are recorded, replaced instead of changed so captures can keep them
+	private volatile Entity[] tracked = new Entity[0];
+
+	/**
+	 * Create a buffer capturing the Entities of the given State.
+	 *
+	 * @param	s	The State to capture.
+	 */
+	public SnapshotBuffer(State s) {
+		query = s.query(new Query(Position.class));
+		back = new RenderSnapshot();
+		latest = new AtomicReference<RenderSnapshot>(new RenderSnapshot());
+		front = new RenderSnapshot();
+	}
+
+	/**
+	 * Capture the State and make the capture the latest snapshot, if a renderer has asked for one.
+	 * Called by the simulation after each update.
+	 */
+	public void publish() {
+		if (!requested) {
+			return;
+		}
+		back.capture(query, tracked, System.nanoTime());
+		back.sequence = ++published;
+		back = latest.getAndSet(back);
+	}
+
+	/**
+	 * Get the latest published snapshot. Called by the renderer, the snapshot stays valid until the next acquire.
+	 * The first acquire starts the publishing, so it returns an empty snapshot.
+	 *
+	 * @return	The latest snapshot.
+	 */
+	public RenderSnapshot acquire() {
+		requested = true;
+		if (latest.get().sequence > front.sequence) {
+			front = latest.getAndSet(front);
+		}
+		return front;
+	}
+
+	/**
+	 * Check if a renderer has acquired a snapshot, so the State is captured after each update.
+	 *
+	 * @return	True if snapshots are published, false otherwise.
+	 */
+	public boolean isRequested() {
+		return requested;
+	}
+
+	/**
+	 * Record the index of an Entity, such as a camera, in the snapshots captured from now on so it can be found
+	 * with RenderSnapshot.indexOf. Tracking an Entity again does nothing.
+	 *
+	 * @param	e	The Entity to track.
+	 */
+	public void track(Entity e) {
+		if (!isTracked(e)) {
+			synchronized (this) {
+				if (!isTracked(e)) {
+					Entity[] grown = Arrays.copyOf(tracked, tracked.length + 1);
+					grown[tracked.length] = e;
+					tracked = grown;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop recording the index of an Entity.
+	 *
+	 * @param	e	The Entity to stop tracking.
+	 */
+	public synchronized void untrack(Entity e) {
+		Entity[] current = tracked;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == e) {
+				Entity[] shrunk = Arrays.copyOf(current, current.length - 1);
+				System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+				tracked = shrunk;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Check if the index of an Entity is recorded.
+	 *
+	 * @param	e	The Entity.
+	 * @return		True if the Entity is tracked, false otherwise.
+	 */
+	public boolean isTracked(Entity e) {
+		Entity[] current = tracked;
+		for (int i = 0; i < current.length; i++) {
+			if (current[i] == e) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,234 @@
+package motor_engine.render;
+import java.nio.FloatBuffer;
+import motor_engine.util.Profiler;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GLContext;
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * Collects textured quads into one reusable vertex buffer and draws every run of quads sharing a texture with a
+ * single draw call. Each vertex holds a position, texture coordinates and a colour, transformed on the CPU.
+ * <p>The vertices are streamed into a vertex buffer object when the context supports OpenGL 1.5 and are drawn
+ * straight from the client side buffer otherwise. The buffer object is created by the first begin, and the batch
+ * must be used on the OpenGL thread.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SpriteBatch {
+
+	/** The number of floats per vertex, x, y, u, v, r, g, b and a.*/
+	public static final int VERTEX_SIZE = 8;
+
+	// the number of bytes per vertex
+	private static final int STRIDE = VERTEX_SIZE * 4;
+
+	// the vertices of the quads not yet drawn
+	private FloatBuffer vertices;
+
+	// the largest number of quads drawn at once
+	private int capacity;
+
+	// the number of quads waiting to be drawn
+	private int count;
+
+	// the vertex buffer object, 0 if not supported or not created yet
+	private int vbo;
+	private boolean created;
+
+	// the texture of the quads waiting to be drawn
+	private int texture;
+
+	// whether the batch is between begin and end
+	private boolean drawing;
+
+	// the draw calls made since begin
+	private int drawCalls;
+
+	/**
+	 * Create a batch drawing up to the given number of quads per draw call.
+	 *
+	 * @param	capacity	The number of quads held before they are drawn.
+	 */
+	public SpriteBatch(int capacity) {
+		this.capacity = capacity;
+		vertices = BufferUtils.createFloatBuffer(capacity * 4 * VERTEX_SIZE);
+	}
+
+	/**
+	 * Start a batch. The current matrices, blending and texturing are used for every quad until end.
+	 */
+	public void begin() {
+		if (drawing) {
+			throw new IllegalStateException("SpriteBatch.end must be called before begin.");
+		}
+		drawing = true;
+		drawCalls = 0;
+		texture = 0;
+		count = 0;
+		vertices.clear();
+		setUp();
+	}
+
+	/**
+	 * Enable the vertex arrays, creating the vertex buffer object the first time.
+	 */
+	protected void setUp() {
+		if (!created) {
+			created = true;
+			if (GLContext.getCapabilities().OpenGL15) {
+				vbo = glGenBuffers();
+				glBindBuffer(GL_ARRAY_BUFFER, vbo);
+				glBufferData(GL_ARRAY_BUFFER, (long) vertices.capacity() * 4, GL_STREAM_DRAW);
+				glBindBuffer(GL_ARRAY_BUFFER, 0);
+			}
+		}
+		glEnableClientState(GL_VERTEX_ARRAY);
+		glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+		glEnableClientState(GL_COLOR_ARRAY);
+	}
+
+	/**
+	 * Add a quad to the batch. The quads so far are drawn first if the texture changes or the batch is full.
+	 *
+	 * @param	textureID	The OpenGL name of the texture.
+	 * @param	x			The x position of the centre.
+	 * @param	y			The y position of the centre.
+	 * @param	halfWidth	Half the width of the quad.
+	 * @param	halfHeight	Half the height of the quad.
+	 * @param	rotation	The rotation around the centre in degrees.
+	 * @param	u0			The texture x coordinate of the left edge.
+	 * @param	v0			The texture y coordinate of the top edge.
+	 * @param	u1			The texture x coordinate of the right edge.
+	 * @param	v1			The texture y coordinate of the bottom edge.
+	 * @param	r			The red tint.
+	 * @param	g			The green tint.
+	 * @param	b			The blue tint.
+	 * @param	a			The opacity.
+	 */
+	public void draw(int textureID, double x, double y, double halfWidth, double halfHeight, double rotation,
+			float u0, float v0, float u1, float v1, float r, float g, float b, float a) {
+		if (textureID != texture || count == capacity) {
+			flush();
+			texture = textureID;
+		}
+
+		// the corner offsets rotated around the centre
+		double cos = 1;
+		double sin = 0;
+		if (rotation != 0) {
+			double radians = Math.toRadians(rotation);
+			cos = Math.cos(radians);
+			sin = Math.sin(radians);
+		}
+		double wx = halfWidth * cos;
+		double wy = halfWidth * sin;
+		double hx = -halfHeight * sin;
+		double hy = halfHeight * cos;
+
+		// top right, top left, bottom left, bottom right
+		vertex(x + wx + hx, y + wy + hy, u1, v0, r, g, b, a);
+		vertex(x - wx + hx, y - wy + hy, u0, v0, r, g, b, a);
+		vertex(x - wx - hx, y - wy - hy, u0, v1, r, g, b, a);
+		vertex(x + wx - hx, y + wy - hy, u1, v1, r, g, b, a);
+		count++;
+	}
+
+	// add a vertex to the buffer
+	private void vertex(double x, double y, float u, float v, float r, float g, float b, float a) {
+		vertices.put((float) x).put((float) y).put(u).put(v).put(r).put(g).put(b).put(a);
+	}
+
+	/**
+	 * Draw the quads added so far with one draw call.
+	 */
+	public void flush() {
+		if (count == 0) {
+			return;
+		}
+		vertices.flip();
+		submit(texture, vertices, count);
+		drawCalls++;
+		Profiler.count(Profiler.DRAW_CALLS, 1);
+		Profiler.count(Profiler.TEXTURE_BINDS, 1);
+
+		count = 0;
+		vertices.clear();
+	}
+
+	/**
+	 * Draw quads of one texture with one draw call.
+	 *
+	 * @param	textureID	The OpenGL name of the texture.
+	 * @param	vertices	The vertices of the quads, VERTEX_SIZE floats each, from the start to the limit.
+	 * @param	quads		The number of quads.
+	 */
+	protected void submit(int textureID, FloatBuffer vertices, int quads) {
+		glBindTexture(GL_TEXTURE_2D, textureID);
+
+		if (vbo != 0) {
+			// orphan the old storage so the driver does not wait on the last draw
+			glBindBuffer(GL_ARRAY_BUFFER, vbo);
+			glBufferData(GL_ARRAY_BUFFER, (long) vertices.capacity() * 4, GL_STREAM_DRAW);
+			glBufferSubData(GL_ARRAY_BUFFER, 0, vertices);
+			glVertexPointer(2, GL_FLOAT, STRIDE, 0);
+			glTexCoordPointer(2, GL_FLOAT, STRIDE, 8);
+			glColorPointer(4, GL_FLOAT, STRIDE, 16);
+		}
+		else {
+			vertices.position(0);
+			glVertexPointer(2, STRIDE, vertices);
+			vertices.position(2);
+			glTexCoordPointer(2, STRIDE, vertices);
+			vertices.position(4);
+			glColorPointer(4, STRIDE, vertices);
+			vertices.position(0);
+		}
+
+		glDrawArrays(GL_QUADS, 0, quads * 4);
+	}
+
+	/**
+	 * Draw the remaining quads and finish the batch.
+	 */
+	public void end() {
+		if (!drawing) {
+			throw new IllegalStateException("SpriteBatch.begin must be called before end.");
+		}
+		flush();
+		tearDown();
+		drawing = false;
+	}
+
+	/**
+	 * Disable the vertex arrays enabled by setUp.
+	 */
+	protected void tearDown() {
+		if (vbo != 0) {
+			glBindBuffer(GL_ARRAY_BUFFER, 0);
+		}
+		glDisableClientState(GL_VERTEX_ARRAY);
+		glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+		glDisableClientState(GL_COLOR_ARRAY);
+	}
+
+	/**
+	 * Get the number of draw calls made by the last batch.
+	 *
+	 * @return	The draw calls since begin.
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * Release the vertex buffer object. The batch can not be used afterwards.
+	 */
+	public void destroy() {
+		if (vbo != 0) {
+			glDeleteBuffers(vbo);
+			vbo = 0;
+		}
+	}
+}
@@ -3,8 +3,6 @@ import motor_engine.*;
 import motor_engine.input.*;
 import motor_engine.components.*;
 import java.awt.Cursor;
-import org.lwjgl.opengl.Display;
-import org.lwjgl.opengl.DisplayMode;
 
 /**
  * Use to set the position of an Entity to that of the mouse crusor.
@@ -56,8 +54,8 @@ public class EntityFollowMouse extends Rule {
 	public void update(long deltaTime) {
 		if (follower.has(Position.class)) {
 			Position p = (Position) follower.get(Position.class);
-			p.setX(MouseManager.getX() - Display.getDisplayMode().getWidth()/2);
-			p.setY(MouseManager.getY() - Display.getDisplayMode().getHeight()/2);
+			p.setX(MouseManager.getX() - DisplayManager.getWidth()/2);
+			p.setY(MouseManager.getY() - DisplayManager.getHeight()/2);
 		}
 	}
 }
@@ -0,0 +1,181 @@
+package motor_engine.rules;
+import motor_engine.*;
+import motor_engine.components.*;
+
+/**
+ * A rule that moves every Entity with a Velocity in one pass over the double columns of its Archetype,
+ * instead of updating the Acceleration, Velocity and Drag Components one at a time.
+ * <p>While the rule is active its State does not update those three component classes itself. Each row is changed
+ * exactly as their updates would change it: the Acceleration is added to the Velocity, the Velocity moves the
+ * Position unless a simulated RigidBody moves the Entity, and then the Drag slows the Velocity towards zero.
+ * <p>Runs of active, awake rows are integrated with plain loops over the columns that do not allocate or look
+ * anything up, so the JIT is free to unroll and vectorize them. Rows whose Components are shared with another
+ * Entity fall back to the updates of the Components, which change the Entity that last took the Component.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Kinematics extends BatchRule {
+
+	// the component classes this rule updates in place of their own updates
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static final Class<? extends Component>[] REPLACED = new Class[] {Acceleration.class, Velocity.class, Drag.class};
+
+	/**
+	 * Create a rule integrating every Entity with a Velocity.
+	 */
+	public Kinematics() {
+		super(new Query(Velocity.class));
+		reads(Acceleration.class, Drag.class, RigidBody.class);
+		writes(Position.class, Velocity.class);
+	}
+
+	public void begin() {
+		setActive(true);
+	}
+
+	public void end() {
+		setActive(false);
+	}
+
+	/**
+	 * Set the owning State, handing the integrated component classes back to the previous owner.
+	 *
+	 * @param	s	The owning State.
+	 */
+	public void setOwner(State s) {
+		if (isActive()) {
+			replace(getOwner(), false);
+		}
+		super.setOwner(s);
+		if (isActive()) {
+			replace(s, true);
+		}
+	}
+
+	/**
+	 * Activate or deactivate the rule. While inactive the Components are updated by the State as usual.
+	 *
+	 * @param	b	True to integrate in this rule, false otherwise.
+	 */
+	public void setActive(boolean b) {
+		if (b != isActive()) {
+			replace(getOwner(), b);
+		}
+		super.setActive(b);
+	}
+
+	// tell a state whether this rule updates the integrated classes
+	private void replace(State s, boolean b) {
+		if (s != null) {
+			for (Class<? extends Component> type : REPLACED) {
+				s.getStorage().setReplaced(type, b);
+			}
+		}
+	}
+
+	public void update(Archetype chunk, int start, int end, long deltaTime) {
+		double dt = deltaTime / 1000.0;
+		int velocitySlot = chunk.getSlot(Velocity.class);
+		int positionSlot = chunk.getSlot(Position.class);
+		int accelerationSlot = chunk.getSlot(Acceleration.class);
+		int dragSlot = chunk.getSlot(Drag.class);
+		int bodySlot = chunk.getSlot(RigidBody.class);
+
+		int row = start;
+		while (row < end) {
+			// find the next run of rows whose values live in this archetype
+			while (row < end && !chunk.isActive(row)) {
+				row++;
+			}
+			int first = row;
+			while (row < end && chunk.isActive(row) && !chunk.isSleeping(row)
+					&& owns(chunk, velocitySlot, row) && owns(chunk, positionSlot, row)
+					&& owns(chunk, accelerationSlot, row) && owns(chunk, dragSlot, row)) {
+				row++;
+			}
+			if (row > first) {
+				integrate(chunk, first, row, dt, bodySlot);
+			}
+			else if (row < end) {
+				if (!chunk.isSleeping(row)) {
+					fallBack(chunk, row, deltaTime, accelerationSlot, velocitySlot, dragSlot);
+				}
+				row++;
+			}
+		}
+	}
+
+	// check if the component of a slot belongs to the entity of a row and keeps its values there, true if the slot is missing
+	private static boolean owns(Archetype chunk, int slot, int row) {
+		if (slot < 0) {
+			return true;
+		}
+		Component c = chunk.getComponent(slot, row);
+		return c.getParent() == chunk.getEntity(row) && ((Columnar) c).isBoundTo(chunk, row);
+	}
+
+	// integrate a run of active, awake rows
+	private void integrate(Archetype chunk, int start, int end, double dt, int bodySlot) {
+		int v = chunk.getColumnIndex(Velocity.class);
+		double[] vx = chunk.getColumn(v);
+		double[] vy = chunk.getColumn(v + 1);
+
+		int a = chunk.getColumnIndex(Acceleration.class);
+		if (a >= 0) {
+			double[] ax = chunk.getColumn(a);
+			double[] ay = chunk.getColumn(a + 1);
+			for (int i = start; i < end; i++) {
+				vx[i] += ax[i] * dt;
+				vy[i] += ay[i] * dt;
+			}
+		}
+
+		int p = chunk.getColumnIndex(Position.class);
+		if (p >= 0) {
+			double[] px = chunk.getColumn(p);
+			double[] py = chunk.getColumn(p + 1);
+			if (bodySlot < 0) {
+				for (int i = start; i < end; i++) {
+					px[i] += vx[i] * dt;
+					py[i] += vy[i] * dt;
+				}
+			}
+			else {
+				for (int i = start; i < end; i++) {
+					if (!isMovedByPhysics(chunk, bodySlot, i)) {
+						px[i] += vx[i] * dt;
+						py[i] += vy[i] * dt;
+					}
+				}
+			}
+		}
+
+		int d = chunk.getColumnIndex(Drag.class);
+		if (d >= 0) {
+			double[] dx = chunk.getColumn(d);
+			double[] dy = chunk.getColumn(d + 1);
+			for (int i = start; i < end; i++) {
+				vx[i] = Math.copySign(Math.max(Math.abs(vx[i]) - Math.abs(dx[i] * dt), 0), vx[i]);
+				vy[i] = Math.copySign(Math.max(Math.abs(vy[i]) - Math.abs(dy[i] * dt), 0), vy[i]);
+			}
+		}
+	}
+
+	// check if the Physics rule moves the entity in a row instead of its Velocity
+	private static boolean isMovedByPhysics(Archetype chunk, int bodySlot, int row) {
+		RigidBody r = (RigidBody) chunk.getComponent(bodySlot, row);
+		return r.isSimulated() && r.getBody() != null;
+	}
+
+	// update the components of a row one at a time, in priority order
+	private static void fallBack(Archetype chunk, int row, long deltaTime, int accelerationSlot, int velocitySlot, int dragSlot) {
+		if (accelerationSlot >= 0) {
+			chunk.getComponent(accelerationSlot, row).update(deltaTime);
+		}
+		chunk.getComponent(velocitySlot, row).update(deltaTime);
+		if (dragSlot >= 0) {
+			chunk.getComponent(dragSlot, row).update(deltaTime);
+		}
+	}
+}
@@ -8,11 +8,25 @@ import motor_engine.render.JBox2dDebugRenderer;
 
 /**
  * A default physics rule using JBox2D.
+ * <p>Every active Entity with a RigidBody, a Position and a Size or Sprite is given a body in the physics world.
+ * Bodies are created as Entities arrive and destroyed as they leave or are deactivated. Each update the changes
+ * other Rules made to the Entities are pushed into the bodies, the world is stepped and the transforms of the
+ * moving bodies are copied back into the Position, Rotation and Velocity components.
+ * <p>By default the world is stepped at a fixed rate, as many times as the elapsed time allows up to a limit, so a
+ * long frame does not make bodies pass through each other and a short one does not waste solver work. The time left
+ * over is used to interpolate the copied transforms between the last two steps, so motion stays smooth when the
+ * step rate and the update rate differ.
+ * <p>JBox2D 2.0 has no kinematic bodies so they are made of very heavy dynamic bodies that ignore gravity,
+ * whose velocity is set from the Entity's Velocity before each step.
  *
  * @author	Garrett Smith
  * @version	0.1
  */
 public class Physics extends Rule {
+
+	// the mass of a kinematic body, large enough that collisions barely move it
+	private static final float KINEMATIC_MASS = 1e6f;
+
 	//debug renderer
 	private DebugDraw debugRenderer;
 
@@ -20,6 +34,32 @@ public class Physics extends Rule {
 	private World physicsWorld;
 	private int iterations = 2;
 
+	// the fixed step in seconds, or 0 to step by the elapsed time
+	private float stepTime = 1 / 60f;
+
+	// the most steps taken in one update
+	private int maxSubSteps = 4;
+
+	// the time not yet stepped, in seconds
+	private float accumulator;
+
+	// whether copied transforms are interpolated between steps
+	private boolean interpolated = true;
+
+	// the gravity of the world
+	private Vec2 gravity = new Vec2(0, -1);
+
+	// the entities with bodies
+	private Query query;
+
+	// the current update, to find the bodies of entities that have gone
+	private int stamp;
+
+	// scratch vectors handed to the bodies, which copy them
+	private Vec2 position = new Vec2();
+	private Vec2 velocity = new Vec2();
+	private Vec2 force = new Vec2();
+
 	/**
 	 * Create the Box2D world.
 	 */
@@ -32,21 +72,29 @@ public class Physics extends Rule {
 		AABB bounds = new AABB(min, max);
 
 		// create world
-		physicsWorld = new World(bounds, new Vec2(0,-1), true);
+		physicsWorld = new World(bounds, gravity, true);
 
-		// debug drawing
-		if (debugRenderer != null) {
+		// debug drawing, which draws while stepping so there is nothing to draw on when headless
+		if (debugRenderer != null && !MotorEngine.isHeadless()) {
 			System.out.println("DEBUG RENDERING");
 			physicsWorld.setDebugDraw(debugRenderer);
 		}
 
-		createEntities();
+		// the bodies are created by the first update
+		query = getOwner().query(new Query(RigidBody.class, Position.class));
 	}
 
 	/**
 	 * Destroy the Box2D world.
 	 */
 	public void end() {
+		if (physicsWorld != null) {
+			for (Body b = physicsWorld.getBodyList(); b != null; b = b.getNext()) {
+				if (b.getUserData() instanceof RigidBody) {
+					((RigidBody) b.getUserData()).setBody(null);
+				}
+			}
+		}
 		physicsWorld = null;
 	}
 
@@ -54,7 +102,110 @@ public class Physics extends Rule {
 	 * Update the physics world.
 	 */
 	public void update(long deltaTime) {
-		physicsWorld.step((deltaTime/1000f), iterations);
+		createEntities();
+		if (stepTime <= 0) {
+			prepareStep();
+			physicsWorld.step((deltaTime/1000f), iterations);
+			copyTransforms(1);
+			return;
+		}
+
+		accumulator += deltaTime / 1000f;
+		int steps = 0;
+		while (accumulator >= stepTime && steps < maxSubSteps) {
+			prepareStep();
+			physicsWorld.step(stepTime, iterations);
+			accumulator -= stepTime;
+			steps++;
+		}
+		if (accumulator >= stepTime) {
+			// too far behind, drop the time rather than spiral
+			accumulator = accumulator % stepTime;
+		}
+		copyTransforms(interpolated ? accumulator / stepTime : 1);
+	}
+
+	// SETTINGS
+
+	/**
+	 * Set the number of solver iterations of each step. More iterations make stacks and joints stiffer at a cost.
+	 *
+	 * @param	iterations	The number of iterations.
+	 */
+	public void setIterations(int iterations) {
+		this.iterations = Math.max(1, iterations);
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Set the fixed time of each physics step.
+	 *
+	 * @param	milliseconds	The step time, or 0 to step once per update by the elapsed time.
+	 */
+	public void setStepTime(double milliseconds) {
+		stepTime = (float) (milliseconds / 1000.0);
+		accumulator = 0;
+	}
+
+	/**
+	 * Get the fixed time of each physics step.
+	 *
+	 * @return	The step time in milliseconds, or 0 if the world is stepped by the elapsed time.
+	 */
+	public double getStepTime() {
+		return stepTime * 1000.0;
+	}
+
+	/**
+	 * Set the most steps taken in one update. Time beyond this is dropped so a slow frame can not cause slower ones.
+	 *
+	 * @param	maxSubSteps	The maximum number of steps.
+	 */
+	public void setMaxSubSteps(int maxSubSteps) {
+		this.maxSubSteps = Math.max(1, maxSubSteps);
+	}
+
+	public int getMaxSubSteps() {
+		return maxSubSteps;
+	}
+
+	/**
+	 * Set whether the transforms copied to the Entities are interpolated between the last two steps
+	 * by the time left over, or are those of the last step.
+	 *
+	 * @param	interpolated	True to interpolate.
+	 */
+	public void setInterpolated(boolean interpolated) {
+		this.interpolated = interpolated;
+	}
+
+	public boolean isInterpolated() {
+		return interpolated;
+	}
+
+	/**
+	 * Get how far the time left over is between the last step and the next.
+	 *
+	 * @return	The fraction of a step not yet taken, between 0 and 1.
+	 */
+	public double getAlpha() {
+		return (stepTime > 0) ? accumulator / stepTime : 0;
+	}
+
+	/**
+	 * Set the gravity of the physics world.
+	 *
+	 * @param	x	The horizontal acceleration.
+	 * @param	y	The vertical acceleration.
+	 */
+	public void setGravity(double x, double y) {
+		gravity.set((float) x, (float) y);
+		if (physicsWorld != null) {
+			physicsWorld.setGravity(gravity);
+		}
 	}
 
 	/**
@@ -72,34 +223,200 @@ public class Physics extends Rule {
 		debugRenderer.appendFlags(DebugDraw.e_centerOfMassBit);
 	}
 
+	/**
+	 * Create bodies for the Entities that do not have one yet, destroy the bodies of Entities that have gone and
+	 * push the changes other Rules made to the Entities into their bodies.
+	 */
 	public void createEntities() {
+		stamp++;
+		for (int i = 0; i < query.getArchetypeCount(); i++) {
+			Archetype a = query.getArchetype(i);
+			for (int row = 0; row < a.size(); row++) {
+				if (!a.isActive(row)) {
+					continue;
+				}
+				Entity e = a.getEntity(row);
+				RigidBody r = (RigidBody) a.get(RigidBody.class, row);
+				if (r.getBody() == null && !createBody(e, r)) {
+					continue;
+				}
+				r.setStamp(stamp);
+				pushChanges(e, r);
+			}
+		}
 
-		for (Entity e: getOwner().getEntities()) {
-			if (e.has(Position.class)) {
-				Position p = (Position) e.get(Position.class);
-				if (e.has(Sprite.class)) {
-					Sprite s = (Sprite) e.get(Sprite.class);
+		// destroy the bodies not seen this update, and those whose component was pooled and given a new body
+		Body b = physicsWorld.getBodyList();
+		while (b != null) {
+			Body next = b.getNext();
+			if (b.getUserData() instanceof RigidBody) {
+				RigidBody r = (RigidBody) b.getUserData();
+				if (r.getBody() != b) {
+					physicsWorld.destroyBody(b);
+				}
+				else if (r.getStamp() != stamp) {
+					physicsWorld.destroyBody(b);
+					r.setBody(null);
+				}
+			}
+			b = next;
+		}
+	}
+
+	// create the body of an entity, waiting if it does not have a size yet
+	private boolean createBody(Entity e, RigidBody r) {
+		double w;
+		double h;
+		if (e.has(Size.class)) {
+			Size s = (Size) e.get(Size.class);
+			w = s.getHalfWidth();
+			h = s.getHalfHeight();
+		}
+		else if (e.has(Sprite.class)) {
+			Sprite s = (Sprite) e.get(Sprite.class);
+			w = s.getHalfWidth();
+			h = s.getHalfHeight();
+		}
+		else {
+			return false;
+		}
+		if (w <= 0 || h <= 0) {
+			// a sprite still loading
+			return false;
+		}
 
-					PolygonDef poly = new PolygonDef();
-					poly.setAsBox((float)s.getHalfWidth(), (float)s.getHalfHeight());
+		Position p = (Position) e.get(Position.class);
+		double angle = getAngle(e);
 
-					BodyDef bd = new BodyDef();
-					bd.position.set((float)p.getX(), (float)p.getY());
+		BodyDef bd = new BodyDef();
+		bd.position.set((float) p.getX(), (float) p.getY());
+		bd.angle = (float) Math.toRadians(angle);
+		bd.userData = r;
+		bd.allowSleep = r.canSleep();
+		bd.isBullet = r.isBullet();
+		// entities that can not show rotation do not rotate
+		bd.fixedRotation = r.getType() == RigidBody.KINEMATIC || !e.has(Rotation.class);
 
-					physicsWorld.createBody(bd).createShape(poly);
+		Body body = physicsWorld.createBody(bd);
+		if (body == null) {
+			// the world is locked or full
+			return false;
+		}
+
+		PolygonDef poly = new PolygonDef();
+		poly.setAsBox((float) w, (float) h);
+		poly.friction = (float) r.getFriction();
+		poly.restitution = (float) r.getRestitution();
+		poly.density = (r.getType() == RigidBody.DYNAMIC) ? (float) r.getDensity() : 0;
+		body.createShape(poly);
+
+		if (r.getType() == RigidBody.DYNAMIC) {
+			body.setMassFromShapes();
+		}
+		else if (r.getType() == RigidBody.KINEMATIC) {
+			MassData m = new MassData();
+			m.mass = KINEMATIC_MASS;
+			m.I = 0;
+			body.setMass(m);
+		}
+
+		r.setBody(body);
+		r.setSyncTransform(p.getX(), p.getY(), angle);
+		r.setPreviousTransform(p.getX(), p.getY(), bd.angle);
+		r.setSyncVelocity(0, 0);
+		return true;
+	}
+
+	// push the position, rotation and velocity set by other rules into the body
+	private void pushChanges(Entity e, RigidBody r) {
+		Body body = r.getBody();
+		Position p = (Position) e.get(Position.class);
+		double angle = getAngle(e);
+		if (r.transformChanged(p.getX(), p.getY(), angle)) {
+			position.set((float) p.getX(), (float) p.getY());
+			body.setXForm(position, (float) Math.toRadians(angle));
+			r.setSyncTransform(p.getX(), p.getY(), angle);
+			// moved, not stepped, so do not interpolate from the old place
+			r.setPreviousTransform(p.getX(), p.getY(), Math.toRadians(angle));
+			body.wakeUp();
+		}
+
+		if (r.getType() == RigidBody.STATIC) {
+			return;
+		}
+
+		Velocity v = (Velocity) e.get(Velocity.class);
+		double vx = (v != null) ? v.getX() : 0;
+		double vy = (v != null) ? v.getY() : 0;
+		if (r.getType() == RigidBody.KINEMATIC) {
+			// drive the body, gravity is cancelled before each step
+			velocity.set((float) vx, (float) vy);
+			body.setLinearVelocity(velocity);
+			body.setAngularVelocity(0);
+			body.wakeUp();
+		}
+		else if (v != null && r.velocityChanged(vx, vy)) {
+			velocity.set((float) vx, (float) vy);
+			body.setLinearVelocity(velocity);
+			r.setSyncVelocity(vx, vy);
+			body.wakeUp();
+		}
+	}
+
+	// remember where the bodies were and cancel the gravity on kinematic bodies, as forces are cleared every step
+	private void prepareStep() {
+		for (Body b = physicsWorld.getBodyList(); b != null; b = b.getNext()) {
+			if (b.getUserData() instanceof RigidBody) {
+				RigidBody r = (RigidBody) b.getUserData();
+				Vec2 bp = b.getPosition();
+				r.setPreviousTransform(bp.x, bp.y, b.getAngle());
+				if (r.getType() == RigidBody.KINEMATIC) {
+					force.set(gravity);
+					force.mulLocal(-b.getMass());
+					b.applyForce(force, b.getWorldCenter());
 				}
-				else if (e.has(Size.class)) {
-					Size s = (Size) e.get(Size.class);
+			}
+		}
+	}
 
-					PolygonDef poly = new PolygonDef();
-					poly.setAsBox((float)s.getHalfWidth(), (float)s.getHalfHeight());
+	// copy the transforms of the moving bodies back into their entities, alpha of the way from the previous step
+	private void copyTransforms(double alpha) {
+		for (int i = 0; i < query.getArchetypeCount(); i++) {
+			Archetype a = query.getArchetype(i);
+			for (int row = 0; row < a.size(); row++) {
+				RigidBody r = (RigidBody) a.get(RigidBody.class, row);
+				Body body = r.getBody();
+				if (body == null || !r.isSimulated() || body.isSleeping()) {
+					continue;
+				}
+				Entity e = a.getEntity(row);
+				Vec2 bp = body.getPosition();
+				double x = r.getPreviousX() + (bp.x - r.getPreviousX()) * alpha;
+				double y = r.getPreviousY() + (bp.y - r.getPreviousY()) * alpha;
+				Position p = (Position) e.get(Position.class);
+				p.set(x, y);
 
-					BodyDef bd = new BodyDef();
-					bd.position.set((float)p.getX(), (float)p.getY());
+				double angle = getAngle(e);
+				Rotation rotation = (Rotation) e.get(Rotation.class);
+				if (rotation != null && (body.m_flags & Body.e_fixedRotationFlag) == 0) {
+					angle = Math.toDegrees(r.getPreviousAngle() + (body.getAngle() - r.getPreviousAngle()) * alpha);
+					rotation.set(angle);
+				}
+				r.setSyncTransform(x, y, angle);
 
-					physicsWorld.createBody(bd).createShape(poly);
+				Velocity v = (Velocity) e.get(Velocity.class);
+				if (v != null && r.getType() == RigidBody.DYNAMIC) {
+					Vec2 bv = body.getLinearVelocity();
+					v.set(bv.x, bv.y);
+					r.setSyncVelocity(bv.x, bv.y);
 				}
 			}
 		}
 	}
+
+	// the rotation of an entity in degrees
+	private static double getAngle(Entity e) {
+		Rotation rotation = (Rotation) e.get(Rotation.class);
+		return (rotation != null) ? rotation.get() : 0;
+	}
 }
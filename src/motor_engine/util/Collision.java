@@ -8,12 +8,31 @@ import motor_engine.util.shape.*;
 
 /**
  * Utility class provides helper methods for checking collisions.
+ * <p>The checks work on axis aligned boxes given by their left, bottom, right and top edges and write their results
+ * to caller supplied arrays or vectors, so they do not allocate. The Entity checks read the boxes into a per thread
+ * scratch array, which makes them safe to call from parallel Rules.
  *
  * @author	Garrett Smith
  * @version	0.1
  */
 public class Collision {
 
+	/** The second box crosses the top edge of the first.*/
+	public static final int TOP = 1;
+	/** The second box crosses the bottom edge of the first.*/
+	public static final int BOTTOM = 2;
+	/** The second box crosses the left edge of the first.*/
+	public static final int LEFT = 4;
+	/** The second box crosses the right edge of the first.*/
+	public static final int RIGHT = 8;
+
+	// the boxes of the two entities being checked by each thread
+	private static final ThreadLocal<double[]> scratch = new ThreadLocal<double[]>() {
+		protected double[] initialValue() {
+			return new double[8];
+		}
+	};
+
 	/**
 	 * Check whether two Entities have collided. To preform this check both Entities must have a Position and either a Size or a Sprite.
 	 *
@@ -23,29 +42,240 @@ public class Collision {
 	 * @return		True if the two Entities collide, false otherwise.
 	 */
 	public static boolean check(Entity e1, Entity e2) {
-		return createRectangle(e1).intersects(createRectangle(e2));
+		double[] b = read(e1, e2);
+		return overlaps(b[0], b[1], b[2], b[3], b[4], b[5], b[6], b[7]);
 	}
 
+	/**
+	 * Get how far the second Entity has moved into the first. This allocates the returned vector.
+	 *
+	 * @param	e1	The first Entity.
+	 * @param	e2	The second Entity.
+	 * @return		The penetration of the second Entity on each axis.
+	 */
 	public static ReadableVector2d getVector(Entity e1, Entity e2) {
-		return createRectangle(e1).intersection(createRectangle(e2));
+		Vector2d v = new Vector2d();
+		getVector(e1, e2, v);
+		return v;
+	}
+
+	/**
+	 * Get how far the second Entity has moved into the first.
+	 *
+	 * @param	e1	The first Entity.
+	 * @param	e2	The second Entity.
+	 * @param	out	The vector the penetration on each axis is written to.
+	 */
+	public static void getVector(Entity e1, Entity e2, WriteableVector2d out) {
+		double[] b = read(e1, e2);
+		out.set(penetrationX(b[0], b[2], b[4], b[6]), penetrationY(b[1], b[3], b[5], b[7]));
+	}
+
+	/**
+	 * Get the edges of the first Entity crossed by the second in one check.
+	 *
+	 * @param	e1	The first Entity.
+	 * @param	e2	The second Entity.
+	 * @return		The crossed edges as a combination of TOP, BOTTOM, LEFT and RIGHT.
+	 */
+	public static int getSides(Entity e1, Entity e2) {
+		double[] b = read(e1, e2);
+		return sides(b[0], b[1], b[2], b[3], b[4], b[5], b[6], b[7]);
 	}
 
 	public static Boolean checkTop(Entity e1, Entity e2) {
-		return createRectangle(e1).intersectsTop(createRectangle(e2));
+		return (getSides(e1, e2) & TOP) != 0;
 	}
 
 	public static Boolean checkBottom(Entity e1, Entity e2) {
-		return createRectangle(e1).intersectsBottom(createRectangle(e2));
+		return (getSides(e1, e2) & BOTTOM) != 0;
 	}
 
 	public static Boolean checkLeft(Entity e1, Entity e2) {
-		return createRectangle(e1).intersectsLeft(createRectangle(e2));
+		return (getSides(e1, e2) & LEFT) != 0;
 	}
 
 	public static Boolean checkRight(Entity e1, Entity e2) {
-		return createRectangle(e1).intersectsRight(createRectangle(e2));
+		return (getSides(e1, e2) & RIGHT) != 0;
+	}
+
+	// read the boxes of two entities into the scratch array of this thread
+	private static double[] read(Entity e1, Entity e2) {
+		double[] b = scratch.get();
+		readBounds(e1, b, 0);
+		readBounds(e2, b, 4);
+		return b;
 	}
 
+	// read the box of an entity, or an empty box at the origin if it has none
+	private static void readBounds(Entity e, double[] bounds, int offset) {
+		if (!getBounds(e, bounds, offset)) {
+			bounds[offset] = 0;
+			bounds[offset + 1] = 0;
+			bounds[offset + 2] = 0;
+			bounds[offset + 3] = 0;
+		}
+	}
+
+	/**
+	 * Get the axis aligned box of an Entity from its Position and either its Size or its Sprite.
+	 *
+	 * @param	e		The Entity.
+	 * @param	bounds	The array the left, bottom, right and top edges are written to.
+	 * @return			True if the Entity has a box, false if it lacks a Position or a size.
+	 */
+	public static boolean getBounds(Entity e, double[] bounds) {
+		return getBounds(e, bounds, 0);
+	}
+
+	/**
+	 * Get the axis aligned box of an Entity from its Position and either its Size or its Sprite.
+	 *
+	 * @param	e		The Entity.
+	 * @param	bounds	The array the left, bottom, right and top edges are written to.
+	 * @param	offset	The index of the left edge in the array.
+	 * @return			True if the Entity has a box, false if it lacks a Position or a size.
+	 */
+	public static boolean getBounds(Entity e, double[] bounds, int offset) {
+		Position p = (Position) e.get(Position.class);
+		if (p == null) {
+			return false;
+		}
+		double w;
+		double h;
+		Size s = (Size) e.get(Size.class);
+		if (s != null) {
+			w = s.getX();
+			h = s.getY();
+		}
+		else {
+			Sprite sp = (Sprite) e.get(Sprite.class);
+			if (sp == null) {
+				return false;
+			}
+			w = sp.getWidth();
+			h = sp.getHeight();
+		}
+		double x = p.getX();
+		double y = p.getY();
+		bounds[offset] = x - w / 2.0;
+		bounds[offset + 1] = y - h / 2.0;
+		bounds[offset + 2] = x + w / 2.0;
+		bounds[offset + 3] = y + h / 2.0;
+		return true;
+	}
+
+	// boxes
+
+	/**
+	 * Check if two boxes overlap.
+	 *
+	 * @param	minX1	The left edge of the first box.
+	 * @param	minY1	The bottom edge of the first box.
+	 * @param	maxX1	The right edge of the first box.
+	 * @param	maxY1	The top edge of the first box.
+	 * @param	minX2	The left edge of the second box.
+	 * @param	minY2	The bottom edge of the second box.
+	 * @param	maxX2	The right edge of the second box.
+	 * @param	maxY2	The top edge of the second box.
+	 * @return			True if the boxes overlap, false if they are apart or only touch.
+	 */
+	public static boolean overlaps(double minX1, double minY1, double maxX1, double maxY1,
+			double minX2, double minY2, double maxX2, double maxY2) {
+		return spans(minX1, maxX1, minX2, maxX2) && spans(minY1, maxY1, minY2, maxY2);
+	}
+
+	/**
+	 * Check if a box contains a point, including its edges.
+	 *
+	 * @param	minX	The left edge of the box.
+	 * @param	minY	The bottom edge of the box.
+	 * @param	maxX	The right edge of the box.
+	 * @param	maxY	The top edge of the box.
+	 * @param	x		The x position of the point.
+	 * @param	y		The y position of the point.
+	 * @return			True if the point is in the box.
+	 */
+	public static boolean contains(double minX, double minY, double maxX, double maxY, double x, double y) {
+		return minX <= x && x <= maxX && minY <= y && y <= maxY;
+	}
+
+	/**
+	 * Get the edges of the first box crossed by the second.
+	 *
+	 * @param	minX1	The left edge of the first box.
+	 * @param	minY1	The bottom edge of the first box.
+	 * @param	maxX1	The right edge of the first box.
+	 * @param	maxY1	The top edge of the first box.
+	 * @param	minX2	The left edge of the second box.
+	 * @param	minY2	The bottom edge of the second box.
+	 * @param	maxX2	The right edge of the second box.
+	 * @param	maxY2	The top edge of the second box.
+	 * @return			The crossed edges as a combination of TOP, BOTTOM, LEFT and RIGHT.
+	 */
+	public static int sides(double minX1, double minY1, double maxX1, double maxY1,
+			double minX2, double minY2, double maxX2, double maxY2) {
+		int sides = 0;
+		if (spans(minX1, maxX1, minX2, maxX2)) {
+			if (minY2 < maxY1 && maxY1 < maxY2) {
+				sides |= TOP;
+			}
+			if (minY2 < minY1 && minY1 < maxY2) {
+				sides |= BOTTOM;
+			}
+		}
+		if (spans(minY1, maxY1, minY2, maxY2)) {
+			if (minX2 < minX1 && minX1 < maxX2) {
+				sides |= LEFT;
+			}
+			if (minX2 < maxX1 && maxX1 < maxX2) {
+				sides |= RIGHT;
+			}
+		}
+		return sides;
+	}
+
+	/**
+	 * Get how far the second box has moved into the first.
+	 *
+	 * @param	a	The left, bottom, right and top edges of the first box.
+	 * @param	b	The left, bottom, right and top edges of the second box.
+	 * @param	out	The array the penetration on the x and y axes is written to.
+	 * @return		True if the boxes overlap.
+	 */
+	public static boolean penetration(double[] a, double[] b, double[] out) {
+		out[0] = penetrationX(a[0], a[2], b[0], b[2]);
+		out[1] = penetrationY(a[1], a[3], b[1], b[3]);
+		return overlaps(a[0], a[1], a[2], a[3], b[0], b[1], b[2], b[3]);
+	}
+
+	// the penetration on the x axis, positive when the second box is to the left
+	private static double penetrationX(double minX1, double maxX1, double minX2, double maxX2) {
+		if ((minX2 + maxX2) <= (minX1 + maxX1)) {
+			return Math.max(0, maxX2 - minX1);
+		}
+		return Math.min(0, minX2 - maxX1);
+	}
+
+	// the penetration on the y axis, positive when the second box is below
+	private static double penetrationY(double minY1, double maxY1, double minY2, double maxY2) {
+		if ((minY2 + maxY2) <= (minY1 + maxY1)) {
+			return Math.max(0, maxY2 - minY1);
+		}
+		return Math.min(0, minY2 - maxY1);
+	}
+
+	// check if the second range crosses into or covers the first
+	private static boolean spans(double min1, double max1, double min2, double max2) {
+		return (min1 < min2 && min2 < max1) || (min1 < max2 && max2 < max1) || (min2 <= min1 && max1 <= max2);
+	}
+
+	/**
+	 * Create a Rectangle of an Entity. This allocates, use getBounds where it matters.
+	 *
+	 * @param	e	The Entity.
+	 * @return		A new Rectangle centred on the Entity.
+	 */
 	public static Rectangle createRectangle(Entity e) {
 		Rectangle r = new Rectangle();
 		if (e.has(Position.class)) {
@@ -9,13 +9,21 @@ import motor_engine.*;
 
 /**
  * The console used to access logged information about your game.
+ * <p>Logging to the Console logs to the "console" category of the Log. Once added as an Output of the Log, as
+ * MotorEngine does, the Console keeps the last messages of every category to show.
  *
  * @author	Garrett Smith
  * @version	0.1
  */
-public class Console {
+public class Console implements Log.Output {
 
-	// The arraylist of messages
+	// the number of messages kept
+	private static final int HISTORY = 200;
+
+	// the category logged to
+	private static final Log LOG = Log.get("console");
+
+	// The arraylist of messages, written by the log's thread
 	private ArrayList<String> messages;
 
 	//console fps counter
@@ -30,7 +38,7 @@ public class Console {
 	private boolean visible;
 
 	// if the console has been changed since the last update
-	private boolean changed;
+	private volatile boolean changed;
 
 	//current fps
 	private int fps;
@@ -116,8 +124,7 @@ public class Console {
 	 * @param	msg		The message to be logged to the console.
 	 */
 	public void log(String msg) {
-		//messages.add(MotorEngine.LIBRARY + " @ " + MotorEngine.getElapsedTime() + ": " + msg);
-		setChanged(true);
+		LOG.info(msg);
 	}
 
 	/**
@@ -126,7 +133,9 @@ public class Console {
 	 * @param	i	The int to log.
 	 */
 	public void log(int i) {
-		log(Integer.toString(i));
+		if (LOG.isInfo()) {
+			log(Integer.toString(i));
+		}
 	}
 
 	/**
@@ -135,7 +144,9 @@ public class Console {
 	 * @param	b	The boolean to log.
 	 */
 	public void log(boolean b) {
-		log(Boolean.toString(b));
+		if (LOG.isInfo()) {
+			log(Boolean.toString(b));
+		}
 	}
 
 	/**
@@ -144,7 +155,9 @@ public class Console {
 	 * @param	l	The long to log.
 	 */
 	public void log(long l) {
-		log(Long.toString(l));
+		if (LOG.isInfo()) {
+			log(Long.toString(l));
+		}
 	}
 
 	/**
@@ -153,7 +166,9 @@ public class Console {
 	 * @param	d	The double to log.
 	 */
 	public void log(double d) {
-		log(Double.toString(d));
+		if (LOG.isInfo()) {
+			log(Double.toString(d));
+		}
 	}
 
 	/**
@@ -169,7 +184,9 @@ public class Console {
 	 * @param	o	The object to log.
 	 */
 	public void log(Object o) {
-		log(o.toString());
+		if (LOG.isInfo()) {
+			log(o.toString());
+		}
 	}
 
 	/**
@@ -178,12 +195,10 @@ public class Console {
 	 * @param	c	The Component to log.
 	 */
 	public void log(Component c) {
-		// get the owning entity name
-		String eName = c.getParent().getName();
-		// get the type of this component without the package info
-		String cName = c.getClass().getName();
-		cName = cName.substring(cName.lastIndexOf('.')+1);
-		log(eName + "." + cName + ": " + c.toString());
+		// only describe the component if it will be written
+		if (LOG.isInfo()) {
+			LOG.info("{}.{}: {}", c.getParent().getName(), c.getClass().getSimpleName(), c.toString());
+		}
 	}
 
 	/**
@@ -195,4 +210,36 @@ public class Console {
 		this.fps = fps;
 	}
 
+	/**
+	 * Keep a message written by the Log to show.
+	 *
+	 * @param	level		The level of the message.
+	 * @param	category	The category of the message.
+	 * @param	line		The message.
+	 */
+	public void write(int level, String category, String line) {
+		synchronized (messages) {
+			if (messages.size() == HISTORY) {
+				messages.remove(0);
+			}
+			messages.add(line);
+		}
+		setChanged(true);
+	}
+
+	public void flush() {
+
+	}
+
+	/**
+	 * Get the messages kept to show, oldest first.
+	 *
+	 * @return	A copy of the messages.
+	 */
+	public List<String> getMessages() {
+		synchronized (messages) {
+			return new ArrayList<String>(messages);
+		}
+	}
+
 }
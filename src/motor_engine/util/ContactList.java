@@ -0,0 +1,101 @@
+package motor_engine.util;
+import motor_engine.Entity;
+import java.util.Arrays;
+
+/**
+ * A batch of contacts handed to a ContactListener. Each contact is a pair of Entities, the first of the first type
+ * subscribed and the second of the second, with the edges of the first crossed by the second.
+ * <p>The list is reused every update so it is only valid during the callback it was passed to.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class ContactList {
+
+	// the pairs and the edges crossed
+	private Entity[] a = new Entity[16];
+	private Entity[] b = new Entity[16];
+	private int[] sides = new int[16];
+
+	// the number of contacts in use
+	private int size;
+
+	// Called by Contacts to fill the list
+	void add(Entity first, Entity second, int crossed) {
+		if (size == a.length) {
+			a = Arrays.copyOf(a, size * 2);
+			b = Arrays.copyOf(b, size * 2);
+			sides = Arrays.copyOf(sides, size * 2);
+		}
+		a[size] = first;
+		b[size] = second;
+		sides[size] = crossed;
+		size++;
+	}
+
+	// Called by Contacts before filling the list
+	void clear() {
+		Arrays.fill(a, 0, size, null);
+		Arrays.fill(b, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Get the number of contacts.
+	 *
+	 * @return	The size of the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if the list is empty.
+	 *
+	 * @return	True if there are no contacts.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Get the Entity of the first subscribed type of a contact.
+	 *
+	 * @param	i	The index of the contact.
+	 * @return		The first Entity.
+	 */
+	public Entity getA(int i) {
+		return a[i];
+	}
+
+	/**
+	 * Get the Entity of the second subscribed type of a contact.
+	 *
+	 * @param	i	The index of the contact.
+	 * @return		The second Entity.
+	 */
+	public Entity getB(int i) {
+		return b[i];
+	}
+
+	/**
+	 * Get the edges of the first Entity crossed by the second. Contacts that have ended cross no edges.
+	 *
+	 * @param	i	The index of the contact.
+	 * @return		A combination of Collision.TOP, BOTTOM, LEFT and RIGHT.
+	 */
+	public int getSides(int i) {
+		return sides[i];
+	}
+
+	/**
+	 * Check if the second Entity of a contact crosses an edge of the first.
+	 *
+	 * @param	i		The index of the contact.
+	 * @param	side	Collision.TOP, BOTTOM, LEFT or RIGHT, or a combination to check for any of them.
+	 * @return			True if any of the edges is crossed.
+	 */
+	public boolean crosses(int i, int side) {
+		return (sides[i] & side) != 0;
+	}
+}
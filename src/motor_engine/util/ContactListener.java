@@ -0,0 +1,32 @@
+package motor_engine.util;
+
+/**
+ * Receives the contacts between two types of Entities found by the Contacts of a State.
+ * Each method is called at most once per update with every contact of that kind, after the Entities have moved.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public interface ContactListener {
+
+	/**
+	 * Called with the pairs that started touching this update.
+	 *
+	 * @param	contacts	The new contacts.
+	 */
+	public abstract void contactsBegan(ContactList contacts);
+
+	/**
+	 * Called with the pairs that were already touching and still are.
+	 *
+	 * @param	contacts	The continuing contacts.
+	 */
+	public abstract void contactsStayed(ContactList contacts);
+
+	/**
+	 * Called with the pairs that stopped touching this update, including pairs where an Entity was deactivated or removed.
+	 *
+	 * @param	contacts	The ended contacts.
+	 */
+	public abstract void contactsEnded(ContactList contacts);
+}
@@ -0,0 +1,343 @@
+package motor_engine.util;
+import motor_engine.Entity;
+import motor_engine.State;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Finds the contacts between subscribed types of Entities once per update, after the Entities have moved.
+ * The active Entities of every subscribed type share one SpatialHash, so the broadphase runs once however many
+ * listeners there are. The pairs found are compared with those of the previous update and each listener is handed
+ * the contacts that began, stayed and ended in one batch of each.
+ * <p>Pairs are kept as sorted long keys made from the two proxies, so comparing updates is a merge of two arrays.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Contacts {
+
+	// the State whose entities are checked
+	private State owner;
+
+	// the broadphase of every subscribed entity
+	private SpatialHash hash;
+
+	// the subscribed types, lower case
+	private ArrayList<String> types;
+
+	// the subscriptions
+	private ArrayList<Subscription> subscriptions;
+
+	// the type index of each proxy and the update it was last seen in
+	private int[] proxyTypes;
+	private int[] seen;
+	private int frame;
+
+	// the proxies in the hash, this update and the last
+	private IntList members;
+	private IntList nextMembers;
+
+	// the overlapping pairs found this update
+	private IntList pairs;
+
+	/**
+	 * Create the contacts of a State with cells 32 units wide.
+	 *
+	 * @param	owner	The State whose Entities are checked.
+	 */
+	public Contacts(State owner) {
+		this(owner, 32);
+	}
+
+	/**
+	 * Create the contacts of a State.
+	 *
+	 * @param	owner		The State whose Entities are checked.
+	 * @param	cellSize	The cell size of the broadphase, around the size of the common Entities.
+	 */
+	public Contacts(State owner, double cellSize) {
+		this.owner = owner;
+		hash = new SpatialHash(cellSize);
+		types = new ArrayList<String>();
+		subscriptions = new ArrayList<Subscription>();
+		proxyTypes = new int[64];
+		seen = new int[64];
+		members = new IntList();
+		nextMembers = new IntList();
+		pairs = new IntList();
+	}
+
+	/**
+	 * Change the cell size of the broadphase. Every current contact is forgotten without an ended event,
+	 * so this should be done before the first update.
+	 *
+	 * @param	cellSize	The width and height of a cell.
+	 */
+	public void setCellSize(double cellSize) {
+		hash = new SpatialHash(cellSize);
+		members.clear();
+		for (Subscription s : subscriptions) {
+			s.reset();
+		}
+	}
+
+	/**
+	 * Get the cell size of the broadphase.
+	 *
+	 * @return	The width and height of a cell.
+	 */
+	public double getCellSize() {
+		return hash.getCellSize();
+	}
+
+	/**
+	 * Listen for the contacts between two types of Entities. The first Entity of each contact is of the first type.
+	 * The types may be the same.
+	 *
+	 * @param	l		The listener.
+	 * @param	typeA	The type of the first Entity of each contact.
+	 * @param	typeB	The type of the second Entity of each contact.
+	 */
+	public void subscribe(ContactListener l, String typeA, String typeB) {
+		Subscription s = new Subscription();
+		s.listener = l;
+		s.a = typeIndex(typeA);
+		s.b = typeIndex(typeB);
+		subscriptions.add(s);
+	}
+
+	/**
+	 * Stop a listener receiving contacts of any types.
+	 *
+	 * @param	l	The listener.
+	 */
+	public void unsubscribe(ContactListener l) {
+		for (Subscription s : subscriptions) {
+			if (s.listener == l) {
+				// removed at the start of the next update so a listener can unsubscribe from a callback
+				s.removed = true;
+			}
+		}
+	}
+
+	// get the index of a type, adding it if it is new
+	private int typeIndex(String type) {
+		String t = type.toLowerCase();
+		int i = types.indexOf(t);
+		if (i < 0) {
+			types.add(t);
+			i = types.size() - 1;
+		}
+		return i;
+	}
+
+	/**
+	 * Forget every subscription and contact.
+	 */
+	public void clear() {
+		subscriptions.clear();
+		types.clear();
+		members.clear();
+		hash.clear();
+	}
+
+	/**
+	 * Find the contacts of this update and hand them to the listeners. Called by the State after the Entities have updated.
+	 */
+	public void update() {
+		for (int i = subscriptions.size() - 1; i >= 0; i--) {
+			if (subscriptions.get(i).removed) {
+				subscriptions.remove(i);
+			}
+		}
+		if (subscriptions.isEmpty()) {
+			return;
+		}
+
+		refresh();
+
+		pairs.clear();
+		hash.queryPairs(pairs);
+
+		int count = subscriptions.size();
+		for (int i = 0; i < count; i++) {
+			subscriptions.get(i).count = 0;
+		}
+		for (int i = 0; i < pairs.size(); i += 2) {
+			int p = pairs.get(i);
+			int q = pairs.get(i + 1);
+			int tp = proxyTypes[p];
+			int tq = proxyTypes[q];
+			for (int j = 0; j < count; j++) {
+				Subscription s = subscriptions.get(j);
+				if (s.a == tp && s.b == tq) {
+					s.add(p, q);
+				}
+				else if (s.a == tq && s.b == tp) {
+					s.add(q, p);
+				}
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			Subscription s = subscriptions.get(i);
+			s.compare(hash);
+			if (!s.removed) {
+				s.dispatch();
+			}
+		}
+	}
+
+	// bring the hash up to date with the active entities of the subscribed types
+	private void refresh() {
+		frame++;
+		nextMembers.clear();
+		for (int t = 0; t < types.size(); t++) {
+			for (Entity e : owner.getEntitySet(types.get(t))) {
+				if (!e.isActive()) {
+					continue;
+				}
+				int proxy = hash.getProxy(e);
+				if (proxy < 0) {
+					proxy = hash.add(e);
+					if (proxy < 0) {
+						continue;
+					}
+				}
+				else if (!hash.update(e)) {
+					continue;
+				}
+				if (proxy >= seen.length) {
+					int length = Math.max(proxy + 1, seen.length * 2);
+					seen = Arrays.copyOf(seen, length);
+					proxyTypes = Arrays.copyOf(proxyTypes, length);
+				}
+				proxyTypes[proxy] = t;
+				seen[proxy] = frame;
+				nextMembers.add(proxy);
+			}
+		}
+
+		// remove the entities that were deactivated or left the state
+		for (int i = 0; i < members.size(); i++) {
+			int proxy = members.get(i);
+			if (seen[proxy] != frame) {
+				hash.remove(proxy);
+			}
+		}
+		IntList swap = members;
+		members = nextMembers;
+		nextMembers = swap;
+	}
+
+	// a listener and the contacts of its types
+	private static class Subscription {
+		ContactListener listener;
+		boolean removed;
+
+		// the type indices of the first and second entities
+		int a;
+		int b;
+
+		// the pairs of this update
+		long[] keys = new long[16];
+		Entity[] firsts = new Entity[16];
+		Entity[] seconds = new Entity[16];
+		int count;
+
+		// the pairs of the last update
+		long[] previousKeys = new long[16];
+		Entity[] previousFirsts = new Entity[16];
+		Entity[] previousSeconds = new Entity[16];
+		int previousCount;
+
+		ContactList began = new ContactList();
+		ContactList stayed = new ContactList();
+		ContactList ended = new ContactList();
+
+		void add(int first, int second) {
+			if (count == keys.length) {
+				keys = Arrays.copyOf(keys, count * 2);
+			}
+			keys[count++] = ((long) first << 32) | (second & 0xffffffffL);
+		}
+
+		// sort the pairs of this update and sort them into began, stayed and ended
+		void compare(SpatialHash hash) {
+			Arrays.sort(keys, 0, count);
+			if (firsts.length < keys.length) {
+				firsts = new Entity[keys.length];
+				seconds = new Entity[keys.length];
+			}
+			began.clear();
+			stayed.clear();
+			ended.clear();
+
+			int i = 0;
+			int j = 0;
+			while (i < previousCount || j < count) {
+				if (j >= count || (i < previousCount && previousKeys[i] < keys[j])) {
+					ended.add(previousFirsts[i], previousSeconds[i], 0);
+					i++;
+					continue;
+				}
+				int p = (int) (keys[j] >>> 32);
+				int q = (int) keys[j];
+				Entity first = hash.getEntity(p);
+				Entity second = hash.getEntity(q);
+				firsts[j] = first;
+				seconds[j] = second;
+				int sides = Collision.sides(hash.getMinX(p), hash.getMinY(p), hash.getMaxX(p), hash.getMaxY(p),
+						hash.getMinX(q), hash.getMinY(q), hash.getMaxX(q), hash.getMaxY(q));
+				if (i >= previousCount || keys[j] < previousKeys[i]) {
+					began.add(first, second, sides);
+				}
+				else {
+					// a proxy freed and reused by another entity gives the same key
+					if (previousFirsts[i] == first && previousSeconds[i] == second) {
+						stayed.add(first, second, sides);
+					}
+					else {
+						ended.add(previousFirsts[i], previousSeconds[i], 0);
+						began.add(first, second, sides);
+					}
+					i++;
+				}
+				j++;
+			}
+
+			// this update becomes the last
+			reset();
+			long[] k = previousKeys;
+			previousKeys = keys;
+			keys = k;
+			Entity[] e = previousFirsts;
+			previousFirsts = firsts;
+			firsts = e;
+			e = previousSeconds;
+			previousSeconds = seconds;
+			seconds = e;
+			previousCount = count;
+			count = 0;
+		}
+
+		// forget the pairs of the last update
+		void reset() {
+			Arrays.fill(previousFirsts, 0, previousCount, null);
+			Arrays.fill(previousSeconds, 0, previousCount, null);
+			previousCount = 0;
+		}
+
+		void dispatch() {
+			if (!began.isEmpty()) {
+				listener.contactsBegan(began);
+			}
+			if (!stayed.isEmpty()) {
+				listener.contactsStayed(stayed);
+			}
+			if (!ended.isEmpty()) {
+				listener.contactsEnded(ended);
+			}
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package motor_engine.util;
+import java.util.Arrays;
+
+/**
+ * Counts recorded values in buckets that grow with the values, so percentiles of anything from nanoseconds to
+ * minutes are found to within about 1.6% using a fixed amount of memory and no allocation while recording.
+ * <p>Values below 128 get a bucket each. Above that every doubling of the values is split into 64 buckets.
+ * A Histogram may be recorded to and read from several threads, each call is atomic.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Histogram {
+
+	// the values with a bucket each and the buckets per doubling above them
+	private static final int LINEAR = 128;
+	private static final int HALF = 64;
+
+	// enough buckets for every positive long
+	private static final int BUCKETS = LINEAR + 56 * HALF;
+
+	private long[] counts = new long[BUCKETS];
+	private long count;
+	private long total;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * Record a value. Negative values are recorded as 0.
+	 *
+	 * @param	value	The value.
+	 */
+	public synchronized void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[index(value)]++;
+		count++;
+		total += value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	// find the bucket of a value
+	private static int index(long value) {
+		if (value < LINEAR) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+		return LINEAR + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+	}
+
+	// the highest value that falls in a bucket
+	private static long highest(int index) {
+		if (index < LINEAR) {
+			return index;
+		}
+		int shift = (index - LINEAR) / HALF + 1;
+		long m = (index - LINEAR) % HALF + HALF;
+		return ((m + 1) << shift) - 1;
+	}
+
+	/**
+	 * Forget every recorded value.
+	 */
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * Add the values recorded by another Histogram to this one. The other Histogram should not be recorded to meanwhile.
+	 *
+	 * @param	h	The other Histogram.
+	 */
+	public synchronized void add(Histogram h) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += h.counts[i];
+		}
+		count += h.count;
+		total += h.total;
+		min = Math.min(min, h.min);
+		max = Math.max(max, h.max);
+	}
+
+	// Getters
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Get the smallest recorded value.
+	 *
+	 * @return	The value, or 0 if nothing was recorded.
+	 */
+	public synchronized long getMin() {
+		return (count > 0) ? min : 0;
+	}
+
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * Get the mean of the recorded values.
+	 *
+	 * @return	The mean, or 0 if nothing was recorded.
+	 */
+	public synchronized double getMean() {
+		return (count > 0) ? (double) total / count : 0;
+	}
+
+	/**
+	 * Get the value at or below which the given percentage of the recorded values lie, eg. 99 for the 99th percentile.
+	 *
+	 * @param	percentile	The percentage from 0 to 100.
+	 * @return				The highest value of the bucket holding the percentile, at most the largest value
+	 *						recorded, or 0 if nothing was recorded.
+	 */
+	public synchronized long getValueAtPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highest(i), max);
+			}
+		}
+		return max;
+	}
+
+	public synchronized String toString() {
+		return "count " + count + " p50 " + getValueAtPercentile(50) + " p99 " + getValueAtPercentile(99)
+			+ " p99.9 " + getValueAtPercentile(99.9) + " max " + max;
+	}
+}
@@ -0,0 +1,114 @@
+package motor_engine.util;
+import java.util.Arrays;
+
+/**
+ * A growable list of ints that can be cleared and refilled without allocating, used for query results.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class IntList {
+
+	// the values
+	private int[] values;
+
+	// the number of values in use
+	private int size;
+
+	/**
+	 * Create an empty list.
+	 */
+	public IntList() {
+		this(16);
+	}
+
+	/**
+	 * Create an empty list with room for the given number of values.
+	 *
+	 * @param	capacity	The initial capacity.
+	 */
+	public IntList(int capacity) {
+		values = new int[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Add a value to the end of the list.
+	 *
+	 * @param	value	The value to add.
+	 */
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * Get a value.
+	 *
+	 * @param	i	The index.
+	 * @return		The value at the index.
+	 */
+	public int get(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Replace a value.
+	 *
+	 * @param	i		The index.
+	 * @param	value	The new value.
+	 */
+	public void set(int i, int value) {
+		values[i] = value;
+	}
+
+	/**
+	 * Remove a value by moving the last value into its place.
+	 *
+	 * @param	i	The index of the value to remove.
+	 */
+	public void removeSwap(int i) {
+		values[i] = values[--size];
+	}
+
+	/**
+	 * Find a value.
+	 *
+	 * @param	value	The value to find.
+	 * @return			The index of the first occurance, or -1 if it is not in the list.
+	 */
+	public int indexOf(int value) {
+		for (int i = 0; i < size; i++) {
+			if (values[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the number of values in the list.
+	 *
+	 * @return	The size of the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if the list is empty.
+	 *
+	 * @return	True if the list has no values.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Remove every value, keeping the capacity.
+	 */
+	public void clear() {
+		size = 0;
+	}
+}
@@ -0,0 +1,525 @@
+package motor_engine.util;
+import java.io.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A category of log messages, eg. "entity" or "physics", with its own level.
+ * <pre>
+ * private static final Log LOG = Log.get("entity");
+ * ...
+ * LOG.debug("{} was created.", name);
+ * </pre>
+ * <p>Messages below the level of their category are dropped by a single comparison, before anything is formatted,
+ * so disabled messages cost nothing as long as their arguments are values that already exist. Arguments that
+ * would have to be built, or primitives that would have to be boxed, can be guarded with isDebug and the like.
+ * <p>Enabled messages are put in a ring buffer without locking and turned into text by a background thread, which
+ * writes them to every Output, such as the Console or a file. The arguments are formatted on that thread, so they
+ * should not change after being logged. When the buffer is full messages are dropped and counted instead of
+ * making the game wait.
+ * <p>The default level is INFO, or the one named by -Dmotor.log.level, and -Dmotor.log.file adds a file Output.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Log {
+
+	/** The levels of messages, from the least to the most important. */
+	public static final int DEBUG = 0;
+	public static final int INFO = 1;
+	public static final int WARN = 2;
+	public static final int ERROR = 3;
+	/** The level of a category that logs nothing. */
+	public static final int OFF = 4;
+
+	// the names of the levels
+	private static final String[] LEVELS = {"DEBUG", "INFO", "WARN", "ERROR", "OFF"};
+
+	// the number of messages the buffer holds
+	private static final int CAPACITY = 4096;
+
+	// the categories by name
+	private static ConcurrentHashMap<String, Log> categories = new ConcurrentHashMap<String, Log>();
+
+	// the level of categories without their own
+	private static volatile int defaultLevel = parseLevel(System.getProperty("motor.log.level", "INFO"));
+
+	// where the messages are written
+	private static CopyOnWriteArrayList<Output> outputs = new CopyOnWriteArrayList<Output>();
+
+	// the ring buffer, messages below the head have been written and messages from the head to the tail are queued
+	private static Message[] buffer = new Message[CAPACITY];
+	private static AtomicLong head = new AtomicLong();
+	private static AtomicLong tail = new AtomicLong();
+	private static AtomicLong dropped = new AtomicLong();
+
+	// the messages below this have been written and the outputs flushed
+	private static volatile long flushed;
+
+	// the thread writing the messages
+	private static volatile Thread writer;
+
+	static {
+		for (int i = 0; i < CAPACITY; i++) {
+			buffer[i] = new Message();
+			buffer[i].sequence = i - CAPACITY;
+		}
+		String file = System.getProperty("motor.log.file");
+		if (file != null) {
+			try {
+				addOutput(new FileWriter(file, true));
+			}
+			catch (IOException e) {
+				System.err.println("Couldn't open the log file " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
+	// the name and level of this category
+	private final String category;
+	private volatile int level;
+	private volatile boolean ownLevel;
+
+	private Log(String category) {
+		this.category = category;
+		level = defaultLevel;
+	}
+
+	/**
+	 * Get the category with the given name, creating it the first time. Keep the returned Log.
+	 *
+	 * @param	category	The name of the category.
+	 * @return				The category.
+	 */
+	public static Log get(String category) {
+		Log log = categories.get(category);
+		if (log == null) {
+			log = new Log(category);
+			Log existing = categories.putIfAbsent(category, log);
+			if (existing != null) {
+				log = existing;
+			}
+		}
+		return log;
+	}
+
+	/**
+	 * Set the level of every category that has not been given its own.
+	 *
+	 * @param	level	The lowest level logged, eg. Log.INFO, or Log.OFF to log nothing.
+	 */
+	public static void setLevel(int level) {
+		defaultLevel = level;
+		for (Log log : categories.values()) {
+			if (!log.ownLevel) {
+				log.level = level;
+			}
+		}
+	}
+
+	/**
+	 * Set the level of one category.
+	 *
+	 * @param	category	The name of the category.
+	 * @param	level		The lowest level logged, or Log.OFF to log nothing.
+	 */
+	public static void setLevel(String category, int level) {
+		Log log = get(category);
+		log.level = level;
+		log.ownLevel = true;
+	}
+
+	/**
+	 * Get the level of messages named, eg. "debug" or "WARN".
+	 *
+	 * @param	name	The name of the level.
+	 * @return			The level, INFO if the name is unknown.
+	 */
+	public static int parseLevel(String name) {
+		for (int i = 0; i < LEVELS.length; i++) {
+			if (LEVELS[i].equalsIgnoreCase(name)) {
+				return i;
+			}
+		}
+		return INFO;
+	}
+
+	/**
+	 * Add somewhere for the messages to be written.
+	 *
+	 * @param	o	The Output.
+	 */
+	public static void addOutput(Output o) {
+		outputs.add(o);
+	}
+
+	/**
+	 * Write the messages to a Writer such as a FileWriter, one per line.
+	 *
+	 * @param	w	The Writer.
+	 * @return		The Output added, to remove later.
+	 */
+	public static Output addOutput(final Writer w) {
+		Output o = new Output() {
+			public void write(int level, String category, String line) {
+				try {
+					w.write(line);
+					w.write('\n');
+				}
+				catch (IOException e) {
+					removeOutput(this);
+					System.err.println("Couldn't write to the log: " + e.getMessage());
+				}
+			}
+
+			public void flush() {
+				try {
+					w.flush();
+				}
+				catch (IOException e) {
+					System.err.println("Couldn't write to the log: " + e.getMessage());
+				}
+			}
+		};
+		addOutput(o);
+		return o;
+	}
+
+	public static void removeOutput(Output o) {
+		outputs.remove(o);
+	}
+
+	/**
+	 * Get the number of messages dropped because the buffer was full.
+	 *
+	 * @return	The number of messages.
+	 */
+	public static long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Wait until every message logged so far has been written and the outputs flushed.
+	 */
+	public static void flush() {
+		long end = tail.get();
+		while (flushed < end && writer != null && writer.isAlive()) {
+			LockSupport.unpark(writer);
+			Thread.yield();
+		}
+	}
+
+	// Logging
+
+	public String getCategory() {
+		return category;
+	}
+
+	/**
+	 * Check if messages of a level are logged by this category.
+	 *
+	 * @param	level	The level.
+	 * @return			True if they are logged, false if they are dropped.
+	 */
+	public boolean isEnabled(int level) {
+		return level >= this.level;
+	}
+
+	public boolean isDebug() {
+		return DEBUG >= level;
+	}
+
+	public boolean isInfo() {
+		return INFO >= level;
+	}
+
+	/**
+	 * Log a message if its level is enabled. Each {} in the message is replaced with the next argument and a
+	 * Throwable left over after the last {} is written with its stack trace.
+	 *
+	 * @param	level	The level of the message.
+	 * @param	message	The message.
+	 * @param	args	The arguments of the message.
+	 */
+	public void log(int level, String message, Object... args) {
+		if (level >= this.level) {
+			put(level, message, args.length, (args.length > 0) ? args[0] : null, (args.length > 1) ? args[1] : null,
+				(args.length > 2) ? args[2] : null, (args.length > 3) ? args : null);
+		}
+	}
+
+	/**
+	 * Log a debug message, the details of what the game is doing.
+	 *
+	 * @param	message	The message.
+	 */
+	public void debug(String message) {
+		if (DEBUG >= level) {
+			put(DEBUG, message, 0, null, null, null, null);
+		}
+	}
+
+	public void debug(String message, Object a) {
+		if (DEBUG >= level) {
+			put(DEBUG, message, 1, a, null, null, null);
+		}
+	}
+
+	public void debug(String message, Object a, Object b) {
+		if (DEBUG >= level) {
+			put(DEBUG, message, 2, a, b, null, null);
+		}
+	}
+
+	public void debug(String message, Object a, Object b, Object c) {
+		if (DEBUG >= level) {
+			put(DEBUG, message, 3, a, b, c, null);
+		}
+	}
+
+	/**
+	 * Log an info message, something worth knowing happened.
+	 *
+	 * @param	message	The message.
+	 */
+	public void info(String message) {
+		if (INFO >= level) {
+			put(INFO, message, 0, null, null, null, null);
+		}
+	}
+
+	public void info(String message, Object a) {
+		if (INFO >= level) {
+			put(INFO, message, 1, a, null, null, null);
+		}
+	}
+
+	public void info(String message, Object a, Object b) {
+		if (INFO >= level) {
+			put(INFO, message, 2, a, b, null, null);
+		}
+	}
+
+	public void info(String message, Object a, Object b, Object c) {
+		if (INFO >= level) {
+			put(INFO, message, 3, a, b, c, null);
+		}
+	}
+
+	/**
+	 * Log a warning, something went wrong but the game can carry on.
+	 *
+	 * @param	message	The message.
+	 */
+	public void warn(String message) {
+		if (WARN >= level) {
+			put(WARN, message, 0, null, null, null, null);
+		}
+	}
+
+	public void warn(String message, Object a) {
+		if (WARN >= level) {
+			put(WARN, message, 1, a, null, null, null);
+		}
+	}
+
+	public void warn(String message, Object a, Object b) {
+		if (WARN >= level) {
+			put(WARN, message, 2, a, b, null, null);
+		}
+	}
+
+	/**
+	 * Log an error, something failed.
+	 *
+	 * @param	message	The message.
+	 */
+	public void error(String message) {
+		if (ERROR >= level) {
+			put(ERROR, message, 0, null, null, null, null);
+		}
+	}
+
+	public void error(String message, Object a) {
+		if (ERROR >= level) {
+			put(ERROR, message, 1, a, null, null, null);
+		}
+	}
+
+	public void error(String message, Object a, Object b) {
+		if (ERROR >= level) {
+			put(ERROR, message, 2, a, b, null, null);
+		}
+	}
+
+	// queue a message for the writer, dropping it if the buffer is full
+	private void put(int level, String message, int count, Object a, Object b, Object c, Object[] args) {
+		if (outputs.isEmpty()) {
+			return;
+		}
+		long sequence;
+		do {
+			sequence = tail.get();
+			if (sequence - head.get() >= CAPACITY) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while (!tail.compareAndSet(sequence, sequence + 1));
+
+		Message m = buffer[(int) (sequence % CAPACITY)];
+		m.time = System.currentTimeMillis();
+		m.level = level;
+		m.category = category;
+		m.message = message;
+		m.count = count;
+		m.a = a;
+		m.b = b;
+		m.c = c;
+		m.args = args;
+		// publish the message to the writer
+		m.sequence = sequence;
+
+		if (writer == null) {
+			startWriter();
+		}
+	}
+
+	// start the thread writing the queued messages
+	private static synchronized void startWriter() {
+		if (writer != null) {
+			return;
+		}
+		writer = new Thread("Log") {
+			public void run() {
+				drain();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	// write the queued messages as they arrive, run by the writer thread
+	private static void drain() {
+		SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+		StringBuilder line = new StringBuilder();
+		boolean written = false;
+		while (true) {
+			long next = head.get();
+			Message m = buffer[(int) (next % CAPACITY)];
+			if (m.sequence != next) {
+				// nothing published yet
+				if (written) {
+					for (Output o : outputs) {
+						o.flush();
+					}
+					written = false;
+				}
+				flushed = next;
+				LockSupport.parkNanos(1000000);
+				continue;
+			}
+
+			line.setLength(0);
+			line.append(format.format(new Date(m.time))).append(' ').append(LEVELS[m.level]).append(' ')
+				.append(m.category).append(": ");
+			Throwable t = format(line, m);
+			if (t != null) {
+				StringWriter trace = new StringWriter();
+				t.printStackTrace(new PrintWriter(trace));
+				line.append('\n').append(trace.toString().trim());
+			}
+			String text = line.toString();
+			int level = m.level;
+			String category = m.category;
+
+			// let go of the arguments before handing the slot back
+			m.message = null;
+			m.a = null;
+			m.b = null;
+			m.c = null;
+			m.args = null;
+			head.set(next + 1);
+
+			for (Output o : outputs) {
+				o.write(level, category, text);
+			}
+			written = true;
+		}
+	}
+
+	// append a message with its arguments in place of each {}, returning a Throwable left over
+	private static Throwable format(StringBuilder line, Message m) {
+		int count = m.count;
+		int used = 0;
+		int from = 0;
+		String s = m.message;
+		int at;
+		while (used < count && (at = s.indexOf("{}", from)) >= 0) {
+			line.append(s, from, at).append(argument(m, used++));
+			from = at + 2;
+		}
+		line.append(s, from, s.length());
+		if (used < count && argument(m, count - 1) instanceof Throwable) {
+			return (Throwable) argument(m, count - 1);
+		}
+		return null;
+	}
+
+	// get an argument of a message
+	private static Object argument(Message m, int i) {
+		if (m.args != null) {
+			return m.args[i];
+		}
+		return (i == 0) ? m.a : (i == 1) ? m.b : m.c;
+	}
+
+	public String toString() {
+		return category + " " + LEVELS[level];
+	}
+
+	/**
+	 * Somewhere log messages are written, called from the writer thread.
+	 *
+	 * @author	Garrett Smith
+	 * @version	0.1
+	 */
+	public interface Output {
+
+		/**
+		 * Write a message.
+		 *
+		 * @param	level		The level of the message.
+		 * @param	category	The category of the message.
+		 * @param	line		The message with its time, level and category.
+		 */
+		void write(int level, String category, String line);
+
+		/**
+		 * Write out anything held back, called when there are no more messages for now.
+		 */
+		void flush();
+	}
+
+	// a slot of the ring buffer
+	private static class Message {
+		volatile long sequence;
+		long time;
+		int level;
+		String category;
+		String message;
+		int count;
+		Object a;
+		Object b;
+		Object c;
+		Object[] args;
+	}
+}
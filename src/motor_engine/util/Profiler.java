@@ -0,0 +1,428 @@
+package motor_engine.util;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Times the parts of each frame and counts what they did, keeping the last frames to look at from code or dump
+ * as CSV or JSON. This is off unless enabled with setEnabled or -Dmotor.profile=true.
+ * <p>The engine times polling the input, the update of each State, Rule and component class, sorting the scene
+ * and submitting the draws, and counts the Entities updated, the draw calls and the texture binds. Games can
+ * add their own scopes and counters the same way:
+ * <pre>
+ * private static final int PATHS = Profiler.scope("pathfinding");
+ * ...
+ * long start = Profiler.start();
+ * findPaths();
+ * Profiler.stop(PATHS, start);
+ * </pre>
+ * Scopes may be timed on any thread and are added up per frame, so Rules run in parallel add up to more than the
+ * time their State took. A frame ends when the game loop Piston finishes one, so in threaded games the render
+ * thread's scopes are added to whichever frame of the simulation they happened in.
+ * <p>Once all but one of the ids are taken every new name shares the last id, named "other". The engine only
+ * registers the scopes of its States, Rules and component classes once they are first timed.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Profiler {
+
+	/** The most scopes and counters that can be registered. */
+	public static final int MAX_SCOPES = 128;
+	public static final int MAX_COUNTERS = 32;
+
+	// whether scopes and counters are recorded
+	private static volatile boolean enabled = Boolean.getBoolean("motor.profile");
+
+	// the name of the id shared by the names registered once the others are taken
+	private static final String OTHER = "other";
+
+	// the registered names by their ids
+	private static ArrayList<String> scopeNames = new ArrayList<String>();
+	private static ArrayList<String> counterNames = new ArrayList<String>();
+
+	// the time, calls and counts of the frame in progress
+	private static AtomicLongArray times = new AtomicLongArray(MAX_SCOPES);
+	private static AtomicLongArray calls = new AtomicLongArray(MAX_SCOPES);
+	private static AtomicLongArray counts = new AtomicLongArray(MAX_COUNTERS);
+
+	// the last frames, written in a circle, allocated once enabled
+	private static int history = 120;
+	private static long[] frameNumbers;
+	private static long[] frameStarts;
+	private static long[] frameDurations;
+	private static long[][] frameTimes;
+	private static long[][] frameCalls;
+	private static long[][] frameCounts;
+
+	// the number of frames ended and when the frame in progress started
+	private static long frames;
+	private static long frameStart;
+
+	/** Polling the keyboard, mouse and controllers. */
+	public static final int INPUT = scope("input");
+	/** Collecting and sorting the Entities to draw. */
+	public static final int RENDER_SORT = scope("render:sort");
+	/** Submitting the draws of the sorted Entities. */
+	public static final int RENDER_DRAW = scope("render:draw");
+
+	/** The active, awake Entities of the updated States. */
+	public static final int ENTITIES = counter("entities");
+	/** The draw calls made. */
+	public static final int DRAW_CALLS = counter("drawCalls");
+	/** The textures bound for drawing or uploading. */
+	public static final int TEXTURE_BINDS = counter("textureBinds");
+
+	private Profiler() {
+
+	}
+
+	/**
+	 * Start or stop recording. Frames recorded before are kept.
+	 *
+	 * @param	b	True to record, false otherwise.
+	 */
+	public static void setEnabled(boolean b) {
+		enabled = b;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Get the id of a named scope, registering it the first time. Look the id up once and keep it.
+	 *
+	 * @param	name	The name of the scope.
+	 * @return			The id of the scope.
+	 */
+	public static synchronized int scope(String name) {
+		return register(scopeNames, name, MAX_SCOPES);
+	}
+
+	/**
+	 * Get the id of the scope of a class of some kind, eg. scope("rule", Physics.class) for "rule:Physics".
+	 *
+	 * @param	kind	What the class is.
+	 * @param	type	The class.
+	 * @return			The id of the scope.
+	 */
+	public static int scope(String kind, Class<?> type) {
+		String name = type.getSimpleName();
+		if (name.length() == 0) {
+			// anonymous classes have no simple name
+			name = type.getName().substring(type.getName().lastIndexOf('.') + 1);
+		}
+		return scope(kind + ":" + name);
+	}
+
+	/**
+	 * Get the id of a named counter, registering it the first time. Look the id up once and keep it.
+	 *
+	 * @param	name	The name of the counter.
+	 * @return			The id of the counter.
+	 */
+	public static synchronized int counter(String name) {
+		return register(counterNames, name, MAX_COUNTERS);
+	}
+
+	// find or add a name, sharing the last id once the others are taken
+	private static int register(ArrayList<String> names, String name, int max) {
+		int id = names.indexOf(name);
+		if (id < 0 && names.size() < max - 1) {
+			id = names.size();
+			names.add(name);
+		}
+		else if (id < 0) {
+			id = names.indexOf(OTHER);
+			if (id < 0) {
+				id = names.size();
+				names.add(OTHER);
+			}
+		}
+		return id;
+	}
+
+	// Recording
+
+	/**
+	 * Start timing a scope.
+	 *
+	 * @return	The time to pass to stop, 0 if the Profiler is not enabled.
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Stop timing a scope, adding the time since start to the frame in progress.
+	 *
+	 * @param	scope	The id of the scope.
+	 * @param	start	The time returned by start.
+	 */
+	public static void stop(int scope, long start) {
+		if (start != 0) {
+			times.addAndGet(scope, System.nanoTime() - start);
+			calls.incrementAndGet(scope);
+		}
+	}
+
+	/**
+	 * Add to a counter of the frame in progress.
+	 *
+	 * @param	counter	The id of the counter.
+	 * @param	n		The amount to add.
+	 */
+	public static void count(int counter, long n) {
+		if (enabled) {
+			counts.addAndGet(counter, n);
+		}
+	}
+
+	/**
+	 * End the frame in progress and keep it in the history. Called by the game loop Piston after each frame.
+	 */
+	public static synchronized void endFrame() {
+		long now = System.nanoTime();
+		if (!enabled) {
+			frameStart = 0;
+			return;
+		}
+		if (frameNumbers == null) {
+			allocate();
+		}
+		int i = (int) (frames % history);
+		frameNumbers[i] = frames;
+		frameStarts[i] = (frameStart != 0) ? frameStart : now;
+		frameDurations[i] = now - frameStarts[i];
+		for (int s = 0; s < scopeNames.size(); s++) {
+			frameTimes[i][s] = times.getAndSet(s, 0);
+			frameCalls[i][s] = calls.getAndSet(s, 0);
+		}
+		for (int c = 0; c < counterNames.size(); c++) {
+			frameCounts[i][c] = counts.getAndSet(c, 0);
+		}
+		frames++;
+		frameStart = now;
+	}
+
+	// make room for the history
+	private static void allocate() {
+		frameNumbers = new long[history];
+		frameStarts = new long[history];
+		frameDurations = new long[history];
+		frameTimes = new long[history][MAX_SCOPES];
+		frameCalls = new long[history][MAX_SCOPES];
+		frameCounts = new long[history][MAX_COUNTERS];
+	}
+
+	/**
+	 * Set how many of the last frames are kept. This forgets the frames kept so far.
+	 *
+	 * @param	frames	The number of frames.
+	 */
+	public static synchronized void setHistory(int frames) {
+		if (frames < 1) {
+			throw new IllegalArgumentException("The history must keep at least one frame.");
+		}
+		history = frames;
+		clear();
+	}
+
+	public static synchronized int getHistory() {
+		return history;
+	}
+
+	/**
+	 * Forget the frames kept and the frame in progress.
+	 */
+	public static synchronized void clear() {
+		frameNumbers = null;
+		frameStarts = null;
+		frameDurations = null;
+		frameTimes = null;
+		frameCalls = null;
+		frameCounts = null;
+		frames = 0;
+		frameStart = 0;
+		for (int i = 0; i < MAX_SCOPES; i++) {
+			times.set(i, 0);
+			calls.set(i, 0);
+		}
+		for (int i = 0; i < MAX_COUNTERS; i++) {
+			counts.set(i, 0);
+		}
+	}
+
+	// Getters
+
+	public static synchronized int getScopeCount() {
+		return scopeNames.size();
+	}
+
+	public static synchronized String getScopeName(int scope) {
+		return scopeNames.get(scope);
+	}
+
+	public static synchronized int getCounterCount() {
+		return counterNames.size();
+	}
+
+	public static synchronized String getCounterName(int counter) {
+		return counterNames.get(counter);
+	}
+
+	/**
+	 * Get the number of frames kept.
+	 *
+	 * @return	The number of frames, at most the history.
+	 */
+	public static synchronized int getFrameCount() {
+		return (int) Math.min(frames, history);
+	}
+
+	// find a kept frame, 0 being the latest
+	private static int index(int ago) {
+		if (ago < 0 || ago >= getFrameCount()) {
+			throw new IndexOutOfBoundsException("Frame " + ago + " is not kept, " + getFrameCount() + " frames are.");
+		}
+		return (int) ((frames - 1 - ago) % history);
+	}
+
+	/**
+	 * Get the number of a kept frame, counted from the first frame recorded.
+	 *
+	 * @param	ago	The frame, 0 for the latest, 1 for the one before it and so on.
+	 * @return		The frame number.
+	 */
+	public static synchronized long getFrameNumber(int ago) {
+		return frameNumbers[index(ago)];
+	}
+
+	/**
+	 * Get how long a kept frame took.
+	 *
+	 * @param	ago	The frame, 0 for the latest.
+	 * @return		The duration in nanoseconds.
+	 */
+	public static synchronized long getFrameDuration(int ago) {
+		return frameDurations[index(ago)];
+	}
+
+	/**
+	 * Get the time spent in a scope during a kept frame.
+	 *
+	 * @param	ago		The frame, 0 for the latest.
+	 * @param	scope	The id of the scope.
+	 * @return			The time in nanoseconds, summed over every thread.
+	 */
+	public static synchronized long getTime(int ago, int scope) {
+		return frameTimes[index(ago)][scope];
+	}
+
+	/**
+	 * Get the number of times a scope was timed during a kept frame.
+	 *
+	 * @param	ago		The frame, 0 for the latest.
+	 * @param	scope	The id of the scope.
+	 * @return			The number of calls.
+	 */
+	public static synchronized long getCalls(int ago, int scope) {
+		return frameCalls[index(ago)][scope];
+	}
+
+	/**
+	 * Get a counter of a kept frame.
+	 *
+	 * @param	ago		The frame, 0 for the latest.
+	 * @param	counter	The id of the counter.
+	 * @return			The count.
+	 */
+	public static synchronized long getCount(int ago, int counter) {
+		return frameCounts[index(ago)][counter];
+	}
+
+	/**
+	 * Find the scope that took the longest during a kept frame.
+	 *
+	 * @param	ago	The frame, 0 for the latest.
+	 * @return		The id of the scope, or -1 if none were timed.
+	 */
+	public static synchronized int getSlowestScope(int ago) {
+		long[] t = frameTimes[index(ago)];
+		int slowest = -1;
+		for (int s = 0; s < scopeNames.size(); s++) {
+			if (t[s] > 0 && (slowest < 0 || t[s] > t[slowest])) {
+				slowest = s;
+			}
+		}
+		return slowest;
+	}
+
+	// Dumping
+
+	/**
+	 * Write the kept frames oldest first as CSV, one row per frame with the time in nanoseconds of every scope
+	 * and the value of every counter.
+	 *
+	 * @param	out	The writer to write to.
+	 * @throws	IOException	If writing fails.
+	 */
+	public static synchronized void writeCSV(Writer out) throws IOException {
+		out.write("frame,duration");
+		for (String name : scopeNames) {
+			out.write("," + name);
+		}
+		for (String name : counterNames) {
+			out.write("," + name);
+		}
+		out.write("\n");
+		for (int ago = getFrameCount() - 1; ago >= 0; ago--) {
+			int i = index(ago);
+			out.write(frameNumbers[i] + "," + frameDurations[i]);
+			for (int s = 0; s < scopeNames.size(); s++) {
+				out.write("," + frameTimes[i][s]);
+			}
+			for (int c = 0; c < counterNames.size(); c++) {
+				out.write("," + frameCounts[i][c]);
+			}
+			out.write("\n");
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write the kept frames oldest first as a JSON array, one object per frame with the duration, the time and
+	 * calls of the scopes that were timed in nanoseconds and the counts of the counters.
+	 *
+	 * @param	out	The writer to write to.
+	 * @throws	IOException	If writing fails.
+	 */
+	public static synchronized void writeJSON(Writer out) throws IOException {
+		out.write("[");
+		for (int ago = getFrameCount() - 1; ago >= 0; ago--) {
+			int i = index(ago);
+			out.write("\n{\"frame\":" + frameNumbers[i] + ",\"duration\":" + frameDurations[i] + ",\"scopes\":{");
+			boolean first = true;
+			for (int s = 0; s < scopeNames.size(); s++) {
+				if (frameCalls[i][s] > 0) {
+					out.write((first ? "" : ",") + quote(scopeNames.get(s)) + ":{\"time\":" + frameTimes[i][s] + ",\"calls\":" + frameCalls[i][s] + "}");
+					first = false;
+				}
+			}
+			out.write("},\"counters\":{");
+			for (int c = 0; c < counterNames.size(); c++) {
+				out.write((c > 0 ? "," : "") + quote(counterNames.get(c)) + ":" + frameCounts[i][c]);
+			}
+			out.write((ago > 0) ? "}}," : "}}");
+		}
+		out.write("\n]\n");
+		out.flush();
+	}
+
+	// quote a name as a JSON string
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+}
@@ -0,0 +1,666 @@
+package motor_engine.util;
+import motor_engine.Entity;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A broadphase for collision checks that hashes axis aligned bounding boxes into a uniform grid of square cells.
+ * Each box is a proxy, an int handle, stored in every cell it touches so only boxes sharing a cell are compared.
+ * <p>Proxies can belong to Entities, in which case their boxes are read from the Entity's Position and Size or
+ * Sprite by refresh. A box that moves within the same cells is updated without touching the grid.
+ * Results are written to caller supplied IntLists so queries do not allocate.
+ * The cell size should be around the size of the common boxes. Cells emptied as boxes move away are kept for
+ * reuse until there are as many empty cells as occupied ones, then the empty ones are dropped.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SpatialHash {
+
+	// marks an empty slot of the cell table
+	private static final int EMPTY = -1;
+
+	// the width and height of a cell
+	private double cellSize;
+	private double inverseCellSize;
+
+	// the proxies
+	private Entity[] entities;
+	private double[] minX;
+	private double[] minY;
+	private double[] maxX;
+	private double[] maxY;
+	private boolean[] used;
+
+	// the range of cells each proxy is stored in
+	private int[] cellX0;
+	private int[] cellY0;
+	private int[] cellX1;
+	private int[] cellY1;
+
+	// the number of proxy slots ever used, and the freed ones
+	private int proxyCount;
+	private IntList freeProxies;
+
+	// the number of proxies in use
+	private int size;
+
+	// the proxy of each entity
+	private HashMap<Entity, Integer> proxies;
+
+	// open addressing table from cell key to cell index
+	private long[] tableKeys;
+	private int[] tableCells;
+	private int tableMask;
+
+	// the cells, their coordinates and the proxies in them
+	private IntList[] cells;
+	private int[] cellXs;
+	private int[] cellYs;
+	private int cellCount;
+
+	// the cells holding proxies, and the index of each cell in that list or EMPTY
+	private int[] occupied;
+	private int[] occupiedIndex;
+	private int occupiedCount;
+
+	// marks proxies already reported by the current query
+	private int[] stamps;
+	private int stamp;
+
+	// scratch bounds for reading entities
+	private double[] bounds = new double[4];
+
+	/**
+	 * Create an empty spatial hash.
+	 *
+	 * @param	cellSize	The width and height of a cell.
+	 */
+	public SpatialHash(double cellSize) {
+		this.cellSize = cellSize;
+		inverseCellSize = 1.0 / cellSize;
+		int capacity = 64;
+		entities = new Entity[capacity];
+		minX = new double[capacity];
+		minY = new double[capacity];
+		maxX = new double[capacity];
+		maxY = new double[capacity];
+		used = new boolean[capacity];
+		cellX0 = new int[capacity];
+		cellY0 = new int[capacity];
+		cellX1 = new int[capacity];
+		cellY1 = new int[capacity];
+		stamps = new int[capacity];
+		freeProxies = new IntList();
+		proxies = new HashMap<Entity, Integer>();
+
+		tableKeys = new long[256];
+		tableCells = new int[256];
+		Arrays.fill(tableCells, EMPTY);
+		tableMask = 255;
+		cells = new IntList[64];
+		cellXs = new int[64];
+		cellYs = new int[64];
+		occupied = new int[64];
+		occupiedIndex = new int[64];
+	}
+
+	/**
+	 * Get the width and height of a cell.
+	 *
+	 * @return	The cell size.
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Get the number of proxies in the hash.
+	 *
+	 * @return	The number of proxies.
+	 */
+	public int size() {
+		return size;
+	}
+
+	// proxies
+
+	/**
+	 * Add a box that does not belong to an Entity.
+	 *
+	 * @param	minX	The left edge.
+	 * @param	minY	The bottom edge.
+	 * @param	maxX	The right edge.
+	 * @param	maxY	The top edge.
+	 * @return			The proxy of the box.
+	 */
+	public int add(double minX, double minY, double maxX, double maxY) {
+		return add(null, minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Add an Entity with the box given by its Position and Size or Sprite.
+	 *
+	 * @param	e	The Entity.
+	 * @return		The proxy of the Entity, or -1 if it has no box.
+	 */
+	public int add(Entity e) {
+		if (!Collision.getBounds(e, bounds)) {
+			return -1;
+		}
+		return add(e, bounds[0], bounds[1], bounds[2], bounds[3]);
+	}
+
+	/**
+	 * Add an Entity with the given box. An Entity already in the hash is moved to the box instead.
+	 *
+	 * @param	e		The Entity, or null for a box not belonging to an Entity.
+	 * @param	minX	The left edge.
+	 * @param	minY	The bottom edge.
+	 * @param	maxX	The right edge.
+	 * @param	maxY	The top edge.
+	 * @return			The proxy of the box.
+	 */
+	public int add(Entity e, double minX, double minY, double maxX, double maxY) {
+		if (e != null && proxies.containsKey(e)) {
+			int proxy = proxies.get(e);
+			update(proxy, minX, minY, maxX, maxY);
+			return proxy;
+		}
+
+		int proxy;
+		if (!freeProxies.isEmpty()) {
+			proxy = freeProxies.get(freeProxies.size() - 1);
+			freeProxies.removeSwap(freeProxies.size() - 1);
+		}
+		else {
+			if (proxyCount == entities.length) {
+				growProxies(proxyCount * 2);
+			}
+			proxy = proxyCount++;
+		}
+
+		entities[proxy] = e;
+		used[proxy] = true;
+		setBounds(proxy, minX, minY, maxX, maxY);
+		cellX0[proxy] = cell(minX);
+		cellY0[proxy] = cell(minY);
+		cellX1[proxy] = cell(maxX);
+		cellY1[proxy] = cell(maxY);
+		insert(proxy);
+		if (e != null) {
+			proxies.put(e, proxy);
+		}
+		size++;
+		return proxy;
+	}
+
+	/**
+	 * Move a proxy to a new box. The grid is only changed if the box moves into different cells.
+	 *
+	 * @param	proxy	The proxy.
+	 * @param	minX	The left edge.
+	 * @param	minY	The bottom edge.
+	 * @param	maxX	The right edge.
+	 * @param	maxY	The top edge.
+	 */
+	public void update(int proxy, double minX, double minY, double maxX, double maxY) {
+		setBounds(proxy, minX, minY, maxX, maxY);
+		int x0 = cell(minX);
+		int y0 = cell(minY);
+		int x1 = cell(maxX);
+		int y1 = cell(maxY);
+		if (x0 != cellX0[proxy] || y0 != cellY0[proxy] || x1 != cellX1[proxy] || y1 != cellY1[proxy]) {
+			erase(proxy);
+			cellX0[proxy] = x0;
+			cellY0[proxy] = y0;
+			cellX1[proxy] = x1;
+			cellY1[proxy] = y1;
+			insert(proxy);
+		}
+	}
+
+	/**
+	 * Read the box of an Entity again, removing it if it no longer has one.
+	 *
+	 * @param	e	The Entity.
+	 * @return		True if the Entity is in the hash afterwards.
+	 */
+	public boolean update(Entity e) {
+		Integer proxy = proxies.get(e);
+		if (proxy == null) {
+			return false;
+		}
+		if (!Collision.getBounds(e, bounds)) {
+			remove(proxy);
+			return false;
+		}
+		update(proxy, bounds[0], bounds[1], bounds[2], bounds[3]);
+		return true;
+	}
+
+	/**
+	 * Read the box of every Entity in the hash again, for example after everything has moved.
+	 */
+	public void refresh() {
+		for (int proxy = 0; proxy < proxyCount; proxy++) {
+			if (used[proxy] && entities[proxy] != null) {
+				if (Collision.getBounds(entities[proxy], bounds)) {
+					update(proxy, bounds[0], bounds[1], bounds[2], bounds[3]);
+				}
+				else {
+					remove(proxy);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove a proxy.
+	 *
+	 * @param	proxy	The proxy to remove.
+	 */
+	public void remove(int proxy) {
+		if (proxy < 0 || proxy >= proxyCount || !used[proxy]) {
+			return;
+		}
+		erase(proxy);
+		if (entities[proxy] != null) {
+			proxies.remove(entities[proxy]);
+		}
+		entities[proxy] = null;
+		used[proxy] = false;
+		freeProxies.add(proxy);
+		size--;
+	}
+
+	/**
+	 * Remove an Entity.
+	 *
+	 * @param	e	The Entity to remove.
+	 * @return		True if the Entity was in the hash.
+	 */
+	public boolean remove(Entity e) {
+		Integer proxy = proxies.get(e);
+		if (proxy != null) {
+			remove(proxy);
+		}
+		return proxy != null;
+	}
+
+	/**
+	 * Remove every proxy, keeping the allocated cells.
+	 */
+	public void clear() {
+		for (int i = 0; i < cellCount; i++) {
+			cells[i].clear();
+			occupiedIndex[i] = EMPTY;
+		}
+		occupiedCount = 0;
+		Arrays.fill(entities, 0, proxyCount, null);
+		Arrays.fill(used, 0, proxyCount, false);
+		proxyCount = 0;
+		freeProxies.clear();
+		proxies.clear();
+		size = 0;
+	}
+
+	/**
+	 * Get the proxy of an Entity.
+	 *
+	 * @param	e	The Entity.
+	 * @return		The proxy, or -1 if the Entity is not in the hash.
+	 */
+	public int getProxy(Entity e) {
+		Integer proxy = proxies.get(e);
+		return (proxy != null) ? proxy : -1;
+	}
+
+	/**
+	 * Check if a proxy is in use.
+	 *
+	 * @param	proxy	The proxy.
+	 * @return			True if the proxy has been added and not removed.
+	 */
+	public boolean contains(int proxy) {
+		return proxy >= 0 && proxy < proxyCount && used[proxy];
+	}
+
+	/**
+	 * Get the Entity of a proxy.
+	 *
+	 * @param	proxy	The proxy.
+	 * @return			The Entity, or null if the box does not belong to one.
+	 */
+	public Entity getEntity(int proxy) {
+		return entities[proxy];
+	}
+
+	/**
+	 * Get the left edge of a proxy's box.
+	 *
+	 * @param	proxy	The proxy.
+	 * @return			The left edge.
+	 */
+	public double getMinX(int proxy) {
+		return minX[proxy];
+	}
+
+	/**
+	 * Get the bottom edge of a proxy's box.
+	 *
+	 * @param	proxy	The proxy.
+	 * @return			The bottom edge.
+	 */
+	public double getMinY(int proxy) {
+		return minY[proxy];
+	}
+
+	/**
+	 * Get the right edge of a proxy's box.
+	 *
+	 * @param	proxy	The proxy.
+	 * @return			The right edge.
+	 */
+	public double getMaxX(int proxy) {
+		return maxX[proxy];
+	}
+
+	/**
+	 * Get the top edge of a proxy's box.
+	 *
+	 * @param	proxy	The proxy.
+	 * @return			The top edge.
+	 */
+	public double getMaxY(int proxy) {
+		return maxY[proxy];
+	}
+
+	// queries
+
+	/**
+	 * Find the proxies whose boxes overlap a region.
+	 *
+	 * @param	minX	The left edge of the region.
+	 * @param	minY	The bottom edge of the region.
+	 * @param	maxX	The right edge of the region.
+	 * @param	maxY	The top edge of the region.
+	 * @param	out		The list the proxies are added to.
+	 * @return			The number of proxies found.
+	 */
+	public int queryRegion(double minX, double minY, double maxX, double maxY, IntList out) {
+		nextStamp();
+		int found = 0;
+		int x1 = cell(maxX);
+		int y1 = cell(maxY);
+		for (int x = cell(minX); x <= x1; x++) {
+			for (int y = cell(minY); y <= y1; y++) {
+				int c = find(x, y);
+				if (c == EMPTY) {
+					continue;
+				}
+				IntList items = cells[c];
+				for (int i = 0; i < items.size(); i++) {
+					int proxy = items.get(i);
+					if (stamps[proxy] != stamp) {
+						stamps[proxy] = stamp;
+						if (this.minX[proxy] < maxX && minX < this.maxX[proxy] && this.minY[proxy] < maxY && minY < this.maxY[proxy]) {
+							out.add(proxy);
+							found++;
+						}
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Find the proxies whose boxes overlap the box of another proxy, not including the proxy itself.
+	 *
+	 * @param	proxy	The proxy.
+	 * @param	out		The list the proxies are added to.
+	 * @return			The number of proxies found.
+	 */
+	public int queryProxy(int proxy, IntList out) {
+		int before = out.size();
+		queryRegion(minX[proxy], minY[proxy], maxX[proxy], maxY[proxy], out);
+		for (int i = before; i < out.size(); i++) {
+			if (out.get(i) == proxy) {
+				out.removeSwap(i);
+				break;
+			}
+		}
+		return out.size() - before;
+	}
+
+	/**
+	 * Find the proxies whose boxes contain a point, including their edges.
+	 *
+	 * @param	x	The x position of the point.
+	 * @param	y	The y position of the point.
+	 * @param	out	The list the proxies are added to.
+	 * @return		The number of proxies found.
+	 */
+	public int queryPoint(double x, double y, IntList out) {
+		int found = 0;
+		int c = find(cell(x), cell(y));
+		if (c != EMPTY) {
+			IntList items = cells[c];
+			for (int i = 0; i < items.size(); i++) {
+				int proxy = items.get(i);
+				if (minX[proxy] <= x && x <= maxX[proxy] && minY[proxy] <= y && y <= maxY[proxy]) {
+					out.add(proxy);
+					found++;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Find every pair of proxies whose boxes overlap. Each pair is reported once, as two consecutive values with the
+	 * lower proxy first.
+	 *
+	 * @param	out	The list the pairs are added to.
+	 * @return		The number of pairs found.
+	 */
+	public int queryPairs(IntList out) {
+		int found = 0;
+		for (int k = 0; k < occupiedCount; k++) {
+			int c = occupied[k];
+			IntList items = cells[c];
+			int n = items.size();
+			for (int i = 0; i < n; i++) {
+				int a = items.get(i);
+				for (int j = i + 1; j < n; j++) {
+					int b = items.get(j);
+					// only report the pair from the first cell both are in
+					if (Math.max(cellX0[a], cellX0[b]) != cellXs[c] || Math.max(cellY0[a], cellY0[b]) != cellYs[c]) {
+						continue;
+					}
+					if (minX[a] < maxX[b] && minX[b] < maxX[a] && minY[a] < maxY[b] && minY[b] < maxY[a]) {
+						out.add(Math.min(a, b));
+						out.add(Math.max(a, b));
+						found++;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	// grid
+
+	// the cell coordinate of a position
+	private int cell(double position) {
+		return (int) Math.floor(position * inverseCellSize);
+	}
+
+	private void setBounds(int proxy, double x0, double y0, double x1, double y1) {
+		minX[proxy] = x0;
+		minY[proxy] = y0;
+		maxX[proxy] = x1;
+		maxY[proxy] = y1;
+	}
+
+	// add a proxy to every cell in its range
+	private void insert(int proxy) {
+		for (int x = cellX0[proxy]; x <= cellX1[proxy]; x++) {
+			for (int y = cellY0[proxy]; y <= cellY1[proxy]; y++) {
+				int c = findOrCreate(x, y);
+				if (cells[c].isEmpty()) {
+					occupiedIndex[c] = occupiedCount;
+					occupied[occupiedCount++] = c;
+				}
+				cells[c].add(proxy);
+			}
+		}
+	}
+
+	// remove a proxy from every cell in its range
+	private void erase(int proxy) {
+		for (int x = cellX0[proxy]; x <= cellX1[proxy]; x++) {
+			for (int y = cellY0[proxy]; y <= cellY1[proxy]; y++) {
+				int c = find(x, y);
+				if (c != EMPTY) {
+					IntList items = cells[c];
+					int i = items.indexOf(proxy);
+					if (i >= 0) {
+						items.removeSwap(i);
+						if (items.isEmpty()) {
+							vacate(c);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static long key(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	private int slot(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & tableMask;
+	}
+
+	// find the index of a cell, or EMPTY if it was never used
+	private int find(int x, int y) {
+		long key = key(x, y);
+		int s = slot(key);
+		while (tableCells[s] != EMPTY) {
+			if (tableKeys[s] == key) {
+				return tableCells[s];
+			}
+			s = (s + 1) & tableMask;
+		}
+		return EMPTY;
+	}
+
+	// take an emptied cell out of the occupied list
+	private void vacate(int c) {
+		int i = occupiedIndex[c];
+		int last = occupied[--occupiedCount];
+		occupied[i] = last;
+		occupiedIndex[last] = i;
+		occupiedIndex[c] = EMPTY;
+	}
+
+	// find the index of a cell, creating it if it was never used. Empty cells are kept so they can be reused
+	// until half the cells are empty, then they are dropped instead of growing.
+	private int findOrCreate(int x, int y) {
+		int c = find(x, y);
+		if (c != EMPTY) {
+			return c;
+		}
+		if (cellCount == cells.length && occupiedCount * 2 <= cellCount) {
+			compact();
+		}
+		if (cellCount == cells.length) {
+			cells = Arrays.copyOf(cells, cellCount * 2);
+			cellXs = Arrays.copyOf(cellXs, cellCount * 2);
+			cellYs = Arrays.copyOf(cellYs, cellCount * 2);
+			occupied = Arrays.copyOf(occupied, cellCount * 2);
+			occupiedIndex = Arrays.copyOf(occupiedIndex, cellCount * 2);
+		}
+		c = cellCount++;
+		if (cells[c] == null) {
+			cells[c] = new IntList(4);
+		}
+		occupiedIndex[c] = EMPTY;
+		cellXs[c] = x;
+		cellYs[c] = y;
+		if (cellCount * 2 > tableCells.length) {
+			rehash(tableCells.length * 2);
+		}
+		else {
+			put(key(x, y), c);
+		}
+		return c;
+	}
+
+	private void put(long key, int c) {
+		int s = slot(key);
+		while (tableCells[s] != EMPTY) {
+			s = (s + 1) & tableMask;
+		}
+		tableKeys[s] = key;
+		tableCells[s] = c;
+	}
+
+	// drop the empty cells, moving the occupied ones to the front and keeping the empty lists to reuse
+	private void compact() {
+		// in order each occupied cell is at or after the place it moves to, so a swap never moves one still to come
+		Arrays.sort(occupied, 0, occupiedCount);
+		for (int k = 0; k < occupiedCount; k++) {
+			int c = occupied[k];
+			IntList items = cells[c];
+			cells[c] = cells[k];
+			cells[k] = items;
+			cellXs[k] = cellXs[c];
+			cellYs[k] = cellYs[c];
+		}
+		cellCount = occupiedCount;
+		for (int k = 0; k < occupiedCount; k++) {
+			occupied[k] = k;
+			occupiedIndex[k] = k;
+		}
+		rehash(tableCells.length);
+	}
+
+	// grow the cell table and insert every cell again
+	private void rehash(int capacity) {
+		tableKeys = new long[capacity];
+		tableCells = new int[capacity];
+		Arrays.fill(tableCells, EMPTY);
+		tableMask = capacity - 1;
+		for (int c = 0; c < cellCount; c++) {
+			put(key(cellXs[c], cellYs[c]), c);
+		}
+	}
+
+	private void growProxies(int capacity) {
+		entities = Arrays.copyOf(entities, capacity);
+		minX = Arrays.copyOf(minX, capacity);
+		minY = Arrays.copyOf(minY, capacity);
+		maxX = Arrays.copyOf(maxX, capacity);
+		maxY = Arrays.copyOf(maxY, capacity);
+		used = Arrays.copyOf(used, capacity);
+		cellX0 = Arrays.copyOf(cellX0, capacity);
+		cellY0 = Arrays.copyOf(cellY0, capacity);
+		cellX1 = Arrays.copyOf(cellX1, capacity);
+		cellY1 = Arrays.copyOf(cellY1, capacity);
+		stamps = Arrays.copyOf(stamps, capacity);
+	}
+
+	// start a new query, clearing the stamps when the counter wraps
+	private void nextStamp() {
+		stamp++;
+		if (stamp == 0) {
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+	}
+}
@@ -0,0 +1,401 @@
+package motor_engine.util;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Keeps histograms of how long frames, updates and renders take, how many bytes each frame allocates and how
+ * many garbage collections happen during frames, to find the hitches that averages hide.
+ * <p>The profiled game loop Piston records every update and ends every frame, and whichever Piston renders
+ * records the renders, on its own thread in threaded games. Bytes are counted on the threads doing the updates and
+ * renders, so Rules run in parallel by a Scheduler are not included. The numbers can be
+ * read from code, watched over JMX as motor_engine:type=Telemetry once register has been called, and written to
+ * the "telemetry" Log every so often with setLogInterval or -Dmotor.telemetry.log=seconds.
+ * <p>Everything is recorded since the start or the last reset.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Telemetry implements TelemetryMBean {
+
+	// the name the telemetry is registered under
+	private static final String NAME = "motor_engine:type=Telemetry";
+
+	private static final double NANOS_PER_MILLI = 1000000.0;
+
+	// whether anything is recorded
+	private static volatile boolean enabled = true;
+
+	// the times in nanoseconds and bytes allocated per frame
+	private static Histogram frames = new Histogram();
+	private static Histogram updates = new Histogram();
+	private static Histogram renders = new Histogram();
+	private static Histogram allocations = new Histogram();
+
+	// the thread allocation counters, null if the JVM does not have them
+	private static com.sun.management.ThreadMXBean threads;
+
+	// the garbage collectors
+	private static List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+	// when the update and render in progress on each thread started and the bytes the thread had allocated
+	private static final ThreadLocal<long[]> spans = new ThreadLocal<long[]>() {
+		protected long[] initialValue() {
+			return new long[4];
+		}
+	};
+	private static final int UPDATE_START = 0;
+	private static final int UPDATE_BYTES = 1;
+	private static final int RENDER_START = 2;
+	private static final int RENDER_BYTES = 3;
+
+	// the bytes allocated during the frame in progress and the last frame
+	private static AtomicLong frameBytes = new AtomicLong();
+	private static long lastFrameBytes;
+
+	// when the frame in progress started
+	private static long frameStart;
+
+	// the collections so far and the ones seen during frames
+	private static long collections = -1;
+	private static long collectionTime;
+	private static long gcEvents;
+	private static long gcTime;
+	private static long framesWithGc;
+
+	// the category the telemetry is logged to
+	private static final Log LOG = Log.get("telemetry");
+
+	// how often to log in nanoseconds, 0 for never, and when last logged
+	private static long logInterval = Integer.getInteger("motor.telemetry.log", 0) * 1000000000L;
+	private static long lastLog;
+
+	static {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			threads = (com.sun.management.ThreadMXBean) bean;
+			if (threads.isThreadAllocatedMemorySupported()) {
+				threads.setThreadAllocatedMemoryEnabled(true);
+			}
+			else {
+				threads = null;
+			}
+		}
+	}
+
+	// the MBean instance delegates to the static telemetry
+	private Telemetry() {
+
+	}
+
+	/**
+	 * Register the telemetry with the platform MBean server, if it is not registered already.
+	 */
+	public static synchronized void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new Telemetry(), name);
+			}
+		}
+		catch (JMException e) {
+			System.err.println("Couldn't register the telemetry: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Start or stop recording.
+	 *
+	 * @param	b	True to record, false otherwise.
+	 */
+	public static void setEnabled(boolean b) {
+		enabled = b;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set how often the telemetry is written to the log.
+	 *
+	 * @param	seconds	The seconds between logs, 0 to never log.
+	 */
+	public static void setLogInterval(int seconds) {
+		logInterval = seconds * 1000000000L;
+	}
+
+	public static int getLogInterval() {
+		return (int) (logInterval / 1000000000L);
+	}
+
+	// Recording
+
+	// the bytes allocated so far by the calling thread
+	private static long allocated() {
+		return (threads != null) ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+	}
+
+	/**
+	 * Start recording an update. Called by the game loop before each update.
+	 */
+	public static void beginUpdate() {
+		if (enabled) {
+			long[] span = spans.get();
+			span[UPDATE_BYTES] = allocated();
+			span[UPDATE_START] = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Finish recording an update.
+	 */
+	public static void endUpdate() {
+		long[] span = enabled ? spans.get() : null;
+		if (span != null && span[UPDATE_START] != 0) {
+			long now = System.nanoTime();
+			updates.record(now - span[UPDATE_START]);
+			frameBytes.addAndGet(allocated() - span[UPDATE_BYTES]);
+			span[UPDATE_START] = 0;
+		}
+	}
+
+	/**
+	 * Start recording a render. Called by the game loop before each render.
+	 */
+	public static void beginRender() {
+		if (enabled) {
+			long[] span = spans.get();
+			span[RENDER_BYTES] = allocated();
+			span[RENDER_START] = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Finish recording a render.
+	 */
+	public static void endRender() {
+		long[] span = enabled ? spans.get() : null;
+		if (span != null && span[RENDER_START] != 0) {
+			long now = System.nanoTime();
+			renders.record(now - span[RENDER_START]);
+			frameBytes.addAndGet(allocated() - span[RENDER_BYTES]);
+			span[RENDER_START] = 0;
+		}
+	}
+
+	/**
+	 * End the frame in progress, recording its time since the end of the last frame, the bytes allocated and
+	 * the garbage collections that happened meanwhile. Called by the game loop after each frame.
+	 */
+	public static synchronized void endFrame() {
+		long now = System.nanoTime();
+		if (!enabled) {
+			frameStart = 0;
+			return;
+		}
+		long bytes = frameBytes.getAndSet(0);
+		if (frameStart != 0) {
+			frames.record(now - frameStart);
+			lastFrameBytes = bytes;
+			allocations.record(bytes);
+		}
+		frameStart = now;
+
+		// count the collections since the last frame
+		long count = 0;
+		long time = 0;
+		for (int i = 0; i < collectors.size(); i++) {
+			count += Math.max(collectors.get(i).getCollectionCount(), 0);
+			time += Math.max(collectors.get(i).getCollectionTime(), 0);
+		}
+		if (collections >= 0 && count > collections) {
+			gcEvents += count - collections;
+			gcTime += time - collectionTime;
+			framesWithGc++;
+		}
+		collections = count;
+		collectionTime = time;
+
+		// dump to the log now and then
+		if (logInterval > 0) {
+			if (lastLog == 0) {
+				lastLog = now;
+			}
+			else if (now - lastLog >= logInterval) {
+				lastLog = now;
+				LOG.info(summary());
+			}
+		}
+	}
+
+	/**
+	 * Forget everything recorded so far.
+	 */
+	public static synchronized void clear() {
+		frames.reset();
+		updates.reset();
+		renders.reset();
+		allocations.reset();
+		lastFrameBytes = 0;
+		gcEvents = 0;
+		gcTime = 0;
+		framesWithGc = 0;
+	}
+
+	// Getters
+
+	/**
+	 * Get the times between the ends of frames.
+	 *
+	 * @return	The histogram in nanoseconds.
+	 */
+	public static Histogram getFrameTimes() {
+		return frames;
+	}
+
+	/**
+	 * Get the times of the updates.
+	 *
+	 * @return	The histogram in nanoseconds.
+	 */
+	public static Histogram getUpdateTimes() {
+		return updates;
+	}
+
+	/**
+	 * Get the times of the renders.
+	 *
+	 * @return	The histogram in nanoseconds.
+	 */
+	public static Histogram getRenderTimes() {
+		return renders;
+	}
+
+	/**
+	 * Get the bytes allocated by the updates and renders of each frame.
+	 *
+	 * @return	The histogram in bytes.
+	 */
+	public static Histogram getAllocations() {
+		return allocations;
+	}
+
+	/**
+	 * Summarize the telemetry in one line, times in milliseconds.
+	 *
+	 * @return	The summary.
+	 */
+	public static synchronized String summary() {
+		return "frame " + millis(frames) + " | update " + millis(updates) + " | render " + millis(renders)
+			+ " | bytes/frame p50 " + allocations.getValueAtPercentile(50) + " p99 " + allocations.getValueAtPercentile(99)
+			+ " max " + allocations.getMax() + " | gc " + gcEvents + " in " + framesWithGc + " frames, " + gcTime + "ms";
+	}
+
+	// the percentiles of a histogram of nanoseconds in milliseconds
+	private static String millis(Histogram h) {
+		return String.format("p50 %.2f p99 %.2f p99.9 %.2f max %.2f",
+			h.getValueAtPercentile(50) / NANOS_PER_MILLI, h.getValueAtPercentile(99) / NANOS_PER_MILLI,
+			h.getValueAtPercentile(99.9) / NANOS_PER_MILLI, h.getMax() / NANOS_PER_MILLI);
+	}
+
+	// MBean
+
+	public long getFrameCount() {
+		return frames.getCount();
+	}
+
+	public double getFrameTimeP50() {
+		return frames.getValueAtPercentile(50) / NANOS_PER_MILLI;
+	}
+
+	public double getFrameTimeP99() {
+		return frames.getValueAtPercentile(99) / NANOS_PER_MILLI;
+	}
+
+	public double getFrameTimeP999() {
+		return frames.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+	}
+
+	public double getFrameTimeMax() {
+		return frames.getMax() / NANOS_PER_MILLI;
+	}
+
+	public long getUpdateCount() {
+		return updates.getCount();
+	}
+
+	public double getUpdateTimeP50() {
+		return updates.getValueAtPercentile(50) / NANOS_PER_MILLI;
+	}
+
+	public double getUpdateTimeP99() {
+		return updates.getValueAtPercentile(99) / NANOS_PER_MILLI;
+	}
+
+	public double getUpdateTimeP999() {
+		return updates.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+	}
+
+	public double getUpdateTimeMax() {
+		return updates.getMax() / NANOS_PER_MILLI;
+	}
+
+	public long getRenderCount() {
+		return renders.getCount();
+	}
+
+	public double getRenderTimeP50() {
+		return renders.getValueAtPercentile(50) / NANOS_PER_MILLI;
+	}
+
+	public double getRenderTimeP99() {
+		return renders.getValueAtPercentile(99) / NANOS_PER_MILLI;
+	}
+
+	public double getRenderTimeP999() {
+		return renders.getValueAtPercentile(99.9) / NANOS_PER_MILLI;
+	}
+
+	public double getRenderTimeMax() {
+		return renders.getMax() / NANOS_PER_MILLI;
+	}
+
+	public long getLastFrameAllocatedBytes() {
+		return lastFrameBytes;
+	}
+
+	public long getAllocatedBytesP50() {
+		return allocations.getValueAtPercentile(50);
+	}
+
+	public long getAllocatedBytesP99() {
+		return allocations.getValueAtPercentile(99);
+	}
+
+	public long getAllocatedBytesMax() {
+		return allocations.getMax();
+	}
+
+	public long getGcEvents() {
+		return gcEvents;
+	}
+
+	public long getGcTime() {
+		return gcTime;
+	}
+
+	public long getFramesWithGc() {
+		return framesWithGc;
+	}
+
+	public void reset() {
+		clear();
+	}
+}
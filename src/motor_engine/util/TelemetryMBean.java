@@ -0,0 +1,43 @@
+package motor_engine.util;
+
+/**
+ * The management interface of the engine's Telemetry, registered with the platform MBean server as
+ * motor_engine:type=Telemetry. Times are in milliseconds.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public interface TelemetryMBean {
+
+	long getFrameCount();
+	double getFrameTimeP50();
+	double getFrameTimeP99();
+	double getFrameTimeP999();
+	double getFrameTimeMax();
+
+	long getUpdateCount();
+	double getUpdateTimeP50();
+	double getUpdateTimeP99();
+	double getUpdateTimeP999();
+	double getUpdateTimeMax();
+
+	long getRenderCount();
+	double getRenderTimeP50();
+	double getRenderTimeP99();
+	double getRenderTimeP999();
+	double getRenderTimeMax();
+
+	long getLastFrameAllocatedBytes();
+	long getAllocatedBytesP50();
+	long getAllocatedBytesP99();
+	long getAllocatedBytesMax();
+
+	long getGcEvents();
+	long getGcTime();
+	long getFramesWithGc();
+
+	/**
+	 * Forget everything recorded so far.
+	 */
+	void reset();
+}
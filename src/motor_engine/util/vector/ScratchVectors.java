@@ -0,0 +1,136 @@
+package motor_engine.util.vector;
+import java.util.Arrays;
+
+/**
+ * Temporary vectors reused instead of allocated, one stack of them per thread so Rules updated in parallel
+ * do not share them.
+ * <p>Take a mark, borrow as many vectors as needed and release the mark once they are no longer used:
+ * <pre>
+ * ScratchVectors scratch = ScratchVectors.get();
+ * int mark = scratch.mark();
+ * Vector2d tmp = Vectors.multiply(velocity, dt, scratch.vector2d());
+ * ...
+ * scratch.release(mark);
+ * </pre>
+ * Marks nest, so a method borrowing vectors can call others that do the same. A borrowed vector must not be
+ * kept after its mark is released since it will be handed out again.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class ScratchVectors {
+
+	// the scratch vectors of each thread
+	private static final ThreadLocal<ScratchVectors> scratch = new ThreadLocal<ScratchVectors>() {
+		protected ScratchVectors initialValue() {
+			return new ScratchVectors();
+		}
+	};
+
+	// the vectors, the ones below the counts are borrowed
+	private Vector2d[] vectors2d = new Vector2d[8];
+	private Vector3d[] vectors3d = new Vector3d[4];
+	private int count2d;
+	private int count3d;
+
+	private ScratchVectors() {
+
+	}
+
+	/**
+	 * Get the scratch vectors of the calling thread.
+	 *
+	 * @return	The scratch vectors.
+	 */
+	public static ScratchVectors get() {
+		return scratch.get();
+	}
+
+	/**
+	 * Remember how many vectors are borrowed, to release the ones borrowed after this.
+	 *
+	 * @return	The mark to release.
+	 */
+	public int mark() {
+		return (count2d << 16) | count3d;
+	}
+
+	/**
+	 * Give back every vector borrowed since the mark was taken.
+	 *
+	 * @param	mark	The mark returned by mark().
+	 */
+	public void release(int mark) {
+		count2d = mark >>> 16;
+		count3d = mark & 0xffff;
+	}
+
+	/**
+	 * Borrow a 2 dimensional vector set to (0, 0).
+	 *
+	 * @return	The vector.
+	 */
+	public Vector2d vector2d() {
+		if (count2d == vectors2d.length) {
+			vectors2d = Arrays.copyOf(vectors2d, count2d * 2);
+		}
+		Vector2d v = vectors2d[count2d];
+		if (v == null) {
+			v = new Vector2d();
+			vectors2d[count2d] = v;
+		}
+		else {
+			v.set(0, 0);
+		}
+		count2d++;
+		return v;
+	}
+
+	/**
+	 * Borrow a 2 dimensional vector set to the given values.
+	 *
+	 * @param	x	The x value.
+	 * @param	y	The y value.
+	 * @return		The vector.
+	 */
+	public Vector2d vector2d(double x, double y) {
+		Vector2d v = vector2d();
+		v.set(x, y);
+		return v;
+	}
+
+	/**
+	 * Borrow a 3 dimensional vector set to (0, 0, 0).
+	 *
+	 * @return	The vector.
+	 */
+	public Vector3d vector3d() {
+		if (count3d == vectors3d.length) {
+			vectors3d = Arrays.copyOf(vectors3d, count3d * 2);
+		}
+		Vector3d v = vectors3d[count3d];
+		if (v == null) {
+			v = new Vector3d();
+			vectors3d[count3d] = v;
+		}
+		else {
+			v.set(0, 0, 0);
+		}
+		count3d++;
+		return v;
+	}
+
+	/**
+	 * Borrow a 3 dimensional vector set to the given values.
+	 *
+	 * @param	x	The x value.
+	 * @param	y	The y value.
+	 * @param	z	The z value.
+	 * @return		The vector.
+	 */
+	public Vector3d vector3d(double x, double y, double z) {
+		Vector3d v = vector3d();
+		v.set(x, y, z);
+		return v;
+	}
+}
@@ -2,6 +2,8 @@ package motor_engine.util.vector;
 
 /**
  * This class contatins various methods to create new vectors from old ones.
+ * <p>Each method also has a version writing into a given vector instead of creating one, so vector math can be
+ * done every update without allocating. Combined with ScratchVectors no new vectors are needed at all.
  *
  * @author	Garrett Smith
  * @version	0.2
@@ -351,4 +353,353 @@ public class Vectors {
 		tmp.constrain(min,max);
 		return tmp;
 	}
+
+	// 2 doubles into a given vector
+
+	/**
+	 * Set a vector to the sum of the two given vectors.
+	 *
+	 * @param	v1	The first vector.
+	 * @param	v2	The second vector.
+	 * @param	out	The vector to write the sum into, which may be one of the given vectors.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T add(ReadableVector2d v1, ReadableVector2d v2, T out) {
+		out.set(v1.getX() + v2.getX(), v1.getY() + v2.getY());
+		return out;
+	}
+
+	/**
+	 * Set a vector to the sum of the given vector and the given values.
+	 *
+	 * @param	v	The original vector.
+	 * @param	x	The value to add to the x value.
+	 * @param	y	The value to add to the y value.
+	 * @param	out	The vector to write the sum into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T add(ReadableVector2d v, double x, double y, T out) {
+		out.set(v.getX() + x, v.getY() + y);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the difference of the two given vectors.
+	 *
+	 * @param	v1	The first vector.
+	 * @param	v2	The second vector.
+	 * @param	out	The vector to write the difference into, which may be one of the given vectors.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T subtract(ReadableVector2d v1, ReadableVector2d v2, T out) {
+		out.set(v1.getX() - v2.getX(), v1.getY() - v2.getY());
+		return out;
+	}
+
+	/**
+	 * Set a vector to the difference of the given vector and the given values.
+	 *
+	 * @param	v	The original vector.
+	 * @param	x	The value to subtract from the x value.
+	 * @param	y	The value to subtract from the y value.
+	 * @param	out	The vector to write the difference into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T subtract(ReadableVector2d v, double x, double y, T out) {
+		out.set(v.getX() - x, v.getY() - y);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the given vector multiplied by a scalar.
+	 *
+	 * @param	v	The original vector.
+	 * @param	r	The scalar to multiply by.
+	 * @param	out	The vector to write the product into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T multiply(ReadableVector2d v, double r, T out) {
+		out.set(v.getX() * r, v.getY() * r);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the given vector divided by a scalar.
+	 *
+	 * @param	v	The original vector.
+	 * @param	r	The scalar to divide by.
+	 * @param	out	The vector to write the quotient into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T divide(ReadableVector2d v, double r, T out) {
+		out.set(v.getX() / r, v.getY() / r);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the normal of the given vector.
+	 *
+	 * @param	v	The vector to normalize.
+	 * @param	out	The vector to write the normal into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T normalize(ReadableVector2d v, T out) {
+		out.set(v);
+		out.normalize();
+		return out;
+	}
+
+	/**
+	 * Set a vector to the negation of the given vector.
+	 *
+	 * @param	v	The vector to negate.
+	 * @param	out	The vector to write the negation into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T negate(ReadableVector2d v, T out) {
+		out.set(-v.getX(), -v.getY());
+		return out;
+	}
+
+	/**
+	 * Set a vector to the absolute values of those from the given vector.
+	 *
+	 * @param	v	The vector to get the absolute values from.
+	 * @param	out	The vector to write the absolute values into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T abs(ReadableVector2d v, T out) {
+		out.set(Math.abs(v.getX()), Math.abs(v.getY()));
+		return out;
+	}
+
+	/**
+	 * Set a vector to the magnitude of the given vector with the signs of the given values.
+	 *
+	 * @param	v	The vector to get the magnitude from.
+	 * @param	x	The sign for the x value.
+	 * @param	y	The sign for the y value.
+	 * @param	out	The vector to write the result into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T copySign(ReadableVector2d v, double x, double y, T out) {
+		out.set(Math.copySign(v.getX(), x), Math.copySign(v.getY(), y));
+		return out;
+	}
+
+	/**
+	 * Set a vector to the magnitude and signs of the given vectors.
+	 *
+	 * @param	magnitude	The vector to get the magnitude from.
+	 * @param	signs	The vector to get the signs from.
+	 * @param	out	The vector to write the result into, which may be one of the given vectors.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T copySign(ReadableVector2d magnitude, ReadableVector2d signs, T out) {
+		out.set(Math.copySign(magnitude.getX(), signs.getX()), Math.copySign(magnitude.getY(), signs.getY()));
+		return out;
+	}
+
+	/**
+	 * Set a vector to the given vector with its values constrained to the given range.
+	 *
+	 * @param	v	The original vector.
+	 * @param	min	The minimum value.
+	 * @param	max	The maximum value.
+	 * @param	out	The vector to write the constrained values into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector2d> T constrain(ReadableVector2d v, double min, double max, T out) {
+		out.set(v);
+		out.constrain(min, max);
+		return out;
+	}
+
+	// 3 doubles into a given vector
+
+	/**
+	 * Set a vector to the sum of the two given vectors.
+	 *
+	 * @param	v1	The first vector.
+	 * @param	v2	The second vector.
+	 * @param	out	The vector to write the sum into, which may be one of the given vectors.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T add(ReadableVector3d v1, ReadableVector3d v2, T out) {
+		out.set(v1.getX() + v2.getX(), v1.getY() + v2.getY(), v1.getZ() + v2.getZ());
+		return out;
+	}
+
+	/**
+	 * Set a vector to the sum of the given vector and the given values.
+	 *
+	 * @param	v	The original vector.
+	 * @param	x	The value to add to the x value.
+	 * @param	y	The value to add to the y value.
+	 * @param	z	The value to add to the z value.
+	 * @param	out	The vector to write the sum into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T add(ReadableVector3d v, double x, double y, double z, T out) {
+		out.set(v.getX() + x, v.getY() + y, v.getZ() + z);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the difference of the two given vectors.
+	 *
+	 * @param	v1	The first vector.
+	 * @param	v2	The second vector.
+	 * @param	out	The vector to write the difference into, which may be one of the given vectors.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T subtract(ReadableVector3d v1, ReadableVector3d v2, T out) {
+		out.set(v1.getX() - v2.getX(), v1.getY() - v2.getY(), v1.getZ() - v2.getZ());
+		return out;
+	}
+
+	/**
+	 * Set a vector to the difference of the given vector and the given values.
+	 *
+	 * @param	v	The original vector.
+	 * @param	x	The value to subtract from the x value.
+	 * @param	y	The value to subtract from the y value.
+	 * @param	z	The value to subtract from the z value.
+	 * @param	out	The vector to write the difference into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T subtract(ReadableVector3d v, double x, double y, double z, T out) {
+		out.set(v.getX() - x, v.getY() - y, v.getZ() - z);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the given vector multiplied by a scalar.
+	 *
+	 * @param	v	The original vector.
+	 * @param	r	The scalar to multiply by.
+	 * @param	out	The vector to write the product into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T multiply(ReadableVector3d v, double r, T out) {
+		out.set(v.getX() * r, v.getY() * r, v.getZ() * r);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the given vector divided by a scalar.
+	 *
+	 * @param	v	The original vector.
+	 * @param	r	The scalar to divide by.
+	 * @param	out	The vector to write the quotient into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T divide(ReadableVector3d v, double r, T out) {
+		out.set(v.getX() / r, v.getY() / r, v.getZ() / r);
+		return out;
+	}
+
+	/**
+	 * Set a vector to the normal of the given vector.
+	 *
+	 * @param	v	The vector to normalize.
+	 * @param	out	The vector to write the normal into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T normalize(ReadableVector3d v, T out) {
+		out.set(v);
+		out.normalize();
+		return out;
+	}
+
+	/**
+	 * Set a vector to the negation of the given vector.
+	 *
+	 * @param	v	The vector to negate.
+	 * @param	out	The vector to write the negation into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T negate(ReadableVector3d v, T out) {
+		out.set(-v.getX(), -v.getY(), -v.getZ());
+		return out;
+	}
+
+	/**
+	 * Set a vector to the absolute values of those from the given vector.
+	 *
+	 * @param	v	The vector to get the absolute values from.
+	 * @param	out	The vector to write the absolute values into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T abs(ReadableVector3d v, T out) {
+		out.set(Math.abs(v.getX()), Math.abs(v.getY()), Math.abs(v.getZ()));
+		return out;
+	}
+
+	/**
+	 * Set a vector to the magnitude of the given vector with the signs of the given values.
+	 *
+	 * @param	v	The vector to get the magnitude from.
+	 * @param	x	The sign for the x value.
+	 * @param	y	The sign for the y value.
+	 * @param	z	The sign for the z value.
+	 * @param	out	The vector to write the result into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T copySign(ReadableVector3d v, double x, double y, double z, T out) {
+		out.set(Math.copySign(v.getX(), x), Math.copySign(v.getY(), y), Math.copySign(v.getZ(), z));
+		return out;
+	}
+
+	/**
+	 * Set a vector to the magnitude and signs of the given vectors.
+	 *
+	 * @param	magnitude	The vector to get the magnitude from.
+	 * @param	signs	The vector to get the signs from.
+	 * @param	out	The vector to write the result into, which may be one of the given vectors.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T copySign(ReadableVector3d magnitude, ReadableVector3d signs, T out) {
+		out.set(Math.copySign(magnitude.getX(), signs.getX()), Math.copySign(magnitude.getY(), signs.getY()), Math.copySign(magnitude.getZ(), signs.getZ()));
+		return out;
+	}
+
+	/**
+	 * Set a vector to the given vector with its values constrained to the given range.
+	 *
+	 * @param	v	The original vector.
+	 * @param	min	The minimum value.
+	 * @param	max	The maximum value.
+	 * @param	out	The vector to write the constrained values into, which may be the given vector.
+	 *
+	 * @return		The out vector.
+	 */
+	public static <T extends WriteableVector3d> T constrain(ReadableVector3d v, double min, double max, T out) {
+		out.set(v);
+		out.constrain(min, max);
+		return out;
+	}
 }
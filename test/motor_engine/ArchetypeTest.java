@@ -0,0 +1,95 @@
+package motor_engine;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests moving Entities between the Archetypes of a ComponentStorage and removing them from rows.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class ArchetypeTest {
+
+	private State state = new State();
+
+	// an entity of the test state with a position and a velocity
+	private Entity moving(double x, double y) {
+		Entity e = new Entity("moving");
+		e.add(new Position(x, y));
+		e.add(new Velocity(x * 10, y * 10));
+		state.add(e);
+		return e;
+	}
+
+	public void testEntitiesWithTheSameClassesShareAnArchetype() {
+		Entity a = moving(1, 2);
+		Entity b = moving(3, 4);
+		assertSame("archetype", a.getArchetype(), b.getArchetype());
+		assertSame("storage", state.getStorage(), a.getArchetype().getStorage());
+		assertEquals("rows", 2, a.getArchetype().size());
+		assertEquals("row of b", 1, b.getRow());
+	}
+
+	public void testAddingAComponentMovesTheEntityAndKeepsItsValues() {
+		Entity e = moving(1, 2);
+		Archetype before = e.getArchetype();
+		e.add(new Size(5, 6));
+
+		assertTrue("moved", e.getArchetype() != before);
+		assertTrue("has size", e.getArchetype().has(Size.class));
+		assertEquals("old archetype rows", 0, before.size());
+		assertEquals("x", 1, ((Position) e.get(Position.class)).getX(), 0);
+		assertEquals("y", 2, ((Position) e.get(Position.class)).getY(), 0);
+		assertEquals("velocity x", 10, ((Velocity) e.get(Velocity.class)).getX(), 0);
+		assertEquals("width", 5, ((Size) e.get(Size.class)).getX(), 0);
+	}
+
+	public void testRemovingAComponentMovesTheEntityAndUnbindsTheComponent() {
+		Entity e = moving(1, 2);
+		Velocity v = (Velocity) e.get(Velocity.class);
+		e.remove(Velocity.class);
+
+		assertFalse("has velocity", e.has(Velocity.class));
+		assertFalse("archetype has velocity", e.getArchetype().has(Velocity.class));
+		assertEquals("x", 1, ((Position) e.get(Position.class)).getX(), 0);
+		assertFalse("removed velocity bound", v.isBound());
+		assertEquals("removed velocity keeps x", 10, v.getX(), 0);
+	}
+
+	public void testLeavingARowMovesTheLastRowIntoIt() {
+		Entity a = moving(1, 1);
+		Entity b = moving(2, 2);
+		Entity c = moving(3, 3);
+		Archetype chunk = a.getArchetype();
+		a.remove(Velocity.class);
+
+		assertEquals("rows", 2, chunk.size());
+		assertSame("last entity moved into the emptied row", c, chunk.getEntity(0));
+		assertEquals("row of moved entity", 0, c.getRow());
+		assertEquals("row of b", 1, b.getRow());
+		int x = chunk.getColumnIndex(Position.class);
+		assertEquals("moved column value", 3, chunk.getColumn(x)[0], 0);
+		assertEquals("moved component reads its row", 3, ((Position) c.get(Position.class)).getX(), 0);
+		assertEquals("moved velocity reads its row", 30, ((Velocity) c.get(Velocity.class)).getX(), 0);
+	}
+
+	public void testWritesThroughAComponentReachTheColumn() {
+		Entity e = moving(1, 1);
+		moving(2, 2).remove(Velocity.class);
+		((Position) e.get(Position.class)).set(7, 8);
+		Archetype chunk = e.getArchetype();
+		int x = chunk.getColumnIndex(Position.class);
+		assertEquals("x column", 7, chunk.getColumn(x)[e.getRow()], 0);
+		assertEquals("y column", 8, chunk.getColumn(x + 1)[e.getRow()], 0);
+	}
+
+	public void testArchetypeOfAnotherStorageIsMatchedByClasses() {
+		Entity e = moving(1, 1);
+		ComponentStorage other = new ComponentStorage();
+		Archetype match = other.getArchetype(e.getArchetype());
+		assertSame("storage", other, match.getStorage());
+		assertEquals("classes", e.getArchetype().getTypeCount(), match.getTypeCount());
+		assertTrue("position", match.has(Position.class));
+		assertTrue("velocity", match.has(Velocity.class));
+	}
+}
@@ -0,0 +1,64 @@
+package motor_engine;
+
+/**
+ * The checks made by the tests. Each throws an AssertionError describing what was wrong when it fails.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class Assert {
+
+	private Assert() {
+
+	}
+
+	public static void fail(String message) {
+		throw new AssertionError(message);
+	}
+
+	public static void assertTrue(String message, boolean b) {
+		if (!b) {
+			fail(message);
+		}
+	}
+
+	public static void assertFalse(String message, boolean b) {
+		assertTrue(message, !b);
+	}
+
+	public static void assertEquals(String message, long expected, long actual) {
+		if (expected != actual) {
+			fail(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	/**
+	 * Check two doubles are equal to within a tolerance.
+	 *
+	 * @param	message		What is being checked.
+	 * @param	expected	The expected value.
+	 * @param	actual		The actual value.
+	 * @param	delta		The largest difference allowed.
+	 */
+	public static void assertEquals(String message, double expected, double actual, double delta) {
+		if (!(Math.abs(expected - actual) <= delta)) {
+			fail(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	public static void assertEquals(String message, Object expected, Object actual) {
+		if (expected == null ? actual != null : !expected.equals(actual)) {
+			fail(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	public static void assertSame(String message, Object expected, Object actual) {
+		if (expected != actual) {
+			fail(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	public static void assertNull(String message, Object o) {
+		assertSame(message, null, o);
+	}
+}
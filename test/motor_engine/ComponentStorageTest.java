@@ -0,0 +1,169 @@
+package motor_engine;
+import java.util.ArrayList;
+import java.util.Arrays;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests updating Components in passes, one component class at a time in priority order.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class ComponentStorageTest {
+
+	// the updates made, as the class and entity updated
+	private static ArrayList<String> updates = new ArrayList<String>();
+
+	// a component recording its updates
+	public static abstract class Recorded extends Component {
+		public Recorded(double priority) {
+			setPriority(priority);
+		}
+
+		public void update(long deltaTime) {
+			updates.add(getClass().getSimpleName() + " " + getParent().getType());
+		}
+
+		public void begin() {
+
+		}
+
+		public void end() {
+
+		}
+
+		public String toString() {
+			return getClass().getSimpleName();
+		}
+	}
+
+	public static class Early extends Recorded {
+		public Early() {
+			super(-5);
+		}
+
+		public Component clone() {
+			return new Early();
+		}
+	}
+
+	public static class Late extends Recorded {
+		public Late() {
+			super(10);
+		}
+
+		public Component clone() {
+			return new Late();
+		}
+	}
+
+	// two classes of the same priority, updated in order of their names
+	public static class Apple extends Recorded {
+		public Apple() {
+			super(0);
+		}
+
+		public Component clone() {
+			return new Apple();
+		}
+	}
+
+	public static class Banana extends Recorded {
+		public Banana() {
+			super(0);
+		}
+
+		public Component clone() {
+			return new Banana();
+		}
+	}
+
+	// a component that only holds a value
+	public static class Held extends Recorded {
+		public Held() {
+			super(-10);
+		}
+
+		public boolean isUpdated() {
+			return false;
+		}
+
+		public Component clone() {
+			return new Held();
+		}
+	}
+
+	private State state = new State();
+
+	public ComponentStorageTest() {
+		updates.clear();
+	}
+
+	// an active entity of the test state with the given components
+	private Entity entity(String name, Component... components) {
+		Entity e = new Entity(name);
+		for (Component c : components) {
+			e.add(c);
+		}
+		e.setActive(true);
+		state.add(e);
+		return e;
+	}
+
+	private void assertUpdates(String... expected) {
+		assertEquals("updates", Arrays.asList(expected), updates);
+		updates.clear();
+	}
+
+	public void testClassesAreUpdatedInPriorityOrder() {
+		entity("a", new Late(), new Early());
+		entity("b", new Early());
+		entity("c", new Late());
+		state.update(10);
+		assertUpdates("Early a", "Early b", "Late a", "Late c");
+	}
+
+	public void testEqualPrioritiesAreUpdatedByName() {
+		entity("a", new Banana());
+		entity("b", new Apple(), new Banana());
+		state.update(10);
+		assertUpdates("Apple b", "Banana a", "Banana b");
+	}
+
+	public void testNewArchetypesJoinThePasses() {
+		entity("a", new Late());
+		state.update(10);
+		assertUpdates("Late a");
+
+		entity("b", new Early(), new Late());
+		state.update(10);
+		assertUpdates("Early b", "Late a", "Late b");
+	}
+
+	public void testReplacedClassesAreNotUpdated() {
+		entity("a", new Early(), new Late());
+		ComponentStorage storage = state.getStorage();
+		storage.setReplaced(Early.class, true);
+		assertTrue("replaced", storage.isReplaced(Early.class));
+		state.update(10);
+		assertUpdates("Late a");
+
+		storage.setReplaced(Early.class, false);
+		state.update(10);
+		assertUpdates("Early a", "Late a");
+	}
+
+	public void testValueHoldersAreNotUpdated() {
+		entity("a", new Held(), new Early());
+		state.update(10);
+		assertUpdates("Early a");
+	}
+
+	public void testInactiveEntitiesAreNotUpdated() {
+		Entity a = entity("a", new Early());
+		entity("b", new Early());
+		a.setActive(false);
+		state.update(10);
+		assertUpdates("Early b");
+	}
+}
@@ -0,0 +1,91 @@
+package motor_engine;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests looking up the Entities of Groups and States by type and name.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class EntityIndexTest {
+
+	private State state = new State();
+
+	public void testTypesAndNamesIgnoreCase() {
+		Entity e = new Entity("Brick");
+		state.add(e);
+		assertEquals("lower", 1, state.countEntities("brick"));
+		assertEquals("upper", 1, state.countEntities("BRICK"));
+		assertSame("name", e, state.getEntity(e.getName().toUpperCase()));
+		assertTrue("set", state.getEntitySet("bRiCk").contains(e));
+	}
+
+	public void testUnknownKeysAreEmpty() {
+		assertEquals("count", 0, state.countEntities("ghost"));
+		assertTrue("set", state.getEntitySet("ghost").isEmpty());
+		assertEquals("array", 0, state.getEntities("ghost").length);
+		assertNull("name", state.getEntity("ghost#1"));
+	}
+
+	public void testTypeSetsAreLiveViews() {
+		state.add(new Entity("brick"));
+		java.util.Set<Entity> bricks = state.getEntitySet("brick");
+		Entity e = new Entity("brick");
+		state.add(e);
+		assertTrue("added", bricks.contains(e));
+		state.remove(e);
+		assertFalse("removed", bricks.contains(e));
+		try {
+			bricks.add(e);
+			fail("modified the view");
+		}
+		catch (UnsupportedOperationException expected) {
+
+		}
+	}
+
+	public void testEntitiesStayIndexedWhileAnyGroupHoldsThem() {
+		Group walls = new Group();
+		state.add(walls);
+		Entity e = new Entity("brick");
+		state.add(e);
+		walls.add(e);
+
+		state.remove(e);
+		assertSame("still in walls", e, state.getEntity(e.getName()));
+		assertEquals("count", 1, state.countEntities("brick"));
+
+		walls.remove(e);
+		assertNull("gone", state.getEntity(e.getName()));
+		assertEquals("count", 0, state.countEntities("brick"));
+	}
+
+	public void testAddingAGroupIndexesItsEntities() {
+		Group walls = new Group();
+		Entity e = new Entity("brick");
+		walls.add(e);
+		state.add(walls);
+		assertSame("added", e, state.getEntity(e.getName()));
+		state.remove(walls);
+		assertNull("removed", state.getEntity(e.getName()));
+	}
+
+	public void testGroupsIndexTheirOwnEntities() {
+		Group g = new Group();
+		Entity a = new Entity("Ball");
+		// the identifier counters are per type, so skip a name differing from the first only by case
+		Entity b = new Entity("ball");
+		while (b.getName().equalsIgnoreCase(a.getName())) {
+			b = new Entity("ball");
+		}
+		g.add(a);
+		g.add(b);
+		assertEquals("count", 2, g.count("BALL"));
+		assertTrue("type", g.containsType("ball"));
+		assertTrue("name", g.containsEntity(b.getName().toUpperCase()));
+		assertSame("get", a, g.getEntity(a.getName().toLowerCase()));
+		g.remove(a);
+		assertEquals("count after", 1, g.count("ball"));
+		assertFalse("name after", g.containsEntity(a.getName()));
+	}
+}
@@ -0,0 +1,157 @@
+package motor_engine;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests reusing Entities and Components through the EntityPool and telling stale handles from live ones.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class EntityPoolTest {
+
+	// a component that can't be created without arguments
+	public static class Counter extends Component {
+		public Counter(int start) {
+
+		}
+
+		public Component clone() {
+			return new Counter(0);
+		}
+
+		public void update(long deltaTime) {
+
+		}
+
+		public void begin() {
+
+		}
+
+		public void end() {
+
+		}
+
+		public String toString() {
+			return "Counter";
+		}
+	}
+
+	public EntityPoolTest() {
+		EntityPool.clear();
+	}
+
+	public void testHandleFindsTheLiveEntity() {
+		Entity e = EntityPool.obtain("bullet");
+		long handle = e.getHandle();
+		assertTrue("handle", handle >= 0);
+		assertSame("get", e, EntityPool.get(handle));
+		assertTrue("alive", EntityPool.isAlive(handle));
+	}
+
+	public void testFreedEntityIsReusedWithANewHandle() {
+		Entity e = EntityPool.obtain("bullet");
+		long handle = e.getHandle();
+		String name = e.getName();
+		EntityPool.free(e);
+
+		assertTrue("free", e.isFree());
+		assertFalse("stale handle alive", EntityPool.isAlive(handle));
+		assertNull("stale handle", EntityPool.get(handle));
+		assertEquals("free count", 1, EntityPool.countFree("bullet"));
+
+		Entity again = EntityPool.obtain("bullet");
+		assertSame("reused", e, again);
+		assertFalse("still free", again.isFree());
+		assertTrue("new handle", again.getHandle() != handle);
+		assertSame("new handle", again, EntityPool.get(again.getHandle()));
+		assertNull("old handle", EntityPool.get(handle));
+		assertFalse("new name", name.equals(again.getName()));
+	}
+
+	public void testEntitiesAreOnlyReusedForTheirType() {
+		Entity e = EntityPool.obtain("bullet");
+		EntityPool.free(e);
+		assertTrue("other type", EntityPool.obtain("spark") != e);
+		assertEquals("free bullets", 1, EntityPool.countFree("bullet"));
+	}
+
+	public void testFreeingTwiceThrows() {
+		Entity e = EntityPool.obtain("bullet");
+		EntityPool.free(e);
+		try {
+			EntityPool.free(e);
+			fail("freed twice");
+		}
+		catch (IllegalStateException expected) {
+
+		}
+	}
+
+	public void testFreeingRemovesTheEntityFromItsStateAndPoolsItsComponents() {
+		State s = new State();
+		Entity e = EntityPool.obtain("bullet");
+		e.add(EntityPool.obtain(Position.class));
+		Velocity shared = new Velocity(1, 1);
+		e.add(shared);
+		Entity other = new Entity("other");
+		other.add(shared);
+		s.add(e);
+		EntityPool.free(e);
+
+		assertFalse("in state", s.getEntitySet("bullet").contains(e));
+		assertEquals("free positions", 1, EntityPool.countFree(Position.class));
+		assertEquals("velocity owned by another entity", 0, EntityPool.countFree(Velocity.class));
+	}
+
+	public void testEntitiesNotFromThePoolAreNotKept() {
+		Entity e = new Entity("bullet");
+		assertEquals("handle", -1, e.getHandle());
+		EntityPool.free(e);
+		assertEquals("free count", 0, EntityPool.countFree("bullet"));
+		assertNull("get", EntityPool.get(-1));
+	}
+
+	public void testClearMakesHandlesStale() {
+		Entity e = EntityPool.obtain("bullet");
+		long handle = e.getHandle();
+		EntityPool.free(e);
+		EntityPool.clear();
+		assertNull("get", EntityPool.get(handle));
+		assertTrue("new entity", EntityPool.obtain("bullet") != e);
+	}
+
+	public void testReusedComponentsAreReset() {
+		RigidBody r = EntityPool.obtain(RigidBody.class);
+		r.setDensity(5);
+		r.setStamp(3);
+		r.setSyncTransform(1, 2, 3);
+		EntityPool.free(r);
+		RigidBody body = EntityPool.obtain(RigidBody.class);
+		assertSame("reused", r, body);
+		assertEquals("type", RigidBody.DYNAMIC, body.getType());
+		assertEquals("density", 1, body.getDensity(), 0);
+		assertEquals("stamp", 0, body.getStamp());
+		assertNull("body", body.getBody());
+
+		Sprite s = EntityPool.obtain(Sprite.class);
+		s.setPath("missing.png");
+		EntityPool.free(s);
+		assertNull("path", EntityPool.obtain(Sprite.class).getPath());
+
+		Position p = EntityPool.obtain(Position.class);
+		p.set(4, 5);
+		EntityPool.free(p);
+		assertEquals("x", 0, EntityPool.obtain(Position.class).getX(), 0);
+	}
+
+	public void testComponentsWithoutANoArgumentConstructorCantBeObtained() {
+		try {
+			EntityPool.obtain(Counter.class);
+			fail("obtained");
+		}
+		catch (IllegalArgumentException expected) {
+
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package motor_engine;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests that sprites work without a window, where images are only read for their sizes.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class HeadlessTest {
+
+	private static final String PADDLE = "src/motor_engine/example/bricks/assets/paddle.png";
+
+	public HeadlessTest() {
+		TextureManager.remove(PADDLE);
+	}
+
+	public void testRunningHeadless() {
+		assertTrue("headless", MotorEngine.isHeadless());
+	}
+
+	public void testRegionsWithoutATextureOnlyHaveASize() {
+		TextureRegion r = new TextureRegion(null, 4, 4, 32, 8);
+		assertNull("texture", r.getTexture());
+		assertEquals("u1", 1, r.getU1(), 0);
+		assertEquals("string", "32x8", r.toString());
+	}
+
+	public void testSpriteEntitiesCanBePrinted() {
+		Entity e = new Entity("paddle");
+		e.add(new Position(1, 2));
+		Sprite s = new Sprite(PADDLE);
+		e.add(s);
+		s.begin();
+
+		assertTrue("loaded", s.isLoaded());
+		assertEquals("sprite", "32x8", s.toString());
+		String str = e.toString();
+		assertTrue("name", str.startsWith(e.getName()));
+		assertTrue("sprite", str.contains("32x8"));
+		s.end();
+		assertEquals("unloaded sprite", PADDLE, s.toString());
+	}
+}
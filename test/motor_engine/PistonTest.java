@@ -0,0 +1,136 @@
+package motor_engine;
+import java.util.ArrayList;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests the fixed and variable timesteps of the Piston. Each run is kept under a second.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class PistonTest {
+
+	// records the updates and renders of a Piston, read once the Piston has stopped
+	private static class Recorder implements LifeCycle, Interpolated {
+		ArrayList<Long> updates = new ArrayList<Long>();
+		ArrayList<Double> alphas = new ArrayList<Double>();
+		// the updates between each render
+		ArrayList<Integer> frames = new ArrayList<Integer>();
+		int sinceRender;
+		long updateTime;
+
+		public void begin() {
+
+		}
+
+		public void end() {
+
+		}
+
+		public synchronized void update(long deltaTime) {
+			updates.add(deltaTime);
+			sinceRender++;
+			if (updateTime > 0) {
+				try {
+					Thread.sleep(updateTime);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		public synchronized void render(double alpha) {
+			alphas.add(alpha);
+			frames.add(sinceRender);
+			sinceRender = 0;
+		}
+
+		synchronized int count() {
+			return updates.size();
+		}
+	}
+
+	// run a piston until its owner has been updated the given number of times, or half a second has passed
+	private static void run(Piston piston, Recorder owner, int updates) throws InterruptedException {
+		piston.setOwner(owner);
+		piston.start();
+		long deadline = System.nanoTime() + 500000000L;
+		while (owner.count() < updates && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		piston.setActive(false);
+		piston.join();
+	}
+
+	public void testStepsAreTimedInNanoseconds() {
+		Piston piston = new Piston(true, false, 60);
+		assertEquals("nanos", 16666666, piston.getStepNanos());
+		assertEquals("millis", 17, piston.getStepTime());
+
+		piston.setFrameRate(1000);
+		assertEquals("nanos at 1000", 1000000, piston.getStepNanos());
+		assertEquals("millis at 1000", 1, piston.getStepTime());
+
+		piston.setFrameRate(0);
+		assertEquals("nanos at 0", 1000000000, piston.getStepNanos());
+		assertEquals("millis at 0", 1000, piston.getStepTime());
+	}
+
+	public void testFixedStepsAddUpToTheTimeSimulated() throws InterruptedException {
+		Recorder owner = new Recorder();
+		Piston piston = new Piston(true, true, 60);
+		run(piston, owner, 9);
+
+		assertTrue("updated", owner.updates.size() >= 9);
+		long total = 0;
+		for (int i = 0; i < owner.updates.size(); i++) {
+			long step = owner.updates.get(i);
+			assertTrue("step " + step, step == 16 || step == 17);
+			total += step;
+			// the steps never drift from the nanoseconds simulated
+			assertEquals("after " + (i + 1), (i + 1) * piston.getStepNanos() / 1000000L, total);
+		}
+	}
+
+	public void testInterpolatedOwnersAreRenderedBetweenSteps() throws InterruptedException {
+		Recorder owner = new Recorder();
+		run(new Piston(true, true, 100), owner, 5);
+
+		assertTrue("rendered", owner.alphas.size() > 0);
+		for (double alpha : owner.alphas) {
+			assertTrue("alpha " + alpha, alpha >= 0 && alpha < 1);
+		}
+	}
+
+	public void testCatchingUpIsLimitedPerFrame() throws InterruptedException {
+		Recorder owner = new Recorder();
+		owner.updateTime = 25;
+		Piston piston = new Piston(true, true, 100);
+		piston.setMaxSteps(2);
+		run(piston, owner, 8);
+
+		assertTrue("updated", owner.updates.size() >= 2);
+		for (int steps : owner.frames) {
+			assertTrue("steps in a frame " + steps, steps <= 2);
+		}
+		for (long step : owner.updates) {
+			assertEquals("step", 10, step);
+		}
+	}
+
+	public void testVariableStepsAreTheElapsedMilliseconds() throws InterruptedException {
+		Recorder owner = new Recorder();
+		long start = System.nanoTime();
+		run(new Piston(false, true, 100), owner, 10);
+		long elapsed = (System.nanoTime() - start) / 1000000L;
+
+		long total = 0;
+		for (long step : owner.updates) {
+			assertTrue("step " + step, step >= 0);
+			total += step;
+		}
+		assertTrue("told " + total + " of " + elapsed, total <= elapsed);
+		assertTrue("told " + total + " of " + elapsed, total >= 10 * (owner.updates.size() - 2));
+	}
+}
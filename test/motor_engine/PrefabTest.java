@@ -0,0 +1,103 @@
+package motor_engine;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests instantiating Prefabs straight into Archetype rows with and without Overrides.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class PrefabTest {
+
+	private State state = new State();
+
+	private Prefab bullet = new Prefab("bullet");
+
+	public PrefabTest() {
+		EntityPool.clear();
+		bullet.add(new Position(1, 2));
+		bullet.add(new Velocity(0, 100));
+	}
+
+	public void testInstancesCopyTheTemplates() {
+		Entity[] es = bullet.instantiate(state, 3);
+		assertEquals("count", 3, es.length);
+		assertEquals("in state", 3, state.getEntitySet("bullet").size());
+		assertSame("archetype", es[0].getArchetype(), es[2].getArchetype());
+		for (Entity e : es) {
+			Velocity v = (Velocity) e.get(Velocity.class);
+			assertEquals("velocity y", 100, v.getY(), 0);
+			assertSame("parent", e, v.getParent());
+			assertTrue("active", e.isActive());
+		}
+		assertTrue("own copies", es[0].get(Velocity.class) != es[1].get(Velocity.class));
+		assertTrue("not the template", es[0].get(Velocity.class) != bullet.get(Velocity.class));
+	}
+
+	public void testOverridesSetTheValuesOfEachInstance() {
+		double[] xs = {10, 20, 30};
+		double[] ys = {-1, -2, -3};
+		Entity[] es = bullet.instantiate(state, 3, new Prefab.Overrides().set(Position.class, xs, ys));
+		for (int i = 0; i < es.length; i++) {
+			Position p = (Position) es[i].get(Position.class);
+			assertEquals("x", xs[i], p.getX(), 0);
+			assertEquals("y", ys[i], p.getY(), 0);
+			assertEquals("velocity untouched", 100, ((Velocity) es[i].get(Velocity.class)).getY(), 0);
+		}
+		assertEquals("template untouched", 1, ((Position) bullet.get(Position.class)).getX(), 0);
+	}
+
+	public void testOverridingADoubleComponent() {
+		bullet.add(new Rotation(0));
+		double[] angles = {0.5, 1.5};
+		Entity[] es = bullet.instantiate(state, 2, new Prefab.Overrides().set(Rotation.class, angles));
+		assertEquals("first", 0.5, ((Rotation) es[0].get(Rotation.class)).get(), 0);
+		assertEquals("second", 1.5, ((Rotation) es[1].get(Rotation.class)).get(), 0);
+	}
+
+	public void testOverridingAMissingClassThrows() {
+		try {
+			bullet.instantiate(state, 1, new Prefab.Overrides().set(Rotation.class, new double[] {1}));
+			fail("overrode a missing class");
+		}
+		catch (IllegalArgumentException expected) {
+
+		}
+	}
+
+	public void testTooFewValuesThrow() {
+		try {
+			bullet.instantiate(state, 3, new Prefab.Overrides().set(Position.class, new double[2], new double[2]));
+			fail("too few values");
+		}
+		catch (IllegalArgumentException expected) {
+
+		}
+	}
+
+	public void testOverridesNeedAnArrayPerValue() {
+		try {
+			new Prefab.Overrides().set(Position.class, new double[1]);
+			fail("one array for a vector");
+		}
+		catch (IllegalArgumentException expected) {
+
+		}
+	}
+
+	public void testInstancesMatchEntitiesBuiltOneByOne() {
+		Entity built = bullet.create();
+		state.add(built);
+		Entity made = bullet.instantiate(state, 1)[0];
+		assertSame("archetype", built.getArchetype(), made.getArchetype());
+		assertEquals("rows", 2, made.getArchetype().size());
+	}
+
+	public void testFreedInstancesAreReused() {
+		Entity e = bullet.instantiate(state, 1)[0];
+		EntityPool.free(e);
+		assertSame("reused", e, bullet.instantiate(state, 1)[0]);
+		assertEquals("velocity", 100, ((Velocity) e.get(Velocity.class)).getY(), 0);
+	}
+}
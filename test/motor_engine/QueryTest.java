@@ -0,0 +1,80 @@
+package motor_engine;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests that registered Queries are shared and follow the Archetypes created after them.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class QueryTest {
+
+	private State state = new State();
+
+	// an entity of the test state with the given components
+	private Entity entity(Component... components) {
+		Entity e = new Entity("thing");
+		for (Component c : components) {
+			e.add(c);
+		}
+		state.add(e);
+		return e;
+	}
+
+	public void testEqualQueriesAreShared() {
+		ComponentStorage storage = state.getStorage();
+		Query q = storage.register(new Query(Position.class, Velocity.class));
+		assertSame("same order", q, storage.register(new Query(Position.class, Velocity.class)));
+		assertSame("other order", q, storage.register(new Query(Velocity.class, Position.class)));
+		assertTrue("excluding", q != storage.register(new Query(Position.class, Velocity.class).without(Size.class)));
+		assertSame("storage", storage, q.getStorage());
+	}
+
+	public void testQueriesFollowNewArchetypes() {
+		ComponentStorage storage = state.getStorage();
+		Query q = storage.register(new Query(Position.class));
+		entity(new Position(1, 1));
+		entity(new Position(1, 1), new Velocity(1, 1));
+		entity(new Velocity(1, 1));
+
+		assertEquals("archetypes", 2, q.getArchetypeCount());
+		assertEquals("entities", 2, q.size());
+	}
+
+	public void testRegisteringFindsExistingArchetypes() {
+		entity(new Position(1, 1), new Size(1, 1));
+		entity(new Position(1, 1), new Velocity(1, 1));
+		Query q = state.getStorage().register(new Query(Position.class).without(Velocity.class));
+		assertEquals("archetypes", 1, q.getArchetypeCount());
+		assertTrue("has size", q.getArchetype(0).has(Size.class));
+	}
+
+	public void testMovedEntitiesLeaveTheQuery() {
+		Query q = state.getStorage().register(new Query(Position.class).without(Velocity.class));
+		Entity e = entity(new Position(1, 1));
+		assertEquals("before", 1, q.size());
+		e.add(new Velocity(1, 1));
+		assertEquals("after", 0, q.size());
+	}
+
+	public void testARegisteredQueryCanNotBeChanged() {
+		Query q = state.getStorage().register(new Query(Position.class));
+		try {
+			q.without(Velocity.class);
+			fail("changed");
+		}
+		catch (IllegalStateException expected) {
+
+		}
+	}
+
+	public void testAQueryRegisteredElsewhereIsCopied() {
+		Query q = state.getStorage().register(new Query(Position.class));
+		State other = new State();
+		Query copy = other.getStorage().register(q);
+		assertTrue("copied", copy != q);
+		assertSame("copy storage", other.getStorage(), copy.getStorage());
+		assertSame("original storage", state.getStorage(), q.getStorage());
+	}
+}
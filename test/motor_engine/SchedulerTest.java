@@ -0,0 +1,221 @@
+package motor_engine;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests that a Scheduler runs every active Rule once and keeps conflicting Rules in registration order, and that
+ * splitting update passes and batch rules across the pool changes nothing and only happens when it is safe.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SchedulerTest {
+
+	private Scheduler scheduler = new Scheduler();
+
+	private ArrayList<Rule> rules = new ArrayList<Rule>();
+
+	// the next position in the order the rules ran
+	private AtomicInteger clock = new AtomicInteger();
+
+	// a rule remembering when it last ran and how often
+	private class Recorder extends Rule {
+		volatile int ran = -1;
+		volatile int count;
+
+		Recorder() {
+			setActive(true);
+			rules.add(this);
+		}
+
+		public void update(long deltaTime) {
+			ran = clock.getAndIncrement();
+			count++;
+		}
+
+		public void begin() {
+
+		}
+
+		public void end() {
+
+		}
+	}
+
+	// a component recording the threads it is updated on
+	public static class Tracer extends Component {
+		static Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+		private boolean safe;
+
+		public Tracer(boolean safe) {
+			this.safe = safe;
+		}
+
+		public void update(long deltaTime) {
+			threads.add(Thread.currentThread());
+		}
+
+		public boolean isParallelSafe() {
+			return safe;
+		}
+
+		public Component clone() {
+			return new Tracer(safe);
+		}
+
+		public void begin() {
+
+		}
+
+		public void end() {
+
+		}
+
+		public String toString() {
+			return "Tracer";
+		}
+	}
+
+	// the threads a parallel state of many tracers is updated on
+	private Set<Thread> traced(boolean safe) {
+		State s = new State();
+		s.setParallel(true);
+		s.getStorage().setBatchSize(16);
+		for (int i = 0; i < 100; i++) {
+			Entity e = new Entity("traced");
+			e.add(new Tracer(safe));
+			e.setActive(true);
+			s.add(e);
+		}
+		Tracer.threads.clear();
+		s.update(16);
+		return Tracer.threads;
+	}
+
+	public void testComponentsAreUpdatedOnOneThreadUnlessParallelSafe() {
+		Set<Thread> threads = traced(false);
+		assertEquals("threads", 1, threads.size());
+		assertTrue("calling thread", threads.contains(Thread.currentThread()));
+
+		threads = traced(true);
+		assertFalse("calling thread", threads.contains(Thread.currentThread()));
+	}
+
+	public void testParallelBatchRulesVisitEveryRowOnce() {
+		State s = new State();
+		for (int i = 0; i < 100; i++) {
+			Entity e = new Entity("rock");
+			e.add(new Position(i, 0));
+			s.add(e);
+		}
+		final int[] visits = new int[100];
+		BatchRule r = new BatchRule(new Query(Position.class)) {
+			public void update(Archetype chunk, int start, int end, long deltaTime) {
+				for (int row = start; row < end; row++) {
+					synchronized (visits) {
+						visits[(int) ((Position) chunk.getComponent(chunk.getSlot(Position.class), row)).getX()]++;
+					}
+				}
+			}
+
+			public void begin() {
+
+			}
+
+			public void end() {
+
+			}
+		};
+		r.setParallel(true);
+		r.setBatchSize(7);
+		s.add(r);
+		r.update(16);
+		for (int i = 0; i < visits.length; i++) {
+			assertEquals("visits of " + i, 1, visits[i]);
+		}
+	}
+
+	public void testEveryActiveRuleRunsOnce() {
+		Recorder a = new Recorder();
+		Recorder b = new Recorder();
+		Recorder idle = new Recorder();
+		a.reads(Position.class);
+		b.reads(Position.class);
+		idle.setActive(false);
+		scheduler.update(rules, 16);
+		scheduler.update(rules, 16);
+
+		assertEquals("a", 2, a.count);
+		assertEquals("b", 2, b.count);
+		assertEquals("inactive", 0, idle.count);
+	}
+
+	public void testConflictingRulesRunInRegistrationOrder() {
+		Recorder writer = new Recorder();
+		Recorder other = new Recorder();
+		Recorder reader = new Recorder();
+		Recorder undeclared = new Recorder();
+		writer.writes(Position.class);
+		other.writes(Velocity.class);
+		reader.reads(Position.class);
+		scheduler.update(rules, 16);
+
+		assertTrue("reader after writer", reader.ran > writer.ran);
+		assertTrue("undeclared after writer", undeclared.ran > writer.ran);
+		assertTrue("undeclared after other", undeclared.ran > other.ran);
+		assertTrue("undeclared after reader", undeclared.ran > reader.ran);
+	}
+
+	public void testRulesConflictOverWrites() {
+		Recorder a = new Recorder();
+		Recorder b = new Recorder();
+		Recorder c = new Recorder();
+		Recorder d = new Recorder();
+		a.reads(Position.class);
+		b.reads(Position.class);
+		c.writes(Position.class);
+		d.writes(Velocity.class);
+
+		assertFalse("readers", a.conflicts(b));
+		assertTrue("reader and writer", a.conflicts(c));
+		assertTrue("writer and reader", c.conflicts(a));
+		assertFalse("different classes", c.conflicts(d));
+		assertTrue("undeclared", a.conflicts(new Recorder()));
+	}
+
+	// a state of active entities accelerating at different rates
+	private State falling(boolean parallel) {
+		State s = new State();
+		s.setParallel(parallel);
+		s.getStorage().setBatchSize(16);
+		for (int i = 0; i < 500; i++) {
+			Entity e = new Entity("rock");
+			e.add(new Position(i, 0));
+			e.add(new Velocity(i % 7, 0));
+			e.add(new Acceleration(0, i % 13));
+			e.setActive(true);
+			s.add(e);
+		}
+		return s;
+	}
+
+	public void testParallelPassesMatchSerialPasses() {
+		State serial = falling(false);
+		State parallel = falling(true);
+		for (int i = 0; i < 10; i++) {
+			serial.update(16);
+			parallel.update(16);
+		}
+		Entity[] a = serial.getEntities("rock");
+		Entity[] b = parallel.getEntities("rock");
+		for (int i = 0; i < a.length; i++) {
+			Position p = (Position) a[i].get(Position.class);
+			Position q = (Position) b[i].get(Position.class);
+			assertEquals("x of " + i, p.getX(), q.getX(), 0);
+			assertEquals("y of " + i, p.getY(), q.getY(), 0);
+		}
+		assertTrue("moved", ((Position) a[a.length - 1].get(Position.class)).getY() > 0);
+	}
+}
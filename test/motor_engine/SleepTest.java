@@ -0,0 +1,93 @@
+package motor_engine;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests Entities falling asleep when their updated Components are idle and waking when they change.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SleepTest {
+
+	private State state = new State();
+
+	// an active entity of the test state moving at the given speed
+	private Entity moving(double vx, double vy) {
+		Entity e = new Entity("moving");
+		e.add(new Position(0, 0));
+		e.add(new Velocity(vx, vy));
+		e.setActive(true);
+		state.add(e);
+		return e;
+	}
+
+	private double x(Entity e) {
+		return ((Position) e.get(Position.class)).getX();
+	}
+
+	public void testIdleEntitiesFallAsleep() {
+		Entity still = moving(0, 0);
+		Entity e = moving(10, 0);
+		state.update(100);
+
+		assertTrue("still asleep", still.isSleeping());
+		assertFalse("moving asleep", e.isSleeping());
+		assertEquals("awake", 1, state.getStorage().countAwake());
+		assertEquals("x", 1, x(e), 1e-9);
+	}
+
+	public void testChangingAnUpdatedComponentWakes() {
+		Entity e = moving(0, 0);
+		state.update(100);
+		assertTrue("asleep", e.isSleeping());
+
+		((Velocity) e.get(Velocity.class)).set(10, 0);
+		assertFalse("woken", e.isSleeping());
+		state.update(100);
+		assertEquals("x", 1, x(e), 1e-9);
+	}
+
+	public void testChangingAValueHolderDoesNotWake() {
+		Entity e = moving(0, 0);
+		state.update(100);
+		((Position) e.get(Position.class)).set(5, 5);
+		assertTrue("asleep", e.isSleeping());
+	}
+
+	public void testSleepingEntitiesAreNotUpdated() {
+		Entity e = moving(10, 0);
+		e.sleep();
+		state.update(100);
+		assertTrue("asleep", e.isSleeping());
+		assertEquals("x asleep", 0, x(e), 0);
+
+		e.wake();
+		state.update(100);
+		assertEquals("x awake", 1, x(e), 1e-9);
+	}
+
+	public void testActivatingWakes() {
+		Entity e = moving(10, 0);
+		e.sleep();
+		e.setActive(false);
+		e.setActive(true);
+		assertFalse("asleep", e.isSleeping());
+	}
+
+	public void testSleepingSurvivesMovingBetweenArchetypes() {
+		Entity e = moving(10, 0);
+		e.sleep();
+		e.add(new Size(1, 1));
+		state.update(100);
+		assertEquals("x", 0, x(e), 0);
+		assertEquals("awake", 0, state.getStorage().countAwake());
+	}
+
+	public void testAddingAnUpdatedComponentWakes() {
+		Entity e = moving(0, 0);
+		e.sleep();
+		e.add(new Acceleration(10, 0));
+		assertFalse("asleep", e.isSleeping());
+	}
+}
@@ -0,0 +1,67 @@
+package motor_engine;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Runs the tests of the engine without a test framework. Every public method of a test class whose name starts
+ * with "test" is run on a new instance of the class, and a test fails by throwing.
+ * Usage: TestRunner test-class...
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class TestRunner {
+
+	/**
+	 * Run the tests of the given classes and exit with 1 if any failed.
+	 *
+	 * @param	args	The names of the test classes.
+	 */
+	public static void main(String[] args) {
+		MotorEngine.setHeadless(true);
+		int run = 0;
+		int failed = 0;
+		for (String name : args) {
+			Class<?> type;
+			try {
+				type = Class.forName(name);
+			}
+			catch (ClassNotFoundException e) {
+				System.out.println(name + " not found");
+				failed++;
+				continue;
+			}
+			Method[] methods = type.getMethods();
+			Arrays.sort(methods, new Comparator<Method>() {
+				public int compare(Method a, Method b) {
+					return a.getName().compareTo(b.getName());
+				}
+			});
+			for (Method m : methods) {
+				if (!m.getName().startsWith("test") || m.getParameterTypes().length > 0 || Modifier.isStatic(m.getModifiers())) {
+					continue;
+				}
+				run++;
+				String test = type.getSimpleName() + "." + m.getName();
+				try {
+					m.invoke(type.getDeclaredConstructor().newInstance());
+					System.out.println("ok      " + test);
+				}
+				catch (InvocationTargetException e) {
+					failed++;
+					System.out.println("FAILED  " + test + ": " + e.getCause());
+					e.getCause().printStackTrace(System.out);
+				}
+				catch (ReflectiveOperationException e) {
+					failed++;
+					System.out.println("FAILED  " + test + ": " + e);
+				}
+			}
+		}
+		System.out.println(run + " tests, " + failed + " failed");
+		System.exit((failed > 0) ? 1 : 0);
+	}
+}
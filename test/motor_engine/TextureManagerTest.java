@@ -0,0 +1,93 @@
+package motor_engine;
+import motor_engine.components.Sprite;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests counting the Sprites using each image and unloading images once nothing uses them. Run headless, so images
+ * are read for their sizes straight away and never uploaded.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class TextureManagerTest {
+
+	private static final String PADDLE = "src/motor_engine/example/bricks/assets/paddle.png";
+	private static final String BACKGROUND = "src/motor_engine/example/bricks/assets/fg.png";
+
+	public TextureManagerTest() {
+		TextureManager.remove(PADDLE);
+		TextureManager.remove(BACKGROUND);
+	}
+
+	public void testAcquiringLoadsTheImage() {
+		TextureManager.acquire(PADDLE);
+		assertTrue("loaded", TextureManager.isLoaded(PADDLE));
+		assertFalse("loading", TextureManager.isLoading(PADDLE));
+		assertEquals("references", 1, TextureManager.getReferences(PADDLE));
+		assertEquals("width", 32, TextureManager.getRegion(PADDLE).getWidth());
+		assertEquals("height", 8, TextureManager.getRegion(PADDLE).getHeight());
+	}
+
+	public void testImagesAreUnloadedWhenTheLastReferenceIsReleased() {
+		TextureManager.acquire(PADDLE);
+		TextureManager.acquire(PADDLE);
+		TextureManager.release(PADDLE);
+		assertTrue("still used", TextureManager.isLoaded(PADDLE));
+		assertEquals("references", 1, TextureManager.getReferences(PADDLE));
+
+		TextureManager.release(PADDLE);
+		assertFalse("unloaded", TextureManager.has(PADDLE));
+		assertEquals("references", 0, TextureManager.getReferences(PADDLE));
+	}
+
+	public void testReleasingAnUnusedImageDoesNothing() {
+		TextureManager.release(PADDLE);
+		assertFalse("known", TextureManager.has(PADDLE));
+		TextureManager.add(PADDLE);
+		TextureManager.release(PADDLE);
+		assertTrue("added", TextureManager.has(PADDLE));
+		assertEquals("references", 0, TextureManager.getReferences(PADDLE));
+	}
+
+	public void testAddedImagesStayWhenReleased() {
+		TextureManager.add(PADDLE);
+		TextureManager.acquire(PADDLE);
+		TextureManager.release(PADDLE);
+		assertTrue("pinned", TextureManager.isLoaded(PADDLE));
+	}
+
+	public void testRemovingForgetsTheImageHoweverManyUseIt() {
+		TextureManager.acquire(PADDLE);
+		TextureManager.acquire(PADDLE);
+		TextureManager.remove(PADDLE);
+		assertFalse("known", TextureManager.has(PADDLE));
+		TextureManager.release(PADDLE);
+		assertEquals("references", 0, TextureManager.getReferences(PADDLE));
+	}
+
+	public void testSpritesHoldTheirImageWhileInUse() {
+		Sprite a = new Sprite(PADDLE);
+		Sprite b = new Sprite(PADDLE);
+		a.begin();
+		b.begin();
+		a.begin();
+		assertEquals("references", 2, TextureManager.getReferences(PADDLE));
+		assertEquals("width", 32, a.getWidth(), 0);
+
+		a.end();
+		b.end();
+		b.end();
+		assertFalse("unloaded", TextureManager.has(PADDLE));
+	}
+
+	public void testChangingThePathSwapsTheImage() {
+		Sprite s = new Sprite(PADDLE);
+		s.begin();
+		s.setPath(BACKGROUND);
+		assertFalse("old image", TextureManager.has(PADDLE));
+		assertEquals("new image", 1, TextureManager.getReferences(BACKGROUND));
+		assertEquals("width", 250, s.getWidth(), 0);
+		s.end();
+		assertFalse("ended", TextureManager.has(BACKGROUND));
+	}
+}
@@ -0,0 +1,85 @@
+package motor_engine.input;
+import org.lwjgl.input.Keyboard;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests that posted input events, the way the render thread hands device input to the simulation, are applied by
+ * the updates of the KeyboardManager and MouseManager.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class InputTest {
+
+	public InputTest() {
+		step();
+		step();
+	}
+
+	// apply the posted events, read back after the following update
+	private void step() {
+		KeyboardManager.update();
+		MouseManager.update();
+	}
+
+	public void testPostedKeysArePressedAndReleased() {
+		KeyboardManager.post(Keyboard.KEY_A, true);
+		step();
+		step();
+		assertTrue("pressed", KeyboardManager.pressed(Keyboard.KEY_A));
+		assertTrue("just pressed", KeyboardManager.justPressed(Keyboard.KEY_A));
+
+		step();
+		assertTrue("held", KeyboardManager.pressed(Keyboard.KEY_A));
+		assertFalse("not just pressed", KeyboardManager.justPressed(Keyboard.KEY_A));
+
+		KeyboardManager.post(Keyboard.KEY_A, false);
+		step();
+		step();
+		assertTrue("released", KeyboardManager.released(Keyboard.KEY_A));
+		assertTrue("just released", KeyboardManager.justReleased(Keyboard.KEY_A));
+	}
+
+	public void testPollingWithoutDevicesDoesNothing() {
+		KeyboardManager.poll();
+		MouseManager.poll();
+		ControllerManager.poll();
+		step();
+		step();
+		assertFalse("keys", KeyboardManager.anyPressed());
+		assertFalse("buttons", MouseManager.anyPressed());
+	}
+
+	public void testMovesAndScrollsAddUpUntilTheUpdate() {
+		MouseManager.postMove(10, 10);
+		step();
+		step();
+		MouseManager.postMove(15, 12);
+		MouseManager.postMove(20, 16);
+		MouseManager.postScroll(1);
+		MouseManager.postScroll(2);
+		step();
+		step();
+		assertEquals("x", 20, MouseManager.getX());
+		assertEquals("y", 16, MouseManager.getY());
+		assertEquals("dx", 10, MouseManager.getDeltaX());
+		assertEquals("dy", 6, MouseManager.getDeltaY());
+		assertEquals("wheel", 3, MouseManager.getDeltaWheel());
+		assertTrue("in window", MouseManager.inWindow());
+
+		step();
+		assertEquals("still", 0, MouseManager.getDeltaX());
+		assertEquals("x kept", 20, MouseManager.getX());
+	}
+
+	public void testPostedButtons() {
+		MouseManager.post(1, true);
+		step();
+		step();
+		assertTrue("pressed", MouseManager.pressed(1));
+		MouseManager.post(1, false);
+		step();
+		step();
+		assertTrue("released", MouseManager.justReleased(1));
+	}
+}
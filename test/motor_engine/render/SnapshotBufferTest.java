@@ -0,0 +1,90 @@
+package motor_engine.render;
+import motor_engine.*;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests handing captures of a State from the simulation to the renderer.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SnapshotBufferTest {
+
+	private State state = new State();
+
+	private SnapshotBuffer snapshots = state.getSnapshots();
+
+	// an active entity of the test state moving at the given speed
+	private Entity moving(double x, double vx) {
+		Entity e = new Entity("moving");
+		e.add(new Position(x, 0));
+		e.add(new Velocity(vx, 0));
+		e.setActive(true);
+		state.add(e);
+		return e;
+	}
+
+	public void testNothingIsCapturedUntilARendererAsks() {
+		moving(0, 10);
+		state.update(100);
+		assertFalse("requested", snapshots.isRequested());
+		assertEquals("first acquire", 0, snapshots.acquire().size());
+		assertTrue("requested", snapshots.isRequested());
+
+		state.update(100);
+		assertEquals("captured", 1, snapshots.acquire().size());
+	}
+
+	public void testAcquiringAgainKeepsTheSnapshotUntilANewOneIsPublished() {
+		moving(0, 10);
+		snapshots.acquire();
+		state.update(100);
+		RenderSnapshot first = snapshots.acquire();
+		assertSame("unchanged", first, snapshots.acquire());
+		state.update(100);
+		assertTrue("newer", snapshots.acquire() != first);
+	}
+
+	public void testPositionsAreInterpolatedAcrossTheUpdate() {
+		Entity e = moving(0, 10);
+		snapshots.acquire();
+		snapshots.track(e);
+		state.update(100);
+		RenderSnapshot s = snapshots.acquire();
+		int i = s.indexOf(e);
+		assertEquals("start", 0, s.getX(i, 0), 1e-9);
+		assertEquals("middle", 0.5, s.getX(i, 0.5), 1e-9);
+		assertEquals("end", 1, s.getX(i, 1), 1e-9);
+	}
+
+	public void testTrackedEntitiesAreFound() {
+		moving(0, 0);
+		Entity camera = moving(5, 0);
+		Entity untracked = moving(7, 0);
+		snapshots.track(camera);
+		snapshots.track(camera);
+		snapshots.acquire();
+		state.update(100);
+		RenderSnapshot s = snapshots.acquire();
+		assertEquals("camera x", 5, s.getX(s.indexOf(camera), 1), 0);
+		assertEquals("untracked", -1, s.indexOf(untracked));
+
+		snapshots.untrack(camera);
+		assertFalse("untracked camera", snapshots.isTracked(camera));
+		state.update(100);
+		assertEquals("after untracking", -1, snapshots.acquire().indexOf(camera));
+	}
+
+	public void testSpritePathsAreCopied() {
+		Entity e = moving(0, 0);
+		Sprite sprite = new Sprite("a.png");
+		e.add(sprite);
+		snapshots.track(e);
+		snapshots.acquire();
+		state.update(100);
+		RenderSnapshot s = snapshots.acquire();
+		sprite.setPath("b.png");
+		assertEquals("path", "a.png", s.getPath(s.indexOf(e)));
+	}
+}
@@ -0,0 +1,165 @@
+package motor_engine.render;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests the quads a SpriteBatch builds and when it draws them, with the OpenGL calls recorded instead of made.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SpriteBatchTest {
+
+	// a batch recording its draw calls
+	private static class Recorder extends SpriteBatch {
+		ArrayList<Integer> textures = new ArrayList<Integer>();
+		ArrayList<float[]> draws = new ArrayList<float[]>();
+		int setUps;
+		int tearDowns;
+
+		Recorder(int capacity) {
+			super(capacity);
+		}
+
+		protected void setUp() {
+			setUps++;
+		}
+
+		protected void submit(int textureID, FloatBuffer vertices, int quads) {
+			assertEquals("vertices", quads * 4 * VERTEX_SIZE, vertices.remaining());
+			float[] copy = new float[vertices.remaining()];
+			vertices.get(copy);
+			textures.add(textureID);
+			draws.add(copy);
+		}
+
+		protected void tearDown() {
+			tearDowns++;
+		}
+
+		// the number of quads in a draw call
+		int quads(int draw) {
+			return draws.get(draw).length / (4 * VERTEX_SIZE);
+		}
+
+		// a float of a vertex of a draw call
+		float get(int draw, int vertex, int offset) {
+			return draws.get(draw)[vertex * VERTEX_SIZE + offset];
+		}
+	}
+
+	private Recorder batch = new Recorder(3);
+
+	// add an unrotated square quad of a texture
+	private void square(int texture, double x, double y) {
+		batch.draw(texture, x, y, 1, 1, 0, 0, 0, 1, 1, 1, 1, 1, 1);
+	}
+
+	public void testQuadsSharingATextureAreDrawnTogether() {
+		batch.begin();
+		square(1, 0, 0);
+		square(1, 5, 0);
+		assertEquals("before end", 0, batch.draws.size());
+		batch.end();
+
+		assertEquals("draw calls", 1, batch.getDrawCalls());
+		assertEquals("quads", 2, batch.quads(0));
+		assertEquals("texture", 1, (int) batch.textures.get(0));
+		assertEquals("set up", 1, batch.setUps);
+		assertEquals("torn down", 1, batch.tearDowns);
+	}
+
+	public void testChangingTextureDrawsTheQuadsSoFar() {
+		batch.begin();
+		square(1, 0, 0);
+		square(2, 0, 0);
+		square(2, 0, 0);
+		square(1, 0, 0);
+		batch.end();
+
+		assertEquals("draw calls", 3, batch.getDrawCalls());
+		assertEquals("first", 1, batch.quads(0));
+		assertEquals("second", 2, batch.quads(1));
+		assertEquals("third", 1, batch.quads(2));
+		assertEquals("texture", 2, (int) batch.textures.get(1));
+	}
+
+	public void testAFullBatchIsDrawn() {
+		batch.begin();
+		for (int i = 0; i < 7; i++) {
+			square(1, i, 0);
+		}
+		batch.end();
+
+		assertEquals("draw calls", 3, batch.getDrawCalls());
+		assertEquals("full", 3, batch.quads(0));
+		assertEquals("full again", 3, batch.quads(1));
+		assertEquals("rest", 1, batch.quads(2));
+	}
+
+	public void testDrawCallsAreCountedPerBatch() {
+		batch.begin();
+		square(1, 0, 0);
+		square(2, 0, 0);
+		batch.end();
+		batch.begin();
+		square(1, 0, 0);
+		batch.end();
+		assertEquals("last batch", 1, batch.getDrawCalls());
+
+		batch.begin();
+		batch.end();
+		assertEquals("empty", 0, batch.getDrawCalls());
+	}
+
+	public void testVerticesHoldCornersTextureAndColour() {
+		batch.begin();
+		batch.draw(1, 10, 20, 2, 1, 0, 0.25f, 0.5f, 0.75f, 1, 0.1f, 0.2f, 0.3f, 0.4f);
+		batch.end();
+
+		// top right, top left, bottom left, bottom right
+		float[][] expected = {
+			{12, 21, 0.75f, 0.5f},
+			{8, 21, 0.25f, 0.5f},
+			{8, 19, 0.25f, 1},
+			{12, 19, 0.75f, 1}};
+		for (int v = 0; v < 4; v++) {
+			for (int i = 0; i < 4; i++) {
+				assertEquals("vertex " + v + " " + i, expected[v][i], batch.get(0, v, i), 1e-6);
+			}
+			assertEquals("r", 0.1f, batch.get(0, v, 4), 1e-6);
+			assertEquals("g", 0.2f, batch.get(0, v, 5), 1e-6);
+			assertEquals("b", 0.3f, batch.get(0, v, 6), 1e-6);
+			assertEquals("a", 0.4f, batch.get(0, v, 7), 1e-6);
+		}
+	}
+
+	public void testQuadsAreRotatedAroundTheirCentre() {
+		batch.begin();
+		batch.draw(1, 10, 20, 2, 1, 90, 0, 0, 1, 1, 1, 1, 1, 1);
+		batch.end();
+
+		// a quarter turn swaps the half width and height
+		assertEquals("top right x", 9, batch.get(0, 0, 0), 1e-5);
+		assertEquals("top right y", 22, batch.get(0, 0, 1), 1e-5);
+		assertEquals("bottom left x", 11, batch.get(0, 2, 0), 1e-5);
+		assertEquals("bottom left y", 18, batch.get(0, 2, 1), 1e-5);
+	}
+
+	public void testBeginAndEndMustAlternate() {
+		try {
+			batch.end();
+			fail("ended before beginning");
+		}
+		catch (IllegalStateException e) {
+		}
+		batch.begin();
+		try {
+			batch.begin();
+			fail("began twice");
+		}
+		catch (IllegalStateException e) {
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package motor_engine.rules;
+import motor_engine.*;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests that the Kinematics rule moves Entities exactly as the updates of their Components do.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class KinematicsTest {
+
+	// the same entities in a state integrated by the rule and in one updating the components
+	private State integrated = new State(800, 600);
+	private State updated = new State(800, 600);
+
+	private Entity[] integratedEntities;
+	private Entity[] updatedEntities;
+
+	public KinematicsTest() {
+		integratedEntities = populate(integrated, true);
+		updatedEntities = populate(updated, false);
+	}
+
+	// fill a state with every kind of row the rule handles
+	private static Entity[] populate(State s, boolean active) {
+		Physics physics = new Physics();
+		physics.setGravity(0, 0);
+		s.add(physics);
+		Kinematics kinematics = new Kinematics();
+		s.add(kinematics);
+
+		Entity moving = entity(s, 0, 0, 10, -5);
+		Entity accelerating = entity(s, 5, 5, 1, 2);
+		accelerating.add(new Acceleration(30, -20));
+		Entity dragged = entity(s, -5, 0, -3, 8);
+		dragged.add(new Drag(50, 50));
+		Entity everything = entity(s, 1, 1, 4, 4);
+		everything.add(new Acceleration(-2, 6));
+		everything.add(new Drag(1.5, 0.5));
+
+		Entity sleeping = entity(s, 3, 3, 7, 7);
+		sleeping.sleep();
+
+		Velocity shared = new Velocity(2, 3);
+		Entity first = entity(s, 10, 10, 0, 0);
+		Entity second = entity(s, 20, 20, 0, 0);
+		first.add(shared);
+		second.add(shared);
+
+		Entity body = entity(s, -10, -10, 60, 0);
+		body.add(new Size(1, 1));
+		body.add(new Drag(30, 0));
+		body.add(new RigidBody());
+
+		s.begin();
+		kinematics.setActive(active);
+		return new Entity[] {moving, accelerating, dragged, everything, sleeping, first, second, body};
+	}
+
+	// an active entity of a state at the given position and speed
+	private static Entity entity(State s, double x, double y, double vx, double vy) {
+		Entity e = new Entity("moving");
+		e.add(new Position(x, y));
+		e.add(new Velocity(vx, vy));
+		e.setActive(true);
+		s.add(e);
+		return e;
+	}
+
+	private void update(long deltaTime, int times) {
+		for (int i = 0; i < times; i++) {
+			integrated.update(deltaTime);
+			updated.update(deltaTime);
+		}
+	}
+
+	private void assertMatch(String step) {
+		for (int i = 0; i < integratedEntities.length; i++) {
+			Position ip = (Position) integratedEntities[i].get(Position.class);
+			Position up = (Position) updatedEntities[i].get(Position.class);
+			Velocity iv = (Velocity) integratedEntities[i].get(Velocity.class);
+			Velocity uv = (Velocity) updatedEntities[i].get(Velocity.class);
+			String name = step + " entity " + i;
+			assertEquals(name + " x", up.getX(), ip.getX(), 1e-9);
+			assertEquals(name + " y", up.getY(), ip.getY(), 1e-9);
+			assertEquals(name + " vx", uv.getX(), iv.getX(), 1e-9);
+			assertEquals(name + " vy", uv.getY(), iv.getY(), 1e-9);
+			assertEquals(name + " asleep", updatedEntities[i].isSleeping() ? 1 : 0, integratedEntities[i].isSleeping() ? 1 : 0);
+		}
+	}
+
+	public void testTheRuleReplacesTheComponentUpdates() {
+		ComponentStorage storage = integrated.getStorage();
+		assertTrue("velocity", storage.isReplaced(Velocity.class));
+		assertTrue("drag", storage.isReplaced(Drag.class));
+		assertFalse("inactive", updated.getStorage().isReplaced(Velocity.class));
+	}
+
+	public void testIntegratingMatchesUpdatingComponents() {
+		update(16, 1);
+		assertMatch("first");
+		update(16, 30);
+		assertMatch("later");
+		update(100, 5);
+		assertMatch("long");
+	}
+
+	public void testDragStopsAtZero() {
+		update(100, 2);
+		assertMatch("stopped");
+		Velocity v = (Velocity) integratedEntities[2].get(Velocity.class);
+		assertEquals("vx", 0, v.getX(), 0);
+		assertEquals("vy", 0, v.getY(), 0);
+		assertTrue("asleep", integratedEntities[2].isSleeping());
+	}
+
+	public void testSleepingRowsAreNotMoved() {
+		update(16, 10);
+		assertMatch("asleep");
+		Position p = (Position) integratedEntities[4].get(Position.class);
+		assertEquals("x", 3, p.getX(), 0);
+		assertEquals("y", 3, p.getY(), 0);
+	}
+
+	public void testSharedComponentsFallBack() {
+		update(50, 4);
+		assertMatch("shared");
+		Position p = (Position) integratedEntities[6].get(Position.class);
+		assertTrue("moved", p.getX() > 20);
+	}
+
+	public void testSimulatedBodiesAreMovedByPhysics() {
+		update(16, 3);
+		assertMatch("simulated");
+		RigidBody r = (RigidBody) integratedEntities[7].get(RigidBody.class);
+		assertTrue("simulated", r.getBody() != null);
+	}
+}
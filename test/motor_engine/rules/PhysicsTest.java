@@ -0,0 +1,164 @@
+package motor_engine.rules;
+import motor_engine.*;
+import motor_engine.components.*;
+import org.jbox2d.common.Vec2;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests the Physics rule creating bodies for Entities and copying them back, without a window.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class PhysicsTest {
+
+	private State state = new State(800, 600);
+
+	private Physics physics = new Physics();
+
+	public PhysicsTest() {
+		physics.setGravity(0, 0);
+		state.add(physics);
+		state.begin();
+	}
+
+	// an active entity of the test state with a dynamic body moving at the given speed
+	private Entity body(double vx, double vy) {
+		Entity e = new Entity("body");
+		e.add(new Position(0, 0));
+		e.add(new Size(1, 1));
+		e.add(new Velocity(vx, vy));
+		e.add(new RigidBody());
+		e.setActive(true);
+		state.add(e);
+		return e;
+	}
+
+	private RigidBody rigidBody(Entity e) {
+		return (RigidBody) e.get(RigidBody.class);
+	}
+
+	private Position position(Entity e) {
+		return (Position) e.get(Position.class);
+	}
+
+	public void testEntitiesAreGivenBodies() {
+		Entity e = body(0, 0);
+		assertNull("before update", rigidBody(e).getBody());
+
+		state.update(16);
+		assertTrue("created", rigidBody(e).getBody() != null);
+		assertSame("user data", rigidBody(e), rigidBody(e).getBody().getUserData());
+	}
+
+	public void testEntitiesWithoutASizeWait() {
+		Entity e = new Entity("unsized");
+		e.add(new Position(0, 0));
+		e.add(new RigidBody());
+		e.setActive(true);
+		state.add(e);
+		state.update(16);
+		assertNull("without size", rigidBody(e).getBody());
+
+		e.add(new Size(1, 1));
+		state.update(16);
+		assertTrue("with size", rigidBody(e).getBody() != null);
+	}
+
+	public void testBodiesAreCopiedToPositions() {
+		physics.setInterpolated(false);
+		Entity e = body(60, -30);
+		state.update(100);
+		state.update(100);
+
+		Vec2 bp = rigidBody(e).getBody().getPosition();
+		assertTrue("moved", bp.x > 0 && bp.y < 0);
+		assertEquals("x", bp.x, position(e).getX(), 1e-6);
+		assertEquals("y", bp.y, position(e).getY(), 1e-6);
+	}
+
+	public void testMovedPositionsArePushedIntoBodies() {
+		Entity e = body(0, 0);
+		state.update(16);
+		position(e).set(50, 20);
+		state.update(16);
+
+		Vec2 bp = rigidBody(e).getBody().getPosition();
+		assertEquals("x", 50, bp.x, 1e-4);
+		assertEquals("y", 20, bp.y, 1e-4);
+	}
+
+	public void testBodiesAreDestroyedOnDeactivate() {
+		Entity e = body(10, 0);
+		state.update(16);
+		assertTrue("created", rigidBody(e).getBody() != null);
+
+		e.setActive(false);
+		state.update(16);
+		assertNull("destroyed", rigidBody(e).getBody());
+
+		e.setActive(true);
+		state.update(16);
+		assertTrue("created again", rigidBody(e).getBody() != null);
+	}
+
+	public void testEndingReleasesBodies() {
+		RigidBody r = rigidBody(body(0, 0));
+		state.update(16);
+		state.end();
+		assertNull("released", r.getBody());
+	}
+
+	// the x of the body of an entity, one unit further each step at 60 units a second
+	private double steps(Entity e) {
+		return rigidBody(e).getBody().getPosition().x;
+	}
+
+	public void testUpdatesStepAsManyTimesAsTheElapsedTimeAllows() {
+		physics.setInterpolated(false);
+		Entity e = body(60, 0);
+		state.update(10);
+		assertEquals("below a step", 0, steps(e), 1e-4);
+		assertEquals("alpha", 0.6, physics.getAlpha(), 1e-3);
+
+		state.update(10);
+		assertEquals("carried over", 1, steps(e), 1e-4);
+
+		state.update(50);
+		assertEquals("several steps", 4, steps(e), 1e-4);
+		assertEquals("position", 4, position(e).getX(), 1e-4);
+	}
+
+	public void testTimeBeyondTheSubStepsIsDropped() {
+		physics.setMaxSubSteps(2);
+		Entity e = body(60, 0);
+		state.update(100);
+		assertEquals("capped", 2, steps(e), 1e-4);
+		assertTrue("dropped", physics.getAlpha() < 1);
+
+		state.update(0);
+		assertEquals("not caught up", 2, steps(e), 1e-4);
+	}
+
+	public void testPositionsAreInterpolatedBetweenSteps() {
+		Entity e = body(60, 0);
+		state.update(25);
+		RigidBody r = rigidBody(e);
+		double previous = r.getPreviousX();
+		double current = steps(e);
+		double x = position(e).getX();
+
+		assertEquals("previous", 0, previous, 1e-4);
+		assertEquals("current", 1, current, 1e-4);
+		assertTrue("between", x > previous && x < current);
+		assertEquals("alpha", previous + (current - previous) * physics.getAlpha(), x, 1e-4);
+	}
+
+	public void testSteppingByTheElapsedTime() {
+		physics.setStepTime(0);
+		Entity e = body(60, 0);
+		state.update(50);
+		assertEquals("one step", 3, steps(e), 1e-4);
+		assertEquals("position", 3, position(e).getX(), 1e-4);
+	}
+}
@@ -0,0 +1,90 @@
+package motor_engine.util;
+import motor_engine.Entity;
+import motor_engine.components.*;
+import motor_engine.util.shape.Rectangle;
+import motor_engine.util.vector.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests that the allocation free collision checks agree with the Rectangle checks they replaced, edges included.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class CollisionTest {
+
+	// a fixed seed so failures can be repeated
+	private java.util.Random random = new java.util.Random(7);
+
+	// an entity with a box centred on the given position
+	private Entity box(double x, double y, double w, double h) {
+		Entity e = new Entity("box");
+		e.add(new Position(x, y));
+		e.add(new Size(w, h));
+		return e;
+	}
+
+	// a box on a coarse grid, so edges often touch and line up exactly
+	private Entity randomBox() {
+		return box(random.nextInt(9), random.nextInt(9), 2 * (1 + random.nextInt(4)), 2 * (1 + random.nextInt(4)));
+	}
+
+	private void assertSameAsRectangles(Entity a, Entity b) {
+		Rectangle r1 = Collision.createRectangle(a);
+		Rectangle r2 = Collision.createRectangle(b);
+		String pair = r1.getX() + "," + r1.getY() + " " + r1.getWidth() + "x" + r1.getHeight() + " and "
+			+ r2.getX() + "," + r2.getY() + " " + r2.getWidth() + "x" + r2.getHeight();
+		assertEquals("check " + pair, r1.intersects(r2), Collision.check(a, b));
+		assertEquals("top " + pair, r1.intersectsTop(r2), Collision.checkTop(a, b));
+		assertEquals("bottom " + pair, r1.intersectsBottom(r2), Collision.checkBottom(a, b));
+		assertEquals("left " + pair, r1.intersectsLeft(r2), Collision.checkLeft(a, b));
+		assertEquals("right " + pair, r1.intersectsRight(r2), Collision.checkRight(a, b));
+		ReadableVector2d expected = r1.intersection(r2);
+		Vector2d v = new Vector2d();
+		Collision.getVector(a, b, v);
+		assertEquals("x depth " + pair, expected.getX(), v.getX(), 0);
+		assertEquals("y depth " + pair, expected.getY(), v.getY(), 0);
+	}
+
+	public void testChecksMatchRectangles() {
+		for (int i = 0; i < 5000; i++) {
+			assertSameAsRectangles(randomBox(), randomBox());
+		}
+	}
+
+	public void testTouchingBoxesDoNotCollide() {
+		assertFalse("side by side", Collision.check(box(0, 0, 2, 2), box(2, 0, 2, 2)));
+		assertFalse("corners", Collision.check(box(0, 0, 2, 2), box(2, 2, 2, 2)));
+		assertTrue("overlapping", Collision.check(box(0, 0, 2, 2), box(1.5, 0, 2, 2)));
+		assertTrue("same box", Collision.check(box(0, 0, 2, 2), box(0, 0, 2, 2)));
+	}
+
+	public void testSidesAreABitmask() {
+		Entity block = box(0, 0, 4, 4);
+		assertEquals("from above", Collision.TOP, Collision.getSides(block, box(0, 2.5, 2, 2)));
+		assertEquals("from the left", Collision.LEFT, Collision.getSides(block, box(-2.5, 0, 2, 2)));
+		assertEquals("corner", Collision.TOP | Collision.RIGHT, Collision.getSides(block, box(2.5, 2.5, 2, 2)));
+		assertEquals("covering", Collision.TOP | Collision.BOTTOM | Collision.LEFT | Collision.RIGHT,
+			Collision.getSides(block, box(0, 0, 6, 6)));
+	}
+
+	public void testEntitiesWithoutABoxAreEmptyAtTheOrigin() {
+		Entity none = new Entity("none");
+		none.add(new Position(5, 5));
+		double[] bounds = new double[4];
+		assertFalse("bounds", Collision.getBounds(none, bounds));
+		assertSameAsRectangles(none, box(0, 0, 2, 2));
+		assertSameAsRectangles(box(0, 0, 2, 2), none);
+		assertSameAsRectangles(box(5, 5, 2, 2), none);
+	}
+
+	public void testBoundsAreWrittenAtTheOffset() {
+		double[] bounds = new double[6];
+		assertTrue("bounds", Collision.getBounds(box(3, 4, 2, 6), bounds, 2));
+		assertEquals("left", 2, bounds[2], 0);
+		assertEquals("bottom", 1, bounds[3], 0);
+		assertEquals("right", 4, bounds[4], 0);
+		assertEquals("top", 7, bounds[5], 0);
+		assertEquals("untouched", 0, bounds[0], 0);
+	}
+}
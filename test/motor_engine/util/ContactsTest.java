@@ -0,0 +1,152 @@
+package motor_engine.util;
+import motor_engine.Entity;
+import motor_engine.State;
+import motor_engine.components.*;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests the contact events between types of Entities found by Contacts.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class ContactsTest {
+
+	private State state = new State();
+	private Contacts contacts = state.getContacts();
+
+	// counts the events and remembers the last contacts
+	private static class Recorder implements ContactListener {
+		int began;
+		int stayed;
+		int ended;
+		Entity lastA;
+		Entity lastB;
+		int lastSides;
+
+		public void contactsBegan(ContactList c) {
+			began += c.size();
+			remember(c);
+		}
+
+		public void contactsStayed(ContactList c) {
+			stayed += c.size();
+			remember(c);
+		}
+
+		public void contactsEnded(ContactList c) {
+			ended += c.size();
+			remember(c);
+		}
+
+		private void remember(ContactList c) {
+			if (!c.isEmpty()) {
+				lastA = c.getA(0);
+				lastB = c.getB(0);
+				lastSides = c.getSides(0);
+			}
+		}
+	}
+
+	private Entity box(String type, double x, double y) {
+		Entity e = new Entity(type);
+		e.add(new Position(x, y));
+		e.add(new Size(10, 10));
+		e.setActive(true);
+		state.add(e);
+		return e;
+	}
+
+	private static void moveTo(Entity e, double x, double y) {
+		((Position) e.get(Position.class)).set(x, y);
+	}
+
+	public void testContactBeginsStaysAndEnds() {
+		Recorder r = new Recorder();
+		contacts.subscribe(r, "ball", "wall");
+		Entity ball = box("ball", 0, 0);
+		box("wall", 5, 0);
+
+		contacts.update();
+		assertEquals("began", 1, r.began);
+		contacts.update();
+		assertEquals("stayed", 1, r.stayed);
+		assertEquals("began once", 1, r.began);
+
+		moveTo(ball, -50, 0);
+		contacts.update();
+		assertEquals("ended", 1, r.ended);
+		contacts.update();
+		assertEquals("ended once", 1, r.ended);
+		assertEquals("stayed after ending", 1, r.stayed);
+	}
+
+	public void testFirstEntityIsOfTheFirstType() {
+		Recorder r = new Recorder();
+		contacts.subscribe(r, "wall", "ball");
+		Entity ball = box("ball", 0, 0);
+		Entity wall = box("wall", 5, 0);
+		contacts.update();
+		assertSame("a", wall, r.lastA);
+		assertSame("b", ball, r.lastB);
+	}
+
+	public void testTypesIgnoreCase() {
+		Recorder r = new Recorder();
+		contacts.subscribe(r, "Ball", "WALL");
+		box("ball", 0, 0);
+		box("Wall", 5, 0);
+		contacts.update();
+		assertEquals("began", 1, r.began);
+	}
+
+	public void testOnlySubscribedTypesAreReported() {
+		Recorder r = new Recorder();
+		contacts.subscribe(r, "ball", "wall");
+		box("ball", 0, 0);
+		box("ball", 5, 0);
+		box("cloud", 0, 5);
+		contacts.update();
+		assertEquals("began", 0, r.began);
+	}
+
+	public void testDeactivatingAnEntityEndsItsContacts() {
+		Recorder r = new Recorder();
+		contacts.subscribe(r, "ball", "wall");
+		Entity ball = box("ball", 0, 0);
+		box("wall", 5, 0);
+		contacts.update();
+		ball.setActive(false);
+		contacts.update();
+		assertEquals("ended", 1, r.ended);
+		assertSame("ended entity", ball, r.lastA);
+	}
+
+	public void testSidesOfTheFirstEntityAreReported() {
+		Recorder r = new Recorder();
+		contacts.subscribe(r, "ball", "wall");
+		box("ball", 0, 0);
+		box("wall", 8, 0);
+		contacts.update();
+		assertEquals("wall crosses the right edge of the ball", Collision.RIGHT, r.lastSides);
+	}
+
+	public void testUnsubscribingFromACallbackStopsLaterEvents() {
+		final Recorder r = new Recorder() {
+			public void contactsBegan(ContactList c) {
+				super.contactsBegan(c);
+				contacts.unsubscribe(this);
+			}
+		};
+		contacts.subscribe(r, "ball", "wall");
+		Entity ball = box("ball", 0, 0);
+		box("wall", 5, 0);
+		contacts.update();
+		contacts.update();
+		moveTo(ball, -50, 0);
+		contacts.update();
+		assertEquals("began", 1, r.began);
+		assertEquals("stayed", 0, r.stayed);
+		assertEquals("ended", 0, r.ended);
+	}
+}
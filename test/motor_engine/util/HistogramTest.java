@@ -0,0 +1,153 @@
+package motor_engine.util;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests the percentiles of a Histogram and recording frames into the Telemetry.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class HistogramTest {
+
+	// keeps the allocation of a recorded update from being optimized away
+	private static byte[] allocated;
+
+	private Histogram h = new Histogram();
+
+	// check a percentile is the value expected or at most 1.6% above it
+	private void assertPercentile(double percentile, long expected) {
+		long value = h.getValueAtPercentile(percentile);
+		assertTrue("p" + percentile + " " + value + " below " + expected, value >= expected);
+		assertTrue("p" + percentile + " " + value + " above " + expected, value <= expected + expected * 16 / 1000);
+	}
+
+	public void testSmallValuesAreExact() {
+		for (int i = 1; i <= 100; i++) {
+			h.record(i);
+		}
+		assertEquals("count", 100, h.getCount());
+		assertEquals("p0", 1, h.getValueAtPercentile(0));
+		assertEquals("p50", 50, h.getValueAtPercentile(50));
+		assertEquals("p99", 99, h.getValueAtPercentile(99));
+		assertEquals("p100", 100, h.getValueAtPercentile(100));
+		assertEquals("min", 1, h.getMin());
+		assertEquals("max", 100, h.getMax());
+		assertEquals("mean", 50.5, h.getMean(), 1e-9);
+	}
+
+	public void testLargeValuesAreWithinABucket() {
+		for (int i = 1; i <= 100000; i++) {
+			h.record(i * 1000L);
+		}
+		assertPercentile(50, 50000000L);
+		assertPercentile(90, 90000000L);
+		assertPercentile(99, 99000000L);
+		assertPercentile(99.9, 99900000L);
+		assertEquals("p100", 100000000L, h.getValueAtPercentile(100));
+	}
+
+	public void testPercentilesDoNotExceedTheLargestValue() {
+		h.record(1000001);
+		assertEquals("single", 1000001, h.getValueAtPercentile(50));
+		h.record(Long.MAX_VALUE);
+		assertEquals("largest", Long.MAX_VALUE, h.getValueAtPercentile(100));
+	}
+
+	public void testEmptyAndNegative() {
+		assertEquals("empty p50", 0, h.getValueAtPercentile(50));
+		assertEquals("empty min", 0, h.getMin());
+		assertEquals("empty mean", 0, h.getMean(), 0);
+
+		h.record(-5);
+		assertEquals("negative", 0, h.getMax());
+		assertEquals("count", 1, h.getCount());
+	}
+
+	public void testResetAndAdd() {
+		h.record(10);
+		Histogram other = new Histogram();
+		other.record(1000);
+		other.record(2000);
+		h.add(other);
+		assertEquals("count", 3, h.getCount());
+		assertEquals("min", 10, h.getMin());
+		assertEquals("max", 2000, h.getMax());
+		assertPercentile(50, 1000);
+
+		h.add(new Histogram());
+		assertEquals("min after empty", 10, h.getMin());
+
+		h.reset();
+		assertEquals("reset", 0, h.getCount());
+		assertEquals("reset max", 0, h.getValueAtPercentile(100));
+	}
+
+	public void testRecordingFromManyThreads() throws InterruptedException {
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						h.record(i);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		assertEquals("count", 40000, h.getCount());
+		assertPercentile(50, 4999);
+	}
+
+	// start the telemetry afresh, without a frame in progress
+	private static void restart() {
+		Telemetry.setEnabled(false);
+		Telemetry.endFrame();
+		Telemetry.setEnabled(true);
+		Telemetry.clear();
+		Telemetry.endFrame();
+	}
+
+	public void testTelemetryRecordsFramesAndUpdates() throws InterruptedException {
+		restart();
+		assertEquals("first frame", 0, Telemetry.getFrameTimes().getCount());
+
+		Telemetry.beginUpdate();
+		Thread.sleep(2);
+		allocated = new byte[1 << 20];
+		Telemetry.endUpdate();
+		Telemetry.beginRender();
+		Telemetry.endRender();
+		Telemetry.endFrame();
+
+		assertEquals("frames", 1, Telemetry.getFrameTimes().getCount());
+		assertEquals("updates", 1, Telemetry.getUpdateTimes().getCount());
+		assertEquals("renders", 1, Telemetry.getRenderTimes().getCount());
+		long update = Telemetry.getUpdateTimes().getMax();
+		assertTrue("update time " + update, update >= 2000000);
+		assertTrue("frame time", Telemetry.getFrameTimes().getMax() >= update);
+		assertTrue("allocated", Telemetry.getAllocations().getMax() >= allocated.length);
+	}
+
+	public void testDisabledTelemetryRecordsNothing() {
+		restart();
+		Telemetry.setEnabled(false);
+		try {
+			Telemetry.beginUpdate();
+			Telemetry.endUpdate();
+			Telemetry.endFrame();
+			Telemetry.endFrame();
+		}
+		finally {
+			Telemetry.setEnabled(true);
+		}
+		assertEquals("frames", 0, Telemetry.getFrameTimes().getCount());
+		assertEquals("updates", 0, Telemetry.getUpdateTimes().getCount());
+
+		// an update begun while disabled is not finished once enabled
+		Telemetry.endUpdate();
+		assertEquals("unfinished", 0, Telemetry.getUpdateTimes().getCount());
+	}
+}
@@ -0,0 +1,199 @@
+package motor_engine.util;
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests queueing log messages from many threads and writing them on the writer thread.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class LogTest {
+
+	// the number of messages the buffer holds
+	private static final int CAPACITY = 4096;
+
+	// an output collecting the lines of one category
+	private static class Lines implements Log.Output {
+		String category;
+		ConcurrentLinkedQueue<String> lines = new ConcurrentLinkedQueue<String>();
+		volatile int flushed;
+
+		Lines(String category) {
+			this.category = category;
+		}
+
+		public void write(int level, String category, String line) {
+			if (this.category.equals(category)) {
+				lines.add(line);
+			}
+		}
+
+		public void flush() {
+
+		}
+	}
+
+	// the message of a line, without the time
+	private static String message(String line) {
+		return line.substring(line.indexOf(' ') + 1);
+	}
+
+	public void testMessagesFromManyThreadsAreAllWritten() throws InterruptedException {
+		final Log log = Log.get("test.threads");
+		Lines out = new Lines("test.threads");
+		Log.addOutput(out);
+		long dropped = Log.getDropped();
+		try {
+			Thread[] producers = new Thread[4];
+			for (int t = 0; t < producers.length; t++) {
+				final Integer producer = t;
+				producers[t] = new Thread() {
+					public void run() {
+						for (int i = 0; i < 500; i++) {
+							log.info("{} {}", producer, i);
+						}
+					}
+				};
+				producers[t].start();
+			}
+			for (Thread t : producers) {
+				t.join();
+			}
+			Log.flush();
+		}
+		finally {
+			Log.removeOutput(out);
+		}
+
+		assertEquals("dropped", dropped, Log.getDropped());
+		assertEquals("written", 2000, out.lines.size());
+		HashSet<String> seen = new HashSet<String>();
+		for (String line : out.lines) {
+			assertTrue("duplicate " + line, seen.add(message(line)));
+		}
+		assertTrue("first", seen.contains("INFO test.threads: 0 0"));
+		assertTrue("last", seen.contains("INFO test.threads: 3 499"));
+	}
+
+	public void testMessagesAreDroppedAndCountedWhenTheBufferIsFull() throws InterruptedException {
+		Log log = Log.get("test.full");
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Lines out = new Lines("test.full") {
+			public void write(int level, String category, String line) {
+				super.write(level, category, line);
+				writing.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		Log.addOutput(out);
+		long dropped = Log.getDropped();
+		try {
+			// hold up the writer with the first message, then fill the buffer behind it
+			log.info("blocking");
+			writing.await();
+			for (int i = 0; i < CAPACITY + 50; i++) {
+				log.info("{}", i);
+			}
+			assertEquals("dropped", dropped + 50, Log.getDropped());
+		}
+		finally {
+			release.countDown();
+			Log.flush();
+			Log.removeOutput(out);
+		}
+		assertEquals("written", 1 + CAPACITY, out.lines.size());
+	}
+
+	public void testArgumentsReplaceBracesAndATrailingThrowableIsTraced() {
+		Log log = Log.get("test.format");
+		Lines out = new Lines("test.format");
+		Log.addOutput(out);
+		try {
+			log.warn("{} went {}", "physics", "wrong");
+			log.error("failed {}", "loading", new IllegalStateException("boom"));
+			log.log(Log.ERROR, "{} {} {} {}", 1, 2, 3, 4, new RuntimeException("many"));
+			log.info("no {} here");
+			log.info("{} used", new IllegalArgumentException("an argument"));
+			Log.flush();
+		}
+		finally {
+			Log.removeOutput(out);
+		}
+
+		Iterator<String> lines = out.lines.iterator();
+		assertEquals("arguments", "WARN test.format: physics went wrong", message(lines.next()));
+
+		String[] traced = message(lines.next()).split("\n");
+		assertEquals("traced message", "ERROR test.format: failed loading", traced[0]);
+		assertEquals("trace", "java.lang.IllegalStateException: boom", traced[1]);
+		assertTrue("stack", traced[2].trim().startsWith("at motor_engine.util.LogTest"));
+
+		String[] many = message(lines.next()).split("\n");
+		assertEquals("many arguments", "ERROR test.format: 1 2 3 4", many[0]);
+		assertEquals("many trace", "java.lang.RuntimeException: many", many[1]);
+
+		assertEquals("unused braces", "INFO test.format: no {} here", message(lines.next()));
+		assertEquals("used throwable", "INFO test.format: java.lang.IllegalArgumentException: an argument used",
+			message(lines.next()));
+		assertFalse("more", lines.hasNext());
+	}
+
+	public void testDisabledMessagesAreNotQueued() {
+		Log log = Log.get("test.level");
+		Lines out = new Lines("test.level");
+		Log.addOutput(out);
+		try {
+			Log.setLevel("test.level", Log.WARN);
+			assertFalse("debug", log.isDebug());
+			assertFalse("info", log.isInfo());
+			assertTrue("error", log.isEnabled(Log.ERROR));
+			log.debug("{}", "debug");
+			log.info("info");
+			log.warn("warn");
+			Log.flush();
+		}
+		finally {
+			Log.removeOutput(out);
+			Log.setLevel("test.level", Log.INFO);
+		}
+		assertEquals("written", 1, out.lines.size());
+		assertEquals("warning", "WARN test.level: warn", message(out.lines.peek()));
+	}
+
+	public void testFlushWaitsForTheOutputsToBeFlushed() {
+		Log log = Log.get("test.flush");
+		Lines out = new Lines("test.flush") {
+			public void flush() {
+				flushed = lines.size();
+			}
+		};
+		StringWriter w = new StringWriter();
+		Log.Output writer = Log.addOutput(new BufferedWriter(w));
+		Log.addOutput(out);
+		try {
+			for (int i = 0; i < 100; i++) {
+				log.info("line {}", i);
+			}
+			Log.flush();
+			assertEquals("flushed", 100, out.flushed);
+		}
+		finally {
+			Log.removeOutput(out);
+			Log.removeOutput(writer);
+		}
+		String[] lines = w.toString().split("\n");
+		assertEquals("lines", 100, lines.length);
+		assertEquals("last", "INFO test.flush: line 99", message(lines[99]));
+	}
+}
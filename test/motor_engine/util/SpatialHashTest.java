@@ -0,0 +1,137 @@
+package motor_engine.util;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests the queries of a SpatialHash against checking every box, including after boxes move across the grid.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class SpatialHashTest {
+
+	private SpatialHash hash = new SpatialHash(10);
+	private IntList out = new IntList();
+
+	// the boxes added to the hash by their proxies
+	private double[][] boxes = new double[200][];
+
+	private int add(double x, double y, double w, double h) {
+		int proxy = hash.add(x, y, x + w, y + h);
+		boxes[proxy] = new double[] {x, y, x + w, y + h};
+		return proxy;
+	}
+
+	private void move(int proxy, double x, double y) {
+		double[] b = boxes[proxy];
+		b[2] = x + b[2] - b[0];
+		b[3] = y + b[3] - b[1];
+		b[0] = x;
+		b[1] = y;
+		hash.update(proxy, b[0], b[1], b[2], b[3]);
+	}
+
+	private static boolean overlap(double[] a, double[] b) {
+		return a[0] < b[2] && b[0] < a[2] && a[1] < b[3] && b[1] < a[3];
+	}
+
+	// check the pairs found by the hash are exactly the overlapping ones, each once
+	private void checkPairs(int count) {
+		out.clear();
+		int found = hash.queryPairs(out);
+		assertEquals("pairs listed", found * 2, out.size());
+		boolean[][] seen = new boolean[count][count];
+		for (int i = 0; i < out.size(); i += 2) {
+			int a = out.get(i);
+			int b = out.get(i + 1);
+			assertTrue("lower proxy first", a < b);
+			assertFalse("pair reported twice " + a + " " + b, seen[a][b]);
+			assertTrue("reported pair overlaps " + a + " " + b, overlap(boxes[a], boxes[b]));
+			seen[a][b] = true;
+		}
+		int expected = 0;
+		for (int a = 0; a < count; a++) {
+			for (int b = a + 1; b < count; b++) {
+				if (hash.contains(a) && hash.contains(b) && overlap(boxes[a], boxes[b])) {
+					expected++;
+				}
+			}
+		}
+		assertEquals("pairs", expected, found);
+	}
+
+	public void testRegionFindsOverlappingBoxesOnce() {
+		int small = add(1, 1, 2, 2);
+		int wide = add(5, 5, 30, 3);
+		add(50, 50, 2, 2);
+		hash.queryRegion(0, 0, 12, 12, out);
+		assertEquals("found", 2, out.size());
+		assertTrue("small", out.indexOf(small) >= 0);
+		assertTrue("wide, spanning several cells", out.indexOf(wide) >= 0);
+	}
+
+	public void testRegionDoesNotFindTouchingBoxes() {
+		add(0, 0, 5, 5);
+		assertEquals("found", 0, hash.queryRegion(5, 0, 10, 5, out));
+	}
+
+	public void testPointIncludesEdges() {
+		int p = add(0, 0, 5, 5);
+		assertEquals("inside", 1, hash.queryPoint(2, 2, out));
+		assertEquals("proxy", p, out.get(0));
+		assertEquals("edge", 1, hash.queryPoint(5, 5, new IntList()));
+		assertEquals("outside", 0, hash.queryPoint(6, 5, new IntList()));
+	}
+
+	public void testProxyQueryExcludesItself() {
+		int a = add(0, 0, 5, 5);
+		int b = add(3, 3, 5, 5);
+		assertEquals("found", 1, hash.queryProxy(a, out));
+		assertEquals("other", b, out.get(0));
+	}
+
+	public void testRemovedProxiesAreNotFoundAndAreReused() {
+		int a = add(0, 0, 5, 5);
+		add(1, 1, 5, 5);
+		hash.remove(a);
+		assertFalse("contains", hash.contains(a));
+		assertEquals("size", 1, hash.size());
+		assertEquals("found", 1, hash.queryRegion(0, 0, 10, 10, out));
+		assertEquals("reused", a, add(20, 20, 1, 1));
+	}
+
+	public void testPairsMatchEveryOverlap() {
+		java.util.Random r = new java.util.Random(7);
+		for (int i = 0; i < 100; i++) {
+			add(r.nextDouble() * 100, r.nextDouble() * 100, 1 + r.nextDouble() * 25, 1 + r.nextDouble() * 25);
+		}
+		checkPairs(100);
+	}
+
+	public void testPairsStayCorrectAsBoxesWanderAcrossTheGrid() {
+		java.util.Random r = new java.util.Random(11);
+		for (int i = 0; i < 100; i++) {
+			add(r.nextDouble() * 100, r.nextDouble() * 100, 1 + r.nextDouble() * 15, 1 + r.nextDouble() * 15);
+		}
+		// drift far enough that most cells ever used become empty and are dropped
+		for (int step = 0; step < 300; step++) {
+			for (int p = 0; p < 100; p++) {
+				move(p, boxes[p][0] + 5 + r.nextDouble() * 10, boxes[p][1] + r.nextDouble() * 10 - 5);
+			}
+			if (step % 25 == 0) {
+				checkPairs(100);
+			}
+		}
+		checkPairs(100);
+		out.clear();
+		assertEquals("nothing left at the start", 0, hash.queryRegion(0, 0, 100, 100, out));
+	}
+
+	public void testClearEmptiesTheHash() {
+		add(0, 0, 5, 5);
+		add(1, 1, 5, 5);
+		hash.clear();
+		assertEquals("size", 0, hash.size());
+		assertEquals("pairs", 0, hash.queryPairs(out));
+		assertEquals("region", 0, hash.queryRegion(-100, -100, 100, 100, out));
+	}
+}
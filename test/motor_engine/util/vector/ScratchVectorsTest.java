@@ -0,0 +1,122 @@
+package motor_engine.util.vector;
+import static motor_engine.Assert.*;
+
+/**
+ * Tests borrowing and releasing scratch vectors and the Vectors methods writing into them.
+ *
+ * @author	Garrett Smith
+ * @version	0.1
+ */
+public class ScratchVectorsTest {
+
+	private ScratchVectors scratch = ScratchVectors.get();
+
+	public void testBorrowedVectorsAreDistinctUntilReleased() {
+		int mark = scratch.mark();
+		Vector2d a = scratch.vector2d(1, 2);
+		Vector2d b = scratch.vector2d();
+		assertTrue("distinct", a != b);
+		assertEquals("x", 1, a.getX(), 0);
+		assertEquals("y", 2, a.getY(), 0);
+		scratch.release(mark);
+
+		Vector2d again = scratch.vector2d();
+		assertSame("reused", a, again);
+		assertEquals("cleared x", 0, again.getX(), 0);
+		assertEquals("cleared y", 0, again.getY(), 0);
+		scratch.release(mark);
+	}
+
+	public void testMarksNest() {
+		int outer = scratch.mark();
+		Vector2d kept = scratch.vector2d(5, 5);
+		int inner = scratch.mark();
+		Vector2d inside = scratch.vector2d(7, 7);
+		scratch.release(inner);
+
+		assertSame("inner reused", inside, scratch.vector2d());
+		assertEquals("outer kept", 5, kept.getX(), 0);
+		scratch.release(outer);
+		assertSame("outer reused", kept, scratch.vector2d());
+		scratch.release(outer);
+	}
+
+	public void testMoreVectorsThanTheStackHolds() {
+		int mark = scratch.mark();
+		Vector2d[] borrowed = new Vector2d[40];
+		for (int i = 0; i < borrowed.length; i++) {
+			borrowed[i] = scratch.vector2d(i, -i);
+			for (int j = 0; j < i; j++) {
+				assertTrue("distinct " + j + " " + i, borrowed[j] != borrowed[i]);
+			}
+		}
+		assertEquals("kept", 39, borrowed[39].getX(), 0);
+		scratch.release(mark);
+
+		for (int i = 0; i < borrowed.length; i++) {
+			assertSame("reused " + i, borrowed[i], scratch.vector2d());
+		}
+		scratch.release(mark);
+	}
+
+	public void testTwoAndThreeDimensionalVectorsAreCountedApart() {
+		int mark = scratch.mark();
+		Vector2d a = scratch.vector2d();
+		Vector3d b = scratch.vector3d(1, 2, 3);
+		int inner = scratch.mark();
+		Vector3d c = scratch.vector3d();
+		Vector2d d = scratch.vector2d();
+		scratch.release(inner);
+
+		assertSame("3d reused", c, scratch.vector3d());
+		assertSame("2d reused", d, scratch.vector2d());
+		assertEquals("3d kept", 3, b.getZ(), 0);
+		scratch.release(mark);
+		assertSame("2d first", a, scratch.vector2d());
+		assertSame("3d first", b, scratch.vector3d());
+		scratch.release(mark);
+	}
+
+	public void testEachThreadHasItsOwnVectors() throws InterruptedException {
+		final ScratchVectors[] other = new ScratchVectors[1];
+		Thread t = new Thread() {
+			public void run() {
+				other[0] = ScratchVectors.get();
+			}
+		};
+		t.start();
+		t.join();
+		assertSame("same thread", scratch, ScratchVectors.get());
+		assertTrue("other thread", other[0] != null && other[0] != scratch);
+	}
+
+	public void testVectorsWriteIntoTheOutVector() {
+		int mark = scratch.mark();
+		Vector2d v = new Vector2d(3, -4);
+		Vector2d out = scratch.vector2d();
+
+		assertSame("returned", out, Vectors.multiply(v, 2, out));
+		assertEquals("multiplied", -8, out.getY(), 0);
+		Vectors.add(v, 1, 1, out);
+		assertEquals("added", 4, out.getX(), 0);
+		Vectors.abs(v, out);
+		assertEquals("abs", 4, out.getY(), 0);
+		Vectors.normalize(v, out);
+		assertEquals("normal", 0.6, out.getX(), 1e-12);
+		assertEquals("original", 3, v.getX(), 0);
+
+		// the out vector may be the one given
+		Vectors.negate(v, v);
+		assertEquals("in place", -3, v.getX(), 0);
+		Vectors.constrain(v, -1, 1, v);
+		assertEquals("constrained x", -1, v.getX(), 0);
+		assertEquals("constrained y", 1, v.getY(), 0);
+
+		Vector3d w = scratch.vector3d(1, -2, 2);
+		Vectors.copySign(w, -1, 1, -1, w);
+		assertEquals("signs", -1, w.getX(), 0);
+		assertEquals("signs", 2, w.getY(), 0);
+		assertEquals("signs", -2, w.getZ(), 0);
+		scratch.release(mark);
+	}
+}